@@ -0,0 +1,303 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.assessment.GenericTarget;
+import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
+import com.ibm.ta.sdk.core.util.GenericUtil;
+import com.ibm.ta.sdk.spi.assess.IssueCategoryJson;
+import com.ibm.ta.sdk.spi.collect.Environment;
+import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Data for the benchmarks. The rule set is a subset of the rules of the sample plug-in, in the <i>bench</i>
+ * resources, and the assessment units are generated with a number of records, so the benchmarks could be run for
+ * several data sizes.
+ *
+ * <p>The data is generated from a fixed seed, so each run of a benchmark processes the same data.
+ */
+public class BenchData {
+  public static final String ISSUE_JSON = "issue.json";
+  public static final String ISSUE_CATEGORY_JSON = "issue-category.json";
+  public static final String COMPLEXITY_JSON = "complexity.json";
+  public static final String TARGET_JSON = "target.json";
+
+  private static final String RESOURCE_DIR = "bench/";
+  private static final String RULE_TYPE_JSON = "json";
+  private static final String RULE_TYPE_XML = "xml";
+  private static final long SEED = 1;
+
+  private static final String ENVIRONMENT_JSON = "{\n" +
+          "  \"domain\": \"MQ\",\n" +
+          "  \"operatingSystem\": \"Linux\",\n" +
+          "  \"hostName\": \"bench.example.com\",\n" +
+          "  \"middlewareName\": \"MQ\",\n" +
+          "  \"middlewareVersion\": \"9.1\",\n" +
+          "  \"middlewareInstallPath\": \"/opt/mqm\",\n" +
+          "  \"middlewareDataPath\": \"/var/mqm\",\n" +
+          "  \"assessmentName\": \"Bench\",\n" +
+          "  \"assessmentType\": \"QueueManager\"\n" +
+          "}";
+
+  private static final String[] WORDS = {"<server>", "</server>", "featureManager", "jndiName=\"jdbc/db\"", "INFO",
+          "WARNING", "com.ibm.ws.app.manager", "started", "in", "0.123", "seconds", "password=\"passw0rd\"",
+          "\"password\": \"passw0rd\"", "userName"};
+
+  /**
+   * Copies the rule set to a directory, the rule files of a {@code GenericRecommendation} are read from files.
+   *
+   * @param dir Directory the rule files are copied to
+   * @throws IOException If a rule file could not be copied
+   */
+  public static void writeRuleFiles(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    for (String fileName : new String[]{ISSUE_JSON, ISSUE_CATEGORY_JSON, COMPLEXITY_JSON, TARGET_JSON}) {
+      Files.write(dir.resolve(fileName), readResource(fileName).getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * @return Issue rules of the rule set that are evaluated by the json rule type
+   */
+  public static String getJsonRules() throws IOException {
+    return getRules(RULE_TYPE_JSON);
+  }
+
+  /**
+   * @return Issue rules of the rule set that are evaluated by the xml rule type
+   */
+  public static String getXmlRules() throws IOException {
+    return getRules(RULE_TYPE_XML);
+  }
+
+  /**
+   * @param id Id of an issue rule
+   * @return Issue rule of the rule set
+   */
+  public static JsonObject getRule(String id) throws IOException {
+    for (Object rule : parseRules()) {
+      JsonObject ruleJson = (JsonObject) rule;
+      if (id.equals(ruleJson.get("id").getAsString())) {
+        return ruleJson;
+      }
+    }
+    throw new IllegalArgumentException("No rule in the rule set for id:" + id);
+  }
+
+  private static String getRules(String ruleType) throws IOException {
+    JsonArray rules = new JsonArray();
+    for (Object rule : parseRules()) {
+      JsonObject ruleJson = (JsonObject) rule;
+      if (ruleType.equals(ruleJson.getAsJsonObject("matchCriteria").get("ruleType").getAsString())) {
+        rules.add(ruleJson);
+      }
+    }
+    return rules.toString();
+  }
+
+  private static JsonArray parseRules() throws IOException {
+    return new JsonParser().parse(readResource(ISSUE_JSON)).getAsJsonArray();
+  }
+
+  /**
+   * @return Issue categories of the rule set, by id
+   */
+  public static Map<String, IssueCategory> getIssueCategories() throws IOException {
+    Map<String, IssueCategoryJson> icMap = GenericUtil.getJsonObj(new TypeToken<Map<String, IssueCategoryJson>>(){},
+            readResource(ISSUE_CATEGORY_JSON));
+    Map<String, IssueCategory> issueCategories = new HashMap<>();
+    for (IssueCategory ic : IssueCategoryJson.getIssueCategoryList(icMap)) {
+      issueCategories.put(ic.getId(), ic);
+    }
+    return issueCategories;
+  }
+
+  /**
+   * @return Target of the rule set
+   */
+  public static Target getTarget() throws IOException {
+    return GenericUtil.getJsonObj(new TypeToken<GenericTarget>(){}, readResource(TARGET_JSON));
+  }
+
+  /**
+   * @return Environment of the assessment
+   */
+  public static Environment getEnvironment() {
+    return GsonUtil.getGson().fromJson(ENVIRONMENT_JSON, EnvironmentJson.class).getEnvironment();
+  }
+
+  /**
+   * Writes an assessment unit, with a json data file that has {@code size} channels, and a server.xml that has
+   * {@code size} data sources.
+   *
+   * @param dir Directory the files of the assessment unit are written to
+   * @param name Name of the assessment unit
+   * @param size Number of records in the data of the assessment unit
+   * @return Assessment unit
+   * @throws IOException If the files could not be written
+   */
+  public static GenericAssessmentUnit writeAssessmentUnit(Path dir, String name, int size) throws IOException {
+    Path auDir = dir.resolve(name);
+    Files.createDirectories(auDir);
+    Random random = new Random(SEED);
+
+    StringBuilder data = new StringBuilder();
+    data.append("{\n  \"name\": \"").append(name).append("\",\n  \"channels\": [");
+    for (int i = 0; i < size; i++) {
+      data.append(i == 0 ? "\n" : ",\n");
+      data.append("    {\"name\": \"CHANNEL.").append(i).append("\", \"type\": ").append(random.nextInt(10));
+      data.append(", \"msgexit\": \"").append(random.nextInt(3) == 0 ? "MSGEXIT" + random.nextInt(50) : "");
+      data.append("\", \"sendexit\": \"").append(random.nextInt(3) == 0 ? "SENDEXIT" + random.nextInt(50) : "");
+      data.append("\", \"rcvexit\": \"").append(random.nextInt(5) == 0 ? "RCVEXIT" + random.nextInt(50) : "");
+      data.append("\"}");
+    }
+    data.append("\n  ],\n  \"clusters\": [");
+    int clusters = Math.max(1, size / 10);
+    for (int i = 0; i < clusters; i++) {
+      data.append(i == 0 ? "\n" : ",\n");
+      data.append("    {\"name\": \"CLUSTER.").append(i).append("\", \"fullRepository\": ").append(i % 2 == 0).append("}");
+    }
+    data.append("\n  ]\n}\n");
+    Path dataFile = auDir.resolve(name + ".json");
+    Files.write(dataFile, data.toString().getBytes(StandardCharsets.UTF_8));
+
+    Path serverXml = auDir.resolve("server.xml");
+    try (Writer writer = Files.newBufferedWriter(serverXml, StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<server>\n");
+      for (int i = 0; i < size; i++) {
+        writer.write("    <dataSource id=\"DataSource" + i + "\" jndiName=\"jdbc/db" + i + "\">\n");
+        writer.write("        <connectionManager maxPoolSize=\"" + (random.nextInt(50) + 1) + "\"/>\n");
+        writer.write("    </dataSource>\n");
+      }
+      writer.write("</server>\n");
+    }
+
+    return new GenericAssessmentUnit(name, dataFile, Collections.singletonList(serverXml));
+  }
+
+  /**
+   * Generates lines of text, like configuration and log files, some with passwords to mask.
+   *
+   * @param count Number of lines
+   * @return Lines
+   */
+  public static List<String> getLines(int count) {
+    Random random = new Random(SEED);
+    List<String> lines = new ArrayList<>(count);
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      line.setLength(0);
+      int words = random.nextInt(12) + 1;
+      for (int j = 0; j < words; j++) {
+        line.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+  /**
+   * Writes text files to a directory, in subdirectories of 100 files.
+   *
+   * @param dir Directory the files are written to
+   * @param files Number of files
+   * @param fileSize Size of each file, in bytes
+   * @throws IOException If the files could not be written
+   */
+  public static void writeTextFiles(Path dir, int files, int fileSize) throws IOException {
+    Random random = new Random(SEED);
+    for (int i = 0; i < files; i++) {
+      Path file = dir.resolve("dir" + (i / 100)).resolve("server" + i + ".xml");
+      Files.createDirectories(file.getParent());
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        int written = 0;
+        while (written < fileSize) {
+          String word = WORDS[random.nextInt(WORDS.length)];
+          writer.write(word);
+          writer.write(random.nextInt(8) == 0 ? '\n' : ' ');
+          written += word.length() + 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes binary files that do not compress, like jar files, to a directory.
+   *
+   * @param dir Directory the files are written to
+   * @param files Number of files
+   * @param fileSize Size of each file, in bytes
+   * @throws IOException If the files could not be written
+   */
+  public static void writeBinaryFiles(Path dir, int files, int fileSize) throws IOException {
+    Files.createDirectories(dir);
+    Random random = new Random(SEED);
+    byte[] buf = new byte[64 * 1024];
+    for (int i = 0; i < files; i++) {
+      try (OutputStream os = Files.newOutputStream(dir.resolve("app" + i + ".jar"))) {
+        for (int written = 0; written < fileSize; written += buf.length) {
+          random.nextBytes(buf);
+          os.write(buf, 0, Math.min(buf.length, fileSize - written));
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes a directory, and all its files.
+   *
+   * @param dir Directory to delete
+   * @throws IOException If the directory could not be listed
+   */
+  public static void deleteDir(Path dir) throws IOException {
+    if (dir == null || !Files.exists(dir)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  private static String readResource(String fileName) throws IOException {
+    try (InputStream in = BenchData.class.getClassLoader().getResourceAsStream(RESOURCE_DIR + fileName)) {
+      if (in == null) {
+        throw new IOException("Resource not found:" + RESOURCE_DIR + fileName);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        out.write(buf, 0, n);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
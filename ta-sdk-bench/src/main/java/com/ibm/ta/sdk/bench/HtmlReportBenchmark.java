@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.bench;
+
+import com.google.gson.JsonObject;
+import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.core.report.RecommendationReporter;
+import com.ibm.ta.sdk.spi.assess.RecommendationJson;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the HTML reports of a recommendations.json, one report for each assessment unit and target. The reports
+ * are written to a stream that only counts the bytes, so the benchmark does not measure the file system.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HtmlReportBenchmark {
+
+  private static final int AU_SIZE = 50;
+
+  @Param({"1", "10", "100"})
+  public int assessmentUnits;
+
+  private Path workDir;
+  private JsonObject recommendationJson;
+
+  @Setup
+  public void setup() throws IOException, TAException {
+    workDir = Files.createTempDirectory("reportBenchmark");
+    Path ruleDir = workDir.resolve("rules");
+    BenchData.writeRuleFiles(ruleDir);
+    GenericRecommendation recommendation = new GenericRecommendation("Bench", ruleDir.resolve(BenchData.ISSUE_JSON),
+            ruleDir.resolve(BenchData.ISSUE_CATEGORY_JSON), ruleDir.resolve(BenchData.COMPLEXITY_JSON),
+            ruleDir.resolve(BenchData.TARGET_JSON));
+    List<AssessmentUnit> auList = new ArrayList<>(assessmentUnits);
+    for (int i = 0; i < assessmentUnits; i++) {
+      auList.add(BenchData.writeAssessmentUnit(workDir, "QM" + i, AU_SIZE));
+    }
+    RecommendationJson recJson = new RecommendationJson(recommendation, BenchData.getEnvironment(), auList);
+    recommendationJson = GsonUtil.getGson().toJsonTree(recJson).getAsJsonObject();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    BenchData.deleteDir(workDir);
+  }
+
+  @Benchmark
+  public long generateHTMLReports() throws TAException {
+    CountingOutputStream out = new CountingOutputStream();
+    new RecommendationReporter("Bench", recommendationJson).generateHTMLReports(report -> {
+      try {
+        report.writeTo(out);
+      } catch (IOException e) {
+        throw new TAException(e);
+      }
+    });
+    return out.count;
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
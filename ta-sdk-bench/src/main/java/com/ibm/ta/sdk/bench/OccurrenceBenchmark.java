@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.bench;
+
+import com.ibm.ta.sdk.core.assessment.GenericOccurrence;
+import com.ibm.ta.sdk.core.assessment.IssueRule;
+import com.ibm.ta.sdk.core.assessment.IssueRuleProcessor;
+import com.ibm.ta.sdk.core.detector.json.JsonIssueRuleTypeProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding the occurrences of an issue to a {@link GenericOccurrence}, which keeps the occurrences sorted by the
+ * occurrence attributes of the rule, and counts the unique values. The occurrences are the channel exits of the
+ * MQEXIT01 rule, in random order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OccurrenceBenchmark {
+
+  private static final String RULE_ID = "MQEXIT01";
+  private static final String[] EXIT_TYPES = {"msgexit", "msgretryexit", "rcvexit", "scyexit", "sendexit"};
+
+  @Param({"10", "100", "1000"})
+  public int occurrences;
+
+  private IssueRule issueRule;
+  private List<Map<String, String>> occurrenceValues;
+
+  @Setup
+  public void setup() throws IOException {
+    IssueRuleProcessor processor = new IssueRuleProcessor(BenchData.getJsonRules(), BenchData.getIssueCategories());
+    issueRule = processor.getIssueRule(new JsonIssueRuleTypeProvider(), BenchData.getRule(RULE_ID));
+
+    Random random = new Random(1);
+    occurrenceValues = new ArrayList<>(occurrences);
+    for (int i = 0; i < occurrences; i++) {
+      Map<String, String> occurrence = new LinkedHashMap<>();
+      occurrence.put("channel", "CHANNEL." + i);
+      occurrence.put("exitType", EXIT_TYPES[random.nextInt(EXIT_TYPES.length)]);
+      occurrence.put("exitName", "EXIT" + random.nextInt(Math.max(1, occurrences / 4)));
+      occurrenceValues.add(occurrence);
+    }
+    Collections.shuffle(occurrenceValues, random);
+  }
+
+  @Benchmark
+  public GenericOccurrence addOccurrences() {
+    GenericOccurrence occurrence = new GenericOccurrence(issueRule);
+    occurrence.addOccurences(occurrenceValues);
+    return occurrence;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.bench;
+
+import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.spi.assess.RecommendationJson;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.collect.Environment;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the {@link RecommendationJson} of an assessment, which evaluates the rules of each assessment unit, and
+ * serializing it to the recommendations.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecommendationJsonBenchmark {
+
+  private static final int AU_SIZE = 50;
+
+  @Param({"1", "10", "100"})
+  public int assessmentUnits;
+
+  private Path workDir;
+  private GenericRecommendation recommendation;
+  private Environment environment;
+  private List<AssessmentUnit> auList;
+  private RecommendationJson recommendationJson;
+
+  @Setup
+  public void setup() throws IOException, TAException {
+    workDir = Files.createTempDirectory("recommendationBenchmark");
+    Path ruleDir = workDir.resolve("rules");
+    BenchData.writeRuleFiles(ruleDir);
+    recommendation = new GenericRecommendation("Bench", ruleDir.resolve(BenchData.ISSUE_JSON),
+            ruleDir.resolve(BenchData.ISSUE_CATEGORY_JSON), ruleDir.resolve(BenchData.COMPLEXITY_JSON),
+            ruleDir.resolve(BenchData.TARGET_JSON));
+    environment = BenchData.getEnvironment();
+    auList = new ArrayList<>(assessmentUnits);
+    for (int i = 0; i < assessmentUnits; i++) {
+      auList.add(BenchData.writeAssessmentUnit(workDir, "QM" + i, AU_SIZE));
+    }
+    recommendationJson = new RecommendationJson(recommendation, environment, auList);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    BenchData.deleteDir(workDir);
+  }
+
+  @Benchmark
+  public RecommendationJson construct() throws TAException {
+    return new RecommendationJson(recommendation, environment, auList);
+  }
+
+  @Benchmark
+  public String serialize() {
+    return GsonUtil.getGson().toJson(recommendationJson);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.bench;
+
+import com.ibm.ta.sdk.core.assessment.IssueRuleProcessor;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.recommendation.Issue;
+import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of the issue rules of an assessment unit, by {@link IssueRuleProcessor#processIssues(Target,
+ * AssessmentUnit)}. The json rules query the json data file of the assessment unit, and the xml rules the server.xml
+ * config file, with {@code size} channels and data sources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int size;
+
+  private Path workDir;
+  private Target target;
+  private AssessmentUnit assessmentUnit;
+  private IssueRuleProcessor jsonRuleProcessor;
+  private IssueRuleProcessor xmlRuleProcessor;
+
+  @Setup
+  public void setup() throws IOException {
+    workDir = Files.createTempDirectory("ruleBenchmark");
+    Map<String, IssueCategory> issueCategories = BenchData.getIssueCategories();
+    target = BenchData.getTarget();
+    assessmentUnit = BenchData.writeAssessmentUnit(workDir, "QM1", size);
+    jsonRuleProcessor = new IssueRuleProcessor(BenchData.getJsonRules(), issueCategories);
+    xmlRuleProcessor = new IssueRuleProcessor(BenchData.getXmlRules(), issueCategories);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    BenchData.deleteDir(workDir);
+  }
+
+  @Benchmark
+  public List<Issue> jsonRules() throws TAException {
+    return jsonRuleProcessor.processIssues(target, assessmentUnit);
+  }
+
+  @Benchmark
+  public List<Issue> xmlRules() throws TAException {
+    return xmlRuleProcessor.processIssues(target, assessmentUnit);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.bench;
+
+import com.ibm.ta.sdk.core.collect.TextContextMask;
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Masking the lines of a config file with {@link TextContextMask}, with the kind of regular expressions plug-ins use
+ * to hide passwords.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TextContextMaskBenchmark {
+
+  private static final List<AbstractMap.SimpleEntry<String, String>> REGEXS = Arrays.asList(
+          new AbstractMap.SimpleEntry<>("(\"password\"\\s?:\\s?\").*(\")", "$1" + ContentMask.MASK + "$2"),
+          new AbstractMap.SimpleEntry<>("(password=\")[^\"]*(\")", "$1" + ContentMask.MASK + "$2"),
+          new AbstractMap.SimpleEntry<>("(user|admin)Name", "name"),
+          new AbstractMap.SimpleEntry<>("\\d{4}-\\d{4}", "####-####"));
+
+  @Param({"1000", "10000", "100000"})
+  public int lines;
+
+  private TextContextMask mask;
+  private List<String> content;
+
+  @Setup
+  public void setup() {
+    mask = new TextContextMask(Arrays.asList(".*"), REGEXS);
+    content = BenchData.getLines(lines);
+  }
+
+  @Benchmark
+  public List<String> mask() {
+    return mask.mask(content);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.bench;
+
+import com.ibm.ta.sdk.spi.util.ArchiveIndex;
+import com.ibm.ta.sdk.spi.util.ArchiveOptions;
+import com.ibm.ta.sdk.spi.util.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archiving the output directory of an assessment with {@link Util#zipDir(Path, java.io.File, ArchiveOptions)}, for
+ * each codec and level, on a few mixes of files:
+ * <ul>
+ *   <li>small: many small text files, like the configuration files of an assessment unit</li>
+ *   <li>large: a few large text files, like log files</li>
+ *   <li>binary: a few large files that do not compress, like jar files</li>
+ * </ul>
+ *
+ * <p>{@code size} is the total size of the files, in MB. The archive is deleted before each invocation, so that no
+ * entries are reused from a previous archive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZipDirBenchmark {
+
+  private static final int MB = 1024 * 1024;
+  private static final int SMALL_FILE_SIZE = 4 * 1024;
+  private static final int LARGE_FILES = 4;
+
+  @Param({"small", "large", "binary"})
+  public String mix;
+
+  @Param({"8", "64"})
+  public int size;
+
+  @Param({"gzip", "pgzip", "store"})
+  public String codec;
+
+  @Param({"1", "6"})
+  public int level;
+
+  private Path workDir;
+  private Path dataDir;
+  private Path archiveFile;
+  private ArchiveOptions options;
+
+  @Setup
+  public void setup() throws IOException {
+    workDir = Files.createTempDirectory("zipDirBenchmark");
+    dataDir = workDir.resolve(mix);
+    archiveFile = workDir.resolve(mix + ".tar.gz");
+    switch (mix) {
+      case "small":
+        BenchData.writeTextFiles(dataDir, size * MB / SMALL_FILE_SIZE, SMALL_FILE_SIZE);
+        break;
+      case "large":
+        BenchData.writeTextFiles(dataDir, LARGE_FILES, size * MB / LARGE_FILES);
+        break;
+      case "binary":
+        BenchData.writeBinaryFiles(dataDir, LARGE_FILES, size * MB / LARGE_FILES);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid mix of files:" + mix);
+    }
+
+    options = new ArchiveOptions();
+    options.setCodec(ArchiveOptions.Codec.fromName(codec));
+    options.setLevel(level);
+  }
+
+  @Setup(Level.Invocation)
+  public void deleteArchive() throws IOException {
+    Files.deleteIfExists(archiveFile);
+    Files.deleteIfExists(ArchiveIndex.getIndexFile(archiveFile));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    BenchData.deleteDir(workDir);
+  }
+
+  @Benchmark
+  public Path zipDir() throws IOException {
+    Util.zipDir(archiveFile, dataDir.toFile(), options);
+    return archiveFile;
+  }
+}
@@ -7,10 +7,12 @@
 package com.ibm.ta.sdk.core.assessment;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.ibm.ta.sdk.spi.recommendation.*;
 
 import java.util.*;
 
+@JsonAdapter(GenericIssueTypeAdapter.class)
 public class GenericIssue implements Issue {
     @Expose
     protected String id;
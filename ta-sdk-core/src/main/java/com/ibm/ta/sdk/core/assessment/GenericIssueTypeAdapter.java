@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeFloat;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeString;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeStringList;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeStringMap;
+
+/**
+ * Writes an issue to the recommendations.json, without reflection. The fields are written in the order they are
+ * declared in {@link GenericIssue}. Issues are written only, they are not read back from the recommendations.json.
+ */
+public class GenericIssueTypeAdapter extends TypeAdapter<GenericIssue> {
+
+  @Override
+  public void write(JsonWriter out, GenericIssue value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    writeString(out, "id", value.id);
+    writeString(out, "title", value.title);
+    writeFloat(out, "cost", value.cost);
+    writeFloat(out, "issueOverhead", value.issueOverhead);
+    writeFloat(out, "occurrencesCost", value.occurrencesCost);
+    writeString(out, "complexityRule", value.complexityRule);
+    writeStringList(out, "solutionText", value.solutionText);
+    writeString(out, "severity", value.severity);
+    writeStringMap(out, "occurrencesFields", value.occurrencesFields);
+    out.name("occurrencesCount").value(value.occurrencesCount);
+
+    out.name("occurrences");
+    List<Map<String, String>> occurrences = value.occurrences;
+    if (occurrences == null) {
+      out.nullValue();
+    } else {
+      out.beginArray();
+      for (Map<String, String> occurrence : occurrences) {
+        writeStringMap(out, occurrence);
+      }
+      out.endArray();
+    }
+    out.endObject();
+  }
+
+  @Override
+  public GenericIssue read(JsonReader in) {
+    throw new JsonParseException("Issues could not be read as a GenericIssue, they are created from the issue rules");
+  }
+}
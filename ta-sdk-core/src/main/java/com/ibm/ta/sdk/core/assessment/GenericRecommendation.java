@@ -6,22 +6,35 @@
 
 package com.ibm.ta.sdk.core.assessment;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.detector.IssueRuleTypeProvider;
 import com.ibm.ta.sdk.core.util.GenericUtil;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
 import com.ibm.ta.sdk.spi.assess.ComplexityContributionJson;
 import com.ibm.ta.sdk.spi.assess.IssueCategoryJson;
 import com.ibm.ta.sdk.spi.recommendation.*;
+import com.ibm.ta.sdk.spi.util.HashUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
 
 public class GenericRecommendation implements Recommendation {
   private IssueRuleProcessor rcm;
@@ -30,9 +43,25 @@ public class GenericRecommendation implements Recommendation {
   private List<ComplexityContribution> complexityRules = new ArrayList<ComplexityContribution>();
   private List<IssueCategory> issueCategories = new ArrayList<IssueCategory>();
   private List<Target> targets = new ArrayList<Target>();
+  private String fingerprint;
 
   private static Logger logger = LogManager.getLogger(GenericRecommendation.class.getName());
 
+  // Rule processors by fingerprint, shared by the recommendations with the same rules, such as the recommendations
+  // of the jobs of a batch. The least recently used processors are removed. The processors are kept with a class, and
+  // not in a static map, so that the processors of the rules of a plug-in do not keep its class loader loaded.
+  private static final int MAX_RULE_PROCESSORS = 16;
+  private static final ClassValue<Map<String, IssueRuleProcessor>> ruleProcessors = new ClassValue<Map<String, IssueRuleProcessor>>() {
+    @Override
+    protected Map<String, IssueRuleProcessor> computeValue(Class<?> type) {
+      return Collections.synchronizedMap(new LinkedHashMap<String, IssueRuleProcessor>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IssueRuleProcessor> eldest) {
+          return size() > MAX_RULE_PROCESSORS;
+        }
+      });
+    }
+  };
 
   public GenericRecommendation(String assessmentName, Path issuesFile, Path issuesCatFile, Path complexityFile,
                                Path targetFile) throws IOException {
@@ -55,10 +84,88 @@ public class GenericRecommendation implements Recommendation {
       issueCategoryMap.put(ic.getId(), ic);
     }
 
-    // Issues
-    String issueRulesJson = GenericUtil.readFileToString(issuesFile);
-    rcm = new IssueRuleProcessor(issueRulesJson, issueCategoryMap);
+    // Issues, the rules are parsed once for the same rule files and rule classes
+    JsonArray issueRulesJson = new JsonParser().parse(GenericUtil.readFileToString(issuesFile)).getAsJsonArray();
+    Set<Class<?>> ruleClasses = new LinkedHashSet<Class<?>>();
+    for (IssueRuleTypeProvider ruleProvider : ServiceLoader.load(IssueRuleTypeProvider.class)) {
+      ruleClasses.add(ruleProvider.getClass());
+    }
+    ruleClasses.addAll(RuleClassRegistry.preload(issueRulesJson));
+    fingerprint = getFingerprint(ruleClasses, issuesFile, issuesCatFile, complexityFile, targetFile);
+    Map<String, IssueRuleProcessor> processors = getRuleProcessors(ruleClasses);
+    rcm = processors.get(fingerprint);
+    if (rcm == null) {
+      rcm = new IssueRuleProcessor(issueRulesJson, issueCategoryMap);
+      processors.put(fingerprint, rcm);
+    } else {
+      logger.debug("Reusing issue rules for assessment:" + assessmentName);
+    }
+  }
+
+  /*
+   * The processors of rules that are evaluated with classes of a plug-in class loader, the rule type providers and
+   * the custom rule classes, are kept with the first of these classes. They are removed when the class is unloaded
+   * with its class loader. The processors of rules that are evaluated with the classes of the SDK only are kept with
+   * this class.
+   */
+  private static Map<String, IssueRuleProcessor> getRuleProcessors(Set<Class<?>> ruleClasses) {
+    ClassLoader sdkClassLoader = GenericRecommendation.class.getClassLoader();
+    for (Class<?> ruleClass : ruleClasses) {
+      if (ruleClass.getClassLoader() != sdkClassLoader) {
+        return ruleProcessors.get(ruleClass);
+      }
+    }
+    return ruleProcessors.get(GenericRecommendation.class);
+  }
+
+  // The rule processor of the recommendation, shared by the recommendations with the same fingerprint
+  IssueRuleProcessor getRuleProcessor() {
+    return rcm;
+  }
+
+  /*
+   * The fingerprint is a hash of the rule files, and of the code that evaluates the rules: the version of the SDK, and
+   * the class files of the recommendation, the rule type providers, and the custom rule classes of the plug-in. The
+   * results of a previous assessment are not reused, and parsed rules are not shared, when the rules or the code
+   * that evaluates them change, even if a plug-in is rebuilt without changing its version.
+   */
+  private String getFingerprint(Set<Class<?>> ruleClasses, Path... ruleFiles) throws IOException {
+    MessageDigest digest = HashUtil.getDigest();
+    update(digest, String.valueOf(GenericRecommendation.class.getPackage().getImplementationVersion()));
+    for (Class<?> recClass = getClass(); recClass != Object.class; recClass = recClass.getSuperclass()) {
+      updateClass(digest, recClass);
+    }
+    for (Class<?> ruleClass : ruleClasses) {
+      updateClass(digest, ruleClass);
+    }
+    for (Path ruleFile : ruleFiles) {
+      digest.update(Files.readAllBytes(ruleFile));
+      digest.update((byte) 0);
+    }
+    return HashUtil.toHex(digest.digest());
+  }
+
+  private static void updateClass(MessageDigest digest, Class<?> cls) throws IOException {
+    update(digest, cls.getName());
+    String classFile = "/" + cls.getName().replace('.', '/') + ".class";
+    try (InputStream in = cls.getResourceAsStream(classFile)) {
+      if (in == null) {
+        logger.debug("Class file not found, only the class name is in the fingerprint:" + classFile);
+        return;
+      }
+      byte[] buf = new byte[8192];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        digest.update(buf, 0, n);
+      }
+    }
+    digest.update((byte) 0);
+  }
 
+  // Each value is followed by a separator, so that different values could not have the same hash
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
   }
 
   @Override
@@ -81,6 +188,11 @@ public class GenericRecommendation implements Recommendation {
     return targets;
   }
 
+  @Override
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
   @Override
   public List<Issue> getIssues(Target target, AssessmentUnit assessmentUnit) throws TAException {
 
@@ -8,6 +8,7 @@ package com.ibm.ta.sdk.core.assessment;
 
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.jayway.jsonpath.DocumentContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,6 +16,7 @@ import org.apache.logging.log4j.Logger;
 import java.util.ArrayList;
 import java.util.List;
 
+@JsonAdapter(IssueRuleTypeAdapter.class)
 public class IssueRule {
   private static Logger logger = LogManager.getLogger(IssueRule.class.getName());
 
@@ -53,6 +55,26 @@ public class IssueRule {
 
   private List<String> uniqueKeyValues = new ArrayList<String>();
 
+  public IssueRule() {
+  }
+
+  /*
+   * Copies the fields read from the issue.json, and the match criteria, of a rule. The match criteria are only read,
+   * and are shared with the copy.
+   */
+  IssueRule(IssueRule rule) {
+    this.id = rule.id;
+    this.title = rule.title;
+    this.category = rule.category;
+    this.issueOverhead = rule.issueOverhead;
+    this.occurrencesCost = rule.occurrencesCost;
+    this.solutionText = rule.solutionText;
+    this.severity = rule.severity;
+    this.javaIssue = rule.javaIssue;
+    this.matchCriteria = rule.matchCriteria;
+    this.issueMatchCriteria = rule.issueMatchCriteria;
+  }
+
   public String getId() {
     return id;
   }
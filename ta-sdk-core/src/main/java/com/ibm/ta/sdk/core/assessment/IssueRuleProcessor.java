@@ -21,47 +21,72 @@ import java.util.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Evaluates the issue rules of a recommendation for an assessment unit.
+ *
+ * <p>The rules are parsed, matched to their rule type provider, and their match criteria read, once when the
+ * processor is created. Only the parsed rules and their match criteria are shared, the {@link IssueRule} instances,
+ * that a custom rule class could change, are created each time issues are processed. A rule of the {@link IssueRule}
+ * class is copied from the parsed rule, a rule with a custom <i>javaClass</i> is read again from the parsed json, as
+ * its class could read more fields of the rule. So a processor could be shared by recommendations with the same rules,
+ * and used by several threads at the same time.
+ *
+ * <p>The classes of the custom rules are loaded from the {@link RuleClassRegistry} as the rules are parsed.
+ * {@link GenericRecommendation} preloads them before it creates the processor.
+ */
 public class IssueRuleProcessor {
 
   private static final String ISSUERULE_MATCH_CRITERIA = "matchCriteria";
   private static final String ISSUERULE_PROVIDER = "ruleType";
 
-  private String issuesJson;
   private Map<String, IssueCategory> issueCategories;
+  private List<CompiledRule> compiledRules = new ArrayList<CompiledRule>();
 
-  private ServiceLoader<IssueRuleTypeProvider> serviceLoader = ServiceLoader.load(IssueRuleTypeProvider.class);
   private Map<String, IssueRuleTypeProvider> ruleProviderMap = new HashMap<String, IssueRuleTypeProvider>();
 
   private static Logger logger = LogManager.getLogger(IssueRuleProcessor.class.getName());
 
   public IssueRuleProcessor(String issuesJson, Map<String, IssueCategory> issueCategories) {
-    this.issuesJson = issuesJson;
+    this(new JsonParser().parse(issuesJson).getAsJsonArray(), issueCategories);
+  }
+
+  /**
+   * @param issueRulesJson Issue rules of the issue.json
+   * @param issueCategories Issue categories of the rules, by id
+   */
+  public IssueRuleProcessor(JsonArray issueRulesJson, Map<String, IssueCategory> issueCategories) {
     this.issueCategories = issueCategories;
 
-    // Build map of issue rule providers
-    Iterator<IssueRuleTypeProvider> itIRprovider = serviceLoader.iterator();
+    // Build map of issue rule providers, the service loader is not kept as it references the context class loader
+    Iterator<IssueRuleTypeProvider> itIRprovider = ServiceLoader.load(IssueRuleTypeProvider.class).iterator();
     while (itIRprovider.hasNext()) {
       IssueRuleTypeProvider irProvider = itIRprovider.next();
       logger.debug("Adding issue rule provider:" + irProvider.getName());
       ruleProviderMap.put(irProvider.getName(), irProvider);
     }
+
+    // Parse the rules once, for all the assessment units
+    for (int i = 0; i < issueRulesJson.size(); i++) {
+      JsonObject issueRuleJson = issueRulesJson.get(i).getAsJsonObject();
+      IssueRuleTypeProvider ruleProvider = getIssueRuleProvider(issueRuleJson);
+      IssueRule issueRule = ruleProvider != null ? getIssueRule(ruleProvider, issueRuleJson) : null;
+      compiledRules.add(new CompiledRule(issueRuleJson, ruleProvider, issueRule));
+    }
   }
 
   public List<Issue> processIssues(Target target, AssessmentUnit assessmentUnit) throws TAException {
     List<Issue> issueList = new ArrayList<Issue>();
 
-    JsonArray issueRulesJson = new JsonParser().parse(issuesJson).getAsJsonArray();
-    for (int i = 0; i < issueRulesJson.size(); i++) {
-      JsonObject issueRuleJson = issueRulesJson.get(i).getAsJsonObject();
-      logger.info("Process recommendation rule:" + issueRuleJson.toString());
+    for (CompiledRule compiledRule : compiledRules) {
+      logger.info("Process recommendation rule:" + compiledRule.issueRuleJson.toString());
 
-      IssueRuleTypeProvider ruleProvider = getIssueRuleProvider(issueRuleJson);
+      IssueRuleTypeProvider ruleProvider = compiledRule.ruleProvider;
       if (ruleProvider == null) {
-        logger.error("Rule cannot be processed, no provider found for rule:" + issueRuleJson);
+        logger.error("Rule cannot be processed, no provider found for rule:" + compiledRule.issueRuleJson);
         continue;
       }
 
-      IssueRule issueRule = getIssueRule(ruleProvider, issueRuleJson);
+      IssueRule issueRule = compiledRule.newIssueRule();
       GenericIssue issue = ruleProvider.getIssue(target, assessmentUnit, issueRule);
       issue.setCategory(issueCategories.get(issueRule.getCategory()));
 
@@ -106,4 +131,27 @@ public class IssueRuleProcessor {
     }
     return null;
   }
+
+  // Issue rule matched to its rule type provider, with its match criteria. The json and the parsed rule are only read.
+  private static class CompiledRule {
+    private final JsonObject issueRuleJson;
+    private final IssueRuleTypeProvider ruleProvider;
+    private final IssueRule issueRule;
+
+    CompiledRule(JsonObject issueRuleJson, IssueRuleTypeProvider ruleProvider, IssueRule issueRule) {
+      this.issueRuleJson = issueRuleJson;
+      this.ruleProvider = ruleProvider;
+      this.issueRule = issueRule;
+    }
+
+    // Creates the rule instance for one evaluation of the rule
+    IssueRule newIssueRule() {
+      if (issueRule.getClass() == IssueRule.class) {
+        return new IssueRule(issueRule);
+      }
+      IssueRule customRule = GenericUtil.getJsonObj(new TypeToken<IssueRule>(){}, issueRuleJson);
+      customRule.setMatchCriteria(issueRule.getMatchCriteria());
+      return customRule;
+    }
+  }
 }
@@ -0,0 +1,98 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.ibm.ta.sdk.spi.util.GsonUtil.readFloat;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.readString;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.readStringList;
+
+/**
+ * Reads an issue rule of the issue.json, without reflection. The fields of a rule are only read, they are
+ * {@code Expose(serialize = false)}, so a rule is written as an empty object.
+ *
+ * <p>Only rules of the {@link IssueRule} class are read by this adapter. Rules with a custom <i>javaClass</i> are read
+ * with the adapter for their class, see {@link JavaClassTypeAdapterFactory}.
+ */
+public class IssueRuleTypeAdapter extends TypeAdapter<IssueRule> {
+
+  @Override
+  public void write(JsonWriter out, IssueRule value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.endObject();
+  }
+
+  @Override
+  public IssueRule read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    IssueRule value = new IssueRule();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "id":
+          value.id = readString(in);
+          break;
+        case "title":
+          value.title = readString(in);
+          break;
+        case "category":
+          value.category = readString(in);
+          break;
+        case "issueOverhead":
+          value.issueOverhead = readFloat(in, value.issueOverhead);
+          break;
+        case "occurrencesCost":
+          value.occurrencesCost = readFloat(in, value.occurrencesCost);
+          break;
+        case "solutionText":
+          value.solutionText = readStringList(in);
+          break;
+        case "severity":
+          value.severity = readString(in);
+          break;
+        case "javaIssue":
+          value.javaIssue = readString(in);
+          break;
+        case "matchCriteria":
+          value.matchCriteria = readJsonObject(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return value;
+  }
+
+  private static JsonObject readJsonObject(JsonReader in) throws IOException {
+    JsonElement element = new JsonParser().parse(in);
+    if (element.isJsonNull()) {
+      return null;
+    }
+    if (!element.isJsonObject()) {
+      throw new JsonParseException("Expected an object for matchCriteria, but was:" + element);
+    }
+    return element.getAsJsonObject();
+  }
+}
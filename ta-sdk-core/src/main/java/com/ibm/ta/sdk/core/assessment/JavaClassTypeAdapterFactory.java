@@ -16,33 +16,30 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 public class JavaClassTypeAdapterFactory implements TypeAdapterFactory {
   private static Logger logger = LogManager.getLogger(JavaClassTypeAdapterFactory.class.getName());
 
-  private static final String ISSUE_ATTR_JAVA_CLASS = "javaClass";
-
-  final Map<String, TypeAdapter<?>> nameToDelegate = new LinkedHashMap<String, TypeAdapter<?>>();
-
-
   public <T> TypeAdapter<T> create(final Gson gson, TypeToken<T> type) {
     Class<T> rawType = (Class<T>) type.getRawType();
     if (!rawType.equals(IssueRule.class)) {
       return null;
     }
 
+    // The delegates are shared by the threads that load rule sets. They are kept with each class, and not in a map,
+    // so that the class loader of a plug-in could be unloaded with its rule classes.
+    final ClassValue<TypeAdapter<?>> delegates = new ClassValue<TypeAdapter<?>>() {
+      @Override
+      protected TypeAdapter<?> computeValue(Class<?> javaClass) {
+        return gson.getDelegateAdapter(JavaClassTypeAdapterFactory.this, TypeToken.get(javaClass));
+      }
+    };
+
     return new TypeAdapter<T>() {
       public void write(JsonWriter out, T value) throws IOException {
         String javaClass = value.getClass().getName();
 
-        TypeAdapter<T> delegate = null;
-        try {
-          delegate = (TypeAdapter<T>) getDelegate(gson, javaClass);
-        } catch (ClassNotFoundException e) {
-          throw new TARuntimeException("Failed to serialize to java class:" + javaClass, e);
-        }
+        TypeAdapter<T> delegate = (TypeAdapter<T>) delegates.get(value.getClass());
         if (delegate == null) {
           throw new TARuntimeException("Failed to serialize to java class:" + javaClass);
         }
@@ -53,21 +50,19 @@ public class JavaClassTypeAdapterFactory implements TypeAdapterFactory {
       public T read(JsonReader reader) throws IOException {
         JsonElement jsonElement = Streams.parse(reader);
         String javaClass;
-        JsonElement javaClassJsonElement = jsonElement.getAsJsonObject().get(ISSUE_ATTR_JAVA_CLASS);
+        Class<?> ruleClass;
+        JsonElement javaClassJsonElement = jsonElement.getAsJsonObject().get(RuleClassRegistry.ISSUE_ATTR_JAVA_CLASS);
         if (javaClassJsonElement != null) {
           javaClass = javaClassJsonElement.getAsString();
+          ruleClass = getRuleClass(javaClass);
         } else {
           javaClass = rawType.getName();
+          ruleClass = rawType;
         }
         logger.debug("javaClass:" + javaClass);
 
         @SuppressWarnings("unchecked") // registration requires that subtype extends T
-        TypeAdapter<T> delegate = null;
-        try {
-          delegate = (TypeAdapter<T>) getDelegate(gson, javaClass);
-        } catch (ClassNotFoundException e) {
-          throw new TARuntimeException("Failed to deserialize to java class:" + javaClass, e);
-        }
+        TypeAdapter<T> delegate = (TypeAdapter<T>) delegates.get(ruleClass);
         if (delegate == null) {
           throw new TARuntimeException("Failed to deserialize to java class:" + javaClass);
         }
@@ -76,15 +71,12 @@ public class JavaClassTypeAdapterFactory implements TypeAdapterFactory {
     };
   }
 
-  private TypeAdapter<?> getDelegate(Gson gson, String javaClassName) throws ClassNotFoundException {
-    TypeAdapter<?> delegate = nameToDelegate.get(javaClassName);
-    if (delegate == null) {
-      Class javaClass = Class.forName(javaClassName);
-      delegate = gson.getDelegateAdapter(this, TypeToken.get(javaClass));
-      if (delegate != null) {
-        nameToDelegate.put(javaClassName, delegate);
-      }
+  private Class<?> getRuleClass(String javaClass) {
+    // Rule classes are loaded when the rule set is loaded, see RuleClassRegistry.preload
+    try {
+      return RuleClassRegistry.getRuleClass(javaClass);
+    } catch (TARuntimeException e) {
+      throw new TARuntimeException("Failed to deserialize to java class:" + javaClass, e.getCause());
     }
-    return delegate;
   }
 }
\ No newline at end of file
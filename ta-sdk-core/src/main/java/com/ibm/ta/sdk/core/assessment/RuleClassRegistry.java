@@ -0,0 +1,97 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.ibm.ta.sdk.spi.plugin.TARuntimeException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classes of the custom issue rules, the <i>javaClass</i> of a rule in the issue.json.
+ *
+ * <p>The classes are loaded with the context class loader of the thread, the same class loader the plug-in providers
+ * are loaded with, and are kept for each class loader. The classes referenced by a rule set are loaded when the rule
+ * set is loaded, see {@link #preload(JsonArray)}, so the deserialization of the rules does not load classes. The
+ * registry is shared by the threads that load rule sets.
+ *
+ * <p>The class loaders are weak keys, and the classes weak values, so the registry does not keep the class loader of
+ * a plug-in loaded. A class is kept loaded by its class loader, so a class is in the registry as long as its class
+ * loader is in use.
+ */
+public class RuleClassRegistry {
+  private static Logger logger = LogManager.getLogger(RuleClassRegistry.class.getName());
+
+  public static final String ISSUE_ATTR_JAVA_CLASS = "javaClass";
+
+  private static final Map<ClassLoader, Map<String, WeakReference<Class<? extends IssueRule>>>> ruleClasses =
+          Collections.synchronizedMap(new WeakHashMap<ClassLoader, Map<String, WeakReference<Class<? extends IssueRule>>>>());
+
+  /**
+   * Loads the classes of the custom rules of a rule set.
+   *
+   * @param issueRulesJson Issue rules of the issue.json
+   * @return Classes of the custom rules, in the order of the rules
+   * @throws TARuntimeException If the class of a rule could not be loaded, or is not an {@code IssueRule}
+   */
+  public static Set<Class<? extends IssueRule>> preload(JsonArray issueRulesJson) {
+    Set<Class<? extends IssueRule>> classes = new LinkedHashSet<>();
+    for (JsonElement issueRuleJson : issueRulesJson) {
+      if (!issueRuleJson.isJsonObject()) {
+        continue;
+      }
+      JsonElement javaClassJson = issueRuleJson.getAsJsonObject().get(ISSUE_ATTR_JAVA_CLASS);
+      if (javaClassJson != null && !javaClassJson.isJsonNull()) {
+        classes.add(getRuleClass(javaClassJson.getAsString()));
+      }
+    }
+    return classes;
+  }
+
+  /**
+   * Gets the class of a custom rule, and loads it the first time it is used with the context class loader.
+   *
+   * @param className Name of the class
+   * @return Class of the rule
+   * @throws TARuntimeException If the class could not be loaded, or is not an {@code IssueRule}
+   */
+  public static Class<? extends IssueRule> getRuleClass(String className) {
+    ClassLoader classLoader = getClassLoader();
+    Map<String, WeakReference<Class<? extends IssueRule>>> loaderClasses = ruleClasses.computeIfAbsent(classLoader,
+            cl -> new ConcurrentHashMap<String, WeakReference<Class<? extends IssueRule>>>());
+    WeakReference<Class<? extends IssueRule>> ruleClassRef = loaderClasses.get(className);
+    Class<? extends IssueRule> ruleClass = ruleClassRef != null ? ruleClassRef.get() : null;
+    if (ruleClass == null) {
+      ruleClass = loadRuleClass(className, classLoader);
+      loaderClasses.put(className, new WeakReference<Class<? extends IssueRule>>(ruleClass));
+    }
+    return ruleClass;
+  }
+
+  private static Class<? extends IssueRule> loadRuleClass(String className, ClassLoader classLoader) {
+    logger.debug("Loading issue rule class:" + className);
+    try {
+      return Class.forName(className, true, classLoader).asSubclass(IssueRule.class);
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new TARuntimeException("Failed to load issue rule java class:" + className, e);
+    }
+  }
+
+  private static ClassLoader getClassLoader() {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    return classLoader != null ? classLoader : RuleClassRegistry.class.getClassLoader();
+  }
+}
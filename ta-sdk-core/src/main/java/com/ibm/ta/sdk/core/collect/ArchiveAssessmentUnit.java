@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.collect;
+
+import com.google.gson.JsonObject;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import com.ibm.ta.sdk.spi.collect.DataCollection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assessment unit read from a collection archive by {@link ArchiveDataCollection}.
+ *
+ * <p>The config files are the files collected for the assessment unit, with the original path they were collected
+ * from. The files do not exist on the filesystem, their content is read with {@link #openConfigFile(Path)}. The
+ * config files in the archive are already masked, so the assessment unit has no content masks.
+ */
+public class ArchiveAssessmentUnit implements AssessmentUnit {
+
+  private final String assessmentUnitName;
+  private final ArchiveEntryStore entryStore;
+  private final List<Path> configFileList = new ArrayList<>();
+  private final Map<Path, String> configFileEntries = new HashMap<>();
+  private JsonObject assessmentInfo;
+  private DataCollection dataCollection;
+
+  ArchiveAssessmentUnit(String assessmentUnitName, ArchiveEntryStore entryStore) {
+    this.assessmentUnitName = assessmentUnitName;
+    this.entryStore = entryStore;
+  }
+
+  @Override
+  public String getName() {
+    return assessmentUnitName;
+  }
+
+  public DataCollection getDataCollection() {
+    return dataCollection;
+  }
+
+  void setDataCollection(DataCollection dataCollection) {
+    this.dataCollection = dataCollection;
+  }
+
+  @Override
+  public JsonObject getAssessmentData() {
+    return assessmentInfo;
+  }
+
+  void setAssessmentData(JsonObject assessmentInfo) {
+    this.assessmentInfo = assessmentInfo;
+  }
+
+  @Override
+  public List<Path> getConfigFiles() {
+    return configFileList;
+  }
+
+  void addConfigFile(Path configFile, String entryName) {
+    configFileList.add(configFile);
+    configFileEntries.put(configFile, entryName);
+  }
+
+  @Override
+  public List<ContentMask> getContentMasks() {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public InputStream openConfigFile(Path configFile) throws IOException {
+    // The config files could be replaced by copies in the output dir during assessment
+    if (isLocalConfigFile(configFile)) {
+      return AssessmentUnit.super.openConfigFile(configFile);
+    }
+    return entryStore.open(configFileEntries.get(configFile));
+  }
+
+  @Override
+  public boolean isLocalConfigFile(Path configFile) {
+    String entryName = configFileEntries.get(configFile);
+    return entryName == null || !entryStore.contains(entryName);
+  }
+}
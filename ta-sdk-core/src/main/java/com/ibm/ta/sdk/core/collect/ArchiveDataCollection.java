@@ -0,0 +1,279 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.collect;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.util.GenericUtil;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.collect.DataCollection;
+import com.ibm.ta.sdk.spi.collect.Environment;
+import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.plugin.TARuntimeException;
+import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.util.ArchiveReader;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Data collection read from a collection archive, the <i>[assessment name].tar.gz</i> written by the data collector,
+ * without extracting the archive to the filesystem.
+ *
+ * <p>The archive is read when the collection is used. The environment.json is read on the first call to
+ * {@link #getEnvironment()}, with the archive index if the archive has one. The whole archive is read in a single
+ * pass on the first call to {@link #getAssessmentUnits()}, or with {@link #open()}. The json of each assessment unit
+ * is parsed, and the content of the config files is held in memory or spilled to a temporary directory, see
+ * {@link ArchiveEntryStore}. Rule providers read the config files with
+ * {@link AssessmentUnit#openConfigFile(Path)}. Reports written to the archive by the report stage are ignored.
+ *
+ * <p>The collection should be closed when the assessment is complete, to release the memory and temporary files
+ * used for the config files. A collection that is used after it is closed reads the archive again.
+ */
+public class ArchiveDataCollection implements DataCollection, Closeable {
+  private static Logger logger = LogManager.getLogger(ArchiveDataCollection.class.getName());
+
+  public static final String ARCHIVE_SUFFIX = ".tar.gz";
+
+  private static final String ENVIRONMENT_JSON = "environment.json";
+
+  private final Path archiveFile;
+  private EnvironmentJson envJson;
+
+  // Set when the archive is read, and released when the collection is closed
+  private ArchiveEntryStore entryStore;
+  private List<ArchiveAssessmentUnit> assessmentUnits;
+
+  /**
+   * Creates a collection for a collection archive. The archive is read when the collection is used.
+   *
+   * @param archiveFile Collection archive
+   */
+  public ArchiveDataCollection(Path archiveFile) {
+    this.archiveFile = archiveFile;
+  }
+
+  /**
+   * Gets the collections for all collection archives in a directory, or for a single collection archive. The
+   * archives are not read, each archive is read when its collection is used.
+   *
+   * @param archivePath Collection archive, or a directory with collection archives
+   * @return {@code List} of {@code ArchiveDataCollection}, one for each archive, sorted by archive name
+   * @throws TAException If the directory could not be listed
+   */
+  public static List<ArchiveDataCollection> readAll(Path archivePath) throws TAException {
+    List<Path> archiveFiles;
+    if (Files.isDirectory(archivePath)) {
+      try (Stream<Path> paths = Files.list(archivePath)) {
+        archiveFiles = paths.filter(path -> path.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+                .filter(Files::isRegularFile)
+                .sorted()
+                .collect(Collectors.toList());
+      } catch (IOException e) {
+        throw new TAException("Unable to list collection archives in directory:" + archivePath, e);
+      }
+    } else {
+      archiveFiles = new ArrayList<>();
+      archiveFiles.add(archivePath);
+    }
+
+    List<ArchiveDataCollection> collections = new ArrayList<>();
+    for (Path archiveFile : archiveFiles) {
+      logger.info("Found collection archive:" + archiveFile);
+      collections.add(new ArchiveDataCollection(archiveFile));
+    }
+    return collections;
+  }
+
+  /**
+   * Reads the archive, if it is not read yet. The config files are held until the collection is closed.
+   *
+   * @throws TAException If the archive could not be read, or it is not a collection archive
+   */
+  public synchronized void open() throws TAException {
+    if (assessmentUnits != null) {
+      return;
+    }
+
+    logger.info("Reading collection archive:" + archiveFile);
+    entryStore = new ArchiveEntryStore(archiveFile.toString());
+    try {
+      assessmentUnits = read();
+    } catch (IOException e) {
+      closeQuietly();
+      throw new TAException("Unable to read collection archive:" + archiveFile, e);
+    } catch (TAException e) {
+      closeQuietly();
+      throw e;
+    }
+  }
+
+  private List<ArchiveAssessmentUnit> read() throws IOException, TAException {
+    List<ArchiveAssessmentUnit> assessmentUnits = new ArrayList<>();
+    Map<String, ArchiveAssessmentUnit> auMap = new LinkedHashMap<>();
+    Map<String, byte[]> auJsonMap = new LinkedHashMap<>();
+    int configFileCount = 0;
+
+    // The archive is written as concatenated gzip members
+    try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(
+            new BufferedInputStream(Files.newInputStream(archiveFile)), true))) {
+      TarArchiveEntry entry;
+      while ((entry = tarIn.getNextTarEntry()) != null) {
+        String name = entry.getName();
+        if (entry.isDirectory()) {
+          continue;
+        }
+
+        int auIndex = name.indexOf('/');
+        if (auIndex < 0) {
+          if (ENVIRONMENT_JSON.equals(name)) {
+            envJson = GenericUtil.getJsonObj(new TypeToken<EnvironmentJson>(){}, readString(tarIn));
+          }
+          continue;
+        }
+
+        String auName = name.substring(0, auIndex);
+        String auPath = name.substring(auIndex + 1);
+        if (auName.isEmpty() || auName.equals(".") || auName.equals("..")) {
+          throw new TAException("Entry is not in an assessment unit directory in collection archive " + archiveFile +
+                  ":" + name);
+        }
+        ArchiveAssessmentUnit au = auMap.computeIfAbsent(auName, n -> new ArchiveAssessmentUnit(n, entryStore));
+        if (auPath.equals(auName + ".json")) {
+          auJsonMap.put(auName, IOUtils.toByteArray(tarIn));
+        } else if (!Report.isReportFile(auPath)) {
+          if (entry.isLink()) {
+            // Identical config files are stored once, the other copies are links to the first copy
+            entryStore.putLink(name, entry.getLinkName());
+          } else {
+            entryStore.put(name, tarIn, entry.getSize());
+          }
+          configFileCount++;
+          au.addConfigFile(getConfigFile(name, auPath), name);
+        }
+      }
+    }
+
+    if (envJson == null) {
+      throw new TAException("Collection archive does not contain " + ENVIRONMENT_JSON + ":" + archiveFile);
+    }
+
+    // Only directories with an assessment unit json are assessment units
+    for (ArchiveAssessmentUnit au : auMap.values()) {
+      byte[] auJson = auJsonMap.get(au.getName());
+      if (auJson == null) {
+        logger.debug("Skipping directory without assessment unit json in archive " + archiveFile + ":" + au.getName());
+        continue;
+      }
+      au.setAssessmentData((JsonObject) new JsonParser().parse(new String(auJson, StandardCharsets.UTF_8)));
+      au.setDataCollection(this);
+      assessmentUnits.add(au);
+    }
+    logger.debug("Read " + assessmentUnits.size() + " assessment units and " + configFileCount +
+            " config files from archive:" + archiveFile);
+    return assessmentUnits;
+  }
+
+  // Config files are stored under their original absolute path, in the assessment unit dir. Entries with .., that
+  // could resolve outside the assessment unit dir when the files are copied, are rejected.
+  private Path getConfigFile(String name, String auPath) throws TAException {
+    Path configFile = Paths.get(File.separator + auPath.replace('/', File.separatorChar));
+    for (Path part : configFile) {
+      if ("..".equals(part.toString())) {
+        throw new TAException("Entry is outside the assessment unit directory in collection archive " + archiveFile +
+                ":" + name);
+      }
+    }
+    return configFile.normalize();
+  }
+
+  private static String readString(InputStream in) throws IOException {
+    return new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return Collection archive the data collection is read from
+   */
+  public Path getArchiveFile() {
+    return archiveFile;
+  }
+
+  @Override
+  public String getAssessmentName() {
+    return getEnvironment().getAssessmentName();
+  }
+
+  @Override
+  public synchronized Environment getEnvironment() {
+    if (envJson == null) {
+      // Only the environment.json is read, the archive is read when the assessment units are used
+      try (InputStream in = ArchiveReader.openEntry(archiveFile, ENVIRONMENT_JSON)) {
+        envJson = GenericUtil.getJsonObj(new TypeToken<EnvironmentJson>(){}, readString(in));
+      } catch (NoSuchFileException e) {
+        throw new TARuntimeException("Collection archive does not contain " + ENVIRONMENT_JSON + ":" + archiveFile, e);
+      } catch (IOException e) {
+        throw new TARuntimeException("Unable to read environment of collection archive:" + archiveFile, e);
+      }
+    }
+    return envJson.getEnvironment();
+  }
+
+  @Override
+  public synchronized List<? extends AssessmentUnit> getAssessmentUnits() {
+    try {
+      open();
+    } catch (TAException e) {
+      throw new TARuntimeException(e.getMessage(), e);
+    }
+    return assessmentUnits;
+  }
+
+  /**
+   * Releases the memory and temporary files used for the config files. The environment is kept.
+   *
+   * @throws IOException If the temporary files could not be deleted
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    assessmentUnits = null;
+    if (entryStore != null) {
+      ArchiveEntryStore store = entryStore;
+      entryStore = null;
+      store.close();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (IOException e) {
+      logger.warn("Unable to release config files of archive:" + archiveFile, e);
+    }
+  }
+}
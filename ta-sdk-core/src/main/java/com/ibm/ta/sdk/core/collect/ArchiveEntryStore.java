@@ -0,0 +1,154 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.collect;
+
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Holds the content of the config files read from a collection archive. Content is held in memory while the memory
+ * used by all stores is within {@link #MEMORY_LIMIT_PROPERTY}. Content over the limit, and files larger than
+ * {@link #MEMORY_ENTRY_LIMIT_PROPERTY}, are spilled to files in a temporary directory. The memory and the spill
+ * directory are released when the store is closed.
+ */
+class ArchiveEntryStore implements Closeable {
+  private static Logger logger = LogManager.getLogger(ArchiveEntryStore.class.getName());
+
+  /**
+   * System property for the memory used by the content of config files of all open archives, in bytes.
+   */
+  static final String MEMORY_LIMIT_PROPERTY = "ta.sdk.archive.memoryLimit";
+
+  /**
+   * System property for the largest config file held in memory, in bytes.
+   */
+  static final String MEMORY_ENTRY_LIMIT_PROPERTY = "ta.sdk.archive.memoryEntryLimit";
+
+  private static final long DEFAULT_MEMORY_LIMIT = 64L * 1024 * 1024;
+  private static final long DEFAULT_MEMORY_ENTRY_LIMIT = 4L * 1024 * 1024;
+
+  // Memory used by all open stores
+  private static final AtomicLong memoryUsed = new AtomicLong();
+
+  private final String archiveName;
+  private final Map<String, byte[]> memoryEntries = new HashMap<>();
+  private final Map<String, Path> spilledEntries = new HashMap<>();
+  private final Map<String, String> linkedEntries = new HashMap<>();
+  private long memoryReserved = 0;
+  private Path spillDir;
+
+  ArchiveEntryStore(String archiveName) {
+    this.archiveName = archiveName;
+  }
+
+  /**
+   * Reads the content of a config file into the store.
+   *
+   * @param name Name of the config file entry in the archive
+   * @param in Stream with the content of the config file
+   * @param size Size of the content
+   * @throws IOException If the content could not be read or spilled
+   */
+  void put(String name, InputStream in, long size) throws IOException {
+    if (size <= Long.getLong(MEMORY_ENTRY_LIMIT_PROPERTY, DEFAULT_MEMORY_ENTRY_LIMIT) && reserveMemory(size)) {
+      memoryEntries.put(name, IOUtils.toByteArray(in));
+      return;
+    }
+
+    if (spillDir == null) {
+      spillDir = Files.createTempDirectory("ta-archive");
+      logger.debug("Spilling config files of archive " + archiveName + " to " + spillDir);
+    }
+    Path spillFile = spillDir.resolve(Integer.toString(spilledEntries.size()));
+    Files.copy(in, spillFile, StandardCopyOption.REPLACE_EXISTING);
+    spilledEntries.put(name, spillFile);
+  }
+
+  /**
+   * Adds a config file with the same content as a config file already in the store, from a hard link entry in the
+   * archive. The content is not copied.
+   *
+   * @param name Name of the config file entry in the archive
+   * @param target Name of the entry with the content
+   */
+  void putLink(String name, String target) {
+    linkedEntries.put(name, linkedEntries.getOrDefault(target, target));
+  }
+
+  private boolean reserveMemory(long size) {
+    long limit = Long.getLong(MEMORY_LIMIT_PROPERTY, DEFAULT_MEMORY_LIMIT);
+    long used = memoryUsed.get();
+    while (used + size <= limit) {
+      if (memoryUsed.compareAndSet(used, used + size)) {
+        memoryReserved += size;
+        return true;
+      }
+      used = memoryUsed.get();
+    }
+    return false;
+  }
+
+  /**
+   * @param name Name of a config file entry in the archive
+   * @return true if the content of the config file is in the store
+   */
+  boolean contains(String name) {
+    String target = linkedEntries.getOrDefault(name, name);
+    return memoryEntries.containsKey(target) || spilledEntries.containsKey(target);
+  }
+
+  /**
+   * Opens the content of a config file.
+   *
+   * @param name Name of the config file entry in the archive
+   * @return Stream with the content of the config file
+   * @throws IOException If the config file is not in the store, or the store is closed
+   */
+  InputStream open(String name) throws IOException {
+    String target = linkedEntries.getOrDefault(name, name);
+    byte[] content = memoryEntries.get(target);
+    if (content != null) {
+      return new ByteArrayInputStream(content);
+    }
+    Path spillFile = spilledEntries.get(target);
+    if (spillFile != null) {
+      return Files.newInputStream(spillFile);
+    }
+    throw new NoSuchFileException(name, null, "Config file not found in archive " + archiveName);
+  }
+
+  @Override
+  public void close() throws IOException {
+    memoryEntries.clear();
+    spilledEntries.clear();
+    linkedEntries.clear();
+    memoryUsed.addAndGet(-memoryReserved);
+    memoryReserved = 0;
+
+    if (spillDir != null) {
+      try (Stream<Path> paths = Files.walk(spillDir)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+      spillDir = null;
+    }
+  }
+}
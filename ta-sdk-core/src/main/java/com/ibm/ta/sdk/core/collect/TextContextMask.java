@@ -10,12 +10,18 @@ import com.ibm.ta.sdk.spi.collect.ContentMask;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
+/**
+ * Content mask that replaces the text matching regular expressions in each line of the config files.
+ *
+ * <p>The regular expressions are compiled once, when the mask is created, see {@link TextMaskEngine}. The
+ * replacements are applied in order to each line, with the same result as {@code String.replaceAll}.
+ */
 public class TextContextMask implements ContentMask {
   private List<String> files;
   private List<AbstractMap.SimpleEntry<String, String>> regexs;
+  private TextMaskEngine engine;
 
   public TextContextMask(List<String> files, List<AbstractMap.SimpleEntry<String, String>> regexs) {
     if (files == null) {
@@ -29,6 +35,7 @@ public class TextContextMask implements ContentMask {
     } else {
       this.regexs = regexs;
     }
+    this.engine = new TextMaskEngine(this.regexs);
   }
 
   @Override
@@ -38,15 +45,22 @@ public class TextContextMask implements ContentMask {
 
   @Override
   public List<String> mask(List<String> content) {
-    List<String> outContent = new LinkedList<>();
+    List<String> outContent = new ArrayList<>(content.size());
 
     for (String line : content) {
-      for (AbstractMap.SimpleEntry<String, String> regex : regexs) {
-        line = line.replaceAll(regex.getKey(), regex.getValue());
-      }
-      outContent.add(line);
+      outContent.add(engine.mask(line));
     }
 
     return outContent;
   }
+
+  @Override
+  public boolean isLineMask() {
+    return true;
+  }
+
+  @Override
+  public String maskLine(String line) {
+    return engine.mask(line);
+  }
 }
@@ -0,0 +1,229 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.collect;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the regular expression replacements of a {@link TextContextMask} to lines of text.
+ *
+ * <p>The patterns are compiled once. For each pattern, a literal string that every match must contain is derived
+ * from the start of the pattern where possible, such as <i>"password"</i> for <i>("password"\s?:\s?").*(")</i>. All
+ * the literals are found in a line with a single Aho-Corasick scan, and only the patterns whose literal is in the
+ * line, or that have no literal, are run on the line. Most lines of a config file do not contain any of the
+ * literals, and are returned without running any pattern.
+ *
+ * <p>The replacements are applied in order, each to the result of the previous one, the same as calling
+ * {@code String.replaceAll} for each pattern. If a replacement changes the line, the line is scanned again for the
+ * literals of the remaining patterns.
+ */
+class TextMaskEngine {
+
+  private final List<Pattern> patterns = new ArrayList<>();
+  private final List<String> replacements = new ArrayList<>();
+
+  // Patterns that have no literal, and are run on every line
+  private final BitSet unfilteredPatterns = new BitSet();
+
+  // Aho-Corasick automaton for the literals, state 0 is the root
+  private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+  private final List<Integer> failures = new ArrayList<>();
+  private final List<BitSet> outputs = new ArrayList<>();
+
+  TextMaskEngine(List<AbstractMap.SimpleEntry<String, String>> regexs) {
+    addState();
+    for (AbstractMap.SimpleEntry<String, String> regex : regexs) {
+      int index = patterns.size();
+      patterns.add(Pattern.compile(regex.getKey()));
+      replacements.add(regex.getValue());
+
+      String literal = getRequiredLiteral(regex.getKey());
+      if (literal.isEmpty()) {
+        unfilteredPatterns.set(index);
+      } else {
+        addLiteral(literal, index);
+      }
+    }
+    buildFailures();
+  }
+
+  /**
+   * Applies all the replacements to a line.
+   *
+   * @param line Line to mask
+   * @return Masked line, or the same line if no pattern matched
+   */
+  String mask(String line) {
+    if (patterns.isEmpty()) {
+      return line;
+    }
+
+    BitSet candidates = scan(line);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      Matcher matcher = patterns.get(i).matcher(line);
+      if (!matcher.find()) {
+        continue;
+      }
+      String masked = matcher.replaceAll(replacements.get(i));
+      if (!masked.equals(line)) {
+        line = masked;
+        // The replacement could add or remove the literals of the remaining patterns
+        BitSet remaining = scan(line);
+        remaining.clear(0, i + 1);
+        candidates = remaining;
+      }
+    }
+    return line;
+  }
+
+  // Gets the patterns that could match the line
+  private BitSet scan(String line) {
+    BitSet candidates = (BitSet) unfilteredPatterns.clone();
+    int state = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      Integer next = transitions.get(state).get(c);
+      while (next == null && state != 0) {
+        state = failures.get(state);
+        next = transitions.get(state).get(c);
+      }
+      state = next == null ? 0 : next;
+      candidates.or(outputs.get(state));
+    }
+    return candidates;
+  }
+
+  private int addState() {
+    transitions.add(new HashMap<>());
+    failures.add(0);
+    outputs.add(new BitSet());
+    return transitions.size() - 1;
+  }
+
+  private void addLiteral(String literal, int patternIndex) {
+    int state = 0;
+    for (int i = 0; i < literal.length(); i++) {
+      char c = literal.charAt(i);
+      Integer next = transitions.get(state).get(c);
+      if (next == null) {
+        next = addState();
+        transitions.get(state).put(c, next);
+      }
+      state = next;
+    }
+    outputs.get(state).set(patternIndex);
+  }
+
+  // Sets the failure transition of each state, breadth first, and merges the outputs of the failure states
+  private void buildFailures() {
+    List<Integer> queue = new ArrayList<>(transitions.get(0).values());
+    for (int head = 0; head < queue.size(); head++) {
+      int state = queue.get(head);
+      for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet()) {
+        int next = transition.getValue();
+        queue.add(next);
+
+        int failure = failures.get(state);
+        Integer failureNext = transitions.get(failure).get(transition.getKey());
+        while (failureNext == null && failure != 0) {
+          failure = failures.get(failure);
+          failureNext = transitions.get(failure).get(transition.getKey());
+        }
+        int nextFailure = failureNext == null || failureNext == next ? 0 : failureNext;
+        failures.set(next, nextFailure);
+        outputs.get(next).or(outputs.get(nextFailure));
+      }
+    }
+  }
+
+  /**
+   * Gets a literal string that is in every match of a pattern, taken from the start of the pattern. Only simple
+   * patterns are handled, an empty string is returned for a pattern with alternatives, flags, or a start that is not
+   * a literal.
+   *
+   * @param regex Regular expression
+   * @return Literal that every match contains, or an empty string if no literal could be found
+   */
+  static String getRequiredLiteral(String regex) {
+    // A pattern that skips a literal would not mask a line, so anything that is not simple is not filtered
+    if (regex.indexOf('|') >= 0) {
+      return "";
+    }
+
+    int pos = 0;
+    if (regex.startsWith("^")) {
+      pos++;
+    }
+
+    // Capturing groups that the literal is in, the literal is only required if the groups are required
+    List<Integer> openGroups = new ArrayList<>();
+    while (pos < regex.length() && regex.charAt(pos) == '(' && !regex.startsWith("(?", pos)) {
+      openGroups.add(pos);
+      pos++;
+    }
+
+    StringBuilder literal = new StringBuilder();
+    while (pos < regex.length()) {
+      char c = regex.charAt(pos);
+      if (c == '\\' && pos + 1 < regex.length()) {
+        char escaped = regex.charAt(pos + 1);
+        if (Character.isLetterOrDigit(escaped)) {
+          // Character classes such as \s, and back references
+          break;
+        }
+        literal.append(escaped);
+        pos += 2;
+      } else if (".[]()?*+{}|^$".indexOf(c) >= 0) {
+        break;
+      } else {
+        literal.append(c);
+        pos++;
+      }
+    }
+
+    // A quantifier after the literal applies to the last character
+    if (pos < regex.length() && "?*{".indexOf(regex.charAt(pos)) >= 0 && literal.length() > 0) {
+      literal.setLength(literal.length() - 1);
+    }
+
+    if (!openGroups.isEmpty() && regex.indexOf('[') >= 0) {
+      return "";
+    }
+    for (int groupStart : openGroups) {
+      int groupEnd = findGroupEnd(regex, groupStart);
+      if (groupEnd < 0 || (groupEnd + 1 < regex.length() && "?*{".indexOf(regex.charAt(groupEnd + 1)) >= 0)) {
+        return "";
+      }
+    }
+    return literal.toString();
+  }
+
+  private static int findGroupEnd(String regex, int groupStart) {
+    int depth = 0;
+    for (int i = groupStart; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+        if (depth == 0) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+}
@@ -19,11 +19,12 @@ import com.ibm.ta.sdk.core.assessment.IssueRule;
 import com.ibm.ta.sdk.core.detector.IssueRuleTypeProvider;
 import com.jayway.jsonpath.*;
 import net.minidev.json.JSONArray;
+import org.apache.commons.compress.utils.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -64,9 +65,9 @@ public class JsonIssueRuleTypeProvider implements IssueRuleTypeProvider {
     if (!queryInputFilesMap.isEmpty()) {
       List<Path> matchingConfigFiles = GenericUtil.getMatchingAssessmentUnitConfigFiles(assessmentUnit, queryInputFilesMap);
       for (Path configFile : matchingConfigFiles) {
-        try {
-          logger.debug("Reading config file:" + configFile);
-          String configFileJsonStr = new String(Files.readAllBytes(configFile));
+        logger.debug("Reading config file:" + configFile);
+        try (InputStream configStream = assessmentUnit.openConfigFile(configFile)) {
+          String configFileJsonStr = new String(IOUtils.toByteArray(configStream));
           queryInputJsonList.add(configFileJsonStr);
         } catch (IOException e) {
           throw new TARuntimeException(e);
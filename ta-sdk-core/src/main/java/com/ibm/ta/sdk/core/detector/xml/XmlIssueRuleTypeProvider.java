@@ -21,6 +21,7 @@ import org.apache.logging.log4j.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -63,21 +64,24 @@ public class XmlIssueRuleTypeProvider implements IssueRuleTypeProvider {
                     .filter(path ->path.toString().endsWith(XML_RULE_PROVIDER_NAME))
                     .collect(Collectors.toList());
             for (Path file: xmlFiles) {
-                issue.addOccurences(getOcurrence(file, issueRule));
+                issue.addOccurences(getOcurrence(assessmentUnit, file, issueRule));
             }
         }
 
         return issue;
     }
 
-    private List<Map<String, String>> getOcurrence(Path xmlFilePath,  IssueRule issueRule){
+    private List<Map<String, String>> getOcurrence(AssessmentUnit assessmentUnit, Path xmlFilePath,  IssueRule issueRule){
         List<Map<String, String>> ocMapList = new ArrayList<Map<String, String>>();;
         Map<String, JsonElement> creteria = getIssueMatchCriteria(issueRule.getMatchCriteriaJson()).getQueryPaths();
         logger.debug("matching creteria: "+creteria);
         boolean matches = false;
         try {
             // find match
-            Document xmlDoc = XmlUtils.getXmlDoc(xmlFilePath.toFile());
+            Document xmlDoc;
+            try (InputStream xmlStream = assessmentUnit.openConfigFile(xmlFilePath)) {
+                xmlDoc = XmlUtils.getXmlDoc(xmlStream, xmlFilePath.toUri().toString());
+            }
             for (String detectMethod : creteria.keySet()) {
                 if (detectMethod.equals(DETECT_DTD)){
                     JsonObject detectDtd = creteria.get(DETECT_DTD).getAsJsonObject();
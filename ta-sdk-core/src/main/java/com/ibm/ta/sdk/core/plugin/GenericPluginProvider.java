@@ -11,6 +11,8 @@ import com.ibm.ta.sdk.core.report.RecommendationReporter;
 import com.ibm.ta.sdk.spi.plugin.PluginProvider;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportHandler;
+import com.ibm.ta.sdk.spi.report.ReportType;
 import com.ibm.ta.sdk.spi.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -48,4 +50,47 @@ public abstract class GenericPluginProvider implements PluginProvider {
         throw new TAException(e);
     }
   }
+
+  /**
+   * Generates the HTML reports for an assessment, and passes each report to the {@code handler} as soon as it
+   * is generated. The recommendations.json is read one assessment unit at a time, so that only the data for one
+   * assessment unit is held in memory.
+   *
+   * @param assessmentName Name of the assessment
+   * @param handler Handler that receives each generated report
+   * @throws TAException If the recommendations.json is not found, or the reports could not be generated
+   */
+  protected void getHtmlReport(String assessmentName, ReportHandler handler) throws TAException {
+    getReports(assessmentName, ReportType.HTML, handler);
+  }
+
+  /**
+   * Generates the reports of the given type for an assessment, and passes each report to the {@code handler} as soon
+   * as it is generated. The {@link ReportType#CSV} and {@link ReportType#NDJSON} types generate a single report
+   * for the assessment that contains every occurrence of every issue, one per line.
+   *
+   * @param assessmentName Name of the assessment
+   * @param reportType Type of reports to generate
+   * @param handler Handler that receives each generated report
+   * @throws TAException If the recommendations.json is not found, or the reports could not be generated
+   */
+  protected void getReports(String assessmentName, ReportType reportType, ReportHandler handler) throws TAException {
+    logger.info("Get " + reportType + " report for assessment:" + assessmentName);
+
+    RecommendationReporter reporter;
+    try {
+      reporter = new RecommendationReporter(assessmentName, Util.getRecommendationsJsonFile(assessmentName));
+    } catch (FileNotFoundException e) {
+      // Read the recommendations.json from the archive if the assessment was not extracted
+      File archiveFile = Util.getAssessmentArchiveFile(assessmentName);
+      if (!archiveFile.isFile()) {
+        logger.error("Recommendation.json not found for assessment:" + assessmentName);
+        throw new TAException(e);
+      }
+      logger.info("Reading recommendations.json from archive:" + archiveFile);
+      reporter = new RecommendationReporter(assessmentName, archiveFile.toPath());
+    }
+
+    reporter.generateReports(reportType, handler);
+  }
 }
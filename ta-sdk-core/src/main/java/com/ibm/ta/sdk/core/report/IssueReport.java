@@ -54,16 +54,36 @@ public class IssueReport {
         for (Object occurancesObj : occurancesJA) {
             JsonObject occurancesJO = (JsonObject) occurancesObj;
             Set<String> occurancesJOKeySet = occurancesJO.keySet();
-            Map occurance = new HashMap();
+            Map<String, String> occurance = new LinkedHashMap<>();
             for (String occurancesJOKey : occurancesJOKeySet){
-                occurance.put(occurancesJOKey, occurancesJO.get(occurancesJOKey));
+                JsonElement occuranceValue = occurancesJO.get(occurancesJOKey);
+                occurance.put(occurancesJOKey, occuranceValue.isJsonPrimitive() ? occuranceValue.getAsString() : occuranceValue.toString());
             }
             this.occurances.add(occurance);
         }
 
     }
 
+    // Used by RecommendationReportReader, which reads the issue fields directly from the recommendations.json stream
+    IssueReport(String id, String title, String severity, String cost, String issueOverhead, String occurrencesCount,
+                String occurrencesCost, List<String> solutionTextList, Map<String, String> occurrencesFields,
+                List<Map<String, String>> occurances) {
+        this.id = id;
+        this.title = title;
+        this.severity = severity;
+        this.cost = cost;
+        this.issueOverhead = issueOverhead;
+        this.occurrencesCount = occurrencesCount;
+        this.occurrencesCost = occurrencesCost;
+        this.solutionTextList = solutionTextList;
+        this.occurrencesFields = occurrencesFields;
+        this.occurances = occurances;
+    }
+
 
+    /**
+     * @return The issue JSON this report was created from, or {@code null} if the issue was read from a stream
+     */
     public JsonObject getIssueJO() {
         return issueJO;
     }
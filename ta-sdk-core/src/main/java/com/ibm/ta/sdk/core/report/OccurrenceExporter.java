@@ -0,0 +1,267 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.report;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.ibm.ta.sdk.spi.report.ReportType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exports every occurrence in a recommendations.json as one line, in {@link ReportType#CSV} or
+ * {@link ReportType#NDJSON} format. Each line contains the assessment unit, target, and issue the occurrence
+ * belongs to, and the occurrence itself.
+ *
+ * <p>The recommendations.json is read with a {@link JsonReader}, and each occurrence is written as soon as it is
+ * read, so memory used is constant regardless of the size of the assessment. The attributes of the assessment unit,
+ * target, and issue are taken from the attributes that precede the <i>targets</i>, <i>issues</i>, and
+ * <i>occurrences</i>, which is the order they are written in by the data collector.
+ *
+ * <p>In the CSV format the occurrence is written as a JSON object in the last column, since the occurrence fields
+ * are different for each issue.
+ */
+public class OccurrenceExporter {
+
+    private static Logger logger = LogManager.getLogger(OccurrenceExporter.class.getName());
+
+    private static final String[] COLUMNS = {"assessmentUnit", "productName", "productVersion", "runtime", "platform",
+            "location", "issueCategory", "issueId", "issueTitle", "severity", "cost", "occurrenceIndex", "occurrence"};
+
+    private final ReportType reportType;
+
+    // Attributes of the current assessment unit, target, and issue
+    private String assessmentUnitName;
+    private String productName;
+    private String productVersion;
+    private String runtime;
+    private String platform;
+    private String location;
+    private String issueCategory;
+    private String issueId;
+    private String issueTitle;
+    private String severity;
+    private String cost;
+    private int occurrenceIndex;
+
+    /**
+     * @param reportType Format of the export, {@link ReportType#CSV} or {@link ReportType#NDJSON}
+     */
+    public OccurrenceExporter(ReportType reportType) {
+        if (reportType != ReportType.CSV && reportType != ReportType.NDJSON) {
+            throw new IllegalArgumentException("Report type not supported for occurrence export:" + reportType);
+        }
+        this.reportType = reportType;
+    }
+
+    /**
+     * Reads the recommendations.json from {@code in}, and writes a line for each occurrence to {@code out}. The
+     * streams are not closed.
+     *
+     * @param in Reader for the recommendations.json
+     * @param out Stream the occurrences are written to
+     * @throws IOException If the recommendations.json could not be read, or the occurrences could not be written
+     */
+    public void export(JsonReader in, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (reportType == ReportType.CSV) {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                writer.write(i == 0 ? "" : ",");
+                writer.write(COLUMNS[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("assessmentUnits".equals(in.nextName())) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    readAssessmentUnit(in, writer);
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        writer.flush();
+    }
+
+    private void readAssessmentUnit(JsonReader in, Writer writer) throws IOException {
+        assessmentUnitName = "";
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("name".equals(name)) {
+                assessmentUnitName = readString(in);
+            } else if ("targets".equals(name)) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    readTarget(in, writer);
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        logger.debug("Exported occurrences for assessment unit:" + assessmentUnitName);
+    }
+
+    private void readTarget(JsonReader in, Writer writer) throws IOException {
+        productName = "";
+        productVersion = "";
+        runtime = "";
+        platform = "";
+        location = "";
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "productName":
+                    productName = readString(in);
+                    break;
+                case "productVersion":
+                    productVersion = readString(in);
+                    break;
+                case "runtime":
+                    runtime = readString(in);
+                    break;
+                case "platform":
+                    platform = readString(in);
+                    break;
+                case "location":
+                    location = readString(in);
+                    break;
+                case "issues":
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        issueCategory = in.nextName();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            readIssue(in, writer);
+                        }
+                        in.endArray();
+                    }
+                    in.endObject();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private void readIssue(JsonReader in, Writer writer) throws IOException {
+        issueId = "";
+        issueTitle = "";
+        severity = "";
+        cost = "";
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "id":
+                    issueId = readString(in);
+                    break;
+                case "title":
+                    issueTitle = readString(in);
+                    break;
+                case "severity":
+                    severity = readString(in);
+                    break;
+                case "cost":
+                    cost = readString(in);
+                    break;
+                case "occurrences":
+                    occurrenceIndex = 0;
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        occurrenceIndex++;
+                        writeOccurrence(writer, new JsonParser().parse(in));
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private void writeOccurrence(Writer writer, JsonElement occurrence) throws IOException {
+        if (reportType == ReportType.CSV) {
+            String[] values = {assessmentUnitName, productName, productVersion, runtime, platform, location,
+                    issueCategory, issueId, issueTitle, severity, cost, Integer.toString(occurrenceIndex),
+                    occurrence.toString()};
+            for (int i = 0; i < values.length; i++) {
+                writer.write(i == 0 ? "" : ",");
+                writeCsvValue(writer, values[i]);
+            }
+            writer.write("\r\n");
+        } else {
+            JsonObject line = new JsonObject();
+            line.addProperty(COLUMNS[0], assessmentUnitName);
+            line.addProperty(COLUMNS[1], productName);
+            line.addProperty(COLUMNS[2], productVersion);
+            line.addProperty(COLUMNS[3], runtime);
+            line.addProperty(COLUMNS[4], platform);
+            line.addProperty(COLUMNS[5], location);
+            line.addProperty(COLUMNS[6], issueCategory);
+            line.addProperty(COLUMNS[7], issueId);
+            line.addProperty(COLUMNS[8], issueTitle);
+            line.addProperty(COLUMNS[9], severity);
+            line.addProperty(COLUMNS[10], cost);
+            line.addProperty(COLUMNS[11], occurrenceIndex);
+            line.add(COLUMNS[12], occurrence);
+            writer.write(line.toString());
+            writer.write("\n");
+        }
+    }
+
+    // Writes a CSV value, quoted if it contains a separator, quote, or line break
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // Reads the next value as a string, objects and arrays are returned in their JSON form
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        switch (token) {
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            case BOOLEAN:
+                return String.valueOf(in.nextBoolean());
+            case NULL:
+                in.nextNull();
+                return "";
+            default:
+                return new JsonParser().parse(in).toString();
+        }
+    }
+}
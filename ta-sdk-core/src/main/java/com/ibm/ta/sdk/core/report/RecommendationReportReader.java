@@ -0,0 +1,351 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.report;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.internal.bind.JsonTreeReader;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Reads the report model from a recommendations.json one assessment unit at a time.
+ *
+ * <p>The recommendations.json is read with a {@link JsonReader}, without building a tree for the whole document.
+ * Only the top level attributes that precede the <i>assessmentUnits</i> array, and the assessment unit returned from
+ * {@link #nextAssessmentUnit()}, are held in memory. Memory used for a report is therefore bounded by the size of
+ * the largest assessment unit, instead of the size of the whole assessment.
+ *
+ * <p>A recommendations.json that is already in memory as a {@link JsonObject} is read with a {@link JsonTreeReader}
+ * over the tree, and its assessment units are read one at a time in the same way.
+ *
+ * <p>The <i>issueCategories</i> must precede the <i>assessmentUnits</i>, which is the order they are written in by
+ * the data collector. If they do not, the issue category key is used as the title of the issue category.
+ */
+public class RecommendationReportReader implements Closeable {
+
+    private static Logger logger = LogManager.getLogger(RecommendationReportReader.class.getName());
+
+    private final JsonReader reader;
+    private String domain;
+    private Map<String, String> issueCategories = new HashMap<>();
+    private boolean inAssessmentUnits = false;
+
+    public RecommendationReportReader(Reader in) throws IOException {
+        this(new JsonReader(in));
+    }
+
+    public RecommendationReportReader(JsonObject recommendationJson) throws IOException {
+        this(new JsonTreeReader(recommendationJson));
+    }
+
+    private RecommendationReportReader(JsonReader reader) throws IOException {
+        this.reader = reader;
+        this.reader.beginObject();
+        readTopLevelAttributes();
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return Map of issue category ID to issue category title
+     */
+    public Map<String, String> getIssueCategories() {
+        return issueCategories;
+    }
+
+    public boolean hasNextAssessmentUnit() throws IOException {
+        if (!inAssessmentUnits) {
+            return false;
+        }
+
+        if (reader.hasNext()) {
+            return true;
+        }
+
+        // End of assessment units, read the remaining attributes
+        reader.endArray();
+        inAssessmentUnits = false;
+        readTopLevelAttributes();
+        return false;
+    }
+
+    /**
+     * Reads the next assessment unit, including all targets and issues for the assessment unit.
+     *
+     * @return Next assessment unit
+     * @throws IOException If the recommendations.json could not be read
+     * @throws TAException If a target of the assessment unit has no summary
+     * @throws NoSuchElementException If there are no more assessment units
+     */
+    public AssessmentUnitReport nextAssessmentUnit() throws IOException, TAException {
+        if (!hasNextAssessmentUnit()) {
+            throw new NoSuchElementException("No more assessment units in recommendations.json");
+        }
+
+        AssessmentUnitReport assessmentUnit = null;
+        List<TargetReport> targets = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("name".equals(name)) {
+                assessmentUnit = new AssessmentUnitReport(reader.nextString());
+            } else if ("targets".equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    targets.add(readTarget());
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (assessmentUnit == null) {
+            assessmentUnit = new AssessmentUnitReport(null);
+        }
+        for (TargetReport target : targets) {
+            assessmentUnit.addTarget(target);
+        }
+        logger.debug("Read assessment unit:" + assessmentUnit.getName());
+        return assessmentUnit;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    // Reads the top level attributes until the start of the assessmentUnits array, or the end of the document
+    private void readTopLevelAttributes() throws IOException {
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("domain".equals(name)) {
+                domain = reader.nextString();
+                logger.debug("domain is " + domain);
+            } else if ("issueCategories".equals(name)) {
+                readIssueCategories();
+            } else if ("assessmentUnits".equals(name)) {
+                reader.beginArray();
+                inAssessmentUnits = true;
+                return;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readIssueCategories() throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String issueCatKey = reader.nextName();
+            String issueCatTitle = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("title".equals(reader.nextName())) {
+                    issueCatTitle = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            logger.debug("issueCatKey is " + issueCatKey + "; issueCatTitle is " + issueCatTitle);
+            issueCategories.put(issueCatKey, issueCatTitle);
+        }
+        reader.endObject();
+    }
+
+    private TargetReport readTarget() throws IOException, TAException {
+        String productName = "";
+        String productVersion = "";
+        String runtime = "";
+        String platform = "";
+        String location = "";
+        JsonObject summary = null;
+        List<IssuesSameCategory> issuesSameCategories = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "productName":
+                    productName = reader.nextString();
+                    break;
+                case "productVersion":
+                    productVersion = reader.nextString();
+                    break;
+                case "runtime":
+                    runtime = reader.nextString();
+                    break;
+                case "platform":
+                    platform = reader.nextString();
+                    break;
+                case "location":
+                    location = reader.nextString();
+                    break;
+                case "summary":
+                    // The summary is small, read it as a tree
+                    summary = new JsonParser().parse(reader).getAsJsonObject();
+                    break;
+                case "issues":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        issuesSameCategories.add(readIssuesSameCategory(reader.nextName()));
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        // The summary follows the issues in the target, create the target after all attributes are read
+        JsonObject issuesInSummary = summary == null ? null : summary.getAsJsonObject("issues");
+        JsonObject complexityInSummary = summary == null ? null : summary.getAsJsonObject("complexity");
+        if (issuesInSummary == null || complexityInSummary == null || complexityInSummary.get("score") == null) {
+            throw new TAException("No summary of the issues and complexity for target, productName:" + productName
+                    + ", productVersion:" + productVersion + ", runtime:" + runtime + ", platform:" + platform
+                    + ", location:" + location);
+        }
+        int numOfRedIssues = getIssueCount(issuesInSummary, "severe", "RED");
+        int numOfYellowIssues = getIssueCount(issuesInSummary, "warning", "YELLOW");
+        int numOfGreenIssues = getIssueCount(issuesInSummary, "info", "GREEN");
+        String overallComplexityScore = complexityInSummary.get("score").getAsString();
+
+        TargetReport target = new TargetReport(productName, productVersion, runtime, platform, location, overallComplexityScore, numOfRedIssues, numOfYellowIssues, numOfGreenIssues);
+        target.setIssuesSameCategories(issuesSameCategories);
+        return target;
+    }
+
+    private static int getIssueCount(JsonObject issuesInSummary, String key, String severity) {
+        int count = issuesInSummary.get(key) == null ? 0 : issuesInSummary.get(key).getAsInt();
+        if (count == 0) {
+            count = issuesInSummary.get(severity) == null ? 0 : issuesInSummary.get(severity).getAsInt();
+        }
+        return count;
+    }
+
+    private IssuesSameCategory readIssuesSameCategory(String issuesKey) throws IOException {
+        logger.debug("--issuesKey is " + issuesKey);
+        String issueCategoryTitle = issueCategories.containsKey(issuesKey) ? issueCategories.get(issuesKey) : issuesKey;
+        IssuesSameCategory issuesSameCategory = new IssuesSameCategory(issuesKey, issueCategoryTitle);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            issuesSameCategory.addIssue(readIssue());
+        }
+        reader.endArray();
+        return issuesSameCategory;
+    }
+
+    private IssueReport readIssue() throws IOException {
+        String id = null;
+        String title = null;
+        String severity = null;
+        String cost = null;
+        String issueOverhead = null;
+        String occurrencesCount = null;
+        String occurrencesCost = null;
+        List<String> solutionTextList = new ArrayList<>();
+        Map<String, String> occurrencesFields = new LinkedHashMap<>();
+        List<Map<String, String>> occurrences = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "id":
+                    id = readString();
+                    break;
+                case "title":
+                    title = readString();
+                    break;
+                case "severity":
+                    severity = readString();
+                    break;
+                case "cost":
+                    cost = readString();
+                    break;
+                case "issueOverhead":
+                    issueOverhead = readString();
+                    break;
+                case "occurrencesCount":
+                    occurrencesCount = readString();
+                    break;
+                case "occurrencesCost":
+                    occurrencesCost = readString();
+                    break;
+                case "solutionText":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        solutionTextList.add(readString());
+                    }
+                    reader.endArray();
+                    break;
+                case "occurrencesFields":
+                    readStringMap(occurrencesFields);
+                    break;
+                case "occurrences":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Map<String, String> occurrence = new LinkedHashMap<>();
+                        readStringMap(occurrence);
+                        occurrences.add(occurrence);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new IssueReport(id, title, severity, cost, issueOverhead, occurrencesCount, occurrencesCost,
+                solutionTextList, occurrencesFields, occurrences);
+    }
+
+    private void readStringMap(Map<String, String> map) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            map.put(reader.nextName(), readString());
+        }
+        reader.endObject();
+    }
+
+    // Reads the next value as a string, objects and arrays are returned in their JSON form
+    private String readString() throws IOException {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                JsonElement value = new JsonParser().parse(reader);
+                return value.toString();
+        }
+    }
+}
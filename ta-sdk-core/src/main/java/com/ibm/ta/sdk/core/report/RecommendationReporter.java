@@ -6,17 +6,27 @@
 
 package com.ibm.ta.sdk.core.report;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonParser;
 import com.ibm.ta.sdk.spi.report.ReportGenerator;
 import com.google.gson.JsonObject;
+import com.google.gson.internal.bind.JsonTreeReader;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.plugin.TARuntimeException;
+import com.ibm.ta.sdk.spi.recommendation.Target.LocationType;
+import com.ibm.ta.sdk.spi.recommendation.Target.PlatformType;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportHandler;
+import com.ibm.ta.sdk.spi.report.ReportResource;
 import com.ibm.ta.sdk.spi.report.ReportType;
+import com.ibm.ta.sdk.spi.util.ArchiveReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
 
 public class RecommendationReporter implements ReportGenerator {
@@ -24,151 +34,257 @@ public class RecommendationReporter implements ReportGenerator {
     private static Logger logger = LogManager.getLogger(RecommendationReporter.class.getName());
 
     // HTML templates
+    private static final String RECOMMENDATIONS_JSON_ENTRY = "recommendations.json";
     private static final String TEMPLATE = "/templates/recommendations.template";
     private static final String TEMPLATE_ISSUES_TABLE = "/templates/issuesBelongToSameCategoryTable.template";
     private static final String TEMPLATE_ISSUES_TABLE_ROW = "/templates/issueTableRow.template";
 
     // variables to be replaced in the recommendation template file
-    private static final String ASSESSMENT_UNIT_NAME_VAR = "{ASSESSMENT_UNIT_NAME}";
-    private static final String PRODUCT_NAME_VAR = "{PRODUCT_NAME}";
-    private static final String PRODUCT_VERSION_VAR = "{PRODUCT_VERSION}";
-    private static final String RUNTIME_COLUMN_VAR = "{RUNTIME_COLUMN}";
-    private static final String RUNTIME_HEADER_VAR = "{RUNTIME_HEADER}";
-    private static final String PLATFORM_VAR = "{PLATFORM}";
-    private static final String LOCATION_VAR = "{LOCATION}";
-    private static final String OVERALL_COMPLEXITY_SCORE_VAR = "{OVERALL_COMPLEXITY_SCORE}";
-    private static final String NUM_OF_RED_ISSUES_VAR = "{NUM_OF_RED_ISSUES}";
-    private static final String NUM_OF_YELLOW_ISSUES_VAR = "{NUM_OF_YELLOW_ISSUES}";
-    private static final String NUM_OF_GREEN_ISSUES_VAR = "{NUM_OF_GREEN_ISSUES}";
-    private static final String ISSUE_TABLES_VAR = "{ISSUE_TABLES}";
+    private static final String ASSESSMENT_UNIT_NAME_VAR = "ASSESSMENT_UNIT_NAME";
+    private static final String PRODUCT_NAME_VAR = "PRODUCT_NAME";
+    private static final String PRODUCT_VERSION_VAR = "PRODUCT_VERSION";
+    private static final String RUNTIME_COLUMN_VAR = "RUNTIME_COLUMN";
+    private static final String RUNTIME_HEADER_VAR = "RUNTIME_HEADER";
+    private static final String PLATFORM_VAR = "PLATFORM";
+    private static final String LOCATION_VAR = "LOCATION";
+    private static final String OVERALL_COMPLEXITY_SCORE_VAR = "OVERALL_COMPLEXITY_SCORE";
+    private static final String NUM_OF_RED_ISSUES_VAR = "NUM_OF_RED_ISSUES";
+    private static final String NUM_OF_YELLOW_ISSUES_VAR = "NUM_OF_YELLOW_ISSUES";
+    private static final String NUM_OF_GREEN_ISSUES_VAR = "NUM_OF_GREEN_ISSUES";
+    private static final String ISSUE_TABLES_VAR = "ISSUE_TABLES";
 
     // variables to be replaced in the issues table template file
-    private static final String ISSUE_CATEGORY_TITLE_VAR = "{ISSUE_CATEGORY_TITLE}";
-    private static final String ISSUES_TABLE_BODY_VAR = "{ISSUES_TABLE_BODY}";
+    private static final String ISSUE_CATEGORY_TITLE_VAR = "ISSUE_CATEGORY_TITLE";
+    private static final String ISSUES_TABLE_BODY_VAR = "ISSUES_TABLE_BODY";
 
     // variables to be replaced in the issues table row template file
-    private static final String ISSUE_OCCURANCE_COUNT_VAR = "{ISSUE_OCCURANCE_COUNT}";
-    private static final String ISSUE_ID_VAR = "{ISSUE_ID}";
-    private static final String ISSUE_TITLE_VAR = "{ISSUE_TITLE}";
-    private static final String ISSUE_COST_VAR = "{ISSUE_COST}";
-    private static final String ISSUE_OVERHEAD_VAR = "{ISSUE_OVERHEAD}";
-    private static final String ISSUE_OCCURANCES_COST_VAR = "{ISSUE_OCCURANCES_COST}";
-    private static final String ISSUE_SEVERITY_VAR = "{ISSUE_SEVERITY}";
-    private static final String ISSUE_SOLUTION_TEXT_VAR = "{ISSUE_SOLUTION_TEXT}";
+    private static final String ISSUE_OCCURANCE_COUNT_VAR = "ISSUE_OCCURANCE_COUNT";
+    private static final String ISSUE_ID_VAR = "ISSUE_ID";
+    private static final String ISSUE_TITLE_VAR = "ISSUE_TITLE";
+    private static final String ISSUE_COST_VAR = "ISSUE_COST";
+    private static final String ISSUE_OVERHEAD_VAR = "ISSUE_OVERHEAD";
+    private static final String ISSUE_OCCURANCES_COST_VAR = "ISSUE_OCCURANCES_COST";
+    private static final String ISSUE_SEVERITY_VAR = "ISSUE_SEVERITY";
 
-
-    // template String  used in the issues table
     // exmple of solution text: <ul><li>Update other Cluster members to use the correct IP Addresses after migrating</li></ul>
-    private static final String TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM_VAR = "{TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM}";
-    private static final String TEMPLATE_ISSUES_SOLUTION_TEXT_VAR = "{TEMPLATE_ISSUES_SOLUTION_TEXT}";
-    private static final String TEMPLATE_ISSUES_SOLUTION_TEXT_TEMPLATE = "<ul>" + TEMPLATE_ISSUES_SOLUTION_TEXT_VAR + "</ul>";
-    private static final String TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM_TEMPLATE = "<li>" + TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM_VAR + "</li>";
-
-    //exmplae of occurancesFields: <table><tr><th>cluster</th></tr><tr><td>INVENTORY</td></tr></table>
-    private static final String ISSUE_OCCURANCES_FIELDS_VAR = "{ISSUE_OCCURANCES_FIELDS}";
+    private static final String TEMPLATE_ISSUES_SOLUTION_TEXT_VAR = "TEMPLATE_ISSUES_SOLUTION_TEXT";
 
     //exmplae of occurances: <table><tr><th width="33%">type</th><th width="30%">object</th><th width="30%">osGroup</th></tr>
     //                          <tr><td>channel</td><td>CHANNELNAME</td><td>jc</td></tr>
     //                          <tr><td>queue</td><td>LONDON</td><td>mqm</td></tr>
     //                          <tr><td>queue</td><td>LONDON</td><td>root</td></tr>
     //                      </table>
-    private static final String ISSUE_OCCURANCES_VAR = "{ISSUE_OCCURANCES}";
-    private static final String HIDDEN_ROW_COUNT_VAR = "{HIDDEN_ROW_COUNT}";
-    private static final String ISSUE_OCCURANCES_TABLE_HEADER_VAR = "{ISSUE_OCCURANCES_TABLE_HEADER}";
-    private static final String ISSUE_OCCURANCES_TABLE_BODY_VAR = "{ISSUE_OCCURANCES_TABLE_BODY}";
-    private static final String TEMPLATE_OCCURANCES = "<table>" + ISSUE_OCCURANCES_TABLE_HEADER_VAR + ISSUE_OCCURANCES_TABLE_BODY_VAR + "</table>";
+    private static final String ISSUE_OCCURANCES_VAR = "ISSUE_OCCURANCES";
+    private static final String HIDDEN_ROW_COUNT_VAR = "HIDDEN_ROW_COUNT";
+
+    /**
+     * System property for the default occurrences inline threshold, see {@link #setOccurrencesInlineThreshold(int)}.
+     */
+    public static final String OCCURRENCES_INLINE_THRESHOLD_PROPERTY = "ta.sdk.report.occurrencesInlineThreshold";
+    public static final int DEFAULT_OCCURRENCES_INLINE_THRESHOLD = 1000;
+
+    // Number of occurrences in each occurrences data file
+    private static final int OCCURRENCES_CHUNK_SIZE = 1000;
 
 
     private JsonObject recommendationJson = null;
+    private File recommendationJsonFile = null;
+    private Path archiveFile = null;
     private String assessmentName = null;
+    private int occurrencesInlineThreshold = Integer.getInteger(OCCURRENCES_INLINE_THRESHOLD_PROPERTY, DEFAULT_OCCURRENCES_INLINE_THRESHOLD);
 
     public RecommendationReporter(String assessmentName, JsonObject recommendationJson){
         this.recommendationJson = recommendationJson;
         this.assessmentName = assessmentName;
     }
 
-    @Override
-    public List<Report> generateHTMLReports() throws TAException {
+    /**
+     * Creates a reporter that reads the recommendations.json incrementally, one assessment unit at a time.
+     *
+     * @param assessmentName Name of the assessment
+     * @param recommendationJsonFile recommendations.json file for the assessment
+     */
+    public RecommendationReporter(String assessmentName, File recommendationJsonFile){
+        this.recommendationJsonFile = recommendationJsonFile;
+        this.assessmentName = assessmentName;
+    }
 
-        List generatedHTMLFiles = new ArrayList();
+    /**
+     * Creates a reporter that reads the recommendations.json incrementally from the archive of an assessment, without
+     * extracting the archive. The archive is read with {@link ArchiveReader}, so only the recommendations.json entry
+     * is decompressed if the archive has an index.
+     *
+     * @param assessmentName Name of the assessment
+     * @param archiveFile Archive for the assessment, with a recommendations.json entry
+     */
+    public RecommendationReporter(String assessmentName, Path archiveFile){
+        this.archiveFile = archiveFile;
+        this.assessmentName = assessmentName;
+    }
 
-        String templateStr = loadTemplate(TEMPLATE);
+    public int getOccurrencesInlineThreshold() {
+        return occurrencesInlineThreshold;
+    }
 
-        RecommendationReport recommendation = null;
-        try {
-            recommendation = parseJSON();
-        } catch (Exception e) {
+    /**
+     * Sets the maximum number of occurrences of an issue that are written inline in the HTML report. The occurrences
+     * of issues with more occurrences are written to data files in a directory next to the report, in chunks of
+     * {@value #OCCURRENCES_CHUNK_SIZE} occurrences. The report loads the data files when the occurrences are viewed,
+     * and only renders the rows that are scrolled into view.
+     *
+     * <p>The default is the value of the {@value #OCCURRENCES_INLINE_THRESHOLD_PROPERTY} system property, or
+     * {@value #DEFAULT_OCCURRENCES_INLINE_THRESHOLD} if it is not set.
+     *
+     * @param occurrencesInlineThreshold Maximum number of occurrences written inline
+     */
+    public void setOccurrencesInlineThreshold(int occurrencesInlineThreshold) {
+        this.occurrencesInlineThreshold = occurrencesInlineThreshold;
+    }
+
+    @Override
+    public List<Report> generateHTMLReports() throws TAException {
+        List<Report> generatedHTMLFiles = new ArrayList<>();
+        generateHTMLReports(generatedHTMLFiles::add);
+        return generatedHTMLFiles;
+    }
+
+    /**
+     * Generates the HTML reports for each assessment unit and target. The recommendations.json is read one assessment
+     * unit at a time, and the reports for an assessment unit are passed to the {@code handler} before the next
+     * assessment unit is read.
+     *
+     * @param handler Handler that receives each generated report
+     * @throws TAException If the recommendations.json could not be read, or the reports could not be generated
+     */
+    @Override
+    public void generateHTMLReports(ReportHandler handler) throws TAException {
+        HtmlTemplates templates = new HtmlTemplates(ReportTemplate.load(TEMPLATE), ReportTemplate.load(TEMPLATE_ISSUES_TABLE),
+                ReportTemplate.load(TEMPLATE_ISSUES_TABLE_ROW));
+
+        try (RecommendationReportReader reader = openReportReader()) {
+            while (reader.hasNextAssessmentUnit()) {
+                AssessmentUnitReport assessmentUnit = reader.nextAssessmentUnit();
+                List<Report> htmlFiles = generateHTMLForOneAssessmentUnit(assessmentUnit, templates);
+                for (Report htmlFile : htmlFiles) {
+                    handler.handleReport(htmlFile);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
             logger.error("Failed to generate objects from JSON", e);
             throw new TAException(e);
         }
+    }
 
-        List<Map<String, String>> issueCategories = recommendation.getIssueCategories();
+    /**
+     * Generates the reports of the given type. {@link ReportType#HTML} generates a report for each assessment unit
+     * and target. {@link ReportType#CSV} and {@link ReportType#NDJSON} generate a single report for the assessment,
+     * containing all occurrences, see {@link OccurrenceExporter}. The occurrences are read from the
+     * recommendations.json when the report is written.
+     *
+     * @param reportType Type of reports to generate
+     * @param handler Handler that receives each generated report
+     * @throws TAException If the reports could not be generated
+     */
+    @Override
+    public void generateReports(ReportType reportType, ReportHandler handler) throws TAException {
+        if (reportType == ReportType.HTML) {
+            generateHTMLReports(handler);
+            return;
+        }
 
-        List<AssessmentUnitReport> assessmentUnits = recommendation.getAssessmentUnits();
-        for (AssessmentUnitReport assessmentUnit: assessmentUnits){
-            List<Report> htmlFiles = null;
+        OccurrenceExporter exporter = new OccurrenceExporter(reportType);
+        handler.handleReport(new Report() {
+            @Override
+            public String getAssessmentName() {
+                return assessmentName;
+            }
+
+            @Override
+            public String getAssessmentUnitName() {
+                return null;
+            }
+
+            @Override
+            public com.ibm.ta.sdk.spi.recommendation.Target getTarget() {
+                return null;
+            }
+
+            @Override
+            public ReportType getReportType() {
+                return reportType;
+            }
+
+            @Override
+            public byte[] getReport() {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try {
+                    writeTo(out);
+                } catch (IOException e) {
+                    throw new TARuntimeException("Error generating " + reportType + " report for assessment:" + assessmentName, e);
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                if (archiveFile == null && recommendationJsonFile == null) {
+                    exporter.export(new JsonTreeReader(recommendationJson), out);
+                    return;
+                }
+                try (JsonReader in = openJsonReader()) {
+                    exporter.export(in, out);
+                }
+            }
+        });
+    }
 
-            htmlFiles = generateHTMLForOneAssessmentUnit(assessmentUnit, templateStr, issueCategories);
+    private RecommendationReportReader openReportReader() throws IOException {
+        if (archiveFile != null) {
+            return new RecommendationReportReader(openArchiveReader());
+        }
+        if (recommendationJsonFile != null) {
+            return new RecommendationReportReader(new BufferedReader(new FileReader(recommendationJsonFile)));
+        }
+        return new RecommendationReportReader(recommendationJson);
+    }
 
-            generatedHTMLFiles.addAll(htmlFiles);
+    private JsonReader openJsonReader() throws IOException {
+        if (archiveFile != null) {
+            return new JsonReader(openArchiveReader());
         }
+        return new JsonReader(new BufferedReader(new FileReader(recommendationJsonFile)));
+    }
 
-        return generatedHTMLFiles;
+    private Reader openArchiveReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                ArchiveReader.openEntry(archiveFile, RECOMMENDATIONS_JSON_ENTRY), StandardCharsets.UTF_8));
     }
 
-    private List<Report> generateHTMLForOneAssessmentUnit(AssessmentUnitReport assessmentUnit, String templateStr, List<Map<String, String>> issueCategories) throws TAException {
+    private List<Report> generateHTMLForOneAssessmentUnit(AssessmentUnitReport assessmentUnit, HtmlTemplates templates) {
         List<Report> generatedHTMLs = new ArrayList<Report>();
         List<TargetReport> targets = assessmentUnit.getTargets();
         String assessmentUnitName = assessmentUnit.getName();
-        for (TargetReport target : targets){
-            Report reportHTML = generateHTMLForOneTarget(assessmentUnitName, target, templateStr, issueCategories);
+        List<com.ibm.ta.sdk.spi.recommendation.Target> targetResults = new ArrayList<>();
+        for (TargetReport target : targets) {
+            targetResults.add(toTarget(target));
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            // Reports are named after location and platform, unless another target has the same
+            String reportName = Report.getTargetReportName(targetResults.get(i), targetResults);
+            Report reportHTML = generateHTMLForOneTarget(assessmentUnitName, targets.get(i), targetResults.get(i),
+                    reportName, templates);
             generatedHTMLs.add(reportHTML);
         }
         return generatedHTMLs;
     }
 
-    private Report generateHTMLForOneTarget(String assessmentUnitName, TargetReport target, String templateStr, List<Map<String, String>> issueCategories) throws TAException {
-        String platform = target.getPlatform();
-        String location = target.getLocation();
-        String targetId = assessmentUnitName + "-" + platform + "-" + location;
-
-        String resultStr = templateStr.replace(ASSESSMENT_UNIT_NAME_VAR, assessmentUnitName);
+    private static com.ibm.ta.sdk.spi.recommendation.Target toTarget(TargetReport target) {
         String productName = target.getProductName() != null ? target.getProductName() : "";
-        resultStr = resultStr.replace(PRODUCT_NAME_VAR, productName);
         String productVersion = target.getProductVersion() != null ? target.getProductVersion() : "";
-        resultStr = resultStr.replace(PRODUCT_VERSION_VAR, productVersion);
-        String runTimeColumnTitle = "";
-        String rumtimeColumn = "";
-        if (target.getRuntime() != null && target.getRuntime().trim().length() > 0){
-            runTimeColumnTitle ="<th class=\"col2thru12\">Runtime</th>";
-            rumtimeColumn = "<td class=\"col2thru12\">" + target.getRuntime() + "</td>";
-        }
-        resultStr = resultStr.replace(RUNTIME_HEADER_VAR, runTimeColumnTitle);
-        resultStr = resultStr.replace(RUNTIME_COLUMN_VAR, rumtimeColumn);
-        resultStr = resultStr.replace(PLATFORM_VAR, target.getPlatform());
-        resultStr = resultStr.replace(LOCATION_VAR, target.getLocation()!= null? target.getLocation(): "" );
-        resultStr = resultStr.replace(OVERALL_COMPLEXITY_SCORE_VAR, target.getOverallComplexityScore());
-        resultStr = resultStr.replace(NUM_OF_RED_ISSUES_VAR, new Integer(target.getNumberOfRedIssues()).toString());
-        resultStr = resultStr.replace(NUM_OF_YELLOW_ISSUES_VAR, new Integer(target.getNumberOfYellowIssues()).toString());
-        resultStr = resultStr.replace(NUM_OF_GREEN_ISSUES_VAR, new Integer(target.getNumberOfGreenIssues()).toString());
+        PlatformType platform = getEnumValue(PlatformType.class, target.getPlatform(), PlatformType.Docker);
+        LocationType location = getEnumValue(LocationType.class, target.getLocation(), LocationType.Private);
 
-        logger.debug("\n**************Gen HTML for " + targetId + "******************\n");
-        String issueTablesStr = "";
-        List<IssuesSameCategory> issues = target.getIssuesSameCategory();
-        logger.debug("issues is " + issues);
-        int nextTableRowIndex = 1;
-        for (IssuesSameCategory issuesSameCategory : issues){
-            GenerationResult oneIssueCategoryTableGenResult = genIssueTableForOneCategory(issuesSameCategory, nextTableRowIndex);
-            if (oneIssueCategoryTableGenResult != null) {
-                String oneIssueCategoryTableStr = oneIssueCategoryTableGenResult.getStringResult();
-                issueTablesStr += oneIssueCategoryTableStr;
-                nextTableRowIndex += oneIssueCategoryTableGenResult.getNumberOfIssuesGenerated();
-            }
-        }
-
-        resultStr = resultStr.replace(ISSUE_TABLES_VAR, issueTablesStr);
-
-        com.ibm.ta.sdk.spi.recommendation.Target targetResult = new com.ibm.ta.sdk.spi.recommendation.Target(){
+        return new com.ibm.ta.sdk.spi.recommendation.Target(){
             @Override
             public String getProductName(){
                 return productName;
@@ -186,16 +302,41 @@ public class RecommendationReporter implements ReportGenerator {
 
             @Override
             public PlatformType getPlatform(){
-                return PlatformType.Docker;
+                return platform;
             }
 
             @Override
             public LocationType getLocation(){
-                return LocationType.Private;
+                return location;
             }
         };
+    }
+
+    /*
+     * The HTML for the target is not rendered here. It is written directly to the output stream when the report is
+     * written, see writeHTMLForOneTarget().
+     */
+    private Report generateHTMLForOneTarget(String assessmentUnitName, TargetReport target,
+                                            com.ibm.ta.sdk.spi.recommendation.Target targetResult, String reportName,
+                                            HtmlTemplates templates) {
+        // Occurrences of issues above the inline threshold are written to data files, in a directory named after the report
+        String occurrencesDir = reportName + Report.OCCURRENCES_DIR_SUFFIX;
+        Map<IssueReport, String> occurrencesDataPaths = new IdentityHashMap<>();
+        List<ReportResource> resources = new ArrayList<>();
+        for (IssuesSameCategory issuesSameCategory : target.getIssuesSameCategory()) {
+            for (IssueReport issue : issuesSameCategory.getIssues()) {
+                List<Map<String, String>> occurances = issue.getOccurances();
+                if (occurances != null && occurances.size() > occurrencesInlineThreshold) {
+                    String dataPath = occurrencesDir + "/issue" + (occurrencesDataPaths.size() + 1);
+                    occurrencesDataPaths.put(issue, dataPath);
+                    for (int from = 0; from < occurances.size(); from += OCCURRENCES_CHUNK_SIZE) {
+                        resources.add(new OccurrencesChunk(dataPath, from / OCCURRENCES_CHUNK_SIZE, occurances,
+                                from, Math.min(from + OCCURRENCES_CHUNK_SIZE, occurances.size())));
+                    }
+                }
+            }
+        }
 
-        String finalResultStr = resultStr;
         Report result = new Report() {
             @Override
             public String getAssessmentName() {
@@ -217,232 +358,297 @@ public class RecommendationReporter implements ReportGenerator {
                 return ReportType.HTML;
             }
 
+            @Override
+            public String getName() {
+                return reportName;
+            }
+
             @Override
             public byte[] getReport() {
-                return finalResultStr.getBytes();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try {
+                    writeTo(out);
+                } catch (IOException e) {
+                    throw new TARuntimeException("Error generating HTML report for assessment unit:" + assessmentUnitName, e);
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writeHTMLForOneTarget(writer, assessmentUnitName, target, templates, occurrencesDataPaths);
+                writer.flush();
+            }
+
+            @Override
+            public List<ReportResource> getResources() {
+                return resources;
             }
         };
         return result;
     }
 
+    // Value of an enum in the recommendations.json, or the default for a missing or unknown value
+    private static <E extends Enum<E>> E getEnumValue(Class<E> enumType, String value, E defaultValue) {
+        if (value != null) {
+            for (E enumValue : enumType.getEnumConstants()) {
+                if (enumValue.name().equals(value)) {
+                    return enumValue;
+                }
+            }
+        }
+        return defaultValue;
+    }
 
-    private GenerationResult genIssueTableForOneCategory(IssuesSameCategory issuesSameCategory, int nextTableRowIndex) throws TAException {
-        String issueCategoryTitle = issuesSameCategory.getIssueCategoryTitle();
-        String templateStr = loadTemplate(TEMPLATE_ISSUES_TABLE);
-
-        String resultStr = templateStr.replace(ISSUE_CATEGORY_TITLE_VAR, issueCategoryTitle);
+    private void writeHTMLForOneTarget(Writer writer, String assessmentUnitName, TargetReport target, HtmlTemplates templates,
+                                       Map<IssueReport, String> occurrencesDataPaths) throws IOException {
+        String targetId = assessmentUnitName + "-" + target.getPlatform() + "-" + target.getLocation();
+        logger.debug("\n**************Gen HTML for " + targetId + "******************\n");
+        boolean hasRuntime = target.getRuntime() != null && target.getRuntime().trim().length() > 0;
+
+        templates.template.render(writer, (slot, w) -> {
+            switch (slot) {
+                case ASSESSMENT_UNIT_NAME_VAR:
+                    w.write(assessmentUnitName);
+                    return true;
+                case PRODUCT_NAME_VAR:
+                    w.write(target.getProductName() != null ? target.getProductName() : "");
+                    return true;
+                case PRODUCT_VERSION_VAR:
+                    w.write(target.getProductVersion() != null ? target.getProductVersion() : "");
+                    return true;
+                case RUNTIME_HEADER_VAR:
+                    if (hasRuntime) {
+                        w.write("<th class=\"col2thru12\">Runtime</th>");
+                    }
+                    return true;
+                case RUNTIME_COLUMN_VAR:
+                    if (hasRuntime) {
+                        w.write("<td class=\"col2thru12\">" + target.getRuntime() + "</td>");
+                    }
+                    return true;
+                case PLATFORM_VAR:
+                    w.write(target.getPlatform());
+                    return true;
+                case LOCATION_VAR:
+                    w.write(target.getLocation() != null ? target.getLocation() : "");
+                    return true;
+                case OVERALL_COMPLEXITY_SCORE_VAR:
+                    w.write(target.getOverallComplexityScore());
+                    return true;
+                case NUM_OF_RED_ISSUES_VAR:
+                    w.write(Integer.toString(target.getNumberOfRedIssues()));
+                    return true;
+                case NUM_OF_YELLOW_ISSUES_VAR:
+                    w.write(Integer.toString(target.getNumberOfYellowIssues()));
+                    return true;
+                case NUM_OF_GREEN_ISSUES_VAR:
+                    w.write(Integer.toString(target.getNumberOfGreenIssues()));
+                    return true;
+                case ISSUE_TABLES_VAR:
+                    int nextTableRowIndex = 1;
+                    for (IssuesSameCategory issuesSameCategory : target.getIssuesSameCategory()) {
+                        nextTableRowIndex += writeIssueTableForOneCategory(w, issuesSameCategory, nextTableRowIndex, templates, occurrencesDataPaths);
+                    }
+                    return true;
+                default:
+                    return false;
+            }
+        });
+    }
 
-        String issueTableBodyStr = "";
+    /*
+     * Writes the issues table for one category.
+     * Returns the number of issues in the category.
+     */
+    private int writeIssueTableForOneCategory(Writer writer, IssuesSameCategory issuesSameCategory, int nextTableRowIndex, HtmlTemplates templates,
+                                              Map<IssueReport, String> occurrencesDataPaths) throws IOException {
         List<IssueReport> issues = issuesSameCategory.getIssues();
-        int issueGenerated = 0;
-        for (IssueReport issue : issues) {
-            GenerationResult issueTableResult = genIssueTableRow(issue, nextTableRowIndex);
-            if (issueTableResult != null) {
-                String oneIssueTableRowStr = issueTableResult.getStringResult();
-                issueTableBodyStr += oneIssueTableRowStr;
-                nextTableRowIndex++;
+        templates.issuesTable.render(writer, (slot, w) -> {
+            switch (slot) {
+                case ISSUE_CATEGORY_TITLE_VAR:
+                    w.write(issuesSameCategory.getIssueCategoryTitle());
+                    return true;
+                case ISSUES_TABLE_BODY_VAR:
+                    int rowIndex = nextTableRowIndex;
+                    for (IssueReport issue : issues) {
+                        writeIssueTableRow(w, issue, rowIndex, templates, occurrencesDataPaths.get(issue));
+                        rowIndex++;
+                    }
+                    return true;
+                default:
+                    return false;
             }
-        }
-        resultStr =  resultStr.replace(ISSUES_TABLE_BODY_VAR, issueTableBodyStr);
-        return new GenerationResult(resultStr, issues.size());
+        });
+        return issues.size();
+    }
 
+    private void writeIssueTableRow(Writer writer, IssueReport issue, int nextTableRowIndex, HtmlTemplates templates,
+                                    String occurrencesDataPath) throws IOException {
+        templates.issuesTableRow.render(writer, (slot, w) -> {
+            switch (slot) {
+                case ISSUE_OCCURANCE_COUNT_VAR:
+                    w.write(issue.getOccurrencesCount());
+                    return true;
+                case ISSUE_ID_VAR:
+                    w.write(issue.getId());
+                    return true;
+                case ISSUE_TITLE_VAR:
+                    w.write(issue.getTitle());
+                    return true;
+                case ISSUE_COST_VAR:
+                    w.write(issue.getCost());
+                    return true;
+                case ISSUE_OVERHEAD_VAR:
+                    w.write(issue.getIssueOverhead());
+                    return true;
+                case ISSUE_OCCURANCES_COST_VAR:
+                    w.write(issue.getOccurancesCost());
+                    return true;
+                case ISSUE_SEVERITY_VAR:
+                    w.write(issue.getSeverity());
+                    return true;
+                case TEMPLATE_ISSUES_SOLUTION_TEXT_VAR:
+                    w.write("<ul>");
+                    for (String oneSolutionText : issue.getSolutionTextList()) {
+                        w.write("<li>");
+                        w.write(oneSolutionText);
+                        w.write("</li>");
+                    }
+                    w.write("</ul>");
+                    return true;
+                case HIDDEN_ROW_COUNT_VAR:
+                    w.write(Integer.toString(nextTableRowIndex));
+                    return true;
+                case ISSUE_OCCURANCES_VAR:
+                    // Nov 7, occurancesFields are not included in the HTML table
+                    if (occurrencesDataPath != null) {
+                        writeVirtualOccurances(w, issue.getOccurances(), occurrencesDataPath);
+                    } else {
+                        writeOccurances(w, issue.getOccurances());
+                    }
+                    return true;
+                default:
+                    return false;
+            }
+        });
     }
 
-    private GenerationResult genIssueTableRow(IssueReport issue, int nextTableRowIndex) throws TAException {
-        String templateStr = loadTemplate(TEMPLATE_ISSUES_TABLE_ROW);
-
-        String issueOccuranceCount = issue.getOccurrencesCount();
-        String resultStr = templateStr.replace(ISSUE_OCCURANCE_COUNT_VAR, issueOccuranceCount);
-        resultStr = resultStr.replace(ISSUE_ID_VAR, issue.getId());
-        resultStr = resultStr.replace(ISSUE_TITLE_VAR, issue.getTitle());
-        resultStr = resultStr.replace(ISSUE_COST_VAR, issue.getCost());
-        resultStr = resultStr.replace(ISSUE_OVERHEAD_VAR, issue.getIssueOverhead());
-        resultStr = resultStr.replace(ISSUE_OCCURANCES_COST_VAR, issue.getOccurancesCost());
-        resultStr = resultStr.replace(ISSUE_SEVERITY_VAR, issue.getSeverity());
-
-        List<String> solutionTextList = issue.getSolutionTextList();
-        String solutionTextItems = "";
-        for (String oneSolutionText : solutionTextList) {
-            solutionTextItems += TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM_TEMPLATE.replace(TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM_VAR, oneSolutionText);
+    /*
+     * Writes the occurances table, each occurance takes one table row. For example:
+     *   <table><tr><th>index</th><th>type</th><th>object</th></tr>
+     *     <tr><td>1</td><td>queue</td><td>LONDON</td></tr>
+     *   </table>
+     */
+    private static void writeOccurances(Writer writer, List<Map<String, String>> occurancesList) throws IOException {
+        if (occurancesList == null || occurancesList.isEmpty()) {
+            return;
         }
-        String solutionText = TEMPLATE_ISSUES_SOLUTION_TEXT_TEMPLATE.replace(TEMPLATE_ISSUES_SOLUTION_TEXT_VAR, solutionTextItems);
-        resultStr = resultStr.replace(TEMPLATE_ISSUES_SOLUTION_TEXT_VAR, solutionText);
-
-            // Nov 7, remove occurancesFields from HTML table
-//            Map<String, String> occurancesFields = issue.getOccurrencesFields();
-//            String occurancesFieldsStr = "";
-//            if (occurancesFields != null && occurancesFields.size() > 0) {
-//                occurancesFieldsStr += "<table>";
-//                Set<String> occurancesFieldKeys = occurancesFields.keySet();
-//                String tableRowStr = "";
-//                for (String occurancesFiledKey : occurancesFieldKeys) {
-//                    occurancesFieldsStr += "<tr><th>" + occurancesFiledKey + "</th></tr>";
-//                    String value = occurancesFields.get(occurancesFiledKey);
-//                    occurancesFieldsStr += "<tr><td>" + value + "</td></tr>";
-//                }
-//                occurancesFieldsStr += "</table>";
-//            }
-//            logger.debug("occurancesFieldsStr is " + occurancesFieldsStr);
-//            resultStr = resultStr.replace(ISSUE_OCCURANCES_FIELDS_VAR, occurancesFieldsStr);
-
-        List<Map<String, String>> occurancesList = issue.getOccurances();
-        String occurancesStr = "";
-        if (occurancesList != null && occurancesList.size() > 0) {
-            // header
-            Map<String, String> firstOccuranceMap = occurancesList.get(0);
-            Set<String> headerSet = firstOccuranceMap.keySet();
-            String headerStr = "<tr><th>index</th>";
-            for (String header : headerSet) {
-                headerStr += "<th>" + header + "</th>";
-            }
-            headerStr += "</tr>";
-            occurancesStr = TEMPLATE_OCCURANCES.replace(ISSUE_OCCURANCES_TABLE_HEADER_VAR, headerStr);
-
-            // body: each occurance take one table row
-            String occuranceRowsStr = "";
-            int index = 0;
-            for (Map<String, String> oneOccuranceMap : occurancesList) {
-                index ++;
-                String oneRow = "<tr><td>" + new Integer(index).toString() + "</td>";
-                Set<String> oneOccuranceKeys = oneOccuranceMap.keySet();
-                for (String oneOccuranceKey : oneOccuranceKeys) {
-                    Object oneOccuranceValue = oneOccuranceMap.get(oneOccuranceKey);
-                    oneRow += "<td>" + oneOccuranceValue.toString() + "</td>";
-                }
-                oneRow += "</tr>";
-                occuranceRowsStr += oneRow;
+
+        writer.write("<table>");
+        writeOccurancesHeader(writer, occurancesList);
+
+        // body
+        int index = 0;
+        for (Map<String, String> oneOccuranceMap : occurancesList) {
+            index++;
+            writer.write("<tr><td>");
+            writer.write(Integer.toString(index));
+            writer.write("</td>");
+            for (String oneOccuranceValue : oneOccuranceMap.values()) {
+                writer.write("<td>");
+                writer.write(String.valueOf(oneOccuranceValue));
+                writer.write("</td>");
             }
-            occurancesStr = occurancesStr.replace(ISSUE_OCCURANCES_TABLE_BODY_VAR, occuranceRowsStr);
+            writer.write("</tr>");
         }
-
-        resultStr = resultStr.replace(ISSUE_OCCURANCES_VAR, occurancesStr);
-        resultStr = resultStr.replace(HIDDEN_ROW_COUNT_VAR, new Integer(nextTableRowIndex).toString());
-        return new GenerationResult(resultStr, nextTableRowIndex);
-
+        writer.write("</table>");
     }
 
-    private String loadTemplate(String templateFilePath) throws TAException{
-        //Read the template and load it
-        InputStream is = null;
-        try {
-            BufferedReader buf = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(templateFilePath)));
-
-            String line = buf.readLine();
-            StringBuilder sb = new StringBuilder();
-
-            while(line != null){
-                sb.append(line).append("\n");
-                line = buf.readLine();
-            }
-            return sb.toString();
-        } catch(Exception e) {
-            logger.error("Not able to read template: " + templateFilePath, e);
-            throw new TAException(e);
-        }finally{
-            try {
-                if (is != null) {
-                    is.close();
-                    is = null;
-                }
-            } catch(Exception e2) {
-                logger.warn("Not able to close template file: " + templateFilePath, e2);
-            }
+    private static void writeOccurancesHeader(Writer writer, List<Map<String, String>> occurancesList) throws IOException {
+        writer.write("<tr><th>index</th>");
+        for (String header : occurancesList.get(0).keySet()) {
+            writer.write("<th>");
+            writer.write(header);
+            writer.write("</th>");
         }
+        writer.write("</tr>");
+    }
+
+    /*
+     * Writes a placeholder for an occurances table that is loaded from the data files under occurrencesDataPath.
+     * The rows are rendered by the script in the recommendations template, as they are scrolled into view.
+     */
+    private static void writeVirtualOccurances(Writer writer, List<Map<String, String>> occurancesList, String occurrencesDataPath) throws IOException {
+        writer.write("<div class=\"virtualOccurrences\" data-src=\"");
+        writer.write(occurrencesDataPath);
+        writer.write("\" data-count=\"");
+        writer.write(Integer.toString(occurancesList.size()));
+        writer.write("\" data-chunk-size=\"");
+        writer.write(Integer.toString(OCCURRENCES_CHUNK_SIZE));
+        writer.write("\"><div class=\"virtualOccurrencesSizer\"><div class=\"virtualOccurrencesRows\"><table>");
+        writeOccurancesHeader(writer, occurancesList);
+        writer.write("</table></div></div></div>");
     }
 
-    private RecommendationReport parseJSON(){
-        RecommendationReport recommendation = new RecommendationReport();
-        
-        String domain = this.recommendationJson.get("domain").getAsString();
-        logger.debug("domain is " + domain);
-        recommendation.setDomain(domain);
-
-        // issueCategories
-        JsonObject issueCategories = this.recommendationJson.getAsJsonObject("issueCategories");
-
-        Map<String, String> issueCategoryMap = new HashMap<String, String>();
-        Set<String> issueCatKeys = issueCategories.keySet();
-        for (String issueCatKey : issueCatKeys) {
-            JsonObject issueCatTitleJO = issueCategories.getAsJsonObject(issueCatKey);
-            String issueCatTitle = issueCatTitleJO.get("title").getAsString();
-            logger.debug("issueCatKey is " + issueCatKey + "; issueCatTitle is " + issueCatTitle);
-            issueCategoryMap.put(issueCatKey, issueCatTitle);
+    /*
+     * A data file with a chunk of the occurrences of an issue. The file is a script that passes the occurrences to
+     * the report page, so that it could be loaded when the report is opened from the file system.
+     */
+    private static class OccurrencesChunk implements ReportResource {
+        private final String dataPath;
+        private final int chunkIndex;
+        private final List<Map<String, String>> occurances;
+        private final int from;
+        private final int to;
+
+        OccurrencesChunk(String dataPath, int chunkIndex, List<Map<String, String>> occurances, int from, int to) {
+            this.dataPath = dataPath;
+            this.chunkIndex = chunkIndex;
+            this.occurances = occurances;
+            this.from = from;
+            this.to = to;
         }
 
-        //assessmentUnits
-        JsonArray assessmentUnits = this.recommendationJson.getAsJsonArray("assessmentUnits");
-        logger.debug("assessmentUnits is " + assessmentUnits);
-
-        for (Object assessmentUnit : assessmentUnits) {
-            JsonObject assessmentUnitsJO = (JsonObject) assessmentUnit;
-            logger.debug("assessmentUnitsJO is " + assessmentUnitsJO);
-            String name = assessmentUnitsJO.get("name").getAsString();
-            AssessmentUnitReport aU = new AssessmentUnitReport(name);
-
-            JsonArray targetsJA = (JsonArray) assessmentUnitsJO.get("targets");
-            for (Object targetObj : targetsJA) {
-                JsonObject targetJO = (JsonObject) targetObj;
-                String productName = targetJO.get("productName")== null? "": targetJO.get("productName").getAsString();
-                String productVersion = targetJO.get("productVersion") == null? "": targetJO.get("productVersion").getAsString();
-                String runtime = targetJO.get("runtime") == null? "": targetJO.get("runtime").getAsString();
-                String platform = targetJO.get("platform")== null? "": targetJO.get("platform").getAsString();
-                String location = targetJO.get("location")== null? "": targetJO.get("location").getAsString();
-                JsonObject summary = (JsonObject) targetJO.get("summary");
-                JsonObject issuesInSummary = (JsonObject) summary.get("issues");
-                int numOfRedIssues = issuesInSummary.get("severe") == null ? 0 : issuesInSummary.get("severe").getAsInt();
-                if (numOfRedIssues == 0){
-                    numOfRedIssues = issuesInSummary.get("RED") == null ? 0 : issuesInSummary.get("RED").getAsInt();
-                }
-                int numOfYellowIssues = issuesInSummary.get("warning") == null ? 0 : issuesInSummary.get("warning").getAsInt();
-                if (numOfYellowIssues == 0){
-                    numOfYellowIssues = issuesInSummary.get("YELLOW") == null ? 0 : issuesInSummary.get("YELLOW").getAsInt();
-                }
-                int numOfGreenIssues = issuesInSummary.get("info") == null ? 0 : issuesInSummary.get("simple").getAsInt();
-                if (numOfGreenIssues == 0){
-                    numOfGreenIssues = issuesInSummary.get("GREEN") == null ? 0 : issuesInSummary.get("GREEN").getAsInt();
-                }
+        @Override
+        public String getName() {
+            return dataPath + "/chunk-" + chunkIndex + ".js";
+        }
 
-                JsonObject complexity = (JsonObject) summary.get("complexity");
-                String overallComplexityScore = complexity.get("score").getAsString();
-                TargetReport target = new TargetReport(productName, productVersion, runtime, platform, location, overallComplexityScore, numOfRedIssues, numOfYellowIssues, numOfGreenIssues);
-
-                JsonObject issuesJO = (JsonObject) targetJO.get("issues");
-                Set<String> issuesKeySet = issuesJO.keySet();
-                for (String issuesKey : issuesKeySet) {
-                    logger.debug("--issuesKey is " + issuesKey);
-                    IssuesSameCategory issuesSameCategory = new IssuesSameCategory(issuesKey, issueCategoryMap.get(issuesKey));
-                    JsonArray issuesJA = (JsonArray) issuesJO.get(issuesKey);
-
-                    for (Object issueOb : issuesJA) {
-                        JsonObject issueJO = (JsonObject) issueOb;
-                        logger.debug("----issueJO is " + issueJO);
-                        IssueReport issue = new IssueReport(issueJO);
-                        issuesSameCategory.addIssue(issue);
-                    }
-                    target.addIssuesSameCategory(issuesSameCategory);
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("taOccurrenceChunk(");
+            JsonWriter jsonWriter = new JsonWriter(writer);
+            jsonWriter.beginObject();
+            jsonWriter.name("src").value(dataPath);
+            jsonWriter.name("chunk").value(chunkIndex);
+            jsonWriter.name("rows").beginArray();
+            for (Map<String, String> oneOccuranceMap : occurances.subList(from, to)) {
+                jsonWriter.beginArray();
+                for (String oneOccuranceValue : oneOccuranceMap.values()) {
+                    jsonWriter.value(oneOccuranceValue);
                 }
-                aU.addTarget(target);
+                jsonWriter.endArray();
             }
-            recommendation.addAssessmentUnit(aU);
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+            jsonWriter.flush();
+            writer.write(");\n");
+            writer.flush();
         }
-        return recommendation;
     }
 
-    class GenerationResult {
-        private String stringResult;
-        private int numberOfIssuesGenerated;
-
-        public GenerationResult(String stringResult, int numberOfIssuesGenerated){
-            this.stringResult = stringResult;
-            this.numberOfIssuesGenerated = numberOfIssuesGenerated;
-        }
-
-        public String getStringResult(){
-            return this.stringResult;
-        }
+    private static class HtmlTemplates {
+        private final ReportTemplate template;
+        private final ReportTemplate issuesTable;
+        private final ReportTemplate issuesTableRow;
 
-        public int getNumberOfIssuesGenerated(){
-            return this.numberOfIssuesGenerated;
+        HtmlTemplates(ReportTemplate template, ReportTemplate issuesTable, ReportTemplate issuesTableRow) {
+            this.template = template;
+            this.issuesTable = issuesTable;
+            this.issuesTableRow = issuesTableRow;
         }
     }
 
@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.report;
+
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A report template compiled into a list of literal segments and variable slots. A variable is an upper case name
+ * in braces, for example <i>{ISSUE_ID}</i>.
+ *
+ * <p>The template is rendered in a single pass, writing each literal segment and asking a {@link SlotWriter} to
+ * write the value of each slot. Variables that are not written by the {@link SlotWriter} are written as is.
+ *
+ * <p>Templates loaded from the classpath with {@link #load(String)} are cached, so each template is read and
+ * compiled once.
+ */
+public class ReportTemplate {
+
+    private static Logger logger = LogManager.getLogger(ReportTemplate.class.getName());
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([A-Z][A-Z_]*)\\}");
+
+    private static final Map<String, ReportTemplate> templateCache = new ConcurrentHashMap<>();
+
+    // Literal segments, segments.get(i) precedes slots.get(i). The last segment follows the last slot.
+    private final List<String> segments = new ArrayList<>();
+    private final List<String> slots = new ArrayList<>();
+
+    /**
+     * Writes the value of a slot in a template.
+     */
+    public interface SlotWriter {
+
+        /**
+         * @param slot Name of the variable, without the braces
+         * @param writer Writer the value is written to
+         * @return true if a value was written, or false if the variable should be written as is
+         * @throws IOException If the value could not be written
+         */
+        boolean writeSlot(String slot, Writer writer) throws IOException;
+    }
+
+    private ReportTemplate(String templateStr) {
+        Matcher matcher = VARIABLE_PATTERN.matcher(templateStr);
+        int segmentStart = 0;
+        while (matcher.find()) {
+            segments.add(templateStr.substring(segmentStart, matcher.start()));
+            slots.add(matcher.group(1));
+            segmentStart = matcher.end();
+        }
+        segments.add(templateStr.substring(segmentStart));
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param templateStr Template content
+     * @return Compiled template
+     */
+    public static ReportTemplate compile(String templateStr) {
+        return new ReportTemplate(templateStr);
+    }
+
+    /**
+     * Loads and compiles a template from the classpath. The template is loaded once and cached.
+     *
+     * @param templateFilePath Path of the template on the classpath
+     * @return Compiled template
+     * @throws TAException If the template could not be read
+     */
+    public static ReportTemplate load(String templateFilePath) throws TAException {
+        ReportTemplate template = templateCache.get(templateFilePath);
+        if (template == null) {
+            template = compile(readTemplate(templateFilePath));
+            ReportTemplate cachedTemplate = templateCache.putIfAbsent(templateFilePath, template);
+            if (cachedTemplate != null) {
+                template = cachedTemplate;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param writer Writer the template is rendered to
+     * @param slotWriter Writes the value for each variable in the template
+     * @throws IOException If the template could not be written
+     */
+    public void render(Writer writer, SlotWriter slotWriter) throws IOException {
+        for (int i = 0; i < slots.size(); i++) {
+            writer.write(segments.get(i));
+            String slot = slots.get(i);
+            if (!slotWriter.writeSlot(slot, writer)) {
+                writer.write('{');
+                writer.write(slot);
+                writer.write('}');
+            }
+        }
+        writer.write(segments.get(slots.size()));
+    }
+
+    private static String readTemplate(String templateFilePath) throws TAException {
+        logger.debug("Loading template:" + templateFilePath);
+        InputStream is = ReportTemplate.class.getResourceAsStream(templateFilePath);
+        if (is == null) {
+            throw new TAException("Template not found:" + templateFilePath);
+        }
+
+        try (BufferedReader buf = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            StringBuilder sb = new StringBuilder();
+            String line = buf.readLine();
+            while (line != null) {
+                sb.append(line).append("\n");
+                line = buf.readLine();
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            logger.error("Not able to read template: " + templateFilePath, e);
+            throw new TAException(e);
+        }
+    }
+}
@@ -20,6 +20,10 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class GenericUtil {
+  // Gson is thread-safe, and keeps the type adapters it creates, so one instance is shared by all the rule sets
+  private static final Gson gson = new GsonBuilder()
+          .registerTypeAdapterFactory(new JavaClassTypeAdapterFactory())
+          .create();
 
   public static String readFileToString(Path path) throws IOException {
     List<String> lines = Files.readAllLines(path);
@@ -44,9 +48,6 @@ public class GenericUtil {
   }
 
   private static Gson getGson() {
-    GsonBuilder builder = new GsonBuilder();
-    builder.registerTypeAdapterFactory(new JavaClassTypeAdapterFactory());
-    Gson gson = builder.create();
     return gson;
   }
 
@@ -17,6 +17,7 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +26,9 @@ public class XmlUtils {
     private final String CLASS_NAME = getClass().getName();
     private static Logger logger = LogManager.getLogger(XmlUtils.class.getName());
 
+    // Parser for each thread, DocumentBuilder is not thread safe
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<>();
+
     /**
      *
      * Helper method to return the parent node of the specified name space and node name.
@@ -721,9 +725,30 @@ public class XmlUtils {
     }
 
     public static Document getXmlDoc(File xmlFile) throws ParserConfigurationException, SAXException, IOException {
-        DocumentBuilder dBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        DocumentBuilder dBuilder = getDocumentBuilder();
         Document doc = dBuilder.parse(xmlFile);
         return doc;
     }
 
+    public static Document getXmlDoc(InputStream xmlStream, String systemId) throws ParserConfigurationException, SAXException, IOException {
+        DocumentBuilder dBuilder = getDocumentBuilder();
+        Document doc = dBuilder.parse(xmlStream, systemId);
+        return doc;
+    }
+
+    /*
+     * Looking up the parser factory, and creating a parser, is slow compared to parsing a small config file. Each
+     * thread keeps a parser, that is reset before each document.
+     */
+    private static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder dBuilder = documentBuilders.get();
+        if (dBuilder == null) {
+            dBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            documentBuilders.set(dBuilder);
+        } else {
+            dBuilder.reset();
+        }
+        return dBuilder;
+    }
+
 }
@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenericRecommendationTest {
+
+    private static final String ISSUES_JSON = "[\n" +
+            "  {\n" +
+            "    \"id\": \"RULE1\",\n" +
+            "    \"title\": \"Rule\",\n" +
+            "    \"category\": \"cluster\",\n" +
+            "    \"solutionText\": [\"Solution\"],\n" +
+            "    \"severity\": \"YELLOW\",\n" +
+            "    \"javaClass\": \"%s\",\n" +
+            "    \"matchCriteria\": {\n" +
+            "      \"ruleType\": \"json\",\n" +
+            "      \"jsonQueryPath\": {\"fullRepository\": \"$.clusters[?(@.fullRepository == true)]\"},\n" +
+            "      \"occurrenceAttr\": {\"cluster\": {\"title\": \"Cluster\", \"path\": \"name\"}}\n" +
+            "    }\n" +
+            "  }\n" +
+            "]";
+
+    private static Path ruleDir;
+
+    @TempDir
+    static Path tempDir;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        ruleDir = Paths.get(GenericRecommendationTest.class.getResource("/rules/issue.json").toURI()).getParent();
+    }
+
+    @Test
+    public void ruleProcessorSharedTest() throws Exception {
+        Path issuesFile = writeIssues("shared.json", IssueRule.class.getName());
+        GenericRecommendation first = newRecommendation(issuesFile);
+        GenericRecommendation second = newRecommendation(issuesFile);
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+        assertSame(first.getRuleProcessor(), second.getRuleProcessor());
+
+        Path otherIssuesFile = writeIssues("other.json", RuleClassRegistryTest.PluginRule.class.getName());
+        assertNotSame(first.getRuleProcessor(), newRecommendation(otherIssuesFile).getRuleProcessor());
+    }
+
+    @Test
+    public void classLoaderNotKeptTest() throws Exception {
+        // The shared registries are initialized with the class loader of the test, and not the one to unload. Other
+        // rules are used, the plug-in rules have the same fingerprint with the class of the test class loader.
+        newRecommendation(writeIssues("sdk.json", IssueRule.class.getName()));
+        Path issuesFile = writeIssues("plugin.json", RuleClassRegistryTest.PluginRule.class.getName());
+        WeakReference<ClassLoader> classLoaderRef = loadRecommendation(issuesFile);
+        for (int i = 0; i < 50 && classLoaderRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(classLoaderRef.get(), "Class loader is kept loaded by the rule processors");
+    }
+
+    // Creates a recommendation with the rule class of a plug-in class loader, and returns the class loader
+    private static WeakReference<ClassLoader> loadRecommendation(Path issuesFile) throws Exception {
+        RuleClassRegistryTest.PluginClassLoader classLoader = new RuleClassRegistryTest.PluginClassLoader();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            GenericRecommendation recommendation = newRecommendation(issuesFile);
+            assertSame(recommendation.getRuleProcessor(), newRecommendation(issuesFile).getRuleProcessor());
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+        return new WeakReference<>(classLoader);
+    }
+
+    private static GenericRecommendation newRecommendation(Path issuesFile) throws Exception {
+        return new GenericRecommendation("Test", issuesFile, ruleDir.resolve("issue-category.json"),
+                ruleDir.resolve("complexity.json"), ruleDir.resolve("target.json"));
+    }
+
+    private static Path writeIssues(String fileName, String javaClass) throws Exception {
+        Path issuesFile = tempDir.resolve(fileName);
+        Files.write(issuesFile, String.format(ISSUES_JSON, javaClass).getBytes(StandardCharsets.UTF_8));
+        return issuesFile;
+    }
+}
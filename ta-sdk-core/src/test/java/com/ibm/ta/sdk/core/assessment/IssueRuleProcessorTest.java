@@ -0,0 +1,114 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
+import com.ibm.ta.sdk.spi.recommendation.Issue;
+import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
+import com.jayway.jsonpath.DocumentContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IssueRuleProcessorTest {
+
+    private static final String PREFIX = "Try sleeping first, then:";
+
+    private static final String ISSUES_JSON = "[\n" +
+            "  {\n" +
+            "    \"id\": \"MQCL03\",\n" +
+            "    \"title\": \"Contains a Full Repository.\",\n" +
+            "    \"category\": \"cluster\",\n" +
+            "    \"issueOverhead\": 0.5,\n" +
+            "    \"occurrencesCost\": 0.5,\n" +
+            "    \"solutionText\": [\"Update other Cluster members\"],\n" +
+            "    \"severity\": \"YELLOW\",\n" +
+            "    \"javaClass\": \"" + PrefixSolutionRule.class.getName() + "\",\n" +
+            "    \"matchCriteria\": {\n" +
+            "      \"ruleType\": \"json\",\n" +
+            "      \"jsonQueryPath\": {\"fullRepository\": \"$.clusters[?(@.fullRepository == true)]\"},\n" +
+            "      \"occurrenceAttr\": {\"cluster\": {\"title\": \"Cluster\", \"path\": \"name\"}}\n" +
+            "    }\n" +
+            "  }\n" +
+            "]";
+
+    private static final String AU_JSON = "{\n" +
+            "  \"name\": \"QM1\",\n" +
+            "  \"clusters\": [{\"name\": \"CLUSTER.0\", \"fullRepository\": true}]\n" +
+            "}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void sameRulesTwiceTest() throws Exception {
+        Path dataFile = tempDir.resolve("QM1.json");
+        Files.write(dataFile, AU_JSON.getBytes(StandardCharsets.UTF_8));
+        GenericAssessmentUnit assessmentUnit = new GenericAssessmentUnit("QM1", dataFile, Collections.emptyList());
+
+        // The processor is shared, as for recommendations with the same rules
+        IssueRuleProcessor processor = new IssueRuleProcessor(ISSUES_JSON, Collections.<String, IssueCategory>emptyMap());
+        List<Issue> first = processor.processIssues(null, assessmentUnit);
+        List<Issue> second = processor.processIssues(null, assessmentUnit);
+
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertEquals(Arrays.asList(PREFIX, "Update other Cluster members"), first.get(0).getSolutionText());
+        assertEquals(first.get(0).getSolutionText(), second.get(0).getSolutionText());
+        assertEquals(first.get(0).getOccurrence().getOccurrencesInstances(),
+                second.get(0).getOccurrence().getOccurrencesInstances());
+    }
+
+    @Test
+    public void plainRulesTwiceTest() throws Exception {
+        Path dataFile = tempDir.resolve("QM1.json");
+        Files.write(dataFile, AU_JSON.getBytes(StandardCharsets.UTF_8));
+        GenericAssessmentUnit assessmentUnit = new GenericAssessmentUnit("QM1", dataFile, Collections.emptyList());
+
+        // Rules without a javaClass are copied from the parsed rule for each assessment
+        String issuesJson = ISSUES_JSON.replace("    \"javaClass\": \"" + PrefixSolutionRule.class.getName() + "\",\n", "");
+        IssueRuleProcessor processor = new IssueRuleProcessor(issuesJson, Collections.<String, IssueCategory>emptyMap());
+        List<Issue> first = processor.processIssues(null, assessmentUnit);
+        List<Issue> second = processor.processIssues(null, assessmentUnit);
+
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertEquals("MQCL03", second.get(0).getId());
+        assertEquals(Collections.singletonList("Update other Cluster members"), second.get(0).getSolutionText());
+        assertEquals(1, second.get(0).getOccurrence().getOccurrencesInstances().size());
+        assertEquals(first.get(0).getOccurrence().getOccurrencesInstances(),
+                second.get(0).getOccurrence().getOccurrencesInstances());
+    }
+
+    // Keeps the paths it matched, and adds to the solution text, the rule instances must not be shared by assessments
+    public static class PrefixSolutionRule extends IssueRule {
+        private Set<String> matchedPaths = new HashSet<>();
+
+        @Override
+        public List<String> getSolutionText() {
+            List<String> solution = new ArrayList<>(super.getSolutionText());
+            solution.add(0, PREFIX);
+            return solution;
+        }
+
+        @Override
+        public boolean customFilter(DocumentContext doc, String path) {
+            return matchedPaths.add(path);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.util.GenericUtil;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleClassRegistryTest {
+
+    private static final String ISSUES_JSON = "[{\"id\": \"RULE1\", \"title\": \"Rule\", \"solutionText\": [\"Solution\"], " +
+            "\"javaClass\": \"" + PluginRule.class.getName() + "\"}]";
+
+    @Test
+    public void classLoaderNotKeptTest() throws Exception {
+        // The registries and their loggers are initialized with the class loader of the test, and not the one to unload
+        RuleClassRegistry.preload(new JsonArray());
+        GenericUtil.getJsonObj(new TypeToken<List<IssueRule>>(){}, "[{\"id\": \"RULE0\"}]");
+        WeakReference<ClassLoader> classLoaderRef = loadRules();
+        for (int i = 0; i < 50 && classLoaderRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(classLoaderRef.get(), "Class loader is kept loaded by the rule classes");
+    }
+
+    // Loads and reads the rules with the rule class of a plug-in class loader, and returns the class loader
+    private static WeakReference<ClassLoader> loadRules() throws Exception {
+        PluginClassLoader classLoader = new PluginClassLoader();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            JsonArray issueRulesJson = new JsonParser().parse(ISSUES_JSON).getAsJsonArray();
+            Set<Class<? extends IssueRule>> ruleClasses = RuleClassRegistry.preload(issueRulesJson);
+            Class<? extends IssueRule> ruleClass = ruleClasses.iterator().next();
+            assertSame(classLoader, ruleClass.getClassLoader());
+            assertSame(ruleClass, RuleClassRegistry.getRuleClass(PluginRule.class.getName()));
+
+            List<IssueRule> issueRules = GenericUtil.getJsonObj(new TypeToken<List<IssueRule>>(){}, ISSUES_JSON);
+            assertSame(ruleClass, issueRules.get(0).getClass());
+            assertEquals(Collections.singletonList("Solution"), issueRules.get(0).getSolutionText());
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+        return new WeakReference<>(classLoader);
+    }
+
+    public static class PluginRule extends IssueRule {
+    }
+
+    // Defines the rule class itself, as the class loader of a plug-in
+    static class PluginClassLoader extends ClassLoader {
+        PluginClassLoader() {
+            super(RuleClassRegistryTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(PluginRule.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> cls = findLoadedClass(name);
+                if (cls == null) {
+                    String classFile = name.replace('.', '/') + ".class";
+                    try (InputStream in = getParent().getResourceAsStream(classFile)) {
+                        byte[] bytes = IOUtils.toByteArray(in);
+                        cls = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return cls;
+            }
+        }
+    }
+}
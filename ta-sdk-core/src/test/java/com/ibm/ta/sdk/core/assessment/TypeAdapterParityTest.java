@@ -0,0 +1,204 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
+import com.ibm.ta.sdk.core.util.GenericUtil;
+import com.ibm.ta.sdk.spi.assess.ComplexityContributionJson;
+import com.ibm.ta.sdk.spi.assess.IssueCategoryJson;
+import com.ibm.ta.sdk.spi.assess.RecommendationJson;
+import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.recommendation.Issue;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the hand-written type adapters of the json models with the reflective adapters of {@code Gson}, that read
+ * and wrote the json models before. Each model is written with the same {@code Gson} configuration as the SDK, and
+ * read with the same configuration as the rule files.
+ */
+public class TypeAdapterParityTest {
+
+    private static final Set<Class<?>> ADAPTED_TYPES = new HashSet<>(Arrays.asList(EnvironmentJson.class,
+            IssueCategoryJson.class, ComplexityContributionJson.class, RecommendationJson.class, GenericIssue.class,
+            IssueRule.class));
+
+    private static final String ENVIRONMENT_JSON = "{\n" +
+            "  \"domain\": \"MQ\",\n" +
+            "  \"operatingSystem\": \"Linux\",\n" +
+            "  \"hostName\": \"host1.example.com\",\n" +
+            "  \"middlewareName\": \"MQ\",\n" +
+            "  \"middlewareVersion\": 9.1,\n" +
+            "  \"middlewareInstallPath\": \"/opt/mqm\",\n" +
+            "  \"middlewareDataPath\": null,\n" +
+            "  \"assessmentName\": \"Parity \\\"test\\\"\",\n" +
+            "  \"assessmentType\": \"QueueManager\",\n" +
+            "  \"unknown\": {\"nested\": [1, 2]}\n" +
+            "}";
+
+    private static final String AU_JSON = "{\n" +
+            "  \"name\": \"QM1\",\n" +
+            "  \"channels\": [\n" +
+            "    {\"name\": \"CHANNEL.1\", \"type\": 1, \"msgexit\": \"MSGEXIT1\", \"sendexit\": \"\", \"rcvexit\": \"\"},\n" +
+            "    {\"name\": \"CHANNEL.2\", \"type\": 2, \"msgexit\": \"\", \"sendexit\": \"SENDEXIT\", \"rcvexit\": \"RCVEXIT\"}\n" +
+            "  ],\n" +
+            "  \"clusters\": [{\"name\": \"CLUSTER.1\", \"fullRepository\": true}]\n" +
+            "}";
+
+    private static final String SERVER_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<server>\n" +
+            "    <dataSource id=\"DataSource1\" jndiName=\"jdbc/db1\"/>\n" +
+            "    <dataSource id=\"DataSource2\" jndiName=\"jdbc/&quot;db2&quot;\"/>\n" +
+            "</server>\n";
+
+    // Gson of the SDK json files, and the same Gson with the reflective adapters
+    private static final Gson SDK_GSON = GsonUtil.getGson();
+    private static final Gson REFLECTIVE_SDK_GSON = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .setPrettyPrinting()
+            .registerTypeAdapterFactory(new ReflectiveTypeAdapterFactory())
+            .create();
+
+    // Gson of the rule files, with the reflective adapters, and a Gson that writes all the fields that were read
+    private static final Gson REFLECTIVE_RULE_GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ReflectiveTypeAdapterFactory())
+            .create();
+    private static final Gson ALL_FIELDS_GSON = new GsonBuilder()
+            .serializeNulls()
+            .registerTypeAdapterFactory(new ReflectiveTypeAdapterFactory())
+            .create();
+
+    private static Path ruleDir;
+
+    @TempDir
+    static Path tempDir;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        ruleDir = Paths.get(TypeAdapterParityTest.class.getResource("/rules/issue.json").toURI()).getParent();
+    }
+
+    @Test
+    public void environmentJsonTest() {
+        EnvironmentJson environmentJson = SDK_GSON.fromJson(ENVIRONMENT_JSON, EnvironmentJson.class);
+        assertReadParity(environmentJson, REFLECTIVE_SDK_GSON.fromJson(ENVIRONMENT_JSON, EnvironmentJson.class));
+        assertWriteParity(environmentJson);
+        assertWriteParity(new EnvironmentJson(environmentJson.getEnvironment()));
+        assertWriteParity(new EnvironmentJson());
+    }
+
+    @Test
+    public void issueCategoryJsonTest() throws Exception {
+        Type type = new TypeToken<Map<String, IssueCategoryJson>>(){}.getType();
+        String json = readRuleFile("issue-category.json");
+        Map<String, IssueCategoryJson> issueCategories = GenericUtil.getJsonObj(new TypeToken<Map<String, IssueCategoryJson>>(){}, json);
+        assertReadParity(issueCategories, REFLECTIVE_RULE_GSON.fromJson(json, type));
+        assertWriteParity(issueCategories);
+        assertWriteParity(IssueCategoryJson.getIssueCategoryJsonMap(IssueCategoryJson.getIssueCategoryList(issueCategories)));
+    }
+
+    @Test
+    public void complexityContributionJsonTest() throws Exception {
+        Type type = new TypeToken<List<ComplexityContributionJson>>(){}.getType();
+        String json = readRuleFile("complexity.json");
+        List<ComplexityContributionJson> complexities = GenericUtil.getJsonObj(new TypeToken<List<ComplexityContributionJson>>(){}, json);
+        assertReadParity(complexities, REFLECTIVE_RULE_GSON.fromJson(json, type));
+        assertWriteParity(complexities);
+    }
+
+    @Test
+    public void issueRuleTest() throws Exception {
+        Type type = new TypeToken<List<IssueRule>>(){}.getType();
+        String json = readRuleFile("issue.json");
+        List<IssueRule> issueRules = GenericUtil.getJsonObj(new TypeToken<List<IssueRule>>(){}, json);
+        assertReadParity(issueRules, REFLECTIVE_RULE_GSON.fromJson(json, type));
+        // The fields of a rule are not serialized
+        assertWriteParity(issueRules);
+        assertEquals("{}", SDK_GSON.toJson(issueRules.get(0)));
+    }
+
+    @Test
+    public void recommendationJsonTest() throws Exception {
+        GenericAssessmentUnit assessmentUnit = writeAssessmentUnit();
+        GenericRecommendation recommendation = new GenericRecommendation("Parity", ruleDir.resolve("issue.json"),
+                ruleDir.resolve("issue-category.json"), ruleDir.resolve("complexity.json"), ruleDir.resolve("target.json"));
+        EnvironmentJson environmentJson = SDK_GSON.fromJson(ENVIRONMENT_JSON, EnvironmentJson.class);
+        RecommendationJson recommendationJson = new RecommendationJson(recommendation, environmentJson.getEnvironment(),
+                Collections.singletonList(assessmentUnit));
+
+        // Issues of each rule type, with the occurrences to escape
+        List<Issue> issues = recommendation.getIssues(recommendation.getTargets().get(0), assessmentUnit);
+        assertEquals(3, issues.size());
+        for (Issue issue : issues) {
+            assertWriteParity(issue);
+        }
+        assertWriteParity(recommendationJson);
+        assertTrue(SDK_GSON.toJson(recommendationJson).contains("jdbc/\\\"db2\\\""));
+    }
+
+    private static GenericAssessmentUnit writeAssessmentUnit() throws Exception {
+        Path auDir = tempDir.resolve("QM1");
+        Files.createDirectories(auDir);
+        Path dataFile = auDir.resolve("QM1.json");
+        Files.write(dataFile, AU_JSON.getBytes(StandardCharsets.UTF_8));
+        Path serverXml = auDir.resolve("server.xml");
+        Files.write(serverXml, SERVER_XML.getBytes(StandardCharsets.UTF_8));
+        return new GenericAssessmentUnit("QM1", dataFile, Collections.singletonList(serverXml));
+    }
+
+    private static void assertWriteParity(Object value) {
+        assertEquals(REFLECTIVE_SDK_GSON.toJson(value), SDK_GSON.toJson(value));
+    }
+
+    private static void assertReadParity(Object value, Object reflectiveValue) {
+        assertEquals(ALL_FIELDS_GSON.toJson(reflectiveValue), ALL_FIELDS_GSON.toJson(value));
+    }
+
+    private static String readRuleFile(String fileName) throws Exception {
+        return new String(Files.readAllBytes(ruleDir.resolve(fileName)), StandardCharsets.UTF_8);
+    }
+
+    // Uses the reflective adapter for the types that have a hand-written adapter
+    private static class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
+        // A factory that is not registered, Gson then skips the JsonAdapter annotation for the delegate
+        private static final TypeAdapterFactory SKIP_JSON_ADAPTER = new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                return null;
+            }
+        };
+
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!ADAPTED_TYPES.contains(type.getRawType())) {
+                return null;
+            }
+            return gson.getDelegateAdapter(SKIP_JSON_ADAPTER, type);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.collect;
+
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.plugin.TARuntimeException;
+import com.ibm.ta.sdk.spi.util.ArchiveWriter;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveDataCollectionTest {
+
+    private static final String ENVIRONMENT_JSON = "{\"assessmentName\": \"Installation1\", \"domain\": \"Sample\"}";
+    private static final String SERVER_XML = "<server>archived</server>";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void configFilesReadFromArchiveTest() throws Exception {
+        Path archive = writeArchive("AU1/opt/app/server.xml");
+        try (ArchiveDataCollection collection = new ArchiveDataCollection(archive)) {
+            assertEquals("Installation1", collection.getAssessmentName());
+            assertEquals(1, collection.getAssessmentUnits().size());
+            AssessmentUnit au = collection.getAssessmentUnits().get(0);
+            assertEquals("AU1", au.getName());
+
+            Path configFile = Paths.get(File.separator + "opt", "app", "server.xml");
+            assertEquals(1, au.getConfigFiles().size());
+            assertEquals(configFile, au.getConfigFiles().get(0));
+            // The config file is never read from the local filesystem, even if the same path exists
+            assertFalse(au.isLocalConfigFile(configFile));
+            try (InputStream in = au.openConfigFile(configFile)) {
+                assertEquals(SERVER_XML, new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void entryOutsideAssessmentUnitTest() throws Exception {
+        Path archive = writeArchive("AU1/../../etc/server.xml");
+        TAException e = assertThrows(TAException.class, () -> new ArchiveDataCollection(archive).open());
+        assertTrue(e.getMessage().contains("AU1/../../etc/server.xml"), e.getMessage());
+
+        Path parentArchive = writeArchive("../opt/server.xml");
+        assertThrows(TAException.class, () -> new ArchiveDataCollection(parentArchive).open());
+    }
+
+    @Test
+    public void archivesReadWhenUsedTest() throws Exception {
+        Path archive = writeArchive("AU1/opt/app/server.xml");
+        // An archive that is not a collection archive only fails when its assessment units are used
+        Files.write(tempDir.resolve("Broken" + ArchiveDataCollection.ARCHIVE_SUFFIX), "not an archive".getBytes(StandardCharsets.UTF_8));
+
+        List<ArchiveDataCollection> collections = ArchiveDataCollection.readAll(tempDir);
+        assertEquals(2, collections.size());
+        ArchiveDataCollection broken = collections.get(0);
+        ArchiveDataCollection collection = collections.get(1);
+        assertEquals(archive, collection.getArchiveFile());
+        assertThrows(TARuntimeException.class, broken::getAssessmentUnits);
+
+        // The environment is read without the config files
+        assertEquals("Installation1", collection.getAssessmentName());
+        Path configFile = Paths.get(File.separator + "opt", "app", "server.xml");
+        for (int i = 0; i < 2; i++) {
+            AssessmentUnit au = collection.getAssessmentUnits().get(0);
+            try (InputStream in = au.openConfigFile(configFile)) {
+                assertEquals(SERVER_XML, new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8));
+            }
+
+            // The config files are released when the collection is closed, and read again when it is used again
+            collection.close();
+            assertThrows(IOException.class, () -> au.openConfigFile(configFile));
+            assertEquals("Installation1", collection.getAssessmentName());
+        }
+    }
+
+    private Path writeArchive(String configEntryName) throws Exception {
+        Path archive = tempDir.resolve("Installation1-" + configEntryName.hashCode() + ArchiveDataCollection.ARCHIVE_SUFFIX);
+        long now = System.currentTimeMillis();
+        try (ArchiveWriter writer = new ArchiveWriter(archive)) {
+            writer.open();
+            writer.addEntry("environment.json", ENVIRONMENT_JSON.getBytes(StandardCharsets.UTF_8), now);
+            writer.addEntry("AU1/AU1.json", "{\"name\": \"AU1\"}".getBytes(StandardCharsets.UTF_8), now);
+            writer.addEntry(configEntryName, SERVER_XML.getBytes(StandardCharsets.UTF_8), now);
+            writer.finish();
+        }
+        return archive;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ibm.ta.sdk.core.collect;
+
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import com.ibm.ta.sdk.spi.util.ContentMasker;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextContextMaskTest {
+
+    private static final List<AbstractMap.SimpleEntry<String, String>> REGEXS = Arrays.asList(
+            new AbstractMap.SimpleEntry<>("(\"password\"\\s?:\\s?\").*(\")", "$1" + ContentMask.MASK + "$2"),
+            new AbstractMap.SimpleEntry<>("(password=\")[^\"]*(\")", "$1" + ContentMask.MASK + "$2"),
+            new AbstractMap.SimpleEntry<>("secret", "password=\"x\""),
+            new AbstractMap.SimpleEntry<>("(user|admin)Name", "name"),
+            new AbstractMap.SimpleEntry<>("\\d{4}-\\d{4}", "####-####"));
+
+    private static final List<String> LINES = Arrays.asList(
+            "",
+            "no match here",
+            "  \"password\": \"passw0rd\",",
+            "  \"password\" : \"passw0rd\"",
+            "<dataSource user=\"db2\" password=\"{xor}Lz4sLCgwLTs=\"/>",
+            "secret",
+            "userName adminName otherName",
+            "card 1234-5678 and 1111-2222",
+            "\"password\":\"a\" password=\"b\" secret 9999-0000");
+
+    @Test
+    public void maskSameAsReplaceAllTest() {
+        TextContextMask mask = new TextContextMask(Arrays.asList(".*"), REGEXS);
+        for (String line : LINES) {
+            String expected = line;
+            for (AbstractMap.SimpleEntry<String, String> regex : REGEXS) {
+                expected = expected.replaceAll(regex.getKey(), regex.getValue());
+            }
+            assertEquals(expected, mask.maskLine(line), "Masked line is different for: " + line);
+        }
+        assertEquals(LINES.size(), mask.mask(LINES).size());
+        assertTrue(mask.isLineMask());
+    }
+
+    @Test
+    public void requiredLiteralTest() {
+        assertEquals("\"password\"", TextMaskEngine.getRequiredLiteral("(\"password\"\\s?:\\s?\").*(\")"));
+        assertEquals("secret", TextMaskEngine.getRequiredLiteral("^secret$"));
+        assertEquals("a.b", TextMaskEngine.getRequiredLiteral("a\\.b+"));
+        assertEquals("ab", TextMaskEngine.getRequiredLiteral("abc?"));
+        assertEquals("", TextMaskEngine.getRequiredLiteral("(user|admin)Name"));
+        assertEquals("", TextMaskEngine.getRequiredLiteral("(abc)?def"));
+        assertEquals("", TextMaskEngine.getRequiredLiteral("(?i)password"));
+        assertEquals("", TextMaskEngine.getRequiredLiteral("\\d{4}"));
+        assertEquals("", TextMaskEngine.getRequiredLiteral(".*"));
+    }
+
+    @Test
+    public void maskMalformedInputTest() throws Exception {
+        List<ContentMask> masks = Collections.singletonList(new TextContextMask(Arrays.asList(".*"), REGEXS));
+        String content = "password=\"passw0rd\" caf\u00e9";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ContentMasker.mask(masks, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), out);
+        assertEquals("password=\"" + ContentMask.MASK + "\" caf\u00e9" + System.lineSeparator(),
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        // Latin-1 content is not valid UTF-8, it is not masked rather than written with replacement characters
+        byte[] latin1 = content.getBytes(StandardCharsets.ISO_8859_1);
+        IOException e = assertThrows(IOException.class,
+                () -> ContentMasker.mask(masks, new ByteArrayInputStream(latin1), new ByteArrayOutputStream()));
+        assertTrue(e.getCause() instanceof CharacterCodingException);
+    }
+}
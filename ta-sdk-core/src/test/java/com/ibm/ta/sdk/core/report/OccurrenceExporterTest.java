@@ -0,0 +1,89 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.report;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.ibm.ta.sdk.spi.report.ReportType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccurrenceExporterTest {
+
+    private static final String HEADER = "assessmentUnit,productName,productVersion,runtime,platform,location," +
+            "issueCategory,issueId,issueTitle,severity,cost,occurrenceIndex,occurrence\r\n";
+
+    private static final String RECOMMENDATIONS_JSON = "{\n" +
+            "  \"domain\": \"MQ\",\n" +
+            "  \"assessmentUnits\": [\n" +
+            "    {\n" +
+            "      \"name\": \"QM1\",\n" +
+            "      \"targets\": [\n" +
+            "        {\n" +
+            "          \"productName\": \"MQ\",\n" +
+            "          \"productVersion\": \"9.1\",\n" +
+            "          \"runtime\": \"\",\n" +
+            "          \"platform\": \"Docker\",\n" +
+            "          \"location\": \"Private\",\n" +
+            "          \"issues\": {\n" +
+            "            \"exits\": [\n" +
+            "              {\n" +
+            "                \"id\": \"MQEXIT01\",\n" +
+            "                \"title\": \"Exits, \\\"custom\\\" logic\\nand more\",\n" +
+            "                \"severity\": \"YELLOW\",\n" +
+            "                \"cost\": 2.5,\n" +
+            "                \"occurrences\": [\n" +
+            "                  {\"channel\": \"CH.1\", \"exitName\": \"EXIT1\"},\n" +
+            "                  {\"channel\": \"CH,2\", \"exitName\": \"say \\\"hi\\\"\"}\n" +
+            "                ]\n" +
+            "              }\n" +
+            "            ]\n" +
+            "          }\n" +
+            "        }\n" +
+            "      ]\n" +
+            "    }\n" +
+            "  ]\n" +
+            "}";
+
+    @Test
+    public void csvEscapingTest() throws Exception {
+        String csv = export(ReportType.CSV);
+        assertEquals(HEADER +
+                "QM1,MQ,9.1,,Docker,Private,exits,MQEXIT01,\"Exits, \"\"custom\"\" logic\nand more\",YELLOW,2.5,1," +
+                "\"{\"\"channel\"\":\"\"CH.1\"\",\"\"exitName\"\":\"\"EXIT1\"\"}\"\r\n" +
+                "QM1,MQ,9.1,,Docker,Private,exits,MQEXIT01,\"Exits, \"\"custom\"\" logic\nand more\",YELLOW,2.5,2," +
+                "\"{\"\"channel\"\":\"\"CH,2\"\",\"\"exitName\"\":\"\"say \\\"\"hi\\\"\"\"\"}\"\r\n", csv);
+    }
+
+    @Test
+    public void ndjsonTest() throws Exception {
+        String[] lines = export(ReportType.NDJSON).split("\n");
+        assertEquals(2, lines.length);
+        JsonObject second = new JsonParser().parse(lines[1]).getAsJsonObject();
+        assertEquals("QM1", second.get("assessmentUnit").getAsString());
+        assertEquals("Exits, \"custom\" logic\nand more", second.get("issueTitle").getAsString());
+        assertEquals(2, second.get("occurrenceIndex").getAsInt());
+        assertEquals("CH,2", second.getAsJsonObject("occurrence").get("channel").getAsString());
+    }
+
+    @Test
+    public void unsupportedReportTypeTest() {
+        assertThrows(IllegalArgumentException.class, () -> new OccurrenceExporter(ReportType.HTML));
+    }
+
+    private static String export(ReportType reportType) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new OccurrenceExporter(reportType).export(new JsonReader(new StringReader(RECOMMENDATIONS_JSON)), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
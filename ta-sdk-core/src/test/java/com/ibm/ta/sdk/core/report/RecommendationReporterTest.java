@@ -0,0 +1,138 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.report;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportResource;
+import com.ibm.ta.sdk.spi.report.ReportType;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationReporterTest {
+
+    private static final String RECOMMENDATIONS_JSON = "/report/recommendations.json";
+
+    @Test
+    public void jsonObjectSameAsFileTest() throws Exception {
+        RecommendationReporter fileReporter = new RecommendationReporter("Installation1", getRecommendationsFile());
+        RecommendationReporter treeReporter = new RecommendationReporter("Installation1", getRecommendationsJson());
+
+        List<Report> fileReports = fileReporter.generateHTMLReports();
+        List<Report> treeReports = treeReporter.generateHTMLReports();
+        assertFalse(fileReports.isEmpty());
+        assertEquals(fileReports.size(), treeReports.size());
+        for (int i = 0; i < fileReports.size(); i++) {
+            assertEquals(fileReports.get(i).getAssessmentUnitName(), treeReports.get(i).getAssessmentUnitName());
+            assertArrayEquals(fileReports.get(i).getReport(), treeReports.get(i).getReport());
+        }
+
+        for (ReportType reportType : new ReportType[]{ReportType.CSV, ReportType.NDJSON}) {
+            List<Report> fileExports = new ArrayList<>();
+            List<Report> treeExports = new ArrayList<>();
+            fileReporter.generateReports(reportType, fileExports::add);
+            treeReporter.generateReports(reportType, treeExports::add);
+            assertEquals(1, fileExports.size());
+            assertEquals(1, treeExports.size());
+            assertArrayEquals(fileExports.get(0).getReport(), treeExports.get(0).getReport());
+        }
+    }
+
+    @Test
+    public void readerFromJsonObjectTest() throws Exception {
+        try (RecommendationReportReader reader = new RecommendationReportReader(getRecommendationsJson())) {
+            assertEquals("IIB", reader.getDomain());
+            assertEquals("Cluster considerations", reader.getIssueCategories().get("cluster"));
+            assertTrue(reader.hasNextAssessmentUnit());
+            AssessmentUnitReport assessmentUnit = reader.nextAssessmentUnit();
+            assertEquals("AssessmentUnit1", assessmentUnit.getName());
+            assertFalse(assessmentUnit.getTargets().isEmpty());
+            assertFalse(reader.hasNextAssessmentUnit());
+        }
+    }
+
+    @Test
+    public void targetWithoutSummaryTest() throws Exception {
+        JsonObject recommendationJson = getRecommendationsJson();
+        JsonObject target = recommendationJson.getAsJsonArray("assessmentUnits").get(0).getAsJsonObject()
+                .getAsJsonArray("targets").get(0).getAsJsonObject();
+        target.remove("summary");
+
+        RecommendationReporter reporter = new RecommendationReporter("Installation1", recommendationJson);
+        TAException e = assertThrows(TAException.class, reporter::generateHTMLReports);
+        assertTrue(e.getMessage().contains("productName:IIB"), e.getMessage());
+        assertTrue(e.getMessage().contains("platform:Docker"), e.getMessage());
+    }
+
+    @Test
+    public void targetReportNameTest() throws Exception {
+        // A target that is the only one with its location and platform keeps the short name
+        JsonObject recommendationJson = getRecommendationsJson();
+        JsonArray targets = recommendationJson.getAsJsonArray("assessmentUnits").get(0).getAsJsonObject()
+                .getAsJsonArray("targets");
+        JsonObject otherTarget = targets.get(0).getAsJsonObject().deepCopy();
+        otherTarget.addProperty("platform", "VM");
+        targets.add(otherTarget);
+
+        List<Report> reports = new RecommendationReporter("Installation1", recommendationJson).generateHTMLReports();
+        assertEquals(2, reports.size());
+        assertEquals("recommendations_Private_Docker", reports.get(0).getName());
+        assertEquals("recommendations_Private_VM", reports.get(1).getName());
+    }
+
+    @Test
+    public void targetsWithSameLocationAndPlatformTest() throws Exception {
+        // Two targets that only differ by product, each report and its occurrence data files must have their own names
+        JsonObject recommendationJson = getRecommendationsJson();
+        JsonArray targets = recommendationJson.getAsJsonArray("assessmentUnits").get(0).getAsJsonObject()
+                .getAsJsonArray("targets");
+        JsonObject otherTarget = targets.get(0).getAsJsonObject().deepCopy();
+        otherTarget.addProperty("productName", "MQ");
+        otherTarget.addProperty("runtime", "");
+        targets.add(otherTarget);
+
+        RecommendationReporter reporter = new RecommendationReporter("Installation1", recommendationJson);
+        reporter.setOccurrencesInlineThreshold(0);
+        List<Report> reports = reporter.generateHTMLReports();
+        assertEquals(2, reports.size());
+        assertEquals("recommendations_Private_Docker_IIB_11.0_ACE", reports.get(0).getName());
+        assertEquals("recommendations_Private_Docker_MQ_11.0", reports.get(1).getName());
+
+        Set<String> resourceNames = new HashSet<>();
+        for (Report report : reports) {
+            assertFalse(report.getResources().isEmpty());
+            for (ReportResource resource : report.getResources()) {
+                assertTrue(resource.getName().startsWith(report.getName() + "_occurrences/"), resource.getName());
+                assertTrue(resourceNames.add(resource.getName()), "Duplicate resource:" + resource.getName());
+            }
+        }
+    }
+
+    static File getRecommendationsFile() throws Exception {
+        return new File(RecommendationReporterTest.class.getResource(RECOMMENDATIONS_JSON).toURI());
+    }
+
+    static JsonObject getRecommendationsJson() throws Exception {
+        try (Reader reader = new InputStreamReader(RecommendationReporterTest.class.getResourceAsStream(RECOMMENDATIONS_JSON),
+                StandardCharsets.UTF_8)) {
+            return new JsonParser().parse(reader).getAsJsonObject();
+        }
+    }
+}
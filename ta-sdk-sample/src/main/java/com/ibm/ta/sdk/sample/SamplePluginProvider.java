@@ -11,7 +11,10 @@ import com.ibm.ta.sdk.spi.plugin.CliInputOption;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.collect.ContentMask;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportHandler;
+import com.ibm.ta.sdk.spi.report.ReportType;
 import com.ibm.ta.sdk.core.plugin.GenericPluginProvider;
+import com.ibm.ta.sdk.core.collect.ArchiveDataCollection;
 import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
 import com.ibm.ta.sdk.core.collect.GenericDataCollection;
 import com.ibm.ta.sdk.core.collect.TextContextMask;
@@ -31,6 +34,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -53,6 +57,12 @@ public class SamplePluginProvider extends GenericPluginProvider {
   private static final String FILE_ISSUE_JSON = "/sample/issue.json";
   private static final String FILE_TARGET_JSON = "/sample/target.json";
 
+  private static final String ARCHIVES_OPTION = "archives";
+
+  // Collections read from collection archives by getCollection(), with the --archives option. Providers could be
+  // reused for several runs, the collections are only used by the getRecommendation() of the same run.
+  private List<DataCollection> archiveCollections;
+
   @Override
   public String getDomain() {
     return SAMPLE_DOMAIN;
@@ -72,7 +82,7 @@ public class SamplePluginProvider extends GenericPluginProvider {
     CliInputCommand collectCmd = new CliInputCommand(CliInputCommand.CMD_COLLECT,
             "Performs data collection",
             collectionCmdOpts, null, Arrays.asList("INSTALL_PATH", "DATA_DIR"));
-    return collectCmd
+    return collectCmd;
   }
 
   @Override
@@ -80,6 +90,14 @@ public class SamplePluginProvider extends GenericPluginProvider {
     logger.info("CliInputCommandOptions:" + cliInputCommand.getOptions());
     logger.info("CliInputCommandArguments:" + cliInputCommand.getArguments());
 
+    // Assess collections that were collected before, and shipped as collection archives
+    archiveCollections = null;
+    String archivePath = getArchivesOption(cliInputCommand);
+    if (archivePath != null) {
+      archiveCollections = new ArrayList<>(ArchiveDataCollection.readAll(Paths.get(archivePath)));
+      return archiveCollections;
+    }
+
     try {
       Path envJsonFile = getFileFromUri(SamplePluginProvider.class.getResource(FILE_ENVIRONMENT_JSON).toURI());
 
@@ -125,7 +143,9 @@ public class SamplePluginProvider extends GenericPluginProvider {
   public CliInputCommand getAssessCommand() {
     // Assess command
     CliInputOption assessCmdSkipCollectOpt = new CliInputOption("s", "skipcollect", "Skip collection, perform assessment only");
-    List<CliInputOption> assessCmdOpts = new LinkedList<>(Arrays.asList(assessCmdSkipCollectOpt));
+    CliInputOption assessCmdArchivesOpt = new CliInputOption("r", ARCHIVES_OPTION, "Assess a collection archive, or all collection archives in a directory",
+            true, true, "PATH", null);
+    List<CliInputOption> assessCmdOpts = new LinkedList<>(Arrays.asList(assessCmdSkipCollectOpt, assessCmdArchivesOpt));
     CliInputCommand assessCmd = new CliInputCommand(CliInputCommand.CMD_ASSESS,
             "Performs data collection and assessment",
             assessCmdOpts, null, Arrays.asList("INSTALL_PATH", "DATA_DIR"));
@@ -154,16 +174,36 @@ public class SamplePluginProvider extends GenericPluginProvider {
     return contentMasks;
   }
 
+  private static String getArchivesOption(CliInputCommand cliInputCommand) {
+    for (CliInputOption option : cliInputCommand.getOptions()) {
+      if (ARCHIVES_OPTION.equals(option.getLongArg())) {
+        return option.getValue();
+      }
+    }
+    return null;
+  }
+
   @Override
   public List<Recommendation> getRecommendation(CliInputCommand cliInputCommand) throws TAException {
+    // The collections of a previous run are never used, such as a run that failed before its recommendations
+    List<DataCollection> collections = getArchivesOption(cliInputCommand) != null ? archiveCollections : null;
+    archiveCollections = null;
     try {
-      Path complexityJsonFile = Paths.get(SamplePluginProvider.class.getResource(FILE_COMPLEXITY_JSON).toURI());
+      Path complexityJsonFile = getFileFromUri(SamplePluginProvider.class.getResource(FILE_COMPLEXITY_JSON).toURI());
       Path issueCatJsonFile = Paths.get(SamplePluginProvider.class.getResource(FILE_ISSUECAT_JSON).toURI());
       Path issueJsonFile = Paths.get(SamplePluginProvider.class.getResource(FILE_ISSUE_JSON).toURI());
       Path targetJsonFile = Paths.get(SamplePluginProvider.class.getResource(FILE_TARGET_JSON).toURI());
 
-      GenericRecommendation rec = new GenericRecommendation("Installation1", issueJsonFile, issueCatJsonFile, complexityJsonFile, targetJsonFile);
       List<Recommendation> recs = new ArrayList<>();
+      if (collections != null) {
+        // One recommendation for each collection archive
+        for (DataCollection collection : collections) {
+          recs.add(new GenericRecommendation(collection.getAssessmentName(), issueJsonFile, issueCatJsonFile, complexityJsonFile, targetJsonFile));
+        }
+        return recs;
+      }
+
+      GenericRecommendation rec = new GenericRecommendation("Installation1", issueJsonFile, issueCatJsonFile, complexityJsonFile, targetJsonFile);
       recs.add(rec);
       return recs;
     } catch (URISyntaxException e) {
@@ -177,7 +217,9 @@ public class SamplePluginProvider extends GenericPluginProvider {
   public CliInputCommand getReportCommand() {
     // Collect command
     CliInputOption reportCmdAllOpt = new CliInputOption("", "html", "HTML report format");
-    List<CliInputOption> reportCmdOpts = new LinkedList<>(Arrays.asList(reportCmdAllOpt));
+    CliInputOption reportCmdCsvOpt = new CliInputOption("", "csv", "CSV export of all issue occurrences");
+    CliInputOption reportCmdNdjsonOpt = new CliInputOption("", "ndjson", "NDJSON export of all issue occurrences");
+    List<CliInputOption> reportCmdOpts = new LinkedList<>(Arrays.asList(reportCmdAllOpt, reportCmdCsvOpt, reportCmdNdjsonOpt));
     CliInputCommand reportCmd = new CliInputCommand(CliInputCommand.CMD_REPORT,
             "Generate reports",
             reportCmdOpts, null, null);
@@ -193,10 +235,40 @@ public class SamplePluginProvider extends GenericPluginProvider {
     return reports;
   }
 
+  @Override
+  public void getReport(String assessmentName, CliInputCommand reportCommand, ReportHandler handler) throws TAException {
+    logger.info("CliInputCommandOptions:" + reportCommand.getOptions());
+    logger.info("CliInputCommandArguments:" + reportCommand.getArguments());
+
+    // Generate the report types selected by the options, HTML if none are selected
+    List<ReportType> reportTypes = new LinkedList<>();
+    for (CliInputOption option : reportCommand.getOptions()) {
+      if ("csv".equals(option.getLongArg())) {
+        reportTypes.add(ReportType.CSV);
+      } else if ("ndjson".equals(option.getLongArg())) {
+        reportTypes.add(ReportType.NDJSON);
+      } else if ("html".equals(option.getLongArg())) {
+        reportTypes.add(ReportType.HTML);
+      }
+    }
+    if (reportTypes.isEmpty()) {
+      reportTypes.add(ReportType.HTML);
+    }
+
+    for (ReportType reportType : reportTypes) {
+      getReports(assessmentName, reportType, handler); // Generate reports one assessment unit at a time
+    }
+  }
+
   private Path getFileFromUri(URI uri) throws IOException {
-    Map<String, String> env = new HashMap<>();
-    env.put("create", "true");
-    FileSystem zipfs = FileSystems.newFileSystem(uri, env);
-    return Paths.get(uri);
+    try {
+      return Paths.get(uri);
+    } catch (FileSystemNotFoundException e) {
+      // Create the file system for the plug-in jar
+      Map<String, String> env = new HashMap<>();
+      env.put("create", "true");
+      FileSystem zipfs = FileSystems.newFileSystem(uri, env);
+      return Paths.get(uri);
+    }
   }
 }
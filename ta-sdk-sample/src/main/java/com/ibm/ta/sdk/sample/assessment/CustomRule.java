@@ -8,13 +8,14 @@ package com.ibm.ta.sdk.sample.assessment;
 
 import com.ibm.ta.sdk.core.assessment.IssueRule;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class CustomRule extends IssueRule {
 
   @Override
   public List<String> getSolutionText() {
-    List<String> solution = super.getSolutionText();
+    List<String> solution = new ArrayList<>(super.getSolutionText());
     solution.add(0, "Try sleeping first, then:");
     return solution;
   }
@@ -0,0 +1,286 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.assess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonReader;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.recommendation.Recommendation;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import com.ibm.ta.sdk.spi.util.HashUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fingerprints of the assessment units of an assessment, used to reuse the results of the previous assessment for
+ * the assessment units that have not changed.
+ *
+ * <p>The fingerprint of an assessment unit for a target is a SHA-256 hash of the rule set of the recommendation, see
+ * {@link Recommendation#getFingerprint()}, the target, the assessment data of the assessment unit, and the path and
+ * content of each config file. The fingerprints are written to <i>fingerprints.json</i> in the assessment output
+ * directory, next to the <i>recommendations.json</i> with the results. When the assessment is run again, the result
+ * of an assessment unit whose fingerprint has not changed is copied from the previous <i>recommendations.json</i>,
+ * and the rules are not evaluated.
+ *
+ * <p>The previous <i>recommendations.json</i> is streamed one assessment unit at a time. When the fingerprints are
+ * computed first, with {@link #prepare(Recommendation, List)}, only the results that are reused are held in memory.
+ *
+ * <p>If the recommendation has no fingerprint, no results are reused.
+ */
+public class AssessmentFingerprints {
+  private static Logger logger = LogManager.getLogger(AssessmentFingerprints.class.getName());
+
+  public static final String FINGERPRINTS_JSON = "fingerprints.json";
+
+  private static final String RECOMMENDATIONS_JSON = "recommendations.json";
+  private static final String ASSESSMENT_UNITS = "assessmentUnits";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  @Expose
+  private String recommendation;
+
+  @Expose
+  private Map<String, String> assessmentUnits = new TreeMap<>();
+
+  // Fingerprints and results of the previous assessment, by result key
+  private transient Map<String, String> previousFingerprints = new HashMap<>();
+  private transient Map<String, JsonElement> previousResults = new HashMap<>();
+  private transient File previousOutputDir;
+  private transient int reusedResults = 0;
+
+  /**
+   * Reads the fingerprints of the previous assessment from the assessment output directory. The results of the
+   * previous assessment are read when they are first needed.
+   *
+   * @param outputDir Output directory of the assessment
+   * @return Fingerprints of the previous assessment, or no fingerprints if there was no previous assessment
+   */
+  public static AssessmentFingerprints read(File outputDir) {
+    AssessmentFingerprints fingerprints = new AssessmentFingerprints();
+    File fingerprintsFile = new File(outputDir, FINGERPRINTS_JSON);
+    if (!fingerprintsFile.isFile() || !new File(outputDir, RECOMMENDATIONS_JSON).isFile()) {
+      return fingerprints;
+    }
+
+    try (Reader reader = Files.newBufferedReader(fingerprintsFile.toPath(), StandardCharsets.UTF_8)) {
+      AssessmentFingerprints previous = getGson().fromJson(reader, AssessmentFingerprints.class);
+      if (previous != null && previous.assessmentUnits != null) {
+        fingerprints.previousFingerprints.putAll(previous.assessmentUnits);
+        fingerprints.previousOutputDir = outputDir;
+      }
+    } catch (Exception e) {
+      // The assessment units are evaluated again
+      logger.warn("Unable to read fingerprints of the previous assessment:" + fingerprintsFile, e);
+    }
+    return fingerprints;
+  }
+
+  /**
+   * Computes the fingerprints of the assessment units for each target of the recommendation, before the results of
+   * the previous assessment are read, so that only the results that are reused are read into memory.
+   *
+   * @param rec Recommendation for the assessment
+   * @param auList Assessment units of the assessment
+   * @throws TAException If a config file of an assessment unit could not be read
+   */
+  public void prepare(Recommendation rec, List<? extends AssessmentUnit> auList) throws TAException {
+    if (rec.getFingerprint() == null) {
+      return;
+    }
+    for (Target target : rec.getTargets()) {
+      for (AssessmentUnit au : auList) {
+        getFingerprint(rec, target, au);
+      }
+    }
+  }
+
+  /**
+   * Gets the result of the previous assessment for an assessment unit and target, if the fingerprint has not changed.
+   * The fingerprint is recorded for the assessment.
+   *
+   * @param rec Recommendation for the assessment
+   * @param target Target of the result
+   * @param au Assessment unit of the result
+   * @return Result of the assessment unit in the previous recommendations.json, or null if the result could not be
+   * reused and the rules must be evaluated
+   * @throws TAException If a config file of the assessment unit could not be read
+   */
+  public JsonElement getPreviousResult(Recommendation rec, Target target, AssessmentUnit au) throws TAException {
+    if (rec.getFingerprint() == null) {
+      return null;
+    }
+    String key = getFingerprint(rec, target, au);
+    if (!isReusable(key)) {
+      return null;
+    }
+    JsonElement result = getPreviousResults().get(key);
+    if (result != null) {
+      logger.debug("Reusing result of previous assessment for assessment unit:" + key);
+      reusedResults++;
+    }
+    return result;
+  }
+
+  /**
+   * @return Number of results reused from the previous assessment
+   */
+  public int getReusedResults() {
+    return reusedResults;
+  }
+
+  /**
+   * Writes the fingerprints of the assessment to the assessment output directory. If no fingerprints were recorded,
+   * the fingerprints of a previous assessment are removed.
+   *
+   * @param outputDir Output directory of the assessment
+   * @throws TAException If the fingerprints could not be written
+   */
+  public void write(File outputDir) throws TAException {
+    File fingerprintsFile = new File(outputDir, FINGERPRINTS_JSON);
+    try {
+      if (recommendation == null) {
+        Files.deleteIfExists(fingerprintsFile.toPath());
+        return;
+      }
+      Files.write(fingerprintsFile.toPath(), getGson().toJson(this).getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new TAException("Error writing file:" + fingerprintsFile.getAbsolutePath(), e);
+    }
+  }
+
+  // Computes and records the fingerprint of an assessment unit for a target, once, and returns its result key
+  private String getFingerprint(Recommendation rec, Target target, AssessmentUnit au) throws TAException {
+    recommendation = rec.getFingerprint();
+    String key = getResultKey(au.getName(), target.getProductName(), target.getProductVersion(),
+            String.valueOf(target.getPlatform()), String.valueOf(target.getLocation()), target.getRuntime());
+    if (!assessmentUnits.containsKey(key)) {
+      try {
+        assessmentUnits.put(key, getFingerprint(recommendation, key, au));
+      } catch (IOException e) {
+        throw new TAException("Unable to read config files of assessment unit:" + au.getName(), e);
+      }
+    }
+    return key;
+  }
+
+  /*
+   * The previous result could be reused if the fingerprint has not changed. A result whose fingerprint has not been
+   * computed yet could still be reused.
+   */
+  private boolean isReusable(String key) {
+    String previousFingerprint = previousFingerprints.get(key);
+    String fingerprint = assessmentUnits.get(key);
+    return previousFingerprint != null && (fingerprint == null || fingerprint.equals(previousFingerprint));
+  }
+
+  private Map<String, JsonElement> getPreviousResults() {
+    if (previousOutputDir == null) {
+      return previousResults;
+    }
+
+    // The results are read once, before the recommendations.json is written again. The assessment units are read
+    // one at a time, and only the results that could be reused are kept.
+    File recFile = new File(previousOutputDir, RECOMMENDATIONS_JSON);
+    previousOutputDir = null;
+    TypeAdapter<JsonElement> elementAdapter = getGson().getAdapter(JsonElement.class);
+    try (JsonReader reader = new JsonReader(Files.newBufferedReader(recFile.toPath(), StandardCharsets.UTF_8))) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (!ASSESSMENT_UNITS.equals(reader.nextName())) {
+          reader.skipValue();
+          continue;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+          JsonObject auJson = elementAdapter.read(reader).getAsJsonObject();
+          JsonObject targetJson = auJson.getAsJsonArray("targets").get(0).getAsJsonObject();
+          String key = getResultKey(getString(auJson, "name"), getString(targetJson, "productName"),
+                  getString(targetJson, "productVersion"), getString(targetJson, "platform"),
+                  getString(targetJson, "location"), getString(targetJson, "runtime"));
+          if (isReusable(key)) {
+            previousResults.put(key, auJson);
+          }
+        }
+        reader.endArray();
+      }
+      reader.endObject();
+    } catch (Exception e) {
+      logger.warn("Unable to read results of the previous assessment:" + recFile, e);
+      previousResults.clear();
+    }
+    return previousResults;
+  }
+
+  private static String getString(JsonObject json, String name) {
+    JsonElement element = json.get(name);
+    return element == null || element.isJsonNull() ? null : element.getAsString();
+  }
+
+  private static String getResultKey(String auName, String productName, String productVersion, String platform,
+                                     String location, String runtime) {
+    return auName + "|" + productName + "|" + productVersion + "|" + platform + "|" + location + "|" +
+            (runtime == null ? "" : runtime);
+  }
+
+  private static String getFingerprint(String recFingerprint, String key, AssessmentUnit au) throws IOException {
+    MessageDigest digest = HashUtil.getDigest();
+    update(digest, recFingerprint);
+    update(digest, key);
+    update(digest, String.valueOf(au.getAssessmentData()));
+
+    List<Path> configFiles = au.getConfigFiles();
+    if (configFiles != null) {
+      byte[] buf = new byte[BUFFER_SIZE];
+      for (Path configFile : configFiles) {
+        // The files in a directory are also in the list
+        if (au.isLocalConfigFile(configFile) && Files.isDirectory(configFile)) {
+          continue;
+        }
+        update(digest, configFile.toString());
+        long size = 0;
+        try (InputStream in = au.openConfigFile(configFile)) {
+          int n;
+          while ((n = in.read(buf)) > 0) {
+            digest.update(buf, 0, n);
+            size += n;
+          }
+        }
+        update(digest, Long.toString(size));
+      }
+    }
+    return HashUtil.toHex(digest.digest());
+  }
+
+  // Each value is followed by a separator, so that different values could not have the same hash
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static Gson getGson() {
+    return GsonUtil.getGson();
+  }
+}
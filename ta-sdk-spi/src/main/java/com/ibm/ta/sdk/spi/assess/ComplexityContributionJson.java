@@ -7,30 +7,36 @@
 package com.ibm.ta.sdk.spi.assess;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.ibm.ta.sdk.spi.recommendation.ComplexityRating;
 import com.ibm.ta.sdk.spi.recommendation.ComplexityContribution;
 
 import java.util.ArrayList;
 import java.util.List;
 
+@JsonAdapter(ComplexityContributionJsonTypeAdapter.class)
 public class ComplexityContributionJson {
   @Expose
-  private String id;
+  String id;
 
   @Expose
-  private String name;
+  String name;
 
   @Expose
-  private String description;
+  String description;
 
   @Expose
-  private String complexityContribution;
+  String complexityContribution;
 
   @Expose
-  private List<String> issues;
+  List<String> issues;
 
   @Expose
-  private List<String> issuesCategory;
+  List<String> issuesCategory;
+
+  ComplexityContributionJson() {
+    // For read json from file
+  }
 
   public ComplexityContributionJson(ComplexityContribution cc) {
     id = cc.getId();
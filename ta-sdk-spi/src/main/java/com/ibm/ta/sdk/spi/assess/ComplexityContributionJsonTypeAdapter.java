@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.assess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.ibm.ta.sdk.spi.util.GsonUtil.readString;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.readStringList;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeString;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeStringList;
+
+/**
+ * Reads and writes a complexity contribution of the complexity.json, without reflection. The fields are written in the
+ * order they are declared in {@link ComplexityContributionJson}.
+ */
+public class ComplexityContributionJsonTypeAdapter extends TypeAdapter<ComplexityContributionJson> {
+
+  @Override
+  public void write(JsonWriter out, ComplexityContributionJson value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    writeString(out, "id", value.id);
+    writeString(out, "name", value.name);
+    writeString(out, "description", value.description);
+    writeString(out, "complexityContribution", value.complexityContribution);
+    writeStringList(out, "issues", value.issues);
+    writeStringList(out, "issuesCategory", value.issuesCategory);
+    out.endObject();
+  }
+
+  @Override
+  public ComplexityContributionJson read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    ComplexityContributionJson value = new ComplexityContributionJson();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "id":
+          value.id = readString(in);
+          break;
+        case "name":
+          value.name = readString(in);
+          break;
+        case "description":
+          value.description = readString(in);
+          break;
+        case "complexityContribution":
+          value.complexityContribution = readString(in);
+          break;
+        case "issues":
+          value.issues = readStringList(in);
+          break;
+        case "issuesCategory":
+          value.issuesCategory = readStringList(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return value;
+  }
+}
@@ -7,16 +7,22 @@
 package com.ibm.ta.sdk.spi.assess;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
+@JsonAdapter(IssueCategoryJsonTypeAdapter.class)
 public class IssueCategoryJson {
-  private String id;
+  String id;
 
   @Expose
-  private String title;
+  String title;
+
+  IssueCategoryJson() {
+    // For read json from file
+  }
 
   public IssueCategoryJson(IssueCategory issueCat) {
     id = issueCat.getId();
@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.assess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.ibm.ta.sdk.spi.util.GsonUtil.readString;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeString;
+
+/**
+ * Reads and writes an issue category, without reflection. The id is the key of the category in the map of categories,
+ * and is not written.
+ */
+public class IssueCategoryJsonTypeAdapter extends TypeAdapter<IssueCategoryJson> {
+
+  @Override
+  public void write(JsonWriter out, IssueCategoryJson value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    writeString(out, "title", value.title);
+    out.endObject();
+  }
+
+  @Override
+  public IssueCategoryJson read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    IssueCategoryJson value = new IssueCategoryJson();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "id":
+          value.id = readString(in);
+          break;
+        case "title":
+          value.title = readString(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return value;
+  }
+}
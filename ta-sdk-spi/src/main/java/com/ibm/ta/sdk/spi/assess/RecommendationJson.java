@@ -6,7 +6,9 @@
 
 package com.ibm.ta.sdk.spi.assess;
 
+import com.google.gson.JsonElement;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
 import com.ibm.ta.sdk.spi.collect.Environment;
@@ -16,6 +18,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.*;
 
+@JsonAdapter(RecommendationJsonTypeAdapterFactory.class)
 public class RecommendationJson {
   private static final String REC_ATTR_QM_NAME = "name";
   private static final String ASS_ATTR_TARGET = "targets";
@@ -61,6 +64,21 @@ public class RecommendationJson {
   private static Logger logger = LogManager.getLogger(RecommendationJson.class.getName());
 
   public RecommendationJson(Recommendation recommendation, Environment environment, List<? extends AssessmentUnit> auList) throws TAException {
+    this(recommendation, environment, auList, null);
+  }
+
+  /**
+   * Creates the recommendations for the assessment units. The results of the previous assessment are reused for the
+   * assessment units that have not changed, see {@link AssessmentFingerprints}.
+   *
+   * @param recommendation Recommendation for the assessment
+   * @param environment Environment of the assessment
+   * @param auList Assessment units to evaluate
+   * @param fingerprints Fingerprints of the previous assessment, or null to evaluate all the assessment units
+   * @throws TAException If the issues of an assessment unit could not be evaluated
+   */
+  public RecommendationJson(Recommendation recommendation, Environment environment, List<? extends AssessmentUnit> auList,
+                            AssessmentFingerprints fingerprints) throws TAException {
     this.recommendation = recommendation;
     domain = environment.getDomain();
     middleware = environment.getMiddlewareName();
@@ -70,8 +88,22 @@ public class RecommendationJson {
     complexityRules = ComplexityContributionJson.getComplexityContributionJsonList(recommendation.getComplexityContributions());
     issueCategories = IssueCategoryJson.getIssueCategoryJsonMap(recommendation.getIssueCategories());
 
+    if (fingerprints != null) {
+      fingerprints.prepare(recommendation, auList);
+    }
     for (Target target : recommendation.getTargets()) {
       for (AssessmentUnit au : auList) {
+        JsonElement previousResult = fingerprints != null ? fingerprints.getPreviousResult(recommendation, target, au) : null;
+        if (previousResult != null) {
+          // The JSON elements are written as they are, so the result is the same as in the previous assessment
+          Map<String, Object> auMap = new LinkedHashMap<String, Object>();
+          for (Map.Entry<String, JsonElement> entry : previousResult.getAsJsonObject().entrySet()) {
+            auMap.put(entry.getKey(), entry.getValue());
+          }
+          assessmentUnits.add(auMap);
+          continue;
+        }
+
         List<Issue> auIssues = recommendation.getIssues(target, au);
 
         // Build map of issues by category
@@ -0,0 +1,108 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.assess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeString;
+
+/**
+ * Writes the recommendations.json, without reflection. The fields are written in the order they are declared in
+ * {@link RecommendationJson}.
+ *
+ * <p>The results of the assessment units are maps of values, such as issues and summaries, that are written with the
+ * type adapter of each value. The recommendations.json is read as a {@code JsonObject}, so the json is not read back
+ * into a {@code RecommendationJson}.
+ */
+public class RecommendationJsonTypeAdapterFactory implements TypeAdapterFactory {
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    if (type.getRawType() != RecommendationJson.class) {
+      return null;
+    }
+    return (TypeAdapter<T>) new Adapter(gson);
+  }
+
+  private static class Adapter extends TypeAdapter<RecommendationJson> {
+    private final TypeAdapter<ComplexityContributionJson> complexityAdapter;
+    private final TypeAdapter<IssueCategoryJson> issueCategoryAdapter;
+    private final TypeAdapter<Map<String, Object>> assessmentUnitAdapter;
+
+    Adapter(Gson gson) {
+      complexityAdapter = gson.getAdapter(ComplexityContributionJson.class);
+      issueCategoryAdapter = gson.getAdapter(IssueCategoryJson.class);
+      assessmentUnitAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>(){});
+    }
+
+    @Override
+    public void write(JsonWriter out, RecommendationJson value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      writeString(out, "domain", value.domain);
+      writeString(out, "assessmentType", value.assessmentType);
+      writeString(out, "assessmentName", value.assessmentName);
+      writeString(out, "middleware", value.middleware);
+      writeString(out, "version", value.version);
+
+      out.name("complexityRules");
+      if (value.complexityRules == null) {
+        out.nullValue();
+      } else {
+        out.beginArray();
+        for (ComplexityContributionJson complexityRule : value.complexityRules) {
+          complexityAdapter.write(out, complexityRule);
+        }
+        out.endArray();
+      }
+
+      out.name("issueCategories");
+      if (value.issueCategories == null) {
+        out.nullValue();
+      } else {
+        out.beginObject();
+        for (Map.Entry<String, IssueCategoryJson> entry : value.issueCategories.entrySet()) {
+          out.name(entry.getKey());
+          issueCategoryAdapter.write(out, entry.getValue());
+        }
+        out.endObject();
+      }
+
+      out.name("assessmentUnits");
+      List<Map<String, Object>> assessmentUnits = value.assessmentUnits;
+      if (assessmentUnits == null) {
+        out.nullValue();
+      } else {
+        out.beginArray();
+        for (Map<String, Object> assessmentUnit : assessmentUnits) {
+          assessmentUnitAdapter.write(out, assessmentUnit);
+        }
+        out.endArray();
+      }
+      out.endObject();
+    }
+
+    @Override
+    public RecommendationJson read(JsonReader in) {
+      throw new JsonParseException("Read the recommendations.json as a JsonObject, it could not be read as a RecommendationJson");
+    }
+  }
+}
@@ -8,6 +8,9 @@ package com.ibm.ta.sdk.spi.collect;
 
 import com.google.gson.JsonObject;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -69,4 +72,32 @@ public interface AssessmentUnit {
    */
   List<ContentMask> getContentMasks();
 
+  /**
+   * Opens one of the {@link #getConfigFiles()} config files for reading. Rule providers read config files with this
+   * method, so that an assessment unit could serve config files that are not on a filesystem, such as the entries of
+   * a collection archive.
+   *
+   * <p>The default implementation reads the file from the filesystem or jar archive of the {@code Path}.
+   *
+   * @param configFile One of the config files returned from {@link #getConfigFiles()}
+   * @return {@code InputStream} to read the content of the config file. The caller closes the stream.
+   * @throws IOException If the config file could not be opened
+   */
+  default InputStream openConfigFile(Path configFile) throws IOException {
+    return Files.newInputStream(configFile);
+  }
+
+  /**
+   * Whether one of the {@link #getConfigFiles()} config files is a file on the filesystem or jar archive of the
+   * {@code Path}. Config files that are not, such as the entries of a collection archive, are only read with
+   * {@link #openConfigFile(Path)}, a file with the same path on the local filesystem is never used in their place.
+   *
+   * <p>The default implementation returns {@code true}.
+   *
+   * @param configFile One of the config files returned from {@link #getConfigFiles()}
+   * @return {@code true} if the config file is read from the filesystem or jar archive of the {@code Path}
+   */
+  default boolean isLocalConfigFile(Path configFile) {
+    return true;
+  }
 }
@@ -6,6 +6,7 @@
 
 package com.ibm.ta.sdk.spi.collect;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -25,6 +26,9 @@ public interface ContentMask {
    * Get a list of file names that the content mask will be applied to. The file names could be
    * a regular expression. The file names must match the absolute path of the file.
    *
+   * <p>A file name of exactly '*' is not a regular expression, it applies the content mask to all the config files
+   * in the assessment unit. Use '.*' for a regular expression that matches any path.
+   *
    * @return {@code List} of {@code String} of the files where the content mask will be applied. '*' to apply the
    * content mask to all the config files in the assessment unit.
    */
@@ -41,4 +45,26 @@ public interface ContentMask {
    * @return updated lines from the file, as a {@code List}, containing the masked content
    */
   List<String> mask(List<String> content);
+
+  /**
+   * Returns true if the mask applies to each line on its own, without looking at the other lines in the file. Files
+   * that only have line masks are masked line by line as they are copied, without reading the whole file into memory.
+   * The default is false, the whole file is passed to {@link #mask(List)}.
+   *
+   * @return true if the mask could be applied with {@link #maskLine(String)}
+   */
+  default boolean isLineMask() {
+    return false;
+  }
+
+  /**
+   * Apply the {@link #MASK} to the matching text in a single line. This is used instead of {@link #mask(List)} if
+   * {@link #isLineMask()} returns true. The default passes the line to {@link #mask(List)}.
+   *
+   * @param line the line from the matching file
+   * @return the line with the masked content
+   */
+  default String maskLine(String line) {
+    return mask(Collections.singletonList(line)).get(0);
+  }
 }
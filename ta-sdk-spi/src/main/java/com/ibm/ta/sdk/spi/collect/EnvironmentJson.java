@@ -9,41 +9,43 @@ package com.ibm.ta.sdk.spi.collect;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.ibm.ta.sdk.spi.collect.Environment;
 
+@JsonAdapter(EnvironmentJsonTypeAdapter.class)
 public class EnvironmentJson {
   @Expose
-  private String domain;
+  String domain;
 
   @Expose
-  private String operatingSystem;
+  String operatingSystem;
 
   @Expose
-  private String hostName;
+  String hostName;
 
   @Expose
-  private String middlewareName;
+  String middlewareName;
 
   @Expose
-  private String middlewareVersion;
+  String middlewareVersion;
 
   @Expose
-  private String middlewareInstallPath;
+  String middlewareInstallPath;
 
   @Expose
-  private String middlewareDataPath;
+  String middlewareDataPath;
 
   @Expose
-  private String middlewareMetadata;
+  String middlewareMetadata;
 
   @Expose
-  private String assessmentName;
+  String assessmentName;
 
   @Expose
-  private String assessmentType;
+  String assessmentType;
 
   @Expose
-  private String assessmentMetadata;
+  String assessmentMetadata;
 
   public EnvironmentJson() {
     // For read json from file
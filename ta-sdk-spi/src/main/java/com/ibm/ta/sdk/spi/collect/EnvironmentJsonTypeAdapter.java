@@ -0,0 +1,96 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.collect;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.ibm.ta.sdk.spi.util.GsonUtil.readString;
+import static com.ibm.ta.sdk.spi.util.GsonUtil.writeString;
+
+/**
+ * Reads and writes the environment.json, without reflection. The fields are written in the order they are declared
+ * in {@link EnvironmentJson}.
+ */
+public class EnvironmentJsonTypeAdapter extends TypeAdapter<EnvironmentJson> {
+
+  @Override
+  public void write(JsonWriter out, EnvironmentJson value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    writeString(out, "domain", value.domain);
+    writeString(out, "operatingSystem", value.operatingSystem);
+    writeString(out, "hostName", value.hostName);
+    writeString(out, "middlewareName", value.middlewareName);
+    writeString(out, "middlewareVersion", value.middlewareVersion);
+    writeString(out, "middlewareInstallPath", value.middlewareInstallPath);
+    writeString(out, "middlewareDataPath", value.middlewareDataPath);
+    writeString(out, "middlewareMetadata", value.middlewareMetadata);
+    writeString(out, "assessmentName", value.assessmentName);
+    writeString(out, "assessmentType", value.assessmentType);
+    writeString(out, "assessmentMetadata", value.assessmentMetadata);
+    out.endObject();
+  }
+
+  @Override
+  public EnvironmentJson read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    EnvironmentJson value = new EnvironmentJson();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "domain":
+          value.domain = readString(in);
+          break;
+        case "operatingSystem":
+          value.operatingSystem = readString(in);
+          break;
+        case "hostName":
+          value.hostName = readString(in);
+          break;
+        case "middlewareName":
+          value.middlewareName = readString(in);
+          break;
+        case "middlewareVersion":
+          value.middlewareVersion = readString(in);
+          break;
+        case "middlewareInstallPath":
+          value.middlewareInstallPath = readString(in);
+          break;
+        case "middlewareDataPath":
+          value.middlewareDataPath = readString(in);
+          break;
+        case "middlewareMetadata":
+          value.middlewareMetadata = readString(in);
+          break;
+        case "assessmentName":
+          value.assessmentName = readString(in);
+          break;
+        case "assessmentType":
+          value.assessmentType = readString(in);
+          break;
+        case "assessmentMetadata":
+          value.assessmentMetadata = readString(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return value;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.collect;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.ta.sdk.spi.plugin.TARuntimeException;
+import com.ibm.ta.sdk.spi.report.Report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Assessment unit read from the <i>output</i> directory by {@link OutputDataCollection}.
+ *
+ * <p>The config files are the files that were copied to the assessment unit directory by the collection, content
+ * masks were applied when they were copied. The assessment unit json, and the reports and their occurrence data
+ * written to the assessment unit directory by the report stage, are not config files.
+ */
+public class OutputAssessmentUnit implements AssessmentUnit {
+
+  private final String name;
+  private final File auDir;
+  private final DataCollection dataCollection;
+  private JsonObject assessmentData;
+  private List<Path> configFiles;
+
+  /**
+   * @param auDir Directory of the assessment unit in the output directory
+   * @param dataCollection Collection of the assessment unit
+   */
+  public OutputAssessmentUnit(File auDir, DataCollection dataCollection) {
+    this.auDir = auDir;
+    this.name = auDir.getName();
+    this.dataCollection = dataCollection;
+  }
+
+  public DataCollection getDataCollection() {
+    return dataCollection;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public synchronized JsonObject getAssessmentData() {
+    if (assessmentData == null) {
+      File auFile = new File(auDir, name + ".json");
+      try (Reader reader = Files.newBufferedReader(auFile.toPath(), StandardCharsets.UTF_8)) {
+        assessmentData = new JsonParser().parse(reader).getAsJsonObject();
+      } catch (IOException e) {
+        throw new TARuntimeException("Unable to read assessment unit data:" + auFile, e);
+      }
+    }
+    return assessmentData;
+  }
+
+  @Override
+  public synchronized List<Path> getConfigFiles() {
+    if (configFiles == null) {
+      Path auPath = auDir.toPath();
+      try (Stream<Path> paths = Files.walk(auPath)) {
+        configFiles = paths.filter(Files::isRegularFile)
+                .filter(path -> !isAssessmentUnitFile(auPath.relativize(path)))
+                .sorted()
+                .collect(Collectors.toList());
+      } catch (IOException e) {
+        throw new TARuntimeException("Unable to list config files of assessment unit:" + auDir, e);
+      }
+    }
+    return configFiles;
+  }
+
+  private boolean isAssessmentUnitFile(Path relativePath) {
+    String path = relativePath.toString().replace(File.separatorChar, '/');
+    return path.equals(name + ".json") || Report.isReportFile(path);
+  }
+
+  /**
+   * @return Empty list, content masks were applied when the config files were collected
+   */
+  @Override
+  public List<ContentMask> getContentMasks() {
+    return Collections.emptyList();
+  }
+}
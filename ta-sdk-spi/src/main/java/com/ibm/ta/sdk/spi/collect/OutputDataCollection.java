@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.collect;
+
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.plugin.TARuntimeException;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data collection read from the <i>output</i> directory, where it was written by an earlier collection. Collections
+ * are assessed from the output directory with the <i>--skipcollect</i> option, without collecting the data from
+ * the middleware again.
+ *
+ * <p>The collection is read when it is used. The environment.json is parsed on the first call to
+ * {@link #getEnvironment()}, the assessment unit directories are listed on the first call to
+ * {@link #getAssessmentUnits()}, and the data and config files of each assessment unit are read when the assessment
+ * unit is assessed, see {@link OutputAssessmentUnit}.
+ */
+public class OutputDataCollection implements DataCollection {
+  private static Logger logger = LogManager.getLogger(OutputDataCollection.class.getName());
+
+  public static final String ENVIRONMENT_JSON = "environment.json";
+
+  private final String assessmentName;
+  private final File assessmentDir;
+  private Environment environment;
+  private List<OutputAssessmentUnit> assessmentUnits;
+
+  /**
+   * @param assessmentDir Output directory of the assessment, with the environment.json and a directory for each
+   *                      assessment unit
+   */
+  public OutputDataCollection(File assessmentDir) {
+    this.assessmentDir = assessmentDir;
+    this.assessmentName = assessmentDir.getName();
+  }
+
+  /**
+   * Gets the collections in an output directory. Each directory with an environment.json is a collection, hidden
+   * directories such as the blob store are skipped.
+   *
+   * @param outputDir Output directory
+   * @return {@code List} of {@code OutputDataCollection}, sorted by assessment name
+   * @throws TAException If the output directory does not exist
+   */
+  public static List<OutputDataCollection> readAll(File outputDir) throws TAException {
+    File[] files = outputDir.listFiles();
+    if (files == null) {
+      throw new TAException("Output directory does not exist:" + outputDir.getAbsolutePath());
+    }
+    Arrays.sort(files);
+
+    List<OutputDataCollection> collections = new ArrayList<>();
+    for (File file : files) {
+      if (file.isDirectory() && !file.getName().startsWith(".") && new File(file, ENVIRONMENT_JSON).isFile()) {
+        logger.info("Reading collection from output directory:" + file);
+        collections.add(new OutputDataCollection(file));
+      }
+    }
+    return collections;
+  }
+
+  /**
+   * @return Output directory of the assessment
+   */
+  public File getAssessmentDir() {
+    return assessmentDir;
+  }
+
+  @Override
+  public String getAssessmentName() {
+    return assessmentName;
+  }
+
+  @Override
+  public synchronized Environment getEnvironment() {
+    if (environment == null) {
+      File envFile = new File(assessmentDir, ENVIRONMENT_JSON);
+      try (Reader reader = Files.newBufferedReader(envFile.toPath(), StandardCharsets.UTF_8)) {
+        environment = GsonUtil.getGson().fromJson(reader, EnvironmentJson.class).getEnvironment();
+      } catch (IOException e) {
+        throw new TARuntimeException("Unable to read environment of collection:" + envFile, e);
+      }
+    }
+    return environment;
+  }
+
+  @Override
+  public synchronized List<? extends AssessmentUnit> getAssessmentUnits() {
+    if (assessmentUnits == null) {
+      assessmentUnits = new ArrayList<>();
+      File[] files = assessmentDir.listFiles();
+      if (files != null) {
+        Arrays.sort(files);
+        for (File file : files) {
+          // Only directories with an assessment unit json are assessment units
+          if (file.isDirectory() && new File(file, file.getName() + ".json").isFile()) {
+            assessmentUnits.add(new OutputAssessmentUnit(file, this));
+          }
+        }
+      }
+      assessmentUnits = Collections.unmodifiableList(assessmentUnits);
+      logger.debug("Found " + assessmentUnits.size() + " assessment units in output directory:" + assessmentDir);
+    }
+    return assessmentUnits;
+  }
+}
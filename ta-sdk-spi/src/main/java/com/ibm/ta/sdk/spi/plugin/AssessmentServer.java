@@ -0,0 +1,470 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.plugin;
+
+import com.google.gson.JsonParseException;
+import com.ibm.ta.sdk.spi.plugin.BatchRunner.BatchJob;
+import com.ibm.ta.sdk.spi.plugin.BatchRunner.BatchJobResult;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import com.ibm.ta.sdk.spi.util.HashUtil;
+import com.ibm.ta.sdk.spi.util.Util;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server that runs collect, assess, report and run commands in a long-running JVM, so that each command does not pay
+ * for the JVM startup, and the loading of the plug-ins and rules. The server listens on a localhost HTTP port, and
+ * only accepts connections from the local host.
+ *
+ * <p>Each request must have the token of the server in the <i>X-TA-Token</i> header. The token is a random value
+ * written, when the server starts, to <i>server-PORT.token</i> in the <i>.ta-sdk</i> directory of the user's home,
+ * that only the user could read, so other users of the host could not run commands. Requests must also have a
+ * loopback or <i>localhost</i> Host, and the run request a json Content-Type, so that a web page could not send
+ * commands to the server from a browser.
+ *
+ * <p>The client, <i>TADataCollector client [--port N] MIDDLEWARE COMMAND [OPTIONS]</i>, forwards its arguments to the
+ * server, with the <i>output</i> directory of the client's current directory. The command writes to that output
+ * directory, the same as when the command runs in the client's JVM. Paths in the arguments are resolved by the
+ * server, and should be absolute.
+ *
+ * <p>Commands run on a pool of threads, with the plug-in providers of a {@link BatchRunner}. Providers, rule sets and
+ * parsers stay loaded between commands.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li><i>POST /run</i> runs a command, the request is a {@link BatchJob} json, and the response a
+ *   {@link BatchJobResult} json</li>
+ *   <li><i>GET /status</i> returns the number of commands run</li>
+ *   <li><i>POST /shutdown</i> stops the server, after the commands that are running</li>
+ * </ul>
+ */
+public class AssessmentServer implements Closeable {
+  private static Logger logger = LogManager.getLogger(AssessmentServer.class.getName());
+
+  public static final String SERVER_COMMAND = "server";
+  public static final String CLIENT_COMMAND = "client";
+  public static final int DEFAULT_PORT = 7878;
+
+  private static final String PORT_OPTION = "--port";
+  private static final String THREADS_OPTION = "--threads";
+  private static final String RUN_PATH = "/run";
+  private static final String STATUS_PATH = "/status";
+  private static final String SHUTDOWN_PATH = "/shutdown";
+  private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+  private static final String JSON_MEDIA_TYPE = "application/json";
+  private static final String TOKEN_HEADER = "X-TA-Token";
+  private static final String TOKEN_DIR = ".ta-sdk";
+  private static final int TOKEN_BYTES = 32;
+
+  private final HttpServer httpServer;
+  private final ExecutorService executor;
+  private final BatchRunner batchRunner;
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private final AtomicLong requests = new AtomicLong();
+  private final Path tokenDir;
+  private final String token;
+  private Path tokenFile;
+
+  /**
+   * Creates a server on a localhost port, with its token file in the <i>.ta-sdk</i> directory of the user's home.
+   * The server is started with {@link #start()}.
+   *
+   * @param port Port on the loopback address, or 0 for any free port
+   * @param threads Number of commands that run at the same time
+   * @throws IOException If the port could not be bound
+   */
+  public AssessmentServer(int port, int threads) throws IOException {
+    this(port, threads, getDefaultTokenDir());
+  }
+
+  /**
+   * Creates a server on a localhost port. The server is started with {@link #start()}.
+   *
+   * @param port Port on the loopback address, or 0 for any free port
+   * @param threads Number of commands that run at the same time
+   * @param tokenDir Directory the token file of the server is written to
+   * @throws IOException If the port could not be bound
+   */
+  public AssessmentServer(int port, int threads, Path tokenDir) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads for server:" + threads + ".");
+    }
+    batchRunner = new BatchRunner(threads);
+    executor = Executors.newFixedThreadPool(threads);
+    httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    httpServer.setExecutor(executor);
+    httpServer.createContext(RUN_PATH, this::handleRun);
+    httpServer.createContext(STATUS_PATH, this::handleStatus);
+    httpServer.createContext(SHUTDOWN_PATH, this::handleShutdown);
+    this.tokenDir = tokenDir;
+    byte[] tokenBytes = new byte[TOKEN_BYTES];
+    new SecureRandom().nextBytes(tokenBytes);
+    token = HashUtil.toHex(tokenBytes);
+  }
+
+  /**
+   * Writes the token file, and starts the server.
+   *
+   * @throws IOException If the token file could not be written
+   */
+  public void start() throws IOException {
+    tokenFile = getTokenFile(tokenDir, getAddress().getPort());
+    writeTokenFile(tokenFile, token);
+    httpServer.start();
+    logger.info("Assessment server listening on:" + getAddress());
+  }
+
+  /**
+   * @return Address the server listens on
+   */
+  public InetSocketAddress getAddress() {
+    return httpServer.getAddress();
+  }
+
+  /**
+   * @return Token file of the server, written when the server is started
+   */
+  public Path getTokenFile() {
+    return tokenFile;
+  }
+
+  /**
+   * Waits until the server is stopped with a shutdown request or {@link #close()}.
+   *
+   * @throws InterruptedException If the thread was interrupted
+   */
+  public void awaitShutdown() throws InterruptedException {
+    stopped.await();
+  }
+
+  @Override
+  public void close() {
+    // Commands that are running complete before the server stops
+    httpServer.stop(0);
+    executor.shutdown();
+    if (tokenFile != null) {
+      try {
+        Files.deleteIfExists(tokenFile);
+      } catch (IOException e) {
+        logger.warn("Failed to delete token file of assessment server:" + tokenFile, e);
+      }
+    }
+    stopped.countDown();
+  }
+
+  private void handleRun(HttpExchange exchange) throws IOException {
+    try {
+      if (!isAllowed(exchange, "POST")) {
+        return;
+      }
+      if (!isJsonContentType(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+        sendResponse(exchange, HttpURLConnection.HTTP_UNSUPPORTED_TYPE, "Request requires Content-Type:" + JSON_MEDIA_TYPE);
+        return;
+      }
+
+      BatchJob request;
+      try (InputStream in = exchange.getRequestBody()) {
+        request = GsonUtil.getGson().fromJson(new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8), BatchJob.class);
+      } catch (JsonParseException e) {
+        sendResponse(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Invalid request:" + e.getMessage());
+        return;
+      }
+      if (request == null || request.getMiddleware() == null || request.getArguments() == null ||
+              request.getArguments().isEmpty() || request.getOutputDir() == null) {
+        sendResponse(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Request requires middleware, arguments and outputDir");
+        return;
+      }
+
+      // Each request has a name for the log, and runs in the output dir of the client
+      String name = request.getName() != null ? request.getName() : "request" + requests.incrementAndGet();
+      BatchJobResult result = batchRunner.runJob(new BatchJob(name, request.getMiddleware(), request.getArguments(),
+              request.getOutputDir()));
+      sendResponse(exchange, HttpURLConnection.HTTP_OK, GsonUtil.getGson().toJson(result));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleStatus(HttpExchange exchange) throws IOException {
+    try {
+      if (!isAllowed(exchange, "GET")) {
+        return;
+      }
+      sendResponse(exchange, HttpURLConnection.HTTP_OK, "{\"requests\": " + requests.get() + "}");
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleShutdown(HttpExchange exchange) throws IOException {
+    try {
+      if (!isAllowed(exchange, "POST")) {
+        return;
+      }
+      sendResponse(exchange, HttpURLConnection.HTTP_OK, "{}");
+    } finally {
+      exchange.close();
+    }
+    logger.info("Assessment server shutdown requested");
+
+    // The server could not stop on one of its own threads, it waits for the exchanges to complete
+    Thread stopThread = new Thread(this::close, "ta-server-stop");
+    stopThread.start();
+  }
+
+  /*
+   * Checks the method, Host and token of a request, and sends the error response if the request is not allowed. The
+   * Host must be a loopback address or localhost, so that a page of another site, that resolves its name to the
+   * loopback address, could not reach the server from a browser.
+   */
+  private boolean isAllowed(HttpExchange exchange, String method) throws IOException {
+    if (!isLoopbackHost(exchange.getRequestHeaders().getFirst("Host"))) {
+      sendResponse(exchange, HttpURLConnection.HTTP_FORBIDDEN, "Request requires a loopback Host");
+      return false;
+    }
+    String requestToken = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+    if (requestToken == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+            requestToken.getBytes(StandardCharsets.UTF_8))) {
+      sendResponse(exchange, HttpURLConnection.HTTP_UNAUTHORIZED, "Request requires the token of the server");
+      return false;
+    }
+    if (!method.equals(exchange.getRequestMethod())) {
+      sendResponse(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Method not allowed:" + exchange.getRequestMethod());
+      return false;
+    }
+    return true;
+  }
+
+  static boolean isLoopbackHost(String host) {
+    if (host == null) {
+      return false;
+    }
+    // Host is name[:port], an IPv6 address is in brackets
+    String hostName = host.trim().toLowerCase(Locale.ROOT);
+    if (hostName.startsWith("[")) {
+      int end = hostName.indexOf(']');
+      if (end < 0 || (end + 1 < hostName.length() && hostName.charAt(end + 1) != ':')) {
+        return false;
+      }
+      hostName = hostName.substring(1, end);
+      return hostName.equals("::1") || hostName.equals("0:0:0:0:0:0:0:1");
+    }
+    int portSep = hostName.indexOf(':');
+    if (portSep >= 0) {
+      hostName = hostName.substring(0, portSep);
+    }
+    // Only names that are not resolved, a name of another host could be resolved to the loopback address
+    return hostName.equals("localhost") || hostName.matches("127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}");
+  }
+
+  static boolean isJsonContentType(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    int paramSep = contentType.indexOf(';');
+    String mediaType = paramSep < 0 ? contentType : contentType.substring(0, paramSep);
+    return JSON_MEDIA_TYPE.equalsIgnoreCase(mediaType.trim());
+  }
+
+  private static void sendResponse(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] content = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+    exchange.sendResponseHeaders(status, content.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(content);
+    }
+  }
+
+  /**
+   * Runs the server command, <i>server [--port N] [--threads N]</i>, and waits until the server is shut down.
+   *
+   * @param cliArguments Arguments after the server command
+   * @throws IOException If the port could not be bound, or the token file could not be written
+   * @throws TAException If the server was interrupted
+   */
+  public static void runServerCommand(List<String> cliArguments) throws IOException, TAException {
+    int port = DEFAULT_PORT;
+    int threads = Runtime.getRuntime().availableProcessors();
+    for (Iterator<String> itArgs = cliArguments.iterator(); itArgs.hasNext(); ) {
+      String arg = itArgs.next();
+      if (PORT_OPTION.equals(arg)) {
+        port = getIntOption(arg, itArgs);
+      } else if (THREADS_OPTION.equals(arg)) {
+        threads = getIntOption(arg, itArgs);
+      } else {
+        throw new IllegalArgumentException("Invalid argument for the server command '" + arg + "'.");
+      }
+    }
+
+    try (AssessmentServer server = new AssessmentServer(port, threads)) {
+      server.start();
+      System.out.println("Assessment server listening on port " + server.getAddress().getPort() + ".");
+      server.awaitShutdown();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TAException("Interrupted while running assessment server", e);
+    }
+  }
+
+  /**
+   * Runs the client command, <i>client [--port N] MIDDLEWARE COMMAND [OPTIONS]</i>. The command is run by the server,
+   * in the <i>output</i> directory of the current directory.
+   *
+   * @param cliArguments Arguments after the client command
+   * @throws IOException If the server could not be reached
+   * @throws TAException If the server is not running, or the command failed
+   */
+  public static void runClientCommand(List<String> cliArguments) throws IOException, TAException {
+    int port = DEFAULT_PORT;
+    List<String> commandArgs = new ArrayList<>(cliArguments);
+    if (!commandArgs.isEmpty() && PORT_OPTION.equals(commandArgs.get(0))) {
+      Iterator<String> itArgs = commandArgs.iterator();
+      port = getIntOption(itArgs.next(), itArgs);
+      commandArgs = commandArgs.subList(2, commandArgs.size());
+    }
+    if (commandArgs.size() < 2) {
+      throw new IllegalArgumentException("No middleware or command was specified for the client command.");
+    }
+
+    BatchJob request = new BatchJob(null, commandArgs.get(0), new ArrayList<>(commandArgs.subList(1, commandArgs.size())),
+            Util.getOutputDir().getAbsolutePath());
+    String token = readToken(getDefaultTokenDir(), port);
+    URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), port, RUN_PATH);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    String response;
+    try {
+      connection.setRequestMethod("POST");
+      connection.setRequestProperty("Content-Type", JSON_CONTENT_TYPE);
+      connection.setRequestProperty(TOKEN_HEADER, token);
+      connection.setDoOutput(true);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(GsonUtil.getGson().toJson(request).getBytes(StandardCharsets.UTF_8));
+      }
+
+      int status = connection.getResponseCode();
+      try (InputStream in = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream()) {
+        response = in == null ? "" : new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+      }
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new TAException("Assessment server rejected the command, status " + status + ":" + response);
+      }
+    } finally {
+      connection.disconnect();
+    }
+
+    BatchJobResult result = GsonUtil.getGson().fromJson(response, BatchJobResult.class);
+    if (!BatchJobResult.STATUS_SUCCEEDED.equals(result.getStatus())) {
+      throw new TAException("Command failed on assessment server:" + result.getError());
+    }
+    System.out.println("Command '" + request.getArguments().get(0) + "' completed successfully in " +
+            result.getDurationMillis() + " ms, output directory:" + new File(request.getOutputDir()) + "\n");
+  }
+
+  /**
+   * @return Directory of the token files of the servers, the <i>.ta-sdk</i> directory of the user's home
+   */
+  public static Path getDefaultTokenDir() {
+    return Paths.get(System.getProperty("user.home"), TOKEN_DIR);
+  }
+
+  /**
+   * @param tokenDir Directory of the token files
+   * @param port Port of the server
+   * @return Token file of the server on the port
+   */
+  public static Path getTokenFile(Path tokenDir, int port) {
+    return tokenDir.resolve("server-" + port + ".token");
+  }
+
+  /**
+   * Reads the token of the server on a port, from its token file.
+   *
+   * @param tokenDir Directory of the token files
+   * @param port Port of the server
+   * @return Token of the server
+   * @throws TAException If there is no token file for the port, the server is not running
+   * @throws IOException If the token file could not be read
+   */
+  public static String readToken(Path tokenDir, int port) throws TAException, IOException {
+    Path tokenFile = getTokenFile(tokenDir, port);
+    if (!Files.isRegularFile(tokenFile)) {
+      throw new TAException("No token file for an assessment server on port " + port + ":" + tokenFile);
+    }
+    return new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8).trim();
+  }
+
+  // The directory and the file could only be read by the user, on file systems that have POSIX permissions
+  private static void writeTokenFile(Path tokenFile, String token) throws IOException {
+    Path dir = tokenFile.getParent();
+    boolean posix = dir.getFileSystem().supportedFileAttributeViews().contains("posix");
+    if (posix) {
+      Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwx------"));
+    } else {
+      Files.createDirectories(dir);
+    }
+
+    // A token file of a server that did not stop is replaced, the file is created with its permissions
+    Files.deleteIfExists(tokenFile);
+    try {
+      if (posix) {
+        Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+      } else {
+        Files.createFile(tokenFile);
+        File file = tokenFile.toFile();
+        file.setReadable(false, false);
+        file.setWritable(false, false);
+        file.setReadable(true, true);
+        file.setWritable(true, true);
+      }
+    } catch (FileAlreadyExistsException e) {
+      throw new IOException("Token file of assessment server was created by another process:" + tokenFile, e);
+    }
+    Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static int getIntOption(String option, Iterator<String> itArgs) {
+    if (!itArgs.hasNext()) {
+      throw new IllegalArgumentException("Value required for option '" + option + "'.");
+    }
+    String value = itArgs.next();
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value specified for option '" + option + "', value= '" + value + "'.");
+    }
+  }
+}
@@ -0,0 +1,384 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.plugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.Expose;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import com.ibm.ta.sdk.spi.util.Util;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the jobs of a batch manifest in one JVM. Each job is a command for a middleware, the same as the arguments of
+ * {@code TADataCollector}, for example:
+ *
+ * <pre>
+ * {
+ *   "jobs": [
+ *     { "name": "host1", "middleware": "sample", "arguments": ["run", "/opt/app1", "/var/app1"] },
+ *     { "name": "host2", "middleware": "sample", "arguments": ["assess", "/opt/app2", "/var/app2"], "outputDir": "/tmp/host2" }
+ *   ]
+ * }
+ * </pre>
+ *
+ * <p>The jobs run on a bounded pool of threads. Each job writes to its own output directory, <i>batch-output/[job
+ * name]</i> in the current directory unless the job sets <i>outputDir</i>, see {@link Util#setOutputDir(File)}.
+ *
+ * <p>Plug-in providers are loaded once and reused by the jobs for the same middleware. A provider runs one job at a
+ * time, a new provider is loaded only when all the providers for the middleware are running jobs. The classes, rule
+ * sets and parsers loaded by the first jobs are warm for the jobs that follow.
+ *
+ * <p>A summary with the status and duration of each job is printed, and written to <i>batch-summary.json</i>.
+ */
+public class BatchRunner {
+  private static Logger logger = LogManager.getLogger(BatchRunner.class.getName());
+
+  public static final String BATCH_COMMAND = "batch";
+  public static final String SUMMARY_JSON = "batch-summary.json";
+
+  private static final String DEFAULT_OUTPUT_DIR = "batch-output";
+  private static final String THREADS_OPTION = "--threads";
+  private static final String SUMMARY_OPTION = "--summary";
+
+  /**
+   * Manifest with the jobs of a batch.
+   */
+  public static class BatchManifest {
+    @Expose
+    private List<BatchJob> jobs = new ArrayList<>();
+
+    public List<BatchJob> getJobs() {
+      return jobs;
+    }
+  }
+
+  /**
+   * Job of a batch, a command for a middleware.
+   */
+  public static class BatchJob {
+    @Expose
+    private String name;
+
+    @Expose
+    private String middleware;
+
+    @Expose
+    private List<String> arguments = new ArrayList<>();
+
+    @Expose
+    private String outputDir;
+
+    public BatchJob() {
+      // For read json from file
+    }
+
+    public BatchJob(String name, String middleware, List<String> arguments, String outputDir) {
+      this.name = name;
+      this.middleware = middleware;
+      this.arguments = arguments;
+      this.outputDir = outputDir;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getMiddleware() {
+      return middleware;
+    }
+
+    public List<String> getArguments() {
+      return arguments;
+    }
+
+    public String getOutputDir() {
+      return outputDir;
+    }
+  }
+
+  /**
+   * Result of a job of a batch.
+   */
+  public static class BatchJobResult {
+    public static final String STATUS_SUCCEEDED = "succeeded";
+    public static final String STATUS_FAILED = "failed";
+
+    @Expose
+    private String name;
+
+    @Expose
+    private String middleware;
+
+    @Expose
+    private List<String> arguments;
+
+    @Expose
+    private String outputDir;
+
+    @Expose
+    private String status;
+
+    @Expose
+    private long durationMillis;
+
+    @Expose
+    private String error;
+
+    BatchJobResult(BatchJob job, File outputDir) {
+      this.name = job.getName();
+      this.middleware = job.getMiddleware();
+      this.arguments = job.getArguments();
+      this.outputDir = outputDir.getAbsolutePath();
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getStatus() {
+      return status;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    public String getError() {
+      return error;
+    }
+  }
+
+  private final int threads;
+
+  // Providers that are not running a job, by middleware
+  private final Map<String, Deque<PluginProvider>> idleProviders = new HashMap<>();
+
+  /**
+   * @param threads Number of jobs that run at the same time
+   */
+  public BatchRunner(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads for batch:" + threads + ".");
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * Reads a batch manifest.
+   *
+   * @param manifestFile Manifest file
+   * @return Jobs of the batch
+   * @throws TAException If the manifest could not be read, or a job has no middleware or arguments
+   */
+  public static List<BatchJob> readManifest(Path manifestFile) throws TAException {
+    BatchManifest manifest;
+    try (Reader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+      manifest = getGson().fromJson(reader, BatchManifest.class);
+    } catch (IOException | JsonParseException e) {
+      throw new TAException("Unable to read batch manifest:" + manifestFile, e);
+    }
+    if (manifest == null || manifest.getJobs() == null) {
+      throw new TAException("Batch manifest has no jobs:" + manifestFile);
+    }
+
+    List<BatchJob> jobs = new ArrayList<>();
+    for (BatchJob job : manifest.getJobs()) {
+      if (job.getMiddleware() == null || job.getArguments() == null || job.getArguments().isEmpty()) {
+        throw new TAException("Batch job " + (jobs.size() + 1) + " has no middleware or arguments in manifest:" + manifestFile);
+      }
+      // Jobs without a name are named by their position in the manifest
+      String name = job.getName() != null ? job.getName() : "job" + (jobs.size() + 1);
+      jobs.add(new BatchJob(name, job.getMiddleware(), job.getArguments(), job.getOutputDir()));
+    }
+    return jobs;
+  }
+
+  /**
+   * Runs the jobs, and waits for all the jobs to complete. A job that fails does not stop the other jobs.
+   *
+   * @param jobs Jobs to run
+   * @return Result of each job, in the order of the jobs
+   * @throws TAException If the batch was interrupted
+   */
+  public List<BatchJobResult> run(List<BatchJob> jobs) throws TAException {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, jobs.size())));
+    try {
+      List<Future<BatchJobResult>> pendingResults = new ArrayList<>();
+      for (BatchJob job : jobs) {
+        pendingResults.add(executor.submit(() -> runJob(job)));
+      }
+
+      List<BatchJobResult> results = new ArrayList<>();
+      for (Future<BatchJobResult> pendingResult : pendingResults) {
+        results.add(pendingResult.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TAException("Interrupted while running batch", e);
+    } catch (ExecutionException e) {
+      // Failures of the jobs are in the results
+      throw new TAException("Error running batch", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs a job on the current thread, with a provider from the providers of this runner. Jobs could run at the same
+   * time on different threads, such as the requests of an {@link AssessmentServer}.
+   *
+   * @param job Job to run
+   * @return Result of the job, failures of the job are in the result
+   */
+  public BatchJobResult runJob(BatchJob job) {
+    File outputDir = job.getOutputDir() != null ? new File(job.getOutputDir()) :
+            new File(new File(System.getProperty("user.dir"), DEFAULT_OUTPUT_DIR), job.getName());
+    BatchJobResult result = new BatchJobResult(job, outputDir);
+    logger.info("Running batch job " + job.getName() + ", middleware:" + job.getMiddleware() + ", arguments:" +
+            job.getArguments() + ", output dir:" + outputDir);
+
+    long start = System.currentTimeMillis();
+    PluginProvider provider = null;
+    Util.setOutputDir(outputDir);
+    try {
+      provider = borrowProvider(job.getMiddleware());
+      if (provider == null) {
+        throw new IllegalArgumentException("No plug-in provider found for middleware:" + job.getMiddleware() + ".");
+      }
+      outputDir.mkdirs();
+      new TADataCollector().runCommand(provider, new ArrayList<>(job.getArguments()));
+      result.status = BatchJobResult.STATUS_SUCCEEDED;
+    } catch (Exception e) {
+      logger.error("Batch job " + job.getName() + " failed", e);
+      result.status = BatchJobResult.STATUS_FAILED;
+      result.error = e.getMessage() != null ? e.getMessage() : e.toString();
+    } finally {
+      Util.setOutputDir(null);
+      if (provider != null) {
+        returnProvider(provider);
+      }
+      result.durationMillis = System.currentTimeMillis() - start;
+    }
+    return result;
+  }
+
+  private PluginProvider borrowProvider(String middleware) {
+    synchronized (idleProviders) {
+      Deque<PluginProvider> providers = idleProviders.get(middleware);
+      if (providers != null && !providers.isEmpty()) {
+        return providers.pop();
+      }
+    }
+
+    // Providers are loaded outside the lock, so that loading a provider does not delay the other jobs
+    PluginProvider provider = PluginRegistry.getInstance().newProvider(middleware);
+    if (provider != null) {
+      logger.debug("Loaded plug-in provider for batch, middleware:" + middleware);
+    }
+    return provider;
+  }
+
+  private void returnProvider(PluginProvider provider) {
+    synchronized (idleProviders) {
+      idleProviders.computeIfAbsent(provider.getMiddleware(), m -> new ArrayDeque<>()).push(provider);
+    }
+  }
+
+  /**
+   * Writes the summary of a batch.
+   *
+   * @param results Results of the jobs
+   * @param summaryFile File the summary is written to, as json
+   * @throws TAException If the summary could not be written
+   */
+  public static void writeSummary(List<BatchJobResult> results, File summaryFile) throws TAException {
+    try {
+      Files.write(summaryFile.toPath(), getGson().toJson(results).getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new TAException("Error writing file:" + summaryFile.getAbsolutePath(), e);
+    }
+  }
+
+  /**
+   * Runs the batch command, <i>batch MANIFEST [--threads N] [--summary FILE]</i>.
+   *
+   * @param cliArguments Arguments after the batch command
+   * @throws TAException If the manifest could not be read, or the summary could not be written
+   */
+  public static void runBatchCommand(List<String> cliArguments) throws TAException {
+    String manifest = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    File summaryFile = new File(System.getProperty("user.dir"), SUMMARY_JSON);
+    for (Iterator<String> itArgs = cliArguments.iterator(); itArgs.hasNext(); ) {
+      String arg = itArgs.next();
+      if (THREADS_OPTION.equals(arg) || SUMMARY_OPTION.equals(arg)) {
+        if (!itArgs.hasNext()) {
+          throw new IllegalArgumentException("Value required for option '" + arg + "'.");
+        }
+        String value = itArgs.next();
+        if (SUMMARY_OPTION.equals(arg)) {
+          summaryFile = new File(value);
+        } else {
+          try {
+            threads = Integer.parseInt(value);
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value specified for option '" + THREADS_OPTION + "', value= '" + value + "'.");
+          }
+        }
+      } else if (manifest == null && !arg.startsWith("-")) {
+        manifest = arg;
+      } else {
+        throw new IllegalArgumentException("Invalid argument for the batch command '" + arg + "'.");
+      }
+    }
+    if (manifest == null) {
+      throw new IllegalArgumentException("No manifest was specified for the batch command.");
+    }
+
+    List<BatchJobResult> results = new BatchRunner(threads).run(readManifest(new File(manifest).toPath()));
+    writeSummary(results, summaryFile);
+
+    int failed = 0;
+    StringBuilder summary = new StringBuilder("\nBatch summary:\n");
+    for (BatchJobResult result : results) {
+      summary.append("  ").append(String.format("%1$-20s %2$-10s %3$8d ms", result.getName(), result.getStatus(), result.getDurationMillis()));
+      if (result.getError() != null) {
+        summary.append("  ").append(result.getError());
+        failed++;
+      }
+      summary.append("\n");
+    }
+    summary.append("\n").append(results.size() - failed).append(" of ").append(results.size())
+            .append(" jobs succeeded, summary written to:").append(summaryFile.getAbsolutePath()).append("\n");
+    System.out.println(summary);
+  }
+
+  private static Gson getGson() {
+    return GsonUtil.getGson();
+  }
+}
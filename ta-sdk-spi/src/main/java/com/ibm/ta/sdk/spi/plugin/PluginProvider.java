@@ -9,7 +9,7 @@ package com.ibm.ta.sdk.spi.plugin;
 import com.ibm.ta.sdk.spi.collect.DataCollection;
 import com.ibm.ta.sdk.spi.recommendation.Recommendation;
 import com.ibm.ta.sdk.spi.report.Report;
-import com.ibm.ta.sdk.spi.validation.TaJsonFileValidator;
+import com.ibm.ta.sdk.spi.report.ReportHandler;
 
 import java.util.List;
 
@@ -124,15 +124,26 @@ public interface PluginProvider {
    */
   List<Report> getReport(String assessmentName, CliInputCommand reportCommand) throws TAException;
 
-  default void validateJsonFiles(){
-    if (!TaJsonFileValidator.validateIssue(getMiddleware()+"/issue.json")) {
-      System.err.println("The file " + getMiddleware()+"/issue.json in middleware plug-in " + getMiddleware() + " failed validation.");
-    }
-    if (!TaJsonFileValidator.validateComplexity(getMiddleware()+"/complexity.json")){
-      System.err.println("The file " + getMiddleware()+"/complexity.json in middleware plug-in " + getMiddleware() + "failed validation.");
-    }
-    if (!TaJsonFileValidator.validateTarget(getMiddleware()+"/target.json")){
-      System.err.println("The file " + getMiddleware()+"/target.json in middleware plug-in " + getMiddleware() + "failed validation.");
+  /**
+   * Same as {@link #getReport(String, CliInputCommand)}, except that each report is passed to the {@code handler}
+   * as soon as it is generated. This is the method invoked from the {@link CliInputCommand#CMD_REPORT} command.
+   *
+   * <p>The default implementation calls {@link #getReport(String, CliInputCommand)} and passes the reports in the
+   * returned list to the {@code handler}. Plug-ins should override this method when reports could be generated
+   * incrementally, so that all reports for an assessment are not held in memory at the same time.
+   *
+   * @param assessmentName Name of the assessment the reports will be generated for
+   * @param reportCommand Report command containing user input options and arguments
+   * @param handler Handler that receives each generated report
+   * @throws TAException If an error occurs when generating or handling the reports
+   */
+  default void getReport(String assessmentName, CliInputCommand reportCommand, ReportHandler handler) throws TAException {
+    for (Report report : getReport(assessmentName, reportCommand)) {
+      handler.handleReport(report);
     }
   }
+
+  default void validateJsonFiles(){
+    PluginRegistry.validateJsonFiles(getMiddleware());
+  }
 }
@@ -0,0 +1,296 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.plugin;
+
+import com.ibm.ta.sdk.spi.util.HashUtil;
+import com.ibm.ta.sdk.spi.validation.TaJsonFileValidator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Finds the plug-in providers on the classpath, without loading the providers that are not used.
+ *
+ * <p>A plug-in declares its middleware in a descriptor, <i>META-INF/ta-sdk-plugins.properties</i>, with the name of
+ * the middleware and the class of its provider:
+ *
+ * <pre>
+ * sample=com.ibm.ta.sdk.sample.SamplePluginProvider
+ * </pre>
+ *
+ * <p>The middleware names are read from the descriptors, and only the provider for the selected middleware is
+ * loaded. Providers that are listed in <i>META-INF/services/com.ibm.ta.sdk.spi.plugin.PluginProvider</i> without a
+ * descriptor are still found: they are loaded once, the first time a middleware is not found in the descriptors.
+ *
+ * <p>The json files of a plug-in are validated when its provider is loaded. Files that pass validation are kept by
+ * the hash of their content, in memory, so they are validated once in a JVM, however many times the provider is
+ * loaded. Files that fail validation are validated, and reported, each time the provider is loaded. The result of a
+ * provider that overrides {@link PluginProvider#validateJsonFiles()} is not known, so its files are validated each
+ * time.
+ */
+public class PluginRegistry {
+  private static Logger logger = LogManager.getLogger(PluginRegistry.class.getName());
+
+  public static final String PLUGIN_DESCRIPTOR = "META-INF/ta-sdk-plugins.properties";
+
+  private static final String SERVICE_FILE = "META-INF/services/" + PluginProvider.class.getName();
+  private static final String[] VALIDATED_FILES = {"issue.json", "complexity.json", "target.json"};
+  private static final int BUFFER_SIZE = 8192;
+
+  // The registries do not reference their class loader, or the classes it loads, so a class loader is not kept loaded
+  private static final Map<ClassLoader, PluginRegistry> registries = new WeakHashMap<>();
+
+  private final WeakReference<ClassLoader> classLoaderRef;
+
+  // Provider class names by middleware, from the descriptors
+  private final Map<String, String> providerClasses;
+
+  // Provider classes in the service files that are not in a descriptor
+  private final List<String> undescribedClasses;
+
+  // Provider class names of the undescribed classes by middleware, loaded on the first lookup that needs them
+  private Map<String, String> undescribedProviders;
+
+  // Hashes of the json files that passed validation
+  private final Set<String> validatedHashes = Collections.synchronizedSet(new HashSet<>());
+
+  PluginRegistry(ClassLoader classLoader) {
+    this.classLoaderRef = new WeakReference<>(classLoader);
+    this.providerClasses = Collections.unmodifiableMap(readDescriptors(classLoader));
+    this.undescribedClasses = readServiceClasses(classLoader, new HashSet<>(providerClasses.values()));
+  }
+
+  /**
+   * Gets the registry for the context class loader of the current thread, the same class loader as
+   * {@link java.util.ServiceLoader#load(Class)}. The registry is created once for each class loader.
+   *
+   * @return Plug-in registry
+   */
+  public static PluginRegistry getInstance() {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = ClassLoader.getSystemClassLoader();
+    }
+    synchronized (registries) {
+      return registries.computeIfAbsent(classLoader, PluginRegistry::new);
+    }
+  }
+
+  /**
+   * @return Names of the middleware of all the plug-ins, in the order they were found on the classpath
+   */
+  public synchronized Set<String> getMiddlewares() {
+    Set<String> middlewares = new LinkedHashSet<>(providerClasses.keySet());
+    middlewares.addAll(getUndescribedProviders().keySet());
+    return middlewares;
+  }
+
+  /**
+   * Loads a new provider for a middleware, and validates the json files of the plug-in if they have not been
+   * validated yet.
+   *
+   * @param middleware Name of the middleware
+   * @return New provider for the middleware, or {@code null} if there is no plug-in for the middleware
+   */
+  public PluginProvider newProvider(String middleware) {
+    String className = providerClasses.get(middleware);
+    if (className == null) {
+      synchronized (this) {
+        className = getUndescribedProviders().get(middleware);
+      }
+      if (className == null) {
+        return null;
+      }
+    }
+
+    Class<? extends PluginProvider> providerClass = loadProviderClass(className);
+    PluginProvider provider = newInstance(providerClass);
+    if (!middleware.equals(provider.getMiddleware())) {
+      throw new TARuntimeException("Plug-in provider " + providerClass.getName() + " is for middleware " +
+              provider.getMiddleware() + ", but is declared for middleware " + middleware + " in " + PLUGIN_DESCRIPTOR);
+    }
+    validate(provider);
+    return provider;
+  }
+
+  private void validate(PluginProvider provider) {
+    String hash = getJsonFilesHash(provider);
+    if (hash != null && validatedHashes.contains(hash)) {
+      logger.debug("Json files already validated for middleware:" + provider.getMiddleware());
+      return;
+    }
+    if (validateJsonFiles(provider) && hash != null) {
+      validatedHashes.add(hash);
+    }
+  }
+
+  /*
+   * Validates the json files of a provider, returns true if the files passed validation. A provider that validates
+   * its files itself is validated each time, its result is not known.
+   */
+  boolean validateJsonFiles(PluginProvider provider) {
+    if (overridesValidation(provider)) {
+      provider.validateJsonFiles();
+      return false;
+    }
+    return validateJsonFiles(provider.getMiddleware());
+  }
+
+  private static boolean overridesValidation(PluginProvider provider) {
+    try {
+      return provider.getClass().getMethod("validateJsonFiles").getDeclaringClass() != PluginProvider.class;
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
+  }
+
+  /*
+   * Validates the issue.json, complexity.json and target.json of a middleware, the default validation of
+   * PluginProvider. Each file that fails validation is reported, returns true if all the files passed.
+   */
+  static boolean validateJsonFiles(String middleware) {
+    boolean valid = true;
+    if (!TaJsonFileValidator.validateIssue(middleware + "/issue.json")) {
+      System.err.println("The file " + middleware + "/issue.json in middleware plug-in " + middleware + " failed validation.");
+      valid = false;
+    }
+    if (!TaJsonFileValidator.validateComplexity(middleware + "/complexity.json")) {
+      System.err.println("The file " + middleware + "/complexity.json in middleware plug-in " + middleware + " failed validation.");
+      valid = false;
+    }
+    if (!TaJsonFileValidator.validateTarget(middleware + "/target.json")) {
+      System.err.println("The file " + middleware + "/target.json in middleware plug-in " + middleware + " failed validation.");
+      valid = false;
+    }
+    return valid;
+  }
+
+  // Hash of the middleware and the content of its json files, null if the files could not be read
+  private String getJsonFilesHash(PluginProvider provider) {
+    MessageDigest digest = HashUtil.getDigest();
+    digest.update(provider.getMiddleware().getBytes(StandardCharsets.UTF_8));
+    byte[] buf = new byte[BUFFER_SIZE];
+    ClassLoader providerClassLoader = provider.getClass().getClassLoader();
+    for (String fileName : VALIDATED_FILES) {
+      String resource = provider.getMiddleware() + "/" + fileName;
+      digest.update((byte) 0);
+      digest.update(resource.getBytes(StandardCharsets.UTF_8));
+      try (InputStream in = providerClassLoader.getResourceAsStream(resource)) {
+        if (in == null) {
+          continue;
+        }
+        int n;
+        while ((n = in.read(buf)) > 0) {
+          digest.update(buf, 0, n);
+        }
+      } catch (IOException e) {
+        logger.debug("Unable to read json file for validation hash:" + resource, e);
+        return null;
+      }
+    }
+    return HashUtil.toHex(digest.digest());
+  }
+
+  private Map<String, String> getUndescribedProviders() {
+    if (undescribedProviders == null) {
+      undescribedProviders = new LinkedHashMap<>();
+      for (String className : undescribedClasses) {
+        // The provider has to be created to get its middleware
+        Class<? extends PluginProvider> providerClass = loadProviderClass(className);
+        String middleware = newInstance(providerClass).getMiddleware();
+        logger.debug("Plug-in provider " + className + " for middleware " + middleware + " has no descriptor");
+        undescribedProviders.putIfAbsent(middleware, className);
+      }
+    }
+    return undescribedProviders;
+  }
+
+  private Class<? extends PluginProvider> loadProviderClass(String className) {
+    ClassLoader classLoader = classLoaderRef.get();
+    if (classLoader == null) {
+      throw new TARuntimeException("Unable to load plug-in provider, its class loader is no longer in use:" + className);
+    }
+    try {
+      return Class.forName(className, true, classLoader).asSubclass(PluginProvider.class);
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new TARuntimeException("Unable to load plug-in provider:" + className, e);
+    }
+  }
+
+  private static PluginProvider newInstance(Class<? extends PluginProvider> providerClass) {
+    try {
+      return providerClass.getConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new TARuntimeException("Unable to create plug-in provider:" + providerClass.getName(), e);
+    }
+  }
+
+  private static Map<String, String> readDescriptors(ClassLoader classLoader) {
+    Map<String, String> providerClasses = new LinkedHashMap<>();
+    for (URL url : getResources(classLoader, PLUGIN_DESCRIPTOR)) {
+      Properties descriptor = new Properties();
+      try (InputStream in = url.openStream()) {
+        descriptor.load(in);
+      } catch (IOException e) {
+        throw new TARuntimeException("Unable to read plug-in descriptor:" + url, e);
+      }
+      for (String middleware : descriptor.stringPropertyNames()) {
+        String className = descriptor.getProperty(middleware).trim();
+        if (providerClasses.putIfAbsent(middleware, className) != null) {
+          logger.warn("Plug-in for middleware " + middleware + " is declared more than once, ignoring:" + url);
+        }
+      }
+    }
+    return providerClasses;
+  }
+
+  // Reads the class names in the service files, the same format as read by ServiceLoader
+  private static List<String> readServiceClasses(ClassLoader classLoader, Set<String> describedClasses) {
+    Set<String> classNames = new LinkedHashSet<>();
+    for (URL url : getResources(classLoader, SERVICE_FILE)) {
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          int comment = line.indexOf('#');
+          String className = (comment >= 0 ? line.substring(0, comment) : line).trim();
+          if (!className.isEmpty() && !describedClasses.contains(className)) {
+            classNames.add(className);
+          }
+        }
+      } catch (IOException e) {
+        throw new TARuntimeException("Unable to read plug-in service file:" + url, e);
+      }
+    }
+    return new ArrayList<>(classNames);
+  }
+
+  private static List<URL> getResources(ClassLoader classLoader, String name) {
+    try {
+      return Collections.list(classLoader.getResources(name));
+    } catch (IOException e) {
+      throw new TARuntimeException("Unable to find resources:" + name, e);
+    }
+  }
+}
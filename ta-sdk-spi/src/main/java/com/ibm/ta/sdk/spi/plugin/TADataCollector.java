@@ -6,56 +6,186 @@
 
 package com.ibm.ta.sdk.spi.plugin;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
 import com.ibm.ta.sdk.spi.collect.ContentMask;
 import com.ibm.ta.sdk.spi.collect.DataCollection;
 import com.ibm.ta.sdk.spi.collect.Environment;
 import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.collect.OutputDataCollection;
 import com.ibm.ta.sdk.spi.recommendation.Recommendation;
+import com.ibm.ta.sdk.spi.assess.AssessmentFingerprints;
 import com.ibm.ta.sdk.spi.assess.RecommendationJson;
-import com.ibm.ta.sdk.spi.recommendation.Target;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportResource;
+import com.ibm.ta.sdk.spi.util.ArchiveOptions;
+import com.ibm.ta.sdk.spi.util.ArchiveWriter;
+import com.ibm.ta.sdk.spi.util.BlobStore;
+import com.ibm.ta.sdk.spi.util.ContentMasker;
+import com.ibm.ta.sdk.spi.util.FileCollector;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import com.ibm.ta.sdk.spi.util.Pipeline;
 import com.ibm.ta.sdk.spi.util.Util;
+import org.apache.commons.compress.utils.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TADataCollector {
   private static final String TADATACOLLECTOR_COMMAND_HELP = "Run 'TADataCollector MIDDLEWARE COMMAND --help' for more information on a command.";
   private static final String TADATACOLLECTOR_HELP_USAGE_PREFIX = "Usage: TADataCollector";
   private static final String TADATACOLLECTOR_BASE_HELP_USAGE = TADATACOLLECTOR_HELP_USAGE_PREFIX + " MIDDLEWARE COMMAND [OPTIONS]";
 
+  /**
+   * System property for the number of threads used to write reports. Defaults to the number of available processors.
+   */
+  public static final String REPORT_THREADS_PROPERTY = "ta.sdk.report.threads";
+
+  /**
+   * System property for the number of collections that could wait between two stages of the run command. Defaults to 2.
+   */
+  public static final String RUN_QUEUE_PROPERTY = "ta.sdk.run.queue";
+
+  // Options for the assessment archive, added to the commands that write the archive
+  private static final String ARCHIVE_CODEC_OPTION = "archive-codec";
+  private static final String ARCHIVE_LEVEL_OPTION = "archive-level";
+  private static final String ARCHIVE_NO_RECOMPRESS_OPTION = "archive-no-recompress";
+  private static final String ARCHIVE_ONLY_OPTION = "archive-only";
+
+  // Option for how config files are collected to the output directory
+  private static final String COLLECT_MODE_OPTION = "collect-mode";
+
+  // Option to evaluate all assessment units, without reusing the results of the previous assessment
+  private static final String ASSESS_ALL_OPTION = "assess-all";
+
+  // Option to assess the collections in the output directory, without collecting the data again
+  private static final String SKIP_COLLECT_OPTION = "skipcollect";
+
+  private static final String ARCHIVE_SUFFIX = ".tar.gz";
+
   private static Logger logger = LogManager.getLogger(TADataCollector.class.getName());
 
   ServiceLoader<PluginProvider> loader = ServiceLoader.load(PluginProvider.class);
 
+  private ArchiveOptions archiveOptions = new ArchiveOptions();
+
+  // Write the collected data to the archive only, without writing it to the output dir first
+  private boolean archiveOnly = false;
+
+  // Copy or link the config files to the output dir
+  private FileCollector.Mode collectMode = FileCollector.Mode.COPY;
+
+  // Reuse the results of the previous assessment for assessment units that have not changed
+  private boolean incrementalAssess = true;
+
+  // Assess the collections written to the output dir by an earlier collection
+  private boolean skipCollect = false;
+
   public Iterator<PluginProvider> getPluginProviders() {
     return loader.iterator();
   }
 
+  public ArchiveOptions getArchiveOptions() {
+    return archiveOptions;
+  }
+
+  public void setArchiveOptions(ArchiveOptions archiveOptions) {
+    this.archiveOptions = archiveOptions;
+  }
+
+  public boolean isArchiveOnly() {
+    return archiveOnly;
+  }
+
+  public void setArchiveOnly(boolean archiveOnly) {
+    this.archiveOnly = archiveOnly;
+  }
+
+  public FileCollector.Mode getCollectMode() {
+    return collectMode;
+  }
+
+  public void setCollectMode(FileCollector.Mode collectMode) {
+    this.collectMode = collectMode;
+  }
+
+  public boolean isIncrementalAssess() {
+    return incrementalAssess;
+  }
+
+  public void setIncrementalAssess(boolean incrementalAssess) {
+    this.incrementalAssess = incrementalAssess;
+  }
+
+  public boolean isSkipCollect() {
+    return skipCollect;
+  }
+
+  public void setSkipCollect(boolean skipCollect) {
+    this.skipCollect = skipCollect;
+  }
+
   public void runCommand(String middleware, List<String> cliArguments) throws TAException, IOException {
     PluginProvider provider = getProvider(middleware);
     if (provider == null) {
       throw new IllegalArgumentException("No plug-in provider found for middleware:" + middleware + ".");
     }
+    runCommand(provider, cliArguments);
+  }
+
+  /**
+   * Runs a command with a plug-in provider that was already loaded. A provider could run several commands, one at a
+   * time, such as the jobs of a batch, see {@link BatchRunner}.
+   *
+   * @param provider Plug-in provider for the middleware
+   * @param cliArguments Command and its options and arguments
+   * @throws TAException If the command failed
+   * @throws IOException If the output could not be written
+   */
+  public void runCommand(PluginProvider provider, List<String> cliArguments) throws TAException, IOException {
+    String middleware = provider.getMiddleware();
     logger.debug("cliArguments:" + cliArguments);
     if (cliArguments.isEmpty()) {
       throw new IllegalArgumentException("No command was specified.");
     }
 
     List<CliInputCommand> providerCommands = new LinkedList<>();
-    providerCommands.add(provider.getCollectCommand());
+    CliInputCommand collectCommand = provider.getCollectCommand();
+    providerCommands.add(collectCommand);
     CliInputCommand assessCommand = provider.getAssessCommand();
     providerCommands.add(assessCommand);
-    providerCommands.add(provider.getReportCommand());
+    CliInputCommand reportCommand = provider.getReportCommand();
+    providerCommands.add(reportCommand);
+
+    // Add archive options to the commands that write the assessment archive
+    addArchiveCliOptions(collectCommand);
+    addCliOptions(collectCommand, new CliInputOption(null, ARCHIVE_ONLY_OPTION,
+            "Write the collected data to the assessment archive only, without writing it to the output directory"));
+    addArchiveCliOptions(assessCommand);
+    addArchiveCliOptions(reportCommand);
+    addCollectModeCliOption(collectCommand);
+    addCollectModeCliOption(assessCommand);
+    // Plug-ins such as the sample could already have the skip collect option
+    addCliOptions(assessCommand,
+            new CliInputOption(null, ASSESS_ALL_OPTION,
+                    "Evaluate all assessment units, without reusing the results of the previous assessment for assessment units that have not changed"),
+            new CliInputOption(null, SKIP_COLLECT_OPTION, "Skip collection, assess the data collected to the output directory"));
 
     // Add 'run' command which performs collect, assess, and report
     // The command does not be be provided by the provided, we could re-use the 'assess' command
@@ -86,6 +216,7 @@ public class TADataCollector {
     if (matchedCommand == null) {
       throw new IllegalArgumentException("Command is not supported for middleware: " + middleware + ".");
     }
+    setArchiveOptions(matchedCommand);
 
     // Invoke supported commands
     if (CliInputCommand.CMD_COLLECT.equals(matchedCommand.getName())) {
@@ -103,203 +234,621 @@ public class TADataCollector {
     System.out.println("Command '" + matchedCommand.getName() + "' completed successfully.\n");
   }
 
-  public void runCollect(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
-    List<DataCollection> dataCollections = provider.getCollection(cliInputCommand);
-    for (DataCollection dataCollection : dataCollections) {
-      // Get environment
-      Environment environment = dataCollection.getEnvironment();
-
-      // Create output dir
-      String assessmentName = environment.getAssessmentName();
-      File outputDir = Util.getAssessmentOutputDir(assessmentName);
-      if (!outputDir.exists()) {
-        outputDir.mkdirs();
+  private static void addArchiveCliOptions(CliInputCommand command) {
+    addCliOptions(command,
+            new CliInputOption(null, ARCHIVE_CODEC_OPTION, "Compression codec for the assessment archive: gzip, pgzip (parallel gzip), or store",
+                    true, true, "CODEC", null),
+            new CliInputOption(null, ARCHIVE_LEVEL_OPTION, "Compression level for the assessment archive, from 0 to 9",
+                    true, true, "LEVEL", null),
+            new CliInputOption(null, ARCHIVE_NO_RECOMPRESS_OPTION, "Store files that are already compressed without compression in the assessment archive"));
+  }
+
+  private static void addCollectModeCliOption(CliInputCommand command) {
+    addCliOptions(command,
+            new CliInputOption(null, COLLECT_MODE_OPTION, "How config files are collected to the output directory: copy, link (hard link files without content masks), or dedup (store identical files once)",
+                    true, true, "MODE", null));
+  }
+
+  /*
+   * Adds options to a command, unless the command already has an option with the same long name. A provider that
+   * returns the same command objects for several commands, or a plug-in that defines the option, keeps one option.
+   */
+  private static void addCliOptions(CliInputCommand command, CliInputOption... newOptions) {
+    List<CliInputOption> options = new ArrayList<>(command.getOptions());
+    for (CliInputOption newOption : newOptions) {
+      if (options.stream().noneMatch(option -> newOption.getLongArg().equals(option.getLongArg()))) {
+        options.add(newOption);
       }
+    }
+    command.setOptions(options);
+  }
 
-      // Write environment json to output dir
-      writeEnvironmentJson(environment, outputDir);
+  /*
+   * Sets the archive and collect options from the CLI options. The archive options are removed from the command, they are
+   * handled by the data collector and are not passed to the plug-in. The skip collect option is passed to the plug-in,
+   * it could be a plug-in option.
+   */
+  private void setArchiveOptions(CliInputCommand command) {
+    Iterator<CliInputOption> options = command.getOptions().iterator();
+    while (options.hasNext()) {
+      CliInputOption option = options.next();
+      if (SKIP_COLLECT_OPTION.equals(option.getLongArg())) {
+        skipCollect = true;
+        continue;
+      }
 
-      // Get assessment units
-      getAssessmentUnits(dataCollection, outputDir);
+      if (ARCHIVE_CODEC_OPTION.equals(option.getLongArg())) {
+        archiveOptions.setCodec(ArchiveOptions.Codec.fromName(option.getValue()));
+      } else if (ARCHIVE_LEVEL_OPTION.equals(option.getLongArg())) {
+        try {
+          archiveOptions.setLevel(Integer.parseInt(option.getValue()));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid value specified for option '--" + ARCHIVE_LEVEL_OPTION + "', value= '" + option.getValue() + "'.");
+        }
+      } else if (ARCHIVE_NO_RECOMPRESS_OPTION.equals(option.getLongArg())) {
+        archiveOptions.setStoreCompressedFiles(true);
+      } else if (ARCHIVE_ONLY_OPTION.equals(option.getLongArg())) {
+        archiveOnly = true;
+      } else if (COLLECT_MODE_OPTION.equals(option.getLongArg())) {
+        collectMode = FileCollector.Mode.fromName(option.getValue());
+      } else if (ASSESS_ALL_OPTION.equals(option.getLongArg())) {
+        incrementalAssess = false;
+      } else {
+        continue;
+      }
+      options.remove();
     }
   }
 
-  private List<? extends AssessmentUnit> getAssessmentUnits(DataCollection dataCollection, File outputDir) throws TAException, IOException {
-    List<? extends AssessmentUnit> assessUnits = dataCollection.getAssessmentUnits();
-    for (AssessmentUnit au : assessUnits) {
-      // Create sub dir for each assessment unit
-      File auOutputDir = new File(outputDir, au.getName());
-      if (!auOutputDir.exists()) {
-        auOutputDir.mkdirs();
+  // Releases the resources held by data collections, such as collections read from archives
+  private static void closeDataCollections(List<DataCollection> dataCollections) {
+    for (DataCollection dataCollection : dataCollections) {
+      closeDataCollection(dataCollection);
+    }
+  }
+
+  // Releases the resources held by a data collection once it is no longer used, a closed collection could be reopened
+  private static void closeDataCollection(DataCollection dataCollection) {
+    if (dataCollection instanceof Closeable) {
+      try {
+        ((Closeable) dataCollection).close();
+      } catch (IOException e) {
+        logger.warn("Unable to close data collection:" + dataCollection.getAssessmentName(), e);
       }
+    }
+  }
 
-      writeAssessmentDataJson(au, auOutputDir);
+  public void runCollect(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
+    List<DataCollection> dataCollections = provider.getCollection(cliInputCommand);
+    try {
+      for (DataCollection dataCollection : dataCollections) {
+        // Get environment
+        Environment environment = dataCollection.getEnvironment();
+
+        // Create output dir
+        String assessmentName = environment.getAssessmentName();
+        File outputDir = Util.getAssessmentOutputDir(assessmentName);
+        if (archiveOnly) {
+          writeCollectionArchive(dataCollection, outputDir);
+          continue;
+        }
+        if (!outputDir.exists()) {
+          outputDir.mkdirs();
+        }
 
-      // Copy assessment files to make them available during recommendations
-      List<Path> configFiles = au.getConfigFiles();
-      if (configFiles != null) {
-        List<Path> outputConfigFiles = new LinkedList<>();
-        for (Path file : configFiles) {
-          File destFile = new File(auOutputDir, file.toAbsolutePath().toString());
-          Path destPath = destFile.toPath();
-          if (!destFile.getParentFile().exists()) {
-            destFile.getParentFile().mkdirs();
+        // Write environment json to output dir
+        writeEnvironmentJson(environment, outputDir);
+
+        // Get assessment units
+        getAssessmentUnits(dataCollection, outputDir);
+        closeDataCollection(dataCollection);
+      }
+    } finally {
+      closeDataCollections(dataCollections);
+    }
+  }
+
+  /*
+   * Writes the environment json, assessment unit json, and masked config files straight to the assessment archive,
+   * in the same layout as the output dir. The output dir is not created.
+   */
+  private void writeCollectionArchive(DataCollection dataCollection, File outputDir) throws TAException, IOException {
+    File zipFile = new File(outputDir.getParentFile(), outputDir.getName() + ".tar.gz");
+    if (!zipFile.getParentFile().exists()) {
+      zipFile.getParentFile().mkdirs();
+    }
+    logger.debug("Writing collection to archive:" + zipFile);
+
+    long now = System.currentTimeMillis();
+    Path tmpFile = null;
+    try (ArchiveWriter archive = new ArchiveWriter(zipFile.toPath(), archiveOptions)) {
+      archive.open();
+      EnvironmentJson envJson = new EnvironmentJson(dataCollection.getEnvironment());
+      archive.addEntry("environment.json", getJsonStr(envJson).getBytes(), now);
+
+      for (AssessmentUnit au : dataCollection.getAssessmentUnits()) {
+        archive.addDirectory(au.getName() + "/", now);
+        archive.addEntry(au.getName() + "/" + au.getName() + ".json", getJsonStr(au.getAssessmentData()).getBytes(), now);
+
+        List<Path> configFiles = au.getConfigFiles();
+        if (configFiles == null) {
+          continue;
+        }
+        ContentMasker masker = new ContentMasker(au.getContentMasks());
+        for (Path configFile : configFiles) {
+          List<Path> files;
+          if (au.isLocalConfigFile(configFile) && Files.isDirectory(configFile)) {
+            try (Stream<Path> paths = Files.walk(configFile)) {
+              files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+          } else {
+            files = Collections.singletonList(configFile);
           }
-          Files.copy(file, destPath, StandardCopyOption.REPLACE_EXISTING);
 
-          outputConfigFiles.add(destPath);
+          for (Path file : files) {
+            // Same name as the copy of the file in the output dir
+            String origPath = getConfigFilePath(file);
+            boolean local = au.isLocalConfigFile(file);
+            String entryName = (au.getName() + "/" + origPath.replace(File.separatorChar, '/')).replace("//", "/");
+            archive.addParentDirectories(entryName, now);
+
+            List<ContentMask> masks = masker.getMasks(origPath);
+            if (masks.isEmpty() && local && Files.isRegularFile(file)) {
+              archive.addFile(entryName, file);
+              continue;
+            }
 
-          // Add files from directory
-          File dirFile = destPath.toFile();
-          if (dirFile.isDirectory()) {
-            outputConfigFiles.addAll(getFilesFromDir(dirFile));
+            // Config files that are masked, or not on a filesystem, are read through the assessment unit. The size
+            // of a tar entry is written before its content, so the content is staged in a temp file.
+            long lastModified = local && Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : now;
+            if (tmpFile == null) {
+              tmpFile = Files.createTempFile(zipFile.getParentFile().toPath(), zipFile.getName(), ".entry");
+            }
+            try (InputStream in = au.openConfigFile(file);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile))) {
+              if (masks.isEmpty()) {
+                IOUtils.copy(in, out);
+              } else {
+                logger.info("Applying mask to file:" + file);
+                ContentMasker.mask(masks, in, out);
+              }
+            }
+            archive.addEntry(entryName, tmpFile, lastModified);
           }
         }
+      }
+      archive.finish();
+    } finally {
+      if (tmpFile != null) {
+        Files.deleteIfExists(tmpFile);
+      }
+    }
+  }
 
-        // Apply mask to content
-        logger.debug("Applying content masks");
-        List<ContentMask> contentMasks = au.getContentMasks();
-        if (contentMasks != null) {
-          for (Path path : outputConfigFiles) {
-            for (ContentMask mask : contentMasks) {
-              for (String contentMaskFile : mask.getFiles()) {
-                // Use the original path of the file, not the new path where the file is copied to
-                String origPath = path.toAbsolutePath().toString().replaceFirst(auOutputDir.getAbsolutePath(), "");
+  /*
+   * Config files are copied under their absolute path in the assessment unit dir. Paths with .., that could resolve
+   * outside the assessment unit dir, are rejected.
+   */
+  private static String getConfigFilePath(Path configFile) throws TAException {
+    Path path = configFile.toAbsolutePath();
+    for (Path name : path) {
+      if ("..".equals(name.toString())) {
+        throw new TAException("Config file path must not contain '..':" + configFile);
+      }
+    }
+    return path.toString();
+  }
 
-                logger.debug("Comparing file:" + origPath + " to contentMaskFile:" + contentMaskFile);
+  private List<? extends AssessmentUnit> getAssessmentUnits(DataCollection dataCollection, File outputDir) throws TAException, IOException {
+    List<? extends AssessmentUnit> assessUnits = dataCollection.getAssessmentUnits();
 
-                if (origPath.matches(contentMaskFile)) {
-                  logger.info("Applying mask to file:" + path);
-                  // Read lines from file
-                  List<String> lines = Files.readAllLines(path);
+    // One collector, and its pool of threads, copies the config files of all assessment units of the collection
+    try (FileCollector collector = new FileCollector(collectMode)) {
+      // Config files of each assessment unit, and the files they are replaced with once they are copied
+      List<List<Path>> auConfigFiles = new ArrayList<>();
+      List<List<Path>> auAssessConfigFiles = new ArrayList<>();
+      for (AssessmentUnit au : assessUnits) {
+        // Create sub dir for each assessment unit
+        File auOutputDir = new File(outputDir, au.getName());
+        if (!auOutputDir.exists()) {
+          auOutputDir.mkdirs();
+        }
 
-                  // Mask file content
-                  List<String> updatedLines = mask.mask(lines);
+        writeAssessmentDataJson(au, auOutputDir);
 
-                  // Write updated context to the file
-                  Files.write(path, updatedLines);
+        // Copy assessment files to make them available during recommendations. Content masks are applied while the
+        // files are copied, each file is read and written once.
+        List<Path> configFiles = au.getConfigFiles();
+        if (configFiles == null) {
+          continue;
+        }
+        List<Path> assessConfigFiles = new LinkedList<>();
+        ContentMasker masker = new ContentMasker(au.getContentMasks());
+        for (Path file : configFiles) {
+          File destFile = new File(auOutputDir, getConfigFilePath(file));
+          Path destPath = destFile.toPath();
+          if (!destFile.getParentFile().exists()) {
+            destFile.getParentFile().mkdirs();
+          }
+
+          // Config files that are not local, such as files read from a collection archive, are only read through
+          // the assessment unit, even if a file with the same path exists on this filesystem
+          boolean local = au.isLocalConfigFile(file);
+          if (local && Files.isDirectory(file)) {
+            // Add files from directory
+            assessConfigFiles.add(destPath);
+            assessConfigFiles.addAll(collector.collectDirectory(file, destPath, masker));
+            continue;
+          }
 
-                  // Move on to the next mask
-                  break;
+          if (local && Files.isRegularFile(file)) {
+            collector.collectFile(file, destPath, masker);
+          } else {
+            // Config files are read through the assessment unit, they may not be on a filesystem
+            List<ContentMask> masks = masker.getMasks(file.toAbsolutePath().toString());
+            try (InputStream in = au.openConfigFile(file)) {
+              if (masks.isEmpty()) {
+                Files.copy(in, destPath, StandardCopyOption.REPLACE_EXISTING);
+              } else {
+                logger.info("Applying mask to file:" + file);
+                try (OutputStream out = Files.newOutputStream(destPath)) {
+                  ContentMasker.mask(masks, in, out);
                 }
               }
             }
           }
+
+          // Config files that are not local, such as files read from a collection archive, are already masked and
+          // are still served by the assessment unit during recommendations
+          assessConfigFiles.add(local ? destPath : file);
         }
+        auConfigFiles.add(configFiles);
+        auAssessConfigFiles.add(assessConfigFiles);
+      }
 
-        // Update config files that point to output dir for use in recommendations
-        configFiles.clear();
-        configFiles.addAll(outputConfigFiles);
+      collector.await();
+      String assessmentName = dataCollection.getAssessmentName();
+      logger.info("Collected config files for assessment " + assessmentName + ", files copied:" +
+              collector.getFilesCopied() + ", bytes copied:" + collector.getBytesCopied() + ", files masked:" +
+              collector.getFilesMasked() + ", files linked:" + collector.getFilesLinked());
+      BlobStore blobStore = collector.getBlobStore();
+      if (blobStore != null) {
+        logger.info("Deduplicated config files for assessment " + assessmentName + ", files:" +
+                collector.getFilesDeduplicated() + ", files stored:" + blobStore.getBlobsStored() +
+                ", files already stored:" + blobStore.getBlobsReused() + ", bytes stored:" + blobStore.getBytesStored());
+
+        // Files of the assessment units replaced by this collection are no longer linked
+        long pruned = blobStore.prune();
+        if (pruned > 0) {
+          logger.info("Removed files no longer used from blob store, files:" + pruned);
+        }
+      }
+
+      // Update config files that point to output dir for use in recommendations, once all the files are copied
+      for (int i = 0; i < auConfigFiles.size(); i++) {
+        auConfigFiles.get(i).clear();
+        auConfigFiles.get(i).addAll(auAssessConfigFiles.get(i));
       }
     }
 
     return assessUnits;
   }
 
-  private List<Path> getFilesFromDir(File dir) {
-    List<Path> dirFiles = new LinkedList<>();
-    if (!dir.isDirectory()) {
-      return dirFiles;
+  public void runAssess(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
+    List<DataCollection> dataCollections = getDataCollections(provider, cliInputCommand);
+    try {
+      // Generate and write recommendations, one collection at a time. A collection, such as a collection read from
+      // an archive, is closed once its recommendations are written.
+      Map<String, Recommendation> recs = getRecommendations(provider, cliInputCommand, dataCollections);
+      for (DataCollection dataCollection : dataCollections) {
+        writeCollection(dataCollection);
+        Recommendation rec = recs.get(dataCollection.getAssessmentName());
+        if (rec != null) {
+          writeRecommendations(rec, dataCollection);
+          writeAssessmentArchive(dataCollection.getAssessmentName());
+        }
+        closeDataCollection(dataCollection);
+      }
+    } finally {
+      closeDataCollections(dataCollections);
     }
+  }
 
-    File[] files = dir.listFiles();
-    for (File file : files) {
-      if (file.isDirectory()) {
-        dirFiles.addAll(getFilesFromDir(file));
-      } else {
-        dirFiles.add(file.toPath());
-      }
+  /*
+   * Runs the collections, or reads the collections from the output dir. Collections in the output dir are already
+   * written with their config files, and are assessed as they are.
+   */
+  private List<DataCollection> getDataCollections(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException {
+    if (!skipCollect) {
+      return provider.getCollection(cliInputCommand);
     }
 
-    return dirFiles;
+    List<DataCollection> dataCollections = new ArrayList<>(OutputDataCollection.readAll(Util.getOutputDir()));
+    if (dataCollections.isEmpty()) {
+      throw new TAException("No collections found in output directory:" + Util.getOutputDir().getAbsolutePath() +
+              ", run the collect command before assessing with --" + SKIP_COLLECT_OPTION);
+    }
+    return dataCollections;
   }
 
-  public void runAssess(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
-    // Run collections
-    List<DataCollection> dataCollections = provider.getCollection(cliInputCommand);
-    for (DataCollection dataCollection : dataCollections) {
-      // Get environment
-      Environment environment = dataCollection.getEnvironment();
-
-      // Create output dir
-      String assessmentName = environment.getAssessmentName();
-      File outputDir = Util.getAssessmentOutputDir(assessmentName);
-      if (!outputDir.exists()) {
-        outputDir.mkdirs();
-      }
-
-      // Write environment json to output dir
-      writeEnvironmentJson(environment, outputDir);
+  // Writes the environment, assessment unit data and config files of a collection to the output dir
+  private void writeCollection(DataCollection dataCollection) throws TAException, IOException {
+    if (dataCollection instanceof OutputDataCollection) {
+      return;
+    }
 
-      List<? extends AssessmentUnit> assessUnits = getAssessmentUnits(dataCollection, outputDir);
+    // Create output dir
+    Environment environment = dataCollection.getEnvironment();
+    String assessmentName = environment.getAssessmentName();
+    File outputDir = Util.getAssessmentOutputDir(assessmentName);
+    if (!outputDir.exists()) {
+      outputDir.mkdirs();
     }
 
-    // Generate and write recommendations
-    List<Recommendation> recs = provider.getRecommendation(cliInputCommand);
-    for (Recommendation rec : recs) {
-      String assessmentName = rec.getAssessmentName();
+    // Write environment json to output dir
+    writeEnvironmentJson(environment, outputDir);
+
+    getAssessmentUnits(dataCollection, outputDir);
+  }
 
-      Optional<DataCollection> dcOp = dataCollections.stream()
-              .filter(d -> d.getAssessmentName().equals(assessmentName))
-              .findFirst();
-      if (!dcOp.isPresent()) {
+  // Gets the recommendations of the plug-in by assessment name, each recommendation must have a collection
+  private Map<String, Recommendation> getRecommendations(PluginProvider provider, CliInputCommand cliInputCommand,
+                                                         List<DataCollection> dataCollections) throws TAException {
+    Map<String, Recommendation> recs = new LinkedHashMap<>();
+    for (Recommendation rec : provider.getRecommendation(cliInputCommand)) {
+      String assessmentName = rec.getAssessmentName();
+      if (dataCollections.stream().noneMatch(d -> d.getAssessmentName().equals(assessmentName))) {
         throw new TAException("Collection not found for assessment:" + assessmentName);
       }
+      recs.put(assessmentName, rec);
+    }
+    return recs;
+  }
 
-      DataCollection dc = dcOp.get();
-      Environment environment =  dc.getEnvironment();
-      List<? extends AssessmentUnit> assessUnits = dc.getAssessmentUnits();
-      RecommendationJson recJson = new RecommendationJson(rec, environment, assessUnits);
-      File outputDir = Util.getAssessmentOutputDir(assessmentName);
-      writeRecommendationsJson(recJson, outputDir);
+  private void writeRecommendations(Recommendation rec, DataCollection dataCollection) throws TAException {
+    String assessmentName = rec.getAssessmentName();
+    Environment environment = dataCollection.getEnvironment();
+    List<? extends AssessmentUnit> assessUnits = dataCollection.getAssessmentUnits();
+    File outputDir = Util.getAssessmentOutputDir(assessmentName);
+    AssessmentFingerprints fingerprints = incrementalAssess ? AssessmentFingerprints.read(outputDir) : new AssessmentFingerprints();
+    RecommendationJson recJson = new RecommendationJson(rec, environment, assessUnits, fingerprints);
+    writeRecommendationsJson(recJson, outputDir);
+    fingerprints.write(outputDir);
+    logger.info("Assessed assessment units for assessment " + assessmentName + ", results reused from previous assessment:" +
+            fingerprints.getReusedResults());
+  }
 
-      // zip output dir
-      String zipFileName = environment.getAssessmentName() + ".tar.gz";
-      File zipFile = new File(outputDir.getParentFile(), zipFileName);
-      Util.zipDir(zipFile.toPath(), outputDir);
+  // Writes the output dir of an assessment to the assessment archive
+  private void writeAssessmentArchive(String assessmentName) throws TAException {
+    File zipFile = Util.getAssessmentArchiveFile(assessmentName);
+    try {
+      Util.zipDir(zipFile.toPath(), Util.getAssessmentOutputDir(assessmentName), archiveOptions);
+    } catch (IOException e) {
+      throw new TAException("Error writing archive:" + zipFile.getAbsolutePath(), e);
     }
   }
 
   public void runReport(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
-    // Get a list of assessments by scanning directories in the output directory
+    runReport(provider, cliInputCommand, Collections.emptySet());
+  }
+
+  /*
+   * Generates the reports for the assessments in the output dir, except the assessments that were already reported.
+   */
+  private void runReport(PluginProvider provider, CliInputCommand cliInputCommand, Set<String> reportedAssessmentNames)
+          throws TAException, IOException {
+    // Get a list of assessments by scanning directories in the output directory. Assessments that are only in an
+    // archive, such as collections written with --archive-only, are reported from the archive.
     List<String> assessmentNames = new ArrayList<>();
+    List<String> archiveAssessmentNames = new ArrayList<>();
     File outputDir = Util.getOutputDir();
     File[] outputDirFiles = outputDir.listFiles();
     for (File file : outputDirFiles) {
-      if (file.isDirectory()) {
+      // Skip the blob store, and any other hidden dirs
+      if (file.isDirectory() && !file.getName().startsWith(".") && !reportedAssessmentNames.contains(file.getName())) {
         assessmentNames.add(file.getName());
       }
     }
-    logger.debug("Generating reports for assessment units:" + assessmentNames);
-
-    // Get report for each assessment
-    for (String assessmentName : assessmentNames) {
-      List<Report> reports = provider.getReport(assessmentName, cliInputCommand);
-      for (Report report : reports) {
-        Target target = report.getTarget();
-        String reportName = "recommendations_" + target.getLocation() + "_" + target.getPlatform() +
-                "." + report.getReportType().toString().toLowerCase();
+    for (File file : outputDirFiles) {
+      String fileName = file.getName();
+      if (file.isFile() && fileName.endsWith(ARCHIVE_SUFFIX)) {
+        String assessmentName = fileName.substring(0, fileName.length() - ARCHIVE_SUFFIX.length());
+        if (!assessmentNames.contains(assessmentName) && !reportedAssessmentNames.contains(assessmentName)) {
+          archiveAssessmentNames.add(assessmentName);
+        }
+      }
+    }
+    logger.debug("Generating reports for assessment units:" + assessmentNames + ", archives:" + archiveAssessmentNames);
 
-        // Report path
+    // Reports are rendered and written in parallel, and completed in the order they are generated by the plug-in
+    int reportThreads = Math.max(1, Integer.getInteger(REPORT_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    ExecutorService reportExecutor = Executors.newFixedThreadPool(reportThreads);
+    try {
+      // Get report for each assessment
+      for (String assessmentName : assessmentNames) {
         File aOutputDir = Util.getAssessmentOutputDir(assessmentName);
-        File auOutputDir = new File(aOutputDir, report.getAssessmentUnitName());
-        File recFile = new File(auOutputDir, reportName);
+        writeReports(provider, cliInputCommand, assessmentName, aOutputDir, reportExecutor, reportThreads);
+
+        // Update the assessment archive once all reports are written
+        writeAssessmentArchive(assessmentName);
+      }
+
+      for (String assessmentName : archiveAssessmentNames) {
+        writeArchiveReports(provider, cliInputCommand, assessmentName, reportExecutor, reportThreads);
+      }
+    } finally {
+      reportExecutor.shutdownNow();
+    }
+  }
+
+  private void writeReports(PluginProvider provider, CliInputCommand cliInputCommand, String assessmentName,
+                            File aOutputDir, ExecutorService reportExecutor, int reportThreads) throws TAException {
+    // Reports are written as they are generated, the plug-in does not need to keep all reports in memory.
+    // The number of reports waiting to be written is bounded, to bound the memory used by pending reports.
+    Deque<Future<File>> pendingReports = new ArrayDeque<>();
+    Set<File> reportFiles = new HashSet<>();
+    provider.getReport(assessmentName, cliInputCommand, report -> {
+      // Reports are written concurrently, two reports with the same file would overwrite each other
+      File reportFile = new File(getReportDir(report, aOutputDir), getReportFileName(report));
+      if (!reportFiles.add(reportFile)) {
+        throw new TAException("More than one report for the same file, the targets of an assessment unit must have " +
+                "different ids:" + reportFile.getAbsolutePath());
+      }
+      pendingReports.add(reportExecutor.submit(() -> writeReport(report, aOutputDir)));
+      if (pendingReports.size() > reportThreads * 2) {
+        completeReport(pendingReports.remove(), assessmentName);
+      }
+    });
+    while (!pendingReports.isEmpty()) {
+      completeReport(pendingReports.remove(), assessmentName);
+    }
+  }
+
+  /*
+   * Generates the reports for an assessment that is only in an archive. The plug-in reads the recommendations.json
+   * from the archive. The reports are written to a staging dir, and added to the archive in place of any previous
+   * reports. The other entries are copied from the previous archive without decompressing them.
+   */
+  private void writeArchiveReports(PluginProvider provider, CliInputCommand cliInputCommand, String assessmentName,
+                                   ExecutorService reportExecutor, int reportThreads) throws TAException, IOException {
+    File zipFile = Util.getAssessmentArchiveFile(assessmentName);
+    logger.info("Generating reports from archive:" + zipFile.getAbsolutePath());
+
+    Path stagingDir = Files.createTempDirectory("ta-report");
+    try {
+      writeReports(provider, cliInputCommand, assessmentName, stagingDir.toFile(), reportExecutor, reportThreads);
+
+      List<Path> reportFiles;
+      try (Stream<Path> paths = Files.walk(stagingDir)) {
+        reportFiles = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+      }
+      long now = System.currentTimeMillis();
+      try (ArchiveWriter archive = new ArchiveWriter(zipFile.toPath(), archiveOptions)) {
+        archive.open();
+        for (Path reportFile : reportFiles) {
+          String entryName = stagingDir.relativize(reportFile).toString().replace(File.separatorChar, '/');
+          archive.addParentDirectories(entryName, now);
+          archive.addFile(entryName, reportFile);
+        }
+        archive.addPreviousEntries();
+        archive.finish();
+      }
+      logger.info("Added " + reportFiles.size() + " reports to archive:" + zipFile.getAbsolutePath());
+    } catch (IOException e) {
+      throw new TAException("Error writing archive:" + zipFile.getAbsolutePath(), e);
+    } finally {
+      try (Stream<Path> paths = Files.walk(stagingDir)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  private void completeReport(Future<File> pendingReport, String assessmentName) throws TAException {
+    File recFile;
+    try {
+      recFile = pendingReport.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TAException("Interrupted while writing reports for assessment:" + assessmentName, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof TAException) {
+        throw (TAException) e.getCause();
+      }
+      throw new TAException("Error writing reports for assessment:" + assessmentName, e.getCause());
+    }
+    logger.info("Wrote report:" + recFile.getAbsolutePath());
+  }
 
-        // Write report
-        logger.info("Writing report:" + recFile.getAbsolutePath());
-        writeFile(recFile, report.getReport());
+  // Reports for the whole assessment are written to the assessment output dir, the others to the assessment unit dir
+  private static File getReportDir(Report report, File aOutputDir) {
+    return report.getAssessmentUnitName() == null ? aOutputDir : new File(aOutputDir, report.getAssessmentUnitName());
+  }
+
+  private static String getReportFileName(Report report) {
+    return report.getName() + "." + report.getReportType().toString().toLowerCase();
+  }
+
+  private File writeReport(Report report, File aOutputDir) throws TAException {
+    File auOutputDir = getReportDir(report, aOutputDir);
+    File recFile = new File(auOutputDir, getReportFileName(report));
+
+    // Write report
+    logger.debug("Writing report:" + recFile.getAbsolutePath());
+    auOutputDir.mkdirs();
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(recFile))) {
+      report.writeTo(out);
+    } catch (IOException e) {
+      throw new TAException("Error writing file:" + recFile.getAbsolutePath(), e);
+    }
 
-        // Update assessment unit zip
-        String zipFileName = assessmentName + ".tar.gz";
-        File zipFile = new File(aOutputDir.getParentFile(), zipFileName);
-        Util.zipDir(zipFile.toPath(), aOutputDir);
+    // Write resources referenced by the report
+    for (ReportResource resource : report.getResources()) {
+      File resourceFile = new File(auOutputDir, resource.getName());
+      resourceFile.getParentFile().mkdirs();
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(resourceFile))) {
+        resource.writeTo(out);
+      } catch (IOException e) {
+        throw new TAException("Error writing file:" + resourceFile.getAbsolutePath(), e);
       }
     }
+    return recFile;
   }
 
+  /**
+   * Collects, assesses and reports the collections, and writes the assessment archives.
+   *
+   * <p>The plug-in collects and assesses everything first: {@code getCollection} and {@code getRecommendation} return
+   * all the collections and recommendations before anything is written. Only the writing is pipelined: the collections
+   * are passed whole through the write, assess, report and archive stages of a {@link Pipeline}, where the write stage
+   * copies the config files to the output dir and the assess stage writes the recommendations. So the config files of
+   * a collection are written while the recommendations or reports of the collection before it are written. The stages
+   * overlap only across collections, the assessment units of a collection are not pipelined, and a command with a
+   * single collection runs the stages one after the other. The number of collections waiting between two stages is
+   * set with the {@value #RUN_QUEUE_PROPERTY} system property.
+   *
+   * <p>Assessments in the output dir that are not collected by the command are reported after the pipeline, the same
+   * as {@link #runReport(PluginProvider, CliInputCommand)}.
+   */
   public void runRun(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
-    runAssess(provider, cliInputCommand);
-    runReport(provider, cliInputCommand);
+    List<DataCollection> dataCollections = getDataCollections(provider, cliInputCommand);
+    Set<String> reportedAssessmentNames = new HashSet<>();
+    int reportThreads = Math.max(1, Integer.getInteger(REPORT_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    ExecutorService reportExecutor = Executors.newFixedThreadPool(reportThreads);
+    try {
+      Map<String, Recommendation> recs = getRecommendations(provider, cliInputCommand, dataCollections);
+
+      // Collections without a recommendation are only collected
+      Pipeline<DataCollection> pipeline = new Pipeline<>("ta-run", Math.max(1, Integer.getInteger(RUN_QUEUE_PROPERTY, 2)));
+      pipeline.addStage("write", this::writeCollection);
+      pipeline.addStage("assess", dataCollection -> {
+        Recommendation rec = recs.get(dataCollection.getAssessmentName());
+        if (rec != null) {
+          writeRecommendations(rec, dataCollection);
+        }
+        // The reports are generated from the output dir, the collection is no longer used
+        closeDataCollection(dataCollection);
+      });
+      pipeline.addStage("report", dataCollection -> {
+        String assessmentName = dataCollection.getAssessmentName();
+        if (recs.containsKey(assessmentName)) {
+          writeReports(provider, cliInputCommand, assessmentName, Util.getAssessmentOutputDir(assessmentName),
+                  reportExecutor, reportThreads);
+        }
+      });
+      pipeline.addStage("archive", dataCollection -> {
+        String assessmentName = dataCollection.getAssessmentName();
+        if (recs.containsKey(assessmentName)) {
+          writeAssessmentArchive(assessmentName);
+          reportedAssessmentNames.add(assessmentName);
+        }
+      });
+      pipeline.run(dataCollections);
+    } finally {
+      reportExecutor.shutdownNow();
+      closeDataCollections(dataCollections);
+    }
+
+    runReport(provider, cliInputCommand, reportedAssessmentNames);
   }
 
   private CliInputCommand findMatchingCommand(List<String> cliArguments, List<CliInputCommand> providerCommands) {
@@ -404,24 +953,19 @@ public class TADataCollector {
    * Base help for TADataCollector. Lists all middlewares available to help the user start.
    */
   private static String getBaseHelp() {
-    Iterator<PluginProvider> itRecP = new TADataCollector().getPluginProviders();
-    if (!itRecP.hasNext()) {
+    // Middleware names are read from the plug-in descriptors, without loading the providers
+    Set<String> middlewares = PluginRegistry.getInstance().getMiddlewares();
+    if (middlewares.isEmpty()) {
       throw new TARuntimeException("No plug-in available. Add a plug-in to the classpath and run TADataCollector again.");
     }
-
-    String middleware = null;
-    while (itRecP.hasNext()) {
-      PluginProvider recProvider = itRecP.next();
-      if (middleware == null) {
-        middleware = recProvider.getMiddleware();
-      } else {
-        middleware += " | " + recProvider.getMiddleware();
-      }
-    }
+    String middleware = String.join(" | ", middlewares);
 
     String usage = TADATACOLLECTOR_BASE_HELP_USAGE + "\n\n";
     usage += "Middleware:\n" + "  Plug-ins available for these middleware [ " + middleware + " ]\n\n";
-    usage += "Commands:\n" + "  help      Get information on the commands and options available for a middleware";
+    usage += "Commands:\n" + "  help      Get information on the commands and options available for a middleware\n";
+    usage += "  batch     Run the jobs of a manifest in one JVM: batch MANIFEST [--threads N] [--summary FILE]\n";
+    usage += "  server    Run commands for clients in a long-running JVM: server [--port N] [--threads N]\n";
+    usage += "  client    Run a command on the server: client [--port N] MIDDLEWARE COMMAND [OPTIONS]";
 
     return usage;
   }
@@ -434,13 +978,7 @@ public class TADataCollector {
   }
 
   private String getJsonStr(Object recJson) {
-    GsonBuilder builder = new GsonBuilder();
-    builder.excludeFieldsWithoutExposeAnnotation();
-    builder.setPrettyPrinting();
-
-    Gson gson = builder.create();
-    String issuesJsonString = gson.toJson(recJson);
-    return issuesJsonString;
+    return GsonUtil.getGson().toJson(recJson);
   }
 
   private void writeRecommendationsJson(RecommendationJson recJson, File outputDir) throws TAException {
@@ -492,17 +1030,7 @@ public class TADataCollector {
   }
 
   private PluginProvider getProvider(String middleware) {
-    Iterator<PluginProvider> itRecP = getPluginProviders();
-    while (itRecP.hasNext()) {
-      PluginProvider recProvider = itRecP.next();
-
-      // Find provider that matches domain
-      if (recProvider.getMiddleware().equals(middleware)) {
-        recProvider.validateJsonFiles();
-        return recProvider;
-      }
-    }
-    return null;
+    return PluginRegistry.getInstance().newProvider(middleware);
   }
 
   private static void processInput(String[] args) {
@@ -562,6 +1090,18 @@ public class TADataCollector {
     cliCommands.remove(0); // Pop out middleware from CLI args
 
     try {
+      if (BatchRunner.BATCH_COMMAND.equals(middleware)) {
+        BatchRunner.runBatchCommand(cliCommands);
+        return;
+      }
+      if (AssessmentServer.SERVER_COMMAND.equals(middleware)) {
+        AssessmentServer.runServerCommand(cliCommands);
+        return;
+      }
+      if (AssessmentServer.CLIENT_COMMAND.equals(middleware)) {
+        AssessmentServer.runClientCommand(cliCommands);
+        return;
+      }
       new TADataCollector().runCommand(middleware, cliCommands);
     } catch (IllegalArgumentException e) {
       System.out.println(e.getMessage() + "\n\n" + getBaseHelp() + "\n");
@@ -22,4 +22,19 @@ public interface Recommendation {
   List<Target> getTargets();
 
   List<Issue> getIssues(Target target, AssessmentUnit assessmentUnit) throws TAException;
+
+  /**
+   * Gets a fingerprint of the rules of the recommendation, that changes when the issues returned for an assessment
+   * unit could change, for example when a rule is added or changed. If the fingerprint and the assessment unit have
+   * not changed, the result of the previous assessment of the assessment unit is reused, and
+   * {@link #getIssues(Target, AssessmentUnit)} is not called.
+   *
+   * <p>Recommendations that depend on anything other than the assessment unit and its config files, such as the
+   * current time, should return null.
+   *
+   * @return Fingerprint of the rules, or null if the results of a previous assessment must not be reused
+   */
+  default String getFingerprint() {
+    return null;
+  }
 }
@@ -27,4 +27,23 @@ public interface Target {
 
   LocationType getLocation();
 
+  /**
+   * Id of the target, made of its location, platform, product name, product version and runtime, separated by '_'.
+   * The id is used in the name of the report file of a target that has the same location and platform as another
+   * target, characters other than letters, digits, '.' and '-' are replaced by '-'.
+   *
+   * @return Id of the target
+   */
+  default String getId() {
+    StringBuilder id = new StringBuilder();
+    for (Object part : new Object[]{getLocation(), getPlatform(), getProductName(), getProductVersion(), getRuntime()}) {
+      if (part != null && !part.toString().isEmpty()) {
+        if (id.length() > 0) {
+          id.append('_');
+        }
+        id.append(part.toString().replaceAll("[^A-Za-z0-9.-]", "-"));
+      }
+    }
+    return id.toString();
+  }
 }
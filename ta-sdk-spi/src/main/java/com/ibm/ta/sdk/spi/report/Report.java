@@ -9,14 +9,115 @@ package com.ibm.ta.sdk.spi.report;
 
 import com.ibm.ta.sdk.spi.recommendation.Target;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
 public interface Report {
+  String REPORT_NAME = "recommendations";
+
+  // Suffix of the directory with the occurrence data files of a report, named after the report
+  String OCCURRENCES_DIR_SUFFIX = "_occurrences";
+
+  /**
+   * Gets the name of the report file of a target, <i>recommendations_&lt;location&gt;_&lt;platform&gt;</i>. Files
+   * referenced by the report, such as its occurrence data, are named after the report.
+   *
+   * @param target Target of the report
+   * @return Name of the report file, without extension
+   */
+  static String getTargetReportName(Target target) {
+    return REPORT_NAME + "_" + target.getLocation() + "_" + target.getPlatform();
+  }
+
+  /**
+   * Gets the name of the report file of a target, among the other targets of the assessment. The name is
+   * <i>recommendations_&lt;location&gt;_&lt;platform&gt;</i>, see {@link #getTargetReportName(Target)}, unless
+   * another target has the same location and platform. The name is then <i>recommendations_&lt;target id&gt;</i>,
+   * see {@link Target#getId()}, so that the reports of the targets are not written to the same file.
+   *
+   * @param target Target of the report
+   * @param targets All targets of the assessment, including {@code target}
+   * @return Name of the report file, without extension
+   */
+  static String getTargetReportName(Target target, List<? extends Target> targets) {
+    String reportName = getTargetReportName(target);
+    for (Target otherTarget : targets) {
+      if (otherTarget != target && reportName.equals(getTargetReportName(otherTarget))) {
+        return REPORT_NAME + "_" + target.getId();
+      }
+    }
+    return reportName;
+  }
+
+  /**
+   * Whether a file in the output directory of an assessment unit was written by the report stage, a report file or
+   * a file in the occurrences directory of a report. The other files are the collected data.
+   *
+   * @param relativePath Path of the file relative to the assessment unit directory, with '/' separators
+   * @return true if the file was written by the report stage
+   */
+  static boolean isReportFile(String relativePath) {
+    int sep = relativePath.indexOf('/');
+    String topName = sep < 0 ? relativePath : relativePath.substring(0, sep);
+    if (!topName.startsWith(REPORT_NAME)) {
+      return false;
+    }
+    return sep < 0 || topName.endsWith(OCCURRENCES_DIR_SUFFIX);
+  }
+
   String getAssessmentName();
 
+  /**
+   * @return Name of the assessment unit the report is for, or null if the report is for the whole assessment.
+   * Reports for the whole assessment are written to the assessment output directory.
+   */
   String getAssessmentUnitName();
 
+  /**
+   * @return Target the report is for, or null if the report is for the whole assessment
+   */
   Target getTarget();
 
   ReportType getReportType();
 
+  /**
+   * @return Name of the report file, without extension. The report of an assessment unit is named after its target,
+   * see {@link #getTargetReportName(Target)}, and the report of the whole assessment is <i>recommendations</i>.
+   * Reports of targets with the same location and platform should override the name, see
+   * {@link #getTargetReportName(Target, List)}.
+   */
+  default String getName() {
+    return getAssessmentUnitName() == null ? REPORT_NAME : getTargetReportName(getTarget());
+  }
+
   byte[] getReport();
+
+  /**
+   * Writes the content of the report to the {@code out} stream. The stream is not closed.
+   *
+   * <p>The default implementation writes the bytes returned from {@link #getReport()}. Reports that could be large
+   * should override this method and write their content directly to the stream, so that the whole report is never
+   * held in memory.
+   *
+   * <p>Reports are written on a pool of report threads, so this method may be invoked on a different thread than the
+   * one that generated the report, and concurrently with other reports from the same plug-in.
+   *
+   * @param out Stream the report is written to
+   * @throws IOException If the report could not be written
+   */
+  default void writeTo(OutputStream out) throws IOException {
+    out.write(getReport());
+  }
+
+  /**
+   * Resources referenced by the report, that are written to the same directory as the report. The resources are
+   * written after the report.
+   *
+   * @return List of resources for the report, the default is an empty list
+   */
+  default List<ReportResource> getResources() {
+    return Collections.emptyList();
+  }
 }
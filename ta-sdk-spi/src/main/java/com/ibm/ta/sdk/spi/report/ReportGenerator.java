@@ -6,4 +6,33 @@ import java.util.List;
 
 public interface ReportGenerator {
     public List<Report> generateHTMLReports() throws TAException;
+
+    /**
+     * Generates the HTML reports and passes each one to the {@code handler} as soon as it is generated. Generators
+     * that can produce reports incrementally should override this method, so that the reports for an assessment
+     * are not all held in memory at the same time.
+     *
+     * @param handler Handler that receives each generated report
+     * @throws TAException If an error occurs generating or handling the reports
+     */
+    default void generateHTMLReports(ReportHandler handler) throws TAException {
+        for (Report report : generateHTMLReports()) {
+            handler.handleReport(report);
+        }
+    }
+
+    /**
+     * Generates the reports of the given type and passes each one to the {@code handler}. The default implementation
+     * supports {@link ReportType#HTML} only.
+     *
+     * @param reportType Type of reports to generate
+     * @param handler Handler that receives each generated report
+     * @throws TAException If the report type is not supported, or an error occurs generating or handling the reports
+     */
+    default void generateReports(ReportType reportType, ReportHandler handler) throws TAException {
+        if (reportType != ReportType.HTML) {
+            throw new TAException("Report type not supported:" + reportType);
+        }
+        generateHTMLReports(handler);
+    }
 }
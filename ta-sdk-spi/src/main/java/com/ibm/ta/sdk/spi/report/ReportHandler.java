@@ -0,0 +1,27 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.report;
+
+import com.ibm.ta.sdk.spi.plugin.TAException;
+
+/**
+ * Receives reports one at a time, as they are generated.
+ *
+ * <p>Report generators that support a {@code ReportHandler} hand over each report as soon as it is ready, instead of
+ * returning all reports for an assessment in a {@code List}. The data used to build a report may be discarded by the
+ * generator once {@link #handleReport(Report)} returns.
+ */
+public interface ReportHandler {
+
+  /**
+   * Called for each generated report, in the order the reports are generated.
+   *
+   * @param report Generated report
+   * @throws TAException If the report cannot be processed. Report generation stops with this exception.
+   */
+  void handleReport(Report report) throws TAException;
+}
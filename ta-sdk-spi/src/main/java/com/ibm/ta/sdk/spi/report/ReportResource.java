@@ -0,0 +1,33 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A file that is written next to a report, and is referenced by the report. For example, a data file that is loaded
+ * by an HTML report when it is viewed.
+ */
+public interface ReportResource {
+
+  /**
+   * Path of the resource relative to the directory the report is written to. The path uses '/' as the separator,
+   * and may contain subdirectories.
+   *
+   * @return Relative path of the resource
+   */
+  String getName();
+
+  /**
+   * Writes the content of the resource to the {@code out} stream. The stream is not closed.
+   *
+   * @param out Stream the resource is written to
+   * @throws IOException If the resource could not be written
+   */
+  void writeTo(OutputStream out) throws IOException;
+}
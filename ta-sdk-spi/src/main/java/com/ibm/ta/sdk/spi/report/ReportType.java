@@ -10,7 +10,11 @@ package com.ibm.ta.sdk.spi.report;
  * Enum for the supported types of reports.
  *
  * <p>{@code HTML} Reports in HTML format.
+ * <p>{@code CSV} Occurrences of all issues, one comma separated line per occurrence.
+ * <p>{@code NDJSON} Occurrences of all issues, one JSON object per line (newline delimited JSON).
  */
 public enum ReportType {
-  HTML
+  HTML,
+  CSV,
+  NDJSON
 }
@@ -0,0 +1,222 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.Expose;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of the entries in a tar.gz archive written by {@link ArchiveWriter}. The index is stored in a sidecar file
+ * next to the archive, with the name of the archive and the {@link #INDEX_SUFFIX} suffix.
+ *
+ * <p>Each entry in the archive is compressed as a separate gzip member. The index records the offset and length of
+ * the member of each entry in the archive file, so that an entry could be copied or read without decompressing the
+ * entries before it. {@link ArchiveReader} opens individual entries with the index.
+ *
+ * <p>The index also records the codec and compression level each member was written with, so that a member is only
+ * copied to a new archive that is written with the same {@link ArchiveOptions}.
+ */
+public class ArchiveIndex {
+  private static Logger logger = LogManager.getLogger(ArchiveIndex.class.getName());
+
+  public static final String INDEX_SUFFIX = ".idx";
+
+  private static final int VERSION = 2;
+
+  @Expose
+  private int version = VERSION;
+
+  @Expose
+  private long archiveSize;
+
+  @Expose
+  private long archiveLastModified;
+
+  @Expose
+  private List<Entry> entries = new ArrayList<>();
+
+  /**
+   * An entry in the archive.
+   */
+  public static class Entry {
+    @Expose
+    private String name;
+
+    @Expose
+    private boolean directory;
+
+    @Expose
+    private long size;
+
+    @Expose
+    private long lastModified;
+
+    @Expose
+    private long offset;
+
+    @Expose
+    private long length;
+
+    @Expose
+    private String codec;
+
+    @Expose
+    private int level;
+
+    public Entry() {
+      // For read json from file
+    }
+
+    public Entry(String name, boolean directory, long size, long lastModified, long offset, long length,
+                 String codec, int level) {
+      this.name = name;
+      this.directory = directory;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.offset = offset;
+      this.length = length;
+      this.codec = codec;
+      this.level = level;
+    }
+
+    /**
+     * @return Name of the entry in the archive, directory names end with '/'
+     */
+    public String getName() {
+      return name;
+    }
+
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    /**
+     * @return Uncompressed size of the entry content
+     */
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * @return Last modified time of the file the entry was created from, in milliseconds
+     */
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    /**
+     * @return Offset of the gzip member for the entry in the archive file
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    /**
+     * @return Length of the gzip member for the entry in the archive file
+     */
+    public long getLength() {
+      return length;
+    }
+
+    /**
+     * @return Name of the {@link ArchiveOptions.Codec} the member for the entry was written with
+     */
+    public String getCodec() {
+      return codec;
+    }
+
+    /**
+     * @return Compression level the member for the entry was written with
+     */
+    public int getLevel() {
+      return level;
+    }
+  }
+
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  public void addEntry(Entry entry) {
+    entries.add(entry);
+  }
+
+  public long getArchiveSize() {
+    return archiveSize;
+  }
+
+  public long getArchiveLastModified() {
+    return archiveLastModified;
+  }
+
+  /**
+   * Gets the sidecar index file for an archive.
+   *
+   * @param archiveFile Archive file
+   * @return Index file for the archive
+   */
+  public static Path getIndexFile(Path archiveFile) {
+    return archiveFile.resolveSibling(archiveFile.getFileName().toString() + INDEX_SUFFIX);
+  }
+
+  /**
+   * Reads the index for an archive. The index is only returned if it matches the current archive file, that is the
+   * size and last modified time of the archive have not changed since the index was written.
+   *
+   * @param archiveFile Archive file
+   * @return Index for the archive, or null if there is no index or the index does not match the archive
+   */
+  public static ArchiveIndex read(Path archiveFile) {
+    Path indexFile = getIndexFile(archiveFile);
+    if (!Files.isRegularFile(indexFile) || !Files.isRegularFile(archiveFile)) {
+      return null;
+    }
+
+    try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+      ArchiveIndex index = GsonUtil.getCompactGson().fromJson(reader, ArchiveIndex.class);
+      if (index == null || index.version != VERSION || index.archiveSize != Files.size(archiveFile) ||
+              index.archiveLastModified != Files.getLastModifiedTime(archiveFile).toMillis()) {
+        logger.debug("Index does not match archive:" + archiveFile);
+        return null;
+      }
+      return index;
+    } catch (IOException | JsonParseException e) {
+      logger.warn("Unable to read archive index:" + indexFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes the index for an archive, recording the current size and last modified time of the archive.
+   *
+   * @param archiveFile Archive file the index is for
+   * @throws IOException If the index could not be written
+   */
+  public void write(Path archiveFile) throws IOException {
+    archiveSize = Files.size(archiveFile);
+    archiveLastModified = Files.getLastModifiedTime(archiveFile).toMillis();
+
+    Path indexFile = getIndexFile(archiveFile);
+    Path tmpIndexFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+    try (Writer writer = Files.newBufferedWriter(tmpIndexFile, StandardCharsets.UTF_8)) {
+      GsonUtil.getCompactGson().toJson(this, writer);
+    }
+    Files.move(tmpIndexFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+  }
+}
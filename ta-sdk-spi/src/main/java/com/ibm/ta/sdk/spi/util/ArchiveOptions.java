@@ -0,0 +1,148 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Options for writing tar.gz archives with {@link ArchiveWriter}.
+ *
+ * <p>The archive is always a valid tar.gz, the codec only changes how the data is compressed:
+ * <ul>
+ *   <li>{@code GZIP} Each entry is compressed as one gzip member on the calling thread. This is the default.</li>
+ *   <li>{@code PARALLEL_GZIP} The data of each entry is split into blocks, and each block is compressed as a
+ *   separate gzip member on a pool of threads, similar to pigz.</li>
+ *   <li>{@code STORE} The data is not compressed, it is stored in gzip members with compression level 0.</li>
+ * </ul>
+ */
+public class ArchiveOptions {
+
+  public enum Codec {
+    GZIP("gzip"),
+    PARALLEL_GZIP("pgzip"),
+    STORE("store");
+
+    private final String name;
+
+    Codec(String name) {
+      this.name = name;
+    }
+
+    /**
+     * @return Name of the codec used in CLI options
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets the codec for a name used in CLI options.
+     *
+     * @param name Name of the codec
+     * @return Codec with the name
+     * @throws IllegalArgumentException If there is no codec with the name
+     */
+    public static Codec fromName(String name) {
+      for (Codec codec : values()) {
+        if (codec.name.equalsIgnoreCase(name)) {
+          return codec;
+        }
+      }
+      throw new IllegalArgumentException("Archive codec not supported:" + name + ". Supported codecs are gzip, pgzip, store.");
+    }
+  }
+
+  // Extensions of files that are already compressed
+  private static final Set<String> COMPRESSED_FILE_EXTENSIONS = new HashSet<>(Arrays.asList(
+          "gz", "tgz", "zip", "jar", "war", "ear", "bz2", "xz", "7z", "zst", "png", "jpg", "jpeg", "gif"));
+
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  private Codec codec = Codec.GZIP;
+  private int level = Deflater.DEFAULT_COMPRESSION;
+  private boolean storeCompressedFiles = false;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private int blockSize = DEFAULT_BLOCK_SIZE;
+
+  public Codec getCodec() {
+    return codec;
+  }
+
+  public void setCodec(Codec codec) {
+    this.codec = codec;
+  }
+
+  /**
+   * @return Compression level, from 0 to 9, or -1 for the default level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  public void setLevel(int level) {
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level:" + level + ". Level must be from 0 to 9.");
+    }
+    this.level = level;
+  }
+
+  /**
+   * @return true if files that are already compressed, such as .zip and .jar files, are stored without compression
+   */
+  public boolean isStoreCompressedFiles() {
+    return storeCompressedFiles;
+  }
+
+  public void setStoreCompressedFiles(boolean storeCompressedFiles) {
+    this.storeCompressedFiles = storeCompressedFiles;
+  }
+
+  /**
+   * @return Number of threads used by the {@link Codec#PARALLEL_GZIP} codec
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * @return Size of the blocks compressed in parallel by the {@link Codec#PARALLEL_GZIP} codec
+   */
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  public void setBlockSize(int blockSize) {
+    this.blockSize = Math.max(64 * 1024, blockSize);
+  }
+
+  /**
+   * Gets the compression level for a file in the archive.
+   *
+   * @param fileName Name of the file
+   * @return Compression level for the file
+   */
+  public int getLevel(String fileName) {
+    if (codec == Codec.STORE) {
+      return Deflater.NO_COMPRESSION;
+    }
+    if (storeCompressedFiles) {
+      int extIndex = fileName.lastIndexOf('.');
+      if (extIndex >= 0 && COMPRESSED_FILE_EXTENSIONS.contains(fileName.substring(extIndex + 1).toLowerCase(Locale.ROOT))) {
+        return Deflater.NO_COMPRESSION;
+      }
+    }
+    return level;
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads individual entries of a tar.gz archive written by {@link ArchiveWriter}, without decompressing the entries
+ * before them.
+ *
+ * <p>The {@link ArchiveIndex} of the archive has the offset and length of the gzip members of each entry. An entry
+ * is opened by decompressing only its members, so the cost of opening an entry is proportional to the size of the
+ * entry, not the size of the archive. If the archive has no index, or the index does not match the archive, entries
+ * are found by reading the archive from the start.
+ *
+ * <p>Entries could be opened concurrently from several threads. The archive file is kept open until the reader is
+ * closed.
+ */
+public class ArchiveReader implements Closeable {
+  private static Logger logger = LogManager.getLogger(ArchiveReader.class.getName());
+
+  private final Path archiveFile;
+  private final ArchiveIndex index;
+  private final Map<String, ArchiveIndex.Entry> entries = new HashMap<>();
+  private final FileChannel channel;
+
+  /**
+   * @param archiveFile Archive file to read
+   * @throws IOException If the archive could not be opened
+   */
+  public ArchiveReader(Path archiveFile) throws IOException {
+    this.archiveFile = archiveFile;
+    this.index = ArchiveIndex.read(archiveFile);
+    if (index != null) {
+      for (ArchiveIndex.Entry entry : index.getEntries()) {
+        entries.put(entry.getName(), entry);
+      }
+    } else {
+      logger.debug("No index for archive, entries are read sequentially:" + archiveFile);
+    }
+    this.channel = FileChannel.open(archiveFile, StandardOpenOption.READ);
+  }
+
+  /**
+   * @return true if the archive has an index that matches the archive, and entries could be opened directly
+   */
+  public boolean isIndexed() {
+    return index != null;
+  }
+
+  /**
+   * @return Entries in the archive, in archive order. Empty if the archive has no index.
+   */
+  public List<ArchiveIndex.Entry> getEntries() {
+    return index == null ? Collections.emptyList() : Collections.unmodifiableList(index.getEntries());
+  }
+
+  /**
+   * Gets the names of the entries in the archive. If the archive has no index, the archive is read to list the
+   * entries.
+   *
+   * @return Names of the entries in the archive, in archive order
+   * @throws IOException If the archive could not be read
+   */
+  public List<String> getEntryNames() throws IOException {
+    List<String> names = new ArrayList<>();
+    if (index != null) {
+      for (ArchiveIndex.Entry entry : index.getEntries()) {
+        names.add(entry.getName());
+      }
+      return names;
+    }
+
+    try (TarArchiveInputStream tarIn = openTarStream(0, channel.size())) {
+      TarArchiveEntry tarEntry;
+      while ((tarEntry = tarIn.getNextTarEntry()) != null) {
+        names.add(tarEntry.getName());
+      }
+    }
+    return names;
+  }
+
+  /**
+   * @param name Name of the entry
+   * @return true if the archive has an entry with the name
+   * @throws IOException If the archive has no index, and could not be read
+   */
+  public boolean hasEntry(String name) throws IOException {
+    return index != null ? entries.containsKey(name) : getEntryNames().contains(name);
+  }
+
+  /**
+   * Opens an entry for reading. For a hard link entry, the content of the target entry is read.
+   *
+   * @param name Name of the entry
+   * @return {@code InputStream} with the content of the entry. The caller closes the stream.
+   * @throws NoSuchFileException If the archive has no entry with the name
+   * @throws IOException If the entry could not be read
+   */
+  public InputStream openEntry(String name) throws IOException {
+    ArchiveIndex.Entry entry = entries.get(name);
+    if (index != null && entry == null) {
+      throw new NoSuchFileException(name, null, "Entry not found in archive " + archiveFile);
+    }
+
+    // Read only the members of the entry, or the whole archive if there is no index
+    long offset = entry != null ? entry.getOffset() : 0;
+    long length = entry != null ? entry.getLength() : channel.size();
+    TarArchiveInputStream tarIn = openTarStream(offset, length);
+    try {
+      TarArchiveEntry tarEntry;
+      while ((tarEntry = tarIn.getNextTarEntry()) != null) {
+        if (tarEntry.getName().equals(name)) {
+          if (tarEntry.isLink()) {
+            // The content is in the entry of the link target
+            tarIn.close();
+            return openEntry(tarEntry.getLinkName());
+          }
+          return tarIn;
+        }
+        if (entry != null) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      tarIn.close();
+      throw e;
+    }
+    tarIn.close();
+    if (entry != null) {
+      throw new IOException("Archive index does not match entry " + name + " in archive " + archiveFile);
+    }
+    throw new NoSuchFileException(name, null, "Entry not found in archive " + archiveFile);
+  }
+
+  /**
+   * Opens an entry of an archive for reading, without keeping a reader for the archive. The archive is closed when
+   * the returned stream is closed.
+   *
+   * @param archiveFile Archive file to read
+   * @param name Name of the entry
+   * @return {@code InputStream} with the content of the entry. The caller closes the stream.
+   * @throws NoSuchFileException If the archive has no entry with the name
+   * @throws IOException If the archive or the entry could not be read
+   */
+  public static InputStream openEntry(Path archiveFile, String name) throws IOException {
+    ArchiveReader reader = new ArchiveReader(archiveFile);
+    InputStream in;
+    try {
+      in = reader.openEntry(name);
+    } catch (IOException e) {
+      reader.close();
+      throw e;
+    }
+    return new FilterInputStream(in) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          reader.close();
+        }
+      }
+    };
+  }
+
+  private TarArchiveInputStream openTarStream(long offset, long length) throws IOException {
+    // The members are decompressed one after the other
+    return new TarArchiveInputStream(new GzipCompressorInputStream(
+            new BufferedInputStream(new RangeInputStream(channel, offset, length)), true));
+  }
+
+  /**
+   * Reads all the content of an entry.
+   *
+   * @param name Name of the entry
+   * @return Content of the entry
+   * @throws IOException If the archive has no entry with the name, or the entry could not be read
+   */
+  public byte[] readEntry(String name) throws IOException {
+    try (InputStream in = openEntry(name)) {
+      return IOUtils.toByteArray(in);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /*
+   * Reads a range of the archive file with positional reads, so that several ranges could be read concurrently from
+   * the same channel. Closing the stream does not close the channel.
+   */
+  static class RangeInputStream extends InputStream {
+    private final FileChannel channel;
+    private long position;
+    private final long end;
+
+    RangeInputStream(FileChannel channel, long offset, long length) {
+      this.channel = channel;
+      this.position = offset;
+      this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int n = read(b, 0, 1);
+      return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (position >= end) {
+        return -1;
+      }
+      int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+      if (n > 0) {
+        position += n;
+      }
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+  }
+}
@@ -0,0 +1,774 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the content of a directory, including all subdirectories, to a tar.gz archive.
+ *
+ * <p>Each tar entry is compressed as a separate gzip member. A gzip file with several members is still a valid
+ * gzip file, the members are decompressed one after the other. An {@link ArchiveIndex} with the offset and length
+ * of the member for each entry is written next to the archive.
+ *
+ * <p>When the archive is written again, files that have the same size and last modified time as the entry in the
+ * previous archive are not compressed again, if the entry was compressed with the same codec and level as the
+ * current {@link ArchiveOptions}. The compressed member is copied from the previous archive instead.
+ * The new archive is written to a temporary file, and replaces the previous archive once it is complete.
+ *
+ * <p>Files that are hard links to a file already in the archive, such as the files deduplicated with
+ * {@link BlobStore}, are written as tar hard link entries, so their content is stored once.
+ *
+ * <p>The compression codec and level are set with {@link ArchiveOptions}.
+ *
+ * <p>Instead of archiving a directory with {@link #write(File)}, entries could also be added one at a time as they
+ * are produced, so that the content does not need to be written to a directory first:
+ * <pre>
+ * try (ArchiveWriter writer = new ArchiveWriter(archiveFile, options)) {
+ *   writer.open();
+ *   writer.addEntry("environment.json", content, System.currentTimeMillis());
+ *   writer.addFile("AssessmentUnit1/server.xml", path);
+ *   writer.finish();
+ * }
+ * </pre>
+ */
+public class ArchiveWriter implements Closeable {
+  private static Logger logger = LogManager.getLogger(ArchiveWriter.class.getName());
+
+  private final Path archiveFile;
+  private final ArchiveOptions options;
+
+  // State of an archive that is being written, set by open()
+  private Path tmpArchiveFile;
+  private ArchiveIndex index;
+  private ArchiveIndex previousIndex;
+  private final Set<String> addedNames = new HashSet<>();
+  private final Map<Object, String> fileKeyNames = new HashMap<>();
+  private Map<String, ArchiveIndex.Entry> previousEntries;
+  private ExecutorService executor;
+  private FileChannel out;
+  private FileChannel previous;
+  private MemberOutputStream memberOut;
+  private TarArchiveOutputStream tarOut;
+  private int entryCount;
+  private int reusedEntries;
+  private boolean finished;
+
+  /**
+   * @param archiveFile Archive file to write
+   */
+  public ArchiveWriter(Path archiveFile) {
+    this(archiveFile, new ArchiveOptions());
+  }
+
+  /**
+   * @param archiveFile Archive file to write
+   * @param options Options for compressing the archive
+   */
+  public ArchiveWriter(Path archiveFile, ArchiveOptions options) {
+    this.archiveFile = archiveFile;
+    this.options = options;
+  }
+
+  /**
+   * Writes the content of the directory to the archive. Entry names are relative to the directory.
+   *
+   * @param dir Directory to archive
+   * @throws IOException If the directory could not be read, or the archive could not be written
+   */
+  public void write(File dir) throws IOException {
+    List<File> files = new ArrayList<>();
+    listFiles(dir, files);
+
+    open();
+    try {
+      for (File file : files) {
+        if (file.isDirectory()) {
+          addDirectory(getEntryName(dir, file), file.lastModified());
+        } else {
+          addFile(getEntryName(dir, file), file.toPath());
+        }
+      }
+      finish();
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Opens the archive for writing entries one at a time, with {@link #addDirectory(String, long)},
+   * {@link #addFile(String, Path)}, and {@link #addEntry(String, byte[], long)}. The archive replaces the previous
+   * archive when {@link #finish()} is called. If the writer is closed before it is finished, the previous archive
+   * is kept.
+   *
+   * @throws IOException If the archive could not be created
+   */
+  public void open() throws IOException {
+    if (out != null) {
+      throw new IllegalStateException("Archive is already open:" + archiveFile);
+    }
+
+    // Entries from the previous archive that could be reused
+    previousIndex = ArchiveIndex.read(archiveFile);
+    previousEntries = new HashMap<>();
+    if (previousIndex != null) {
+      for (ArchiveIndex.Entry entry : previousIndex.getEntries()) {
+        previousEntries.put(entry.getName(), entry);
+      }
+    }
+
+    index = new ArchiveIndex();
+    addedNames.clear();
+    fileKeyNames.clear();
+    entryCount = 0;
+    reusedEntries = 0;
+    finished = false;
+    tmpArchiveFile = archiveFile.resolveSibling(archiveFile.getFileName() + ".tmp");
+    executor = options.getCodec() == ArchiveOptions.Codec.PARALLEL_GZIP ?
+            Executors.newFixedThreadPool(options.getThreads()) : null;
+    try {
+      out = FileChannel.open(tmpArchiveFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING);
+      previous = previousIndex != null ? FileChannel.open(archiveFile, StandardOpenOption.READ) : null;
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+    memberOut = executor == null ? new MemberOutputStream(out) :
+            new ParallelMemberOutputStream(out, executor, options.getBlockSize(), options.getThreads() * 2);
+
+    // Tar blocks are the size of a record, so that each entry is written out when it is closed
+    tarOut = new TarArchiveOutputStream(memberOut, TarConstants.DEFAULT_RCDSIZE);
+    tarOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+    tarOut.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+  }
+
+  /**
+   * Adds a directory entry to the archive.
+   *
+   * @param name Name of the directory in the archive, ending with '/'
+   * @param lastModified Last modified time of the directory, in milliseconds
+   * @throws IOException If the entry could not be written
+   */
+  public void addDirectory(String name, long lastModified) throws IOException {
+    String dirName = name.endsWith("/") ? name : name + "/";
+    TarArchiveEntry tarEntry = new TarArchiveEntry(dirName);
+    tarEntry.setModTime(lastModified);
+    writeEntry(tarEntry, null, 0, lastModified);
+  }
+
+  /**
+   * Adds a file to the archive. If the previous archive has an entry with the same name, size, and last modified
+   * time, that was compressed with the same codec and level, the compressed entry is copied from the previous
+   * archive. If the file is the same file as a file already
+   * added to the archive, a hard link to the entry of that file is added.
+   *
+   * @param name Name of the file in the archive
+   * @param file File to add
+   * @throws IOException If the file could not be read, or the entry could not be written
+   */
+  public void addFile(String name, Path file) throws IOException {
+    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+    long size = attrs.size();
+    long lastModified = attrs.lastModifiedTime().toMillis();
+
+    // Empty files are not linked, the entry is the same size as a link
+    Object fileKey = size > 0 ? attrs.fileKey() : null;
+    if (fileKey != null) {
+      String linkName = fileKeyNames.putIfAbsent(fileKey, name);
+      if (linkName != null) {
+        addLink(name, linkName, lastModified);
+        return;
+      }
+    }
+
+    // Link entries are recorded in the index with size 0, so empty files are not reused
+    ArchiveIndex.Entry previousEntry = previousEntries.get(name);
+    if (previousEntry != null && !previousEntry.isDirectory() && size > 0 && previousEntry.getSize() == size &&
+            previousEntry.getLastModified() == lastModified && isReusable(previousEntry)) {
+      memberOut.copyMember(previous, previousEntry.getOffset(), previousEntry.getLength(),
+              getEntryCallback(name, false, size, lastModified));
+      addedNames.add(name);
+      entryCount++;
+      reusedEntries++;
+      return;
+    }
+
+    TarArchiveEntry tarEntry = new TarArchiveEntry(name);
+    tarEntry.setSize(size);
+    tarEntry.setModTime(lastModified);
+    try (InputStream in = Files.newInputStream(file)) {
+      writeEntry(tarEntry, in, size, lastModified);
+    }
+  }
+
+  /**
+   * Adds a hard link entry to the archive. When the archive is extracted, the entry is a link to the target file.
+   *
+   * @param name Name of the link in the archive
+   * @param linkName Name of the target file in the archive, that must already be added
+   * @param lastModified Last modified time of the link, in milliseconds
+   * @throws IOException If the entry could not be written
+   */
+  public void addLink(String name, String linkName, long lastModified) throws IOException {
+    TarArchiveEntry tarEntry = new TarArchiveEntry(name, TarConstants.LF_LINK);
+    tarEntry.setLinkName(linkName);
+    tarEntry.setModTime(lastModified);
+    writeEntry(tarEntry, null, 0, lastModified);
+  }
+
+  /**
+   * Adds a file with the given content to the archive.
+   *
+   * @param name Name of the file in the archive
+   * @param content Content of the file
+   * @param lastModified Last modified time of the file, in milliseconds
+   * @throws IOException If the entry could not be written
+   */
+  public void addEntry(String name, byte[] content, long lastModified) throws IOException {
+    TarArchiveEntry tarEntry = new TarArchiveEntry(name);
+    tarEntry.setSize(content.length);
+    tarEntry.setModTime(lastModified);
+    writeEntry(tarEntry, new ByteArrayInputStream(content), content.length, lastModified);
+  }
+
+  /**
+   * Adds a file with the content of another file to the archive, such as a temp file the content was written to.
+   * Unlike {@link #addFile(String, Path)}, the entry has the given last modified time and is never a link.
+   *
+   * @param name Name of the file in the archive
+   * @param content File with the content of the entry
+   * @param lastModified Last modified time of the file, in milliseconds
+   * @throws IOException If the content could not be read, or the entry could not be written
+   */
+  public void addEntry(String name, Path content, long lastModified) throws IOException {
+    long size = Files.size(content);
+    TarArchiveEntry tarEntry = new TarArchiveEntry(name);
+    tarEntry.setSize(size);
+    tarEntry.setModTime(lastModified);
+    try (InputStream in = Files.newInputStream(content)) {
+      writeEntry(tarEntry, in, size, lastModified);
+    }
+  }
+
+  private void writeEntry(TarArchiveEntry tarEntry, InputStream in, long size, long lastModified) throws IOException {
+    if (tarOut == null) {
+      throw new IllegalStateException("Archive is not open:" + archiveFile);
+    }
+    memberOut.beginMember(getEntryLevel(tarEntry.getName()));
+    tarOut.putArchiveEntry(tarEntry);
+    if (in != null) {
+      IOUtils.copy(in, tarOut);
+    }
+    tarOut.closeArchiveEntry();
+    memberOut.endMember(getEntryCallback(tarEntry.getName(), tarEntry.isDirectory(), size, lastModified));
+    addedNames.add(tarEntry.getName());
+    entryCount++;
+  }
+
+  /**
+   * Adds an entry for each parent directory of an entry, that has not been added to the archive yet.
+   *
+   * @param name Name of the entry
+   * @param lastModified Last modified time of the directories, in milliseconds
+   * @throws IOException If the entries could not be written
+   */
+  public void addParentDirectories(String name, long lastModified) throws IOException {
+    int index = name.indexOf('/');
+    while (index >= 0 && index < name.length() - 1) {
+      String dirName = name.substring(0, index + 1);
+      if (!addedNames.contains(dirName)) {
+        addDirectory(dirName, lastModified);
+      }
+      index = name.indexOf('/', index + 1);
+    }
+  }
+
+  /**
+   * Adds the entries of the previous archive that have not been added to the archive. The compressed entries are
+   * copied from the previous archive as they are, if the previous archive has an index and the entries were
+   * compressed with the same codec and level. Otherwise the entries are read from the previous archive and
+   * compressed again.
+   *
+   * <p>This is used to update some of the entries of an archive, without writing the other entries again.
+   *
+   * @throws IOException If the previous archive could not be read, or the entries could not be written
+   */
+  public void addPreviousEntries() throws IOException {
+    if (previousIndex != null) {
+      for (ArchiveIndex.Entry entry : previousIndex.getEntries()) {
+        if (addedNames.contains(entry.getName())) {
+          continue;
+        }
+        if (isReusable(entry)) {
+          memberOut.copyMember(previous, entry.getOffset(), entry.getLength(), getEntryCallback(entry.getName(),
+                  entry.isDirectory(), entry.getSize(), entry.getLastModified()));
+          addedNames.add(entry.getName());
+          entryCount++;
+          reusedEntries++;
+          continue;
+        }
+
+        // Only the members of the entry are decompressed
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(
+                new BufferedInputStream(new ArchiveReader.RangeInputStream(previous, entry.getOffset(), entry.getLength())), true))) {
+          TarArchiveEntry previousEntry = tarIn.getNextTarEntry();
+          if (previousEntry == null || !previousEntry.getName().equals(entry.getName())) {
+            throw new IOException("Archive index does not match entry " + entry.getName() + " in archive " + archiveFile);
+          }
+          addPreviousEntry(tarIn, previousEntry, entry.getLastModified());
+        }
+      }
+      return;
+    }
+
+    if (!Files.isRegularFile(archiveFile)) {
+      return;
+    }
+    logger.debug("No index for previous archive, entries are compressed again:" + archiveFile);
+    try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(
+            new BufferedInputStream(Files.newInputStream(archiveFile)), true))) {
+      TarArchiveEntry previousEntry;
+      while ((previousEntry = tarIn.getNextTarEntry()) != null) {
+        if (!addedNames.contains(previousEntry.getName())) {
+          addPreviousEntry(tarIn, previousEntry, previousEntry.getModTime().getTime());
+        }
+      }
+    }
+  }
+
+  // Compresses an entry read from the previous archive again
+  private void addPreviousEntry(TarArchiveInputStream tarIn, TarArchiveEntry previousEntry, long lastModified)
+          throws IOException {
+    String name = previousEntry.getName();
+    if (previousEntry.isDirectory()) {
+      addDirectory(name, lastModified);
+    } else if (previousEntry.isLink()) {
+      addLink(name, previousEntry.getLinkName(), lastModified);
+    } else {
+      TarArchiveEntry tarEntry = new TarArchiveEntry(name);
+      tarEntry.setSize(previousEntry.getSize());
+      tarEntry.setModTime(lastModified);
+      writeEntry(tarEntry, tarIn, previousEntry.getSize(), lastModified);
+    }
+  }
+
+  // Compression level of an entry, from the name of the file of the entry
+  private int getEntryLevel(String name) {
+    return options.getLevel(name.substring(name.lastIndexOf('/') + 1));
+  }
+
+  // Whether the member of an entry of the previous archive was compressed as it would be with the current options
+  private boolean isReusable(ArchiveIndex.Entry entry) {
+    return options.getCodec().getName().equals(entry.getCodec()) && entry.getLevel() == getEntryLevel(entry.getName());
+  }
+
+  // The index entry is added once the member for the entry is written to the archive
+  private EntryCallback getEntryCallback(String name, boolean directory, long size, long lastModified) {
+    String codec = options.getCodec().getName();
+    int level = getEntryLevel(name);
+    return (offset, length) -> index.addEntry(new ArchiveIndex.Entry(name, directory, size, lastModified, offset,
+            length, codec, level));
+  }
+
+  /**
+   * Writes the end of the archive, replaces the previous archive with the new archive, and writes the index.
+   *
+   * @throws IOException If the archive could not be written
+   */
+  public void finish() throws IOException {
+    if (tarOut == null) {
+      throw new IllegalStateException("Archive is not open:" + archiveFile);
+    }
+
+    // End of archive records
+    memberOut.beginMember(options.getLevel());
+    tarOut.finish();
+    memberOut.endMember(null);
+    memberOut.finish();
+    closeFiles();
+
+    moveFile(tmpArchiveFile, archiveFile);
+    index.write(archiveFile);
+    finished = true;
+    logger.debug("Wrote archive " + archiveFile + " with " + entryCount + " entries, " + reusedEntries +
+            " entries reused from previous archive");
+  }
+
+  /**
+   * @return Number of entries of the last written archive that were copied from the previous archive
+   */
+  int getReusedEntries() {
+    return reusedEntries;
+  }
+
+  /**
+   * Releases the resources used to write the archive. If the archive was not finished, the partial archive is
+   * deleted.
+   *
+   * @throws IOException If the archive file could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      closeFiles();
+    } finally {
+      if (!finished && tmpArchiveFile != null) {
+        Files.deleteIfExists(tmpArchiveFile);
+      }
+      tarOut = null;
+      memberOut = null;
+    }
+  }
+
+  private void closeFiles() throws IOException {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+    try {
+      if (previous != null) {
+        previous.close();
+      }
+    } finally {
+      previous = null;
+      if (out != null) {
+        out.close();
+      }
+      out = null;
+    }
+  }
+
+  private static String getEntryName(File dir, File file) {
+    String name = dir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    return file.isDirectory() ? name + "/" : name;
+  }
+
+  // Lists all files and directories under dir, sorted by name so that the archive content is in a stable order
+  private static void listFiles(File dir, List<File> files) throws IOException {
+    File[] dirFiles = dir.listFiles();
+    if (dirFiles == null) {
+      throw new IOException("Unable to list directory:" + dir.getAbsolutePath());
+    }
+    Arrays.sort(dirFiles);
+    for (File file : dirFiles) {
+      files.add(file);
+      if (file.isDirectory()) {
+        listFiles(file, files);
+      }
+    }
+  }
+
+  private static void moveFile(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /*
+   * Called when the member for an entry is written to the archive
+   */
+  private interface EntryCallback {
+    void written(long offset, long length);
+  }
+
+  private static GzipParameters getGzipParameters(int level) {
+    GzipParameters parameters = new GzipParameters();
+    parameters.setCompressionLevel(level);
+    return parameters;
+  }
+
+  /*
+   * Output stream for the archive file, that compresses the data written between beginMember() and endMember() as
+   * a gzip member. Compressed members from another archive could be copied between members.
+   */
+  private static class MemberOutputStream extends OutputStream {
+    private final FileChannel channel;
+    protected final OutputStream fileOut;
+    private GzipCompressorOutputStream memberOut;
+    private long memberOffset;
+
+    MemberOutputStream(FileChannel channel) {
+      this.channel = channel;
+      this.fileOut = new BufferedOutputStream(Channels.newOutputStream(channel));
+    }
+
+    long position() throws IOException {
+      fileOut.flush();
+      return channel.position();
+    }
+
+    void beginMember(int level) throws IOException {
+      memberOffset = position();
+
+      // The gzip stream is closed to release the deflater, the file stream is kept open
+      memberOut = new GzipCompressorOutputStream(new FilterOutputStream(fileOut) {
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      }, getGzipParameters(level));
+    }
+
+    void endMember(EntryCallback callback) throws IOException {
+      memberOut.close();
+      memberOut = null;
+      if (callback != null) {
+        callback.written(memberOffset, position() - memberOffset);
+      }
+    }
+
+    void copyMember(FileChannel source, long offset, long length, EntryCallback callback) throws IOException {
+      long memberOffset = position();
+      transfer(source, offset, length);
+      callback.written(memberOffset, position() - memberOffset);
+    }
+
+    // Writes all pending members to the archive file
+    void finish() throws IOException {
+      fileOut.flush();
+    }
+
+    protected void transfer(FileChannel source, long offset, long length) throws IOException {
+      fileOut.flush();
+      long copied = 0;
+      while (copied < length) {
+        long n = source.transferTo(offset + copied, length - copied, channel);
+        if (n <= 0) {
+          throw new IOException("Unable to copy entry from previous archive at offset " + (offset + copied));
+        }
+        copied += n;
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (memberOut == null) {
+        throw new IOException("Archive data written outside of an entry");
+      }
+      memberOut.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // Members are flushed when they end, a partial member is not flushed
+    }
+
+    @Override
+    public void close() throws IOException {
+      // The file channel is closed by the writer
+    }
+  }
+
+  /*
+   * Compresses the data of each entry in blocks, with each block compressed as a separate gzip member on a pool of
+   * threads. The compressed blocks are written to the archive file in order. The number of blocks that are waiting
+   * to be written is bounded, to bound the memory used.
+   */
+  private static class ParallelMemberOutputStream extends MemberOutputStream {
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+
+    // Entries that are not completely written to the archive file yet, in archive order
+    private final Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+    private int pendingBlocks = 0;
+
+    private PendingEntry currentEntry;
+    private int currentLevel;
+    private byte[] block;
+    private int blockCount;
+
+    ParallelMemberOutputStream(FileChannel channel, ExecutorService executor, int blockSize, int maxPendingBlocks) {
+      super(channel);
+      this.executor = executor;
+      this.blockSize = blockSize;
+      this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    @Override
+    void beginMember(int level) {
+      currentEntry = new PendingEntry();
+      currentLevel = level;
+      block = new byte[blockSize];
+      blockCount = 0;
+      pendingEntries.add(currentEntry);
+    }
+
+    @Override
+    void endMember(EntryCallback callback) throws IOException {
+      if (blockCount > 0) {
+        submitBlock();
+      }
+      currentEntry.callback = callback;
+      currentEntry.closed = true;
+      currentEntry = null;
+      block = null;
+      drain(false);
+    }
+
+    @Override
+    void copyMember(FileChannel source, long offset, long length, EntryCallback callback) throws IOException {
+      PendingEntry entry = new PendingEntry();
+      entry.source = source;
+      entry.sourceOffset = offset;
+      entry.sourceLength = length;
+      entry.callback = callback;
+      entry.closed = true;
+      pendingEntries.add(entry);
+      drain(false);
+    }
+
+    @Override
+    void finish() throws IOException {
+      drain(true);
+      super.finish();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (currentEntry == null) {
+        throw new IOException("Archive data written outside of an entry");
+      }
+      while (len > 0) {
+        int n = Math.min(len, blockSize - blockCount);
+        System.arraycopy(b, off, block, blockCount, n);
+        blockCount += n;
+        off += n;
+        len -= n;
+        if (blockCount == blockSize) {
+          submitBlock();
+          block = new byte[blockSize];
+          blockCount = 0;
+          drain(false);
+        }
+      }
+    }
+
+    private void submitBlock() {
+      byte[] data = block;
+      int count = blockCount;
+      int level = currentLevel;
+      currentEntry.blocks.add(executor.submit(() -> compress(data, count, level)));
+      pendingBlocks++;
+    }
+
+    private static byte[] compress(byte[] data, int count, int level) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(count / 2 + 64);
+      try (GzipCompressorOutputStream gzipOut = new GzipCompressorOutputStream(out, getGzipParameters(level))) {
+        gzipOut.write(data, 0, count);
+      }
+      return out.toByteArray();
+    }
+
+    /*
+     * Writes pending entries to the archive file, until the number of pending blocks is within the limit. If all is
+     * true, all pending entries are written.
+     */
+    private void drain(boolean all) throws IOException {
+      while (!pendingEntries.isEmpty() && (all || pendingBlocks > maxPendingBlocks)) {
+        PendingEntry entry = pendingEntries.peek();
+        if (entry.offset < 0) {
+          entry.offset = position();
+        }
+
+        if (entry.source != null) {
+          transfer(entry.source, entry.sourceOffset, entry.sourceLength);
+        } else {
+          while (!entry.blocks.isEmpty() && (all || pendingBlocks > maxPendingBlocks)) {
+            fileOut.write(getBlock(entry.blocks.remove()));
+            pendingBlocks--;
+          }
+          if (!entry.blocks.isEmpty() || !entry.closed) {
+            // Blocks are within the limit, or the entry is the current entry
+            return;
+          }
+        }
+
+        pendingEntries.remove();
+        if (entry.callback != null) {
+          entry.callback.written(entry.offset, position() - entry.offset);
+        }
+      }
+    }
+
+    private static byte[] getBlock(Future<byte[]> block) throws IOException {
+      try {
+        return block.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while compressing archive");
+      } catch (ExecutionException e) {
+        throw new IOException("Error compressing archive", e.getCause());
+      }
+    }
+
+    private static class PendingEntry {
+      private final Deque<Future<byte[]>> blocks = new ArrayDeque<>();
+      private FileChannel source;
+      private long sourceOffset;
+      private long sourceLength;
+      private EntryCallback callback;
+      private boolean closed;
+      private long offset = -1;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for collected config files, in the <i>.blobs</i> directory of the output directory.
+ *
+ * <p>The content of each file is hashed with SHA-256, and stored once under its hash, in <i>.blobs/[first 2 hex digits]/[hash]</i>. The copies of the file in the assessment unit directories are
+ * hard links to the stored file, so identical files collected for many assessment units use the disk space of one
+ * file. Rule providers read the config files from the assessment unit directories as before, and the archive
+ * written by {@link ArchiveWriter} stores the linked files once, see {@link ArchiveWriter#addFile(String, Path)}.
+ *
+ * <p>Stored files must not be modified, a change would apply to every assessment unit that links to the file.
+ * Files could be stored concurrently from several threads. Stored files that are no longer linked, for example after
+ * a collection is collected again, are removed by {@link #prune()}.
+ */
+public class BlobStore {
+  private static Logger logger = LogManager.getLogger(BlobStore.class.getName());
+
+  public static final String BLOB_DIR = ".blobs";
+
+  private static final String TMP_DIR = "tmp";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Writes the content of a file to the store.
+   */
+  public interface ContentWriter {
+    void write(OutputStream out) throws IOException;
+  }
+
+  private final Path storeDir;
+  private final AtomicLong blobsStored = new AtomicLong();
+  private final AtomicLong blobsReused = new AtomicLong();
+  private final AtomicLong bytesStored = new AtomicLong();
+  private volatile boolean linkFailed = false;
+
+  /**
+   * @param storeDir Directory of the store, created if it does not exist
+   */
+  public BlobStore(Path storeDir) {
+    this.storeDir = storeDir;
+  }
+
+  /**
+   * @return Blob store in the <i>output</i> directory
+   */
+  public static BlobStore getOutputBlobStore() {
+    return new BlobStore(Util.getOutputDir().toPath().resolve(BLOB_DIR));
+  }
+
+  /**
+   * Adds a file to the store, if the store does not already have the same content. The file is hashed before it is
+   * copied, so a file that is already in the store is only read.
+   *
+   * @param file File to add
+   * @return Stored file with the content of the file
+   * @throws IOException If the file could not be read or copied
+   */
+  public Path store(Path file) throws IOException {
+    MessageDigest digest = HashUtil.getDigest();
+    try (InputStream in = Files.newInputStream(file)) {
+      byte[] buf = new byte[BUFFER_SIZE];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        digest.update(buf, 0, n);
+      }
+    }
+    Path blobFile = getBlobFile(HashUtil.toHex(digest.digest()));
+    if (Files.exists(blobFile)) {
+      blobsReused.incrementAndGet();
+      return blobFile;
+    }
+    return store(out -> Files.copy(file, out));
+  }
+
+  /**
+   * Writes content to the store, if the store does not already have the same content.
+   *
+   * @param writer Writes the content
+   * @return Stored file with the content
+   * @throws IOException If the content could not be written
+   */
+  public Path store(ContentWriter writer) throws IOException {
+    Path tmpDir = storeDir.resolve(TMP_DIR);
+    Files.createDirectories(tmpDir);
+    Path tmpFile = Files.createTempFile(tmpDir, "blob", null);
+    try {
+      MessageDigest digest = HashUtil.getDigest();
+      try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)), digest)) {
+        writer.write(out);
+      }
+      Path blobFile = getBlobFile(HashUtil.toHex(digest.digest()));
+      if (Files.exists(blobFile)) {
+        blobsReused.incrementAndGet();
+        return blobFile;
+      }
+
+      // Files with the same content are the same, it does not matter which one is kept if two are stored at once
+      Files.createDirectories(blobFile.getParent());
+      Files.move(tmpFile, blobFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      blobsStored.incrementAndGet();
+      bytesStored.addAndGet(Files.size(blobFile));
+      return blobFile;
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  private Path getBlobFile(String hash) {
+    return storeDir.resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  /**
+   * Links a file to a stored file. The stored file is copied if it could not be linked, for example because the
+   * filesystem does not support hard links.
+   *
+   * @param blobFile Stored file, from {@link #store(ContentWriter)}
+   * @param dest File that is linked to the stored file, replaced if it exists
+   * @throws IOException If the file could not be linked or copied
+   */
+  public void link(Path blobFile, Path dest) throws IOException {
+    Files.deleteIfExists(dest);
+    if (!linkFailed) {
+      try {
+        Files.createLink(dest, blobFile);
+        return;
+      } catch (IOException | UnsupportedOperationException e) {
+        linkFailed = true;
+        logger.info("Unable to link file " + dest + " to the blob store, files are copied instead:" + e.getMessage());
+      }
+    }
+    Files.copy(blobFile, dest);
+  }
+
+  /**
+   * Removes the stored files that no file links to, such as the files of assessment units that were collected again
+   * with other content. A stored file is removed when its link count is 1, so it must not be called while files are
+   * stored or linked. Nothing is removed on filesystems without link counts.
+   *
+   * @return Number of files removed
+   * @throws IOException If the store could not be read, or a file could not be removed
+   */
+  public long prune() throws IOException {
+    if (!Files.isDirectory(storeDir)) {
+      return 0;
+    }
+
+    List<Path> blobFiles;
+    try (Stream<Path> files = Files.walk(storeDir, 2)) {
+      blobFiles = files.filter(f -> Files.isRegularFile(f) && !f.getParent().getFileName().toString().equals(TMP_DIR))
+              .collect(Collectors.toList());
+    }
+
+    long removed = 0;
+    for (Path blobFile : blobFiles) {
+      int linkCount;
+      try {
+        linkCount = (Integer) Files.getAttribute(blobFile, "unix:nlink");
+      } catch (UnsupportedOperationException | IllegalArgumentException e) {
+        logger.debug("Link count not supported, stored files are not pruned:" + e.getMessage());
+        return removed;
+      }
+      if (linkCount <= 1) {
+        Files.delete(blobFile);
+        removed++;
+      }
+    }
+    logger.debug("Pruned blob store " + storeDir + ", files removed:" + removed);
+    return removed;
+  }
+
+  /**
+   * @return Number of files added to the store
+   */
+  public long getBlobsStored() {
+    return blobsStored.get();
+  }
+
+  /**
+   * @return Number of files that were already in the store
+   */
+  public long getBlobsReused() {
+    return blobsReused.get();
+  }
+
+  /**
+   * @return Number of bytes added to the store
+   */
+  public long getBytesStored() {
+    return bytesStored.get();
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the content masks of an assessment unit to config files while they are copied.
+ *
+ * <p>The file patterns of the masks are compiled once, when the masker is created. A file pattern of '*' matches all
+ * files. Files are masked in a single pass from the source to the destination. If all the masks that apply to a
+ * file are line masks, see {@link ContentMask#isLineMask()}, the file is masked one line at a time. Otherwise the
+ * lines of the file are read into memory and passed to {@link ContentMask#mask(List)}.
+ *
+ * <p>The masked file is written in the same way as {@code Files.write(path, lines)}, UTF-8 with each line followed by
+ * the line separator. Like {@code Files.readAllLines(path)}, files that are not valid UTF-8 are not masked, an
+ * exception is thrown rather than replacing the malformed bytes and writing a file that differs from the original in
+ * more than the masked values.
+ */
+public class ContentMasker {
+  private static Logger logger = LogManager.getLogger(ContentMasker.class.getName());
+
+  private static final String ALL_FILES = "*";
+
+  private final List<CompiledMask> compiledMasks = new ArrayList<>();
+
+  /**
+   * @param contentMasks Content masks of an assessment unit, could be null
+   */
+  public ContentMasker(List<ContentMask> contentMasks) {
+    if (contentMasks == null) {
+      return;
+    }
+    for (ContentMask mask : contentMasks) {
+      List<Pattern> patterns = new ArrayList<>();
+      boolean allFiles = false;
+      for (String contentMaskFile : mask.getFiles()) {
+        if (ALL_FILES.equals(contentMaskFile)) {
+          allFiles = true;
+        } else {
+          patterns.add(Pattern.compile(contentMaskFile));
+        }
+      }
+      compiledMasks.add(new CompiledMask(mask, allFiles, patterns));
+    }
+  }
+
+  /**
+   * Gets the content masks that apply to a file.
+   *
+   * @param origPath Original absolute path of the file, not the path the file is copied to
+   * @return {@code List} of content masks that apply to the file, in the order of the assessment unit masks
+   */
+  public List<ContentMask> getMasks(String origPath) {
+    if (compiledMasks.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<ContentMask> matchingMasks = new ArrayList<>();
+    for (CompiledMask compiledMask : compiledMasks) {
+      if (compiledMask.matches(origPath)) {
+        matchingMasks.add(compiledMask.mask);
+      }
+    }
+    return matchingMasks;
+  }
+
+  /**
+   * Masks the content of a file.
+   *
+   * @param masks Content masks that apply to the file, from {@link #getMasks(String)}
+   * @param in Content of the file, not closed
+   * @param out Stream the masked content is written to, flushed but not closed
+   * @throws IOException If the content could not be read or written, or the content is not valid UTF-8
+   */
+  public static void mask(List<ContentMask> masks, InputStream in, OutputStream out) throws IOException {
+    try {
+      maskLines(masks, in, out);
+    } catch (CharacterCodingException e) {
+      throw new IOException("Unable to mask content that is not valid UTF-8 text", e);
+    }
+  }
+
+  private static void maskLines(List<ContentMask> masks, InputStream in, OutputStream out) throws IOException {
+    // The decoder of the reader reports malformed input, an InputStreamReader for a charset replaces it
+    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, decoder));
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    String lineSeparator = System.lineSeparator();
+
+    if (masks.stream().allMatch(ContentMask::isLineMask)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        for (ContentMask mask : masks) {
+          line = mask.maskLine(line);
+        }
+        writer.write(line);
+        writer.write(lineSeparator);
+      }
+    } else {
+      logger.debug("Masking file in memory, not all masks are line masks");
+      List<String> lines = new ArrayList<>();
+      String readLine;
+      while ((readLine = reader.readLine()) != null) {
+        lines.add(readLine);
+      }
+      for (ContentMask mask : masks) {
+        lines = mask.mask(lines);
+      }
+      for (String line : lines) {
+        writer.write(line);
+        writer.write(lineSeparator);
+      }
+    }
+    writer.flush();
+  }
+
+  private static class CompiledMask {
+    private final ContentMask mask;
+    private final boolean allFiles;
+    private final List<Pattern> patterns;
+
+    CompiledMask(ContentMask mask, boolean allFiles, List<Pattern> patterns) {
+      this.mask = mask;
+      this.allFiles = allFiles;
+      this.patterns = patterns;
+    }
+
+    boolean matches(String origPath) {
+      if (allFiles) {
+        return true;
+      }
+      for (Pattern pattern : patterns) {
+        if (pattern.matcher(origPath).matches()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
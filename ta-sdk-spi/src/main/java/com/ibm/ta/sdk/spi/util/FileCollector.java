@@ -0,0 +1,313 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Copies config files and directories to the output directory on a pool of threads.
+ *
+ * <p>Directories are walked recursively, and each file is copied with {@link FileChannel#transferTo}, so that the
+ * content is copied by the operating system without passing through the Java heap. In {@link Mode#LINK} mode, files
+ * that do not need to be modified in the output directory are hard linked to the source file instead of being
+ * copied. Files that could not be linked, for example because the output directory is on a different filesystem,
+ * are copied.
+ *
+ * <p>Files that have content masks are masked while they are copied, see {@link ContentMasker}. Masked files are
+ * always copied, never linked to the source file. The content masks are passed with each file, so that one collector,
+ * and its pool of threads, is used for all the assessment units of a collection.
+ *
+ * <p>In {@link Mode#DEDUP} mode, files and masked files are added to a {@link BlobStore}, and linked to the stored
+ * file. Identical files collected for several assessment units are stored once.
+ *
+ * <p>Files are copied asynchronously, {@link #await()} waits for all the files to be copied. The number of files and
+ * bytes copied and the number of files linked are available once the files are copied.
+ */
+public class FileCollector implements Closeable {
+  private static Logger logger = LogManager.getLogger(FileCollector.class.getName());
+
+  /**
+   * System property for the number of threads used to copy files. The default is the number of processors.
+   */
+  public static final String THREADS_PROPERTY = "ta.sdk.collect.threads";
+
+  public enum Mode {
+    COPY("copy"),
+    LINK("link"),
+    DEDUP("dedup");
+
+    private final String name;
+
+    Mode(String name) {
+      this.name = name;
+    }
+
+    /**
+     * @return Name of the mode used in CLI options
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets the mode for a name used in CLI options.
+     *
+     * @param name Name of the mode
+     * @return Mode with the name
+     * @throws IllegalArgumentException If there is no mode with the name
+     */
+    public static Mode fromName(String name) {
+      for (Mode mode : values()) {
+        if (mode.name.equalsIgnoreCase(name)) {
+          return mode;
+        }
+      }
+      throw new IllegalArgumentException("Collect mode not supported:" + name + ". Supported modes are copy, link, dedup.");
+    }
+  }
+
+  private final Mode mode;
+  private final BlobStore blobStore;
+  private final ExecutorService executor;
+  private final List<Future<?>> pendingFiles = new ArrayList<>();
+  private final AtomicLong filesCopied = new AtomicLong();
+  private final AtomicLong bytesCopied = new AtomicLong();
+  private final AtomicLong filesLinked = new AtomicLong();
+  private final AtomicLong filesMasked = new AtomicLong();
+  private final AtomicLong filesDeduplicated = new AtomicLong();
+  private volatile boolean linkFailed = false;
+
+  /**
+   * @param mode Whether files are copied, linked, or deduplicated in the blob store of the output directory
+   */
+  public FileCollector(Mode mode) {
+    this(mode, mode == Mode.DEDUP ? BlobStore.getOutputBlobStore() : null);
+  }
+
+  /**
+   * @param mode Whether files are copied, linked, or deduplicated
+   * @param blobStore Store for the files in {@link Mode#DEDUP} mode
+   */
+  public FileCollector(Mode mode, BlobStore blobStore) {
+    if (mode == Mode.DEDUP && blobStore == null) {
+      throw new IllegalArgumentException("A blob store is required for mode:" + mode.getName());
+    }
+    this.mode = mode;
+    this.blobStore = blobStore;
+    int threads = Math.max(1, Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    this.executor = Executors.newFixedThreadPool(threads);
+  }
+
+  /**
+   * Copies a file to the output directory. The parent directory of the destination must exist.
+   *
+   * @param source File to copy
+   * @param dest Destination file, replaced if it exists
+   * @param masker Content masks of the assessment unit the file is collected for
+   */
+  public void collectFile(Path source, Path dest, ContentMasker masker) {
+    pendingFiles.add(executor.submit(() -> {
+      collect(source, dest, masker);
+      return null;
+    }));
+  }
+
+  /**
+   * Copies the files in a directory and all subdirectories to the output directory. The directories are created
+   * before this method returns, the files are copied asynchronously.
+   *
+   * @param sourceDir Directory to copy
+   * @param destDir Destination directory
+   * @param masker Content masks of the assessment unit the files are collected for
+   * @return Destination path of each file in the directory, in the order they were found
+   * @throws IOException If the directory could not be walked, or the destination directories could not be created
+   */
+  public List<Path> collectDirectory(Path sourceDir, Path destDir, ContentMasker masker) throws IOException {
+    List<Path> destFiles = new ArrayList<>();
+    List<Path> sourcePaths;
+    try (Stream<Path> paths = Files.walk(sourceDir)) {
+      sourcePaths = paths.collect(Collectors.toList());
+    }
+    for (Path source : sourcePaths) {
+      Path dest = destDir.resolve(sourceDir.relativize(source).toString());
+      if (Files.isDirectory(source)) {
+        Files.createDirectories(dest);
+      } else if (Files.isRegularFile(source)) {
+        destFiles.add(dest);
+        collectFile(source, dest, masker);
+      }
+    }
+    return destFiles;
+  }
+
+  private void collect(Path source, Path dest, ContentMasker masker) throws IOException {
+    Files.deleteIfExists(dest);
+
+    // Masks are matched with the original path of the file
+    List<ContentMask> masks = masker.getMasks(source.toAbsolutePath().toString());
+    if (!masks.isEmpty()) {
+      logger.info("Applying mask to file:" + source);
+      if (mode == Mode.DEDUP) {
+        Path blobFile = blobStore.store(out -> {
+          try (InputStream in = Files.newInputStream(source)) {
+            ContentMasker.mask(masks, in, out);
+          }
+        });
+        blobStore.link(blobFile, dest);
+        filesMasked.incrementAndGet();
+        return;
+      }
+      try (InputStream in = Files.newInputStream(source);
+           OutputStream out = Files.newOutputStream(dest)) {
+        ContentMasker.mask(masks, in, out);
+      }
+      filesMasked.incrementAndGet();
+      return;
+    }
+
+    if (mode == Mode.DEDUP) {
+      blobStore.link(blobStore.store(source), dest);
+      filesDeduplicated.incrementAndGet();
+      return;
+    }
+
+    boolean defaultFileSystem = source.getFileSystem() == FileSystems.getDefault();
+    if (mode == Mode.LINK && defaultFileSystem && !linkFailed) {
+      try {
+        createLink(dest, source);
+        filesLinked.incrementAndGet();
+        return;
+      } catch (IOException | UnsupportedOperationException e) {
+        // Files are copied for the rest of the collection, linking is likely to fail for the other files too
+        linkFailed = true;
+        logger.info("Unable to link file " + source + ", files are copied instead:" + e.getMessage());
+      }
+    }
+
+    // Files in other filesystems, such as zip files, are copied as streams
+    if (!defaultFileSystem) {
+      try (InputStream in = Files.newInputStream(source)) {
+        bytesCopied.addAndGet(Files.copy(in, dest));
+      }
+      filesCopied.incrementAndGet();
+      return;
+    }
+
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                 StandardOpenOption.WRITE)) {
+      long size = in.size();
+      long position = 0;
+      while (position < size) {
+        long transferred = in.transferTo(position, size - position, out);
+        if (transferred <= 0) {
+          // The file was truncated while it was copied
+          break;
+        }
+        position += transferred;
+      }
+      bytesCopied.addAndGet(position);
+    }
+    filesCopied.incrementAndGet();
+  }
+
+  // Links the destination to the source file, tests override it to fail the link
+  void createLink(Path link, Path existing) throws IOException {
+    Files.createLink(link, existing);
+  }
+
+  /**
+   * Waits for all the files to be copied.
+   *
+   * @throws IOException If a file could not be copied
+   */
+  public void await() throws IOException {
+    try {
+      for (Future<?> pendingFile : pendingFiles) {
+        pendingFile.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while copying files", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Error copying files", e.getCause());
+    } finally {
+      pendingFiles.clear();
+    }
+  }
+
+  /**
+   * @return Number of files added to the blob store in {@link Mode#DEDUP} mode, not including masked files
+   */
+  public long getFilesDeduplicated() {
+    return filesDeduplicated.get();
+  }
+
+  /**
+   * @return Blob store the files are added to, or null if the mode is not {@link Mode#DEDUP}
+   */
+  public BlobStore getBlobStore() {
+    return blobStore;
+  }
+
+  /**
+   * @return Number of files masked while they were copied
+   */
+  public long getFilesMasked() {
+    return filesMasked.get();
+  }
+
+  /**
+   * @return Number of files copied without masks
+   */
+  public long getFilesCopied() {
+    return filesCopied.get();
+  }
+
+  /**
+   * @return Number of bytes copied, not including files that were linked
+   */
+  public long getBytesCopied() {
+    return bytesCopied.get();
+  }
+
+  /**
+   * @return Number of files linked to the source file instead of being copied
+   */
+  public long getFilesLinked() {
+    return filesLinked.get();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
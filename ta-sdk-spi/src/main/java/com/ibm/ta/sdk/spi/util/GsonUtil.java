@@ -0,0 +1,212 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared {@code Gson} for the json files of the SDK, and helpers for the type adapters of the json models.
+ *
+ * <p>{@code Gson} is thread-safe, and caches the type adapter of each type the first time it is used. The json
+ * models, such as {@code RecommendationJson} and {@code EnvironmentJson}, are annotated with
+ * {@link com.google.gson.annotations.JsonAdapter}, and are read and written by their type adapters, without
+ * reflective access to their fields. The type adapters write the fields in the same order, and with the same
+ * formatting, as the reflective adapters of {@code Gson}.
+ */
+public class GsonUtil {
+  private static final Gson gson = new GsonBuilder()
+          .excludeFieldsWithoutExposeAnnotation()
+          .setPrettyPrinting()
+          .create();
+  private static final Gson compactGson = new GsonBuilder()
+          .excludeFieldsWithoutExposeAnnotation()
+          .create();
+
+  /**
+   * @return {@code Gson} for the json files written by the SDK, with pretty printing and only the fields annotated
+   * with {@code Expose}
+   */
+  public static Gson getGson() {
+    return gson;
+  }
+
+  /**
+   * @return {@code Gson} for json files that are only read by the SDK, such as indexes, without pretty printing and
+   * with only the fields annotated with {@code Expose}
+   */
+  public static Gson getCompactGson() {
+    return compactGson;
+  }
+
+  /**
+   * Writes a string field. The field is not written if the value is null.
+   *
+   * @param out Writer
+   * @param name Name of the field
+   * @param value Value of the field
+   * @throws IOException If the field could not be written
+   */
+  public static void writeString(JsonWriter out, String name, String value) throws IOException {
+    out.name(name).value(value);
+  }
+
+  /**
+   * Writes a float field, formatted the same as a {@code Float}.
+   *
+   * @param out Writer
+   * @param name Name of the field
+   * @param value Value of the field
+   * @throws IOException If the field could not be written
+   */
+  public static void writeFloat(JsonWriter out, String name, float value) throws IOException {
+    out.name(name).value(Float.valueOf(value));
+  }
+
+  /**
+   * Writes a list of strings field. The field is not written if the list is null.
+   *
+   * @param out Writer
+   * @param name Name of the field
+   * @param values Value of the field
+   * @throws IOException If the field could not be written
+   */
+  public static void writeStringList(JsonWriter out, String name, List<String> values) throws IOException {
+    out.name(name);
+    writeStringList(out, values);
+  }
+
+  private static void writeStringList(JsonWriter out, List<String> values) throws IOException {
+    if (values == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginArray();
+    for (String value : values) {
+      out.value(value);
+    }
+    out.endArray();
+  }
+
+  /**
+   * Writes a map of strings field. The field is not written if the map is null.
+   *
+   * @param out Writer
+   * @param name Name of the field
+   * @param values Value of the field
+   * @throws IOException If the field could not be written
+   */
+  public static void writeStringMap(JsonWriter out, String name, Map<String, String> values) throws IOException {
+    out.name(name);
+    writeStringMap(out, values);
+  }
+
+  /**
+   * Writes a map of strings value.
+   *
+   * @param out Writer
+   * @param values Value to write, or null
+   * @throws IOException If the value could not be written
+   */
+  public static void writeStringMap(JsonWriter out, Map<String, String> values) throws IOException {
+    if (values == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    for (Map.Entry<String, String> entry : values.entrySet()) {
+      out.name(entry.getKey()).value(entry.getValue());
+    }
+    out.endObject();
+  }
+
+  /**
+   * Reads a string value. Numbers and booleans are read as strings.
+   *
+   * @param in Reader
+   * @return Value, or null
+   * @throws IOException If the value could not be read
+   */
+  public static String readString(JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    if (token == JsonToken.BOOLEAN) {
+      return Boolean.toString(in.nextBoolean());
+    }
+    return in.nextString();
+  }
+
+  /**
+   * Reads a float value.
+   *
+   * @param in Reader
+   * @param defaultValue Value returned for a null
+   * @return Value
+   * @throws IOException If the value could not be read
+   */
+  public static float readFloat(JsonReader in, float defaultValue) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return defaultValue;
+    }
+    return (float) in.nextDouble();
+  }
+
+  /**
+   * Reads a list of strings value.
+   *
+   * @param in Reader
+   * @return Value, or null
+   * @throws IOException If the value could not be read
+   */
+  public static List<String> readStringList(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    List<String> values = new ArrayList<>();
+    in.beginArray();
+    while (in.hasNext()) {
+      values.add(readString(in));
+    }
+    in.endArray();
+    return values;
+  }
+
+  /**
+   * Reads a map of strings value.
+   *
+   * @param in Reader
+   * @return Value, or null
+   * @throws IOException If the value could not be read
+   */
+  public static Map<String, String> readStringMap(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    Map<String, String> values = new LinkedHashMap<>();
+    in.beginObject();
+    while (in.hasNext()) {
+      values.put(in.nextName(), readString(in));
+    }
+    in.endObject();
+    return values;
+  }
+}
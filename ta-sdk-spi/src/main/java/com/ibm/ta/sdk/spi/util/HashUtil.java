@@ -0,0 +1,42 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hashes of content, as hex strings. Content is identified by its hash in the blob store of the file
+ * collector, the fingerprints of an assessment, and the plug-in registry.
+ */
+public class HashUtil {
+  public static final String HASH_ALGORITHM = "SHA-256";
+
+  /**
+   * @return New {@code MessageDigest} for SHA-256, a digest is not thread-safe
+   */
+  public static MessageDigest getDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param bytes Hash
+   * @return Lower case hex string of the hash
+   */
+  public static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+}
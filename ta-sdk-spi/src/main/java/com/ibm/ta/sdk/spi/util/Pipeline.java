@@ -0,0 +1,243 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes items through a sequence of stages, with the stages running at the same time on different items.
+ *
+ * <p>The first stage runs on the calling thread, and each following stage runs on its own thread. The stages are
+ * connected by bounded queues. An item moves to the next stage as soon as a stage has processed it, and a stage
+ * waits when the queue to the next stage is full, so the number of items between two stages is bounded by the queue
+ * capacity. Items are processed by each stage in the order they are passed to {@link #run(List)}.
+ *
+ * <p>If a stage fails, the other stages are stopped, and the first failure is thrown from {@link #run(List)}. Errors
+ * thrown by a stage, such as an {@code OutOfMemoryError}, also stop the pipeline, and are thrown as they are.
+ *
+ * @param <T> Type of the items
+ */
+public class Pipeline<T> {
+  private static Logger logger = LogManager.getLogger(Pipeline.class.getName());
+
+  private static final long POLL_MILLIS = 100;
+
+  // Marks the end of the items in a queue
+  private static final Object END = new Object();
+
+  /**
+   * Processes an item in a stage of the pipeline.
+   */
+  public interface Stage<T> {
+    void process(T item) throws TAException, IOException;
+  }
+
+  private final String name;
+  private final int queueCapacity;
+  private final List<String> stageNames = new ArrayList<>();
+  private final List<Stage<T>> stages = new ArrayList<>();
+
+  // First failure of a stage, the other stages stop when it is set
+  private volatile Throwable failure;
+
+  /**
+   * @param name Name of the pipeline, for the thread names and log messages
+   * @param queueCapacity Number of items that could wait between two stages
+   */
+  public Pipeline(String name, int queueCapacity) {
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Invalid queue capacity for pipeline " + name + ":" + queueCapacity);
+    }
+    this.name = name;
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Adds a stage after the stages already added.
+   *
+   * @param stageName Name of the stage, for the thread names and log messages
+   * @param stage Processes the items in the stage
+   * @return This pipeline
+   */
+  public Pipeline<T> addStage(String stageName, Stage<T> stage) {
+    stageNames.add(stageName);
+    stages.add(stage);
+    return this;
+  }
+
+  /**
+   * Processes the items through all the stages, and waits for the last stage to process the last item.
+   *
+   * @param items Items to process
+   * @throws TAException If a stage failed with a {@code TAException}, or was interrupted
+   * @throws IOException If a stage failed with an {@code IOException}
+   */
+  public void run(List<T> items) throws TAException, IOException {
+    if (stages.isEmpty()) {
+      return;
+    }
+    failure = null;
+
+    List<BlockingQueue<Object>> queues = new ArrayList<>();
+    for (int i = 1; i < stages.size(); i++) {
+      queues.add(new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, stages.size() - 1), runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + stageNames.get(threadCount.incrementAndGet()));
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<Future<?>> stageFutures = new ArrayList<>();
+    try {
+      for (int i = 1; i < stages.size(); i++) {
+        BlockingQueue<Object> input = queues.get(i - 1);
+        BlockingQueue<Object> output = i < queues.size() ? queues.get(i) : null;
+        int stageIndex = i;
+        stageFutures.add(executor.submit(() -> runStage(stageIndex, input, output)));
+      }
+
+      // The first stage runs on this thread, and feeds the other stages
+      BlockingQueue<Object> output = queues.isEmpty() ? null : queues.get(0);
+      int processed = 0;
+      long busyNanos = 0;
+      for (T item : items) {
+        if (failure != null) {
+          break;
+        }
+        long start = System.nanoTime();
+        try {
+          stages.get(0).process(item);
+        } catch (Throwable e) {
+          fail(e);
+          break;
+        }
+        busyNanos += System.nanoTime() - start;
+        processed++;
+        if (output != null && !put(output, item)) {
+          break;
+        }
+      }
+      logStage(0, processed, busyNanos);
+      if (output != null) {
+        put(output, END);
+      }
+
+      for (Future<?> stageFuture : stageFutures) {
+        try {
+          stageFuture.get();
+        } catch (ExecutionException e) {
+          fail(e.getCause());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail(new TAException("Interrupted while running pipeline:" + name, e));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Throwable e = failure;
+    if (e instanceof TAException) {
+      throw (TAException) e;
+    } else if (e instanceof IOException) {
+      throw (IOException) e;
+    } else if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    } else if (e instanceof Error) {
+      throw (Error) e;
+    } else if (e != null) {
+      throw new TAException(e);
+    }
+  }
+
+  private void runStage(int stageIndex, BlockingQueue<Object> input, BlockingQueue<Object> output) {
+    int processed = 0;
+    long busyNanos = 0;
+    try {
+      while (true) {
+        Object item = take(input);
+        if (item == null) {
+          // Stopped by a failure
+          return;
+        }
+        if (item == END) {
+          break;
+        }
+
+        long start = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        T stageItem = (T) item;
+        stages.get(stageIndex).process(stageItem);
+        busyNanos += System.nanoTime() - start;
+        processed++;
+
+        if (output != null && !put(output, item)) {
+          return;
+        }
+      }
+      logStage(stageIndex, processed, busyNanos);
+      if (output != null) {
+        put(output, END);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail(new TAException("Interrupted while running pipeline stage:" + stageNames.get(stageIndex), e));
+    } catch (Throwable e) {
+      // Errors must also stop the pipeline, or the stages before this stage would wait for it forever
+      fail(e);
+    }
+  }
+
+  // Waits for space in the queue, returns false if the pipeline failed
+  private boolean put(BlockingQueue<Object> queue, Object item) throws InterruptedException {
+    while (failure == null) {
+      if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Waits for an item in the queue, returns null if the pipeline failed
+  private Object take(BlockingQueue<Object> queue) throws InterruptedException {
+    while (failure == null) {
+      Object item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      if (item != null) {
+        return item;
+      }
+    }
+    return null;
+  }
+
+  private synchronized void fail(Throwable e) {
+    if (failure == null) {
+      logger.debug("Stopping pipeline " + name + " after failure", e);
+      failure = e;
+    }
+  }
+
+  private void logStage(int stageIndex, int processed, long busyNanos) {
+    logger.info("Pipeline " + name + " stage " + stageNames.get(stageIndex) + " processed " + processed +
+            " items, busy ms:" + TimeUnit.NANOSECONDS.toMillis(busyNanos));
+  }
+}
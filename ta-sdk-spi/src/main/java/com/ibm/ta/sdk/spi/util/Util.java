@@ -8,44 +8,86 @@ package com.ibm.ta.sdk.spi.util;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import org.apache.commons.compress.archivers.ArchiveEntry;
-import org.apache.commons.compress.archivers.ArchiveOutputStream;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
-import org.apache.commons.compress.utils.IOUtils;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class Util {
+  // Output dir of a job, for the thread that runs the job and the threads it starts
+  private static final InheritableThreadLocal<File> jobOutputDir = new InheritableThreadLocal<>();
+
+  /**
+   * Writes the content of a directory, including subdirectories, to a tar.gz archive. If the archive was written
+   * before, the compressed entries of files that have not changed are reused. See {@link ArchiveWriter}.
+   *
+   * @param zipOutFile Archive file
+   * @param zipInDir Directory to archive
+   * @throws IOException If the archive could not be written
+   */
   public static void zipDir(Path zipOutFile, File zipInDir) throws IOException {
-    try (OutputStream fo = Files.newOutputStream(zipOutFile);
-         OutputStream gzo = new GzipCompressorOutputStream(fo);
-         ArchiveOutputStream o = new TarArchiveOutputStream(gzo)) {
-      for (File file : zipInDir.listFiles()) {
-        ArchiveEntry entry = o.createArchiveEntry(file, file.getName());
-        o.putArchiveEntry(entry);
-        if (file.isFile()) {
-          try (InputStream i = Files.newInputStream(file.toPath())) {
-            IOUtils.copy(i, o);
-          }
-        }
-        o.closeArchiveEntry();
-      }
-    }
+    zipDir(zipOutFile, zipInDir, new ArchiveOptions());
+  }
+
+  /**
+   * Same as {@link #zipDir(Path, File)}, with options for the compression codec and level.
+   *
+   * @param zipOutFile Archive file
+   * @param zipInDir Directory to archive
+   * @param options Options for compressing the archive
+   * @throws IOException If the archive could not be written
+   */
+  public static void zipDir(Path zipOutFile, File zipInDir, ArchiveOptions options) throws IOException {
+    new ArchiveWriter(zipOutFile, options).write(zipInDir);
   }
 
+  /**
+   * Gets the <i>output</i> directory, in the current directory. The output directory could be set for a job that runs
+   * with other jobs in the same JVM, see {@link #setOutputDir(File)}.
+   *
+   * @return Output directory
+   */
   public static File getOutputDir() {
+    File outputDir = jobOutputDir.get();
+    if (outputDir != null) {
+      return outputDir;
+    }
     String cwd = System.getProperty("user.dir");
     return new File(cwd, "output");
   }
 
+  /**
+   * Sets the output directory for the current thread, and the threads it starts, such as the threads that copy
+   * config files or write reports. Jobs that run at the same time in one JVM each write to their own output directory.
+   *
+   * <p>Threads that were started before the output directory was set, such as the threads of a shared pool, use
+   * the output directory of the thread that started them.
+   *
+   * @param outputDir Output directory, or null to use the <i>output</i> directory in the current directory
+   */
+  public static void setOutputDir(File outputDir) {
+    if (outputDir == null) {
+      jobOutputDir.remove();
+    } else {
+      jobOutputDir.set(outputDir);
+    }
+  }
+
   public static File getAssessmentOutputDir(String assessmentName) {
     File outputDir = getOutputDir();
     return new File(outputDir, assessmentName);
   }
 
+  /**
+   * Gets the archive in the <i>output</i> directory for an assessment name, written by the collect and assess stages.
+   * The archive may not exist.
+   *
+   * @param assessmentName Name of the assessment
+   * @return File for the <i>[assessment name].tar.gz</i> archive
+   */
+  public static File getAssessmentArchiveFile(String assessmentName) {
+    return new File(getOutputDir(), assessmentName + ".tar.gz");
+  }
+
   /**
    * Reads the recommendations json from the <i>output</i> directory for an assessment name and assessmentUnit name.
    *
@@ -53,9 +95,20 @@ public class Util {
    * @return JsonObject for the recommendations.json
    */
   public static JsonObject getRecommendationsJson(String assessmentName) throws FileNotFoundException {
-    String cwd = System.getProperty("user.dir");
-    File outputDir = new File(cwd, "output");
-    outputDir = new File(outputDir, assessmentName);
+    File recFile = getRecommendationsJsonFile(assessmentName);
+    return new JsonParser().parse(new FileReader(recFile)).getAsJsonObject();
+  }
+
+  /**
+   * Gets the recommendations.json file in the <i>output</i> directory for an assessment name. Use this method
+   * instead of {@link #getRecommendationsJson(String)} to read the file incrementally.
+   *
+   * @param assessmentName Name of the assessment
+   * @return File for the recommendations.json
+   * @throws FileNotFoundException If the assessment directory or the recommendations.json does not exist
+   */
+  public static File getRecommendationsJsonFile(String assessmentName) throws FileNotFoundException {
+    File outputDir = getAssessmentOutputDir(assessmentName);
     if (!outputDir.exists()) {
       throw new FileNotFoundException("No directory found in output for the assessment name:" + assessmentName);
     }
@@ -64,7 +117,6 @@ public class Util {
     if (!recFile.exists()) {
       throw new FileNotFoundException("No recommendations.json found in output for assessment '" + assessmentName + "'");
     }
-
-    return new JsonParser().parse(new FileReader(recFile)).getAsJsonObject();
+    return recFile;
   }
 }
@@ -0,0 +1,221 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.assess;
+
+import com.google.gson.JsonObject;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import com.ibm.ta.sdk.spi.collect.Environment;
+import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.recommendation.ComplexityContribution;
+import com.ibm.ta.sdk.spi.recommendation.Issue;
+import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
+import com.ibm.ta.sdk.spi.recommendation.Recommendation;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import com.ibm.ta.sdk.spi.util.GsonUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssessmentFingerprintsTest {
+
+    private static final Environment ENVIRONMENT = GsonUtil.getGson().fromJson(
+            "{\"domain\": \"Sample\", \"middlewareName\": \"Sample\", \"assessmentName\": \"Installation1\"}",
+            EnvironmentJson.class).getEnvironment();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void reuseUnchangedAssessmentUnitsTest() throws Exception {
+        File outputDir = tempDir.toFile();
+        TestAssessmentUnit au1 = new TestAssessmentUnit("AU1", writeFile("au1.xml", "<server/>"));
+        TestAssessmentUnit au2 = new TestAssessmentUnit("AU2", writeFile("au2.xml", "<server/>"));
+        List<AssessmentUnit> auList = Arrays.asList(au1, au2);
+
+        TestRecommendation rec = new TestRecommendation("rules-1");
+        String firstJson = assess(rec, auList, outputDir, 0);
+        assertEquals(2, rec.evaluated);
+
+        // Nothing changed, both results are reused and the recommendations are the same
+        rec = new TestRecommendation("rules-1");
+        assertEquals(firstJson, assess(rec, auList, outputDir, 2));
+        assertEquals(0, rec.evaluated);
+
+        // A config file of one assessment unit changed, only that assessment unit is evaluated
+        writeFile("au2.xml", "<server><changed/></server>");
+        rec = new TestRecommendation("rules-1");
+        assertEquals(firstJson, assess(rec, auList, outputDir, 1));
+        assertEquals(Collections.singletonList("AU2"), rec.evaluatedNames);
+
+        // The assessment data of one assessment unit changed
+        au1.data.addProperty("version", 2);
+        rec = new TestRecommendation("rules-1");
+        assess(rec, auList, outputDir, 1);
+        assertEquals(Collections.singletonList("AU1"), rec.evaluatedNames);
+    }
+
+    @Test
+    public void rulesChangedTest() throws Exception {
+        File outputDir = tempDir.toFile();
+        List<AssessmentUnit> auList = Collections.singletonList(
+                new TestAssessmentUnit("AU1", writeFile("au1.xml", "<server/>")));
+        assess(new TestRecommendation("rules-1"), auList, outputDir, 0);
+
+        TestRecommendation rec = new TestRecommendation("rules-2");
+        assess(rec, auList, outputDir, 0);
+        assertEquals(1, rec.evaluated);
+
+        // Without a fingerprint, nothing is reused and the fingerprints are removed
+        rec = new TestRecommendation(null);
+        assess(rec, auList, outputDir, 0);
+        assertEquals(1, rec.evaluated);
+        assertFalse(new File(outputDir, AssessmentFingerprints.FINGERPRINTS_JSON).exists());
+    }
+
+    @Test
+    public void corruptPreviousResultsTest() throws Exception {
+        File outputDir = tempDir.toFile();
+        List<AssessmentUnit> auList = Collections.singletonList(
+                new TestAssessmentUnit("AU1", writeFile("au1.xml", "<server/>")));
+        assess(new TestRecommendation("rules-1"), auList, outputDir, 0);
+        Files.write(new File(outputDir, "recommendations.json").toPath(),
+                "{\"assessmentUnits\": [".getBytes(StandardCharsets.UTF_8));
+
+        TestRecommendation rec = new TestRecommendation("rules-1");
+        assess(rec, auList, outputDir, 0);
+        assertEquals(1, rec.evaluated);
+    }
+
+    // Assesses the assessment units, and writes the recommendations and fingerprints as the data collector does
+    private static String assess(Recommendation rec, List<AssessmentUnit> auList, File outputDir, int expectedReused)
+            throws Exception {
+        AssessmentFingerprints fingerprints = AssessmentFingerprints.read(outputDir);
+        RecommendationJson recJson = new RecommendationJson(rec, ENVIRONMENT, auList, fingerprints);
+        String json = GsonUtil.getGson().toJson(recJson);
+        Files.write(new File(outputDir, "recommendations.json").toPath(), json.getBytes(StandardCharsets.UTF_8));
+        fingerprints.write(outputDir);
+        assertEquals(expectedReused, fingerprints.getReusedResults());
+        return json;
+    }
+
+    private Path writeFile(String name, String content) throws Exception {
+        Path file = tempDir.resolve("config").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static class TestAssessmentUnit implements AssessmentUnit {
+        private final String name;
+        private final JsonObject data = new JsonObject();
+        private final List<Path> configFiles;
+
+        TestAssessmentUnit(String name, Path configFile) {
+            this.name = name;
+            this.configFiles = Collections.singletonList(configFile);
+            data.addProperty("name", name);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public JsonObject getAssessmentData() {
+            return data;
+        }
+
+        @Override
+        public List<Path> getConfigFiles() {
+            return configFiles;
+        }
+
+        @Override
+        public List<ContentMask> getContentMasks() {
+            return Collections.emptyList();
+        }
+    }
+
+    private static class TestRecommendation implements Recommendation {
+        private final String fingerprint;
+        private int evaluated;
+        private final List<String> evaluatedNames = new ArrayList<>();
+
+        TestRecommendation(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public String getAssessmentName() {
+            return "Installation1";
+        }
+
+        @Override
+        public List<ComplexityContribution> getComplexityContributions() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<IssueCategory> getIssueCategories() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Target> getTargets() {
+            return Collections.singletonList(new Target() {
+                @Override
+                public String getProductName() {
+                    return "Sample";
+                }
+
+                @Override
+                public String getProductVersion() {
+                    return "1.0";
+                }
+
+                @Override
+                public String getRuntime() {
+                    return "";
+                }
+
+                @Override
+                public PlatformType getPlatform() {
+                    return PlatformType.Docker;
+                }
+
+                @Override
+                public LocationType getLocation() {
+                    return LocationType.Private;
+                }
+            });
+        }
+
+        @Override
+        public List<Issue> getIssues(Target target, AssessmentUnit assessmentUnit) {
+            evaluated++;
+            evaluatedNames.add(assessmentUnit.getName());
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getFingerprint() {
+            return fingerprint;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.collect;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputAssessmentUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void reportFilesAreNotConfigFilesTest() throws Exception {
+        Path auDir = tempDir.resolve("AU1");
+        writeFile(auDir.resolve("AU1.json"), "{\"name\": \"AU1\"}");
+        writeFile(auDir.resolve("opt/app/server.xml"), "<server/>");
+        writeFile(auDir.resolve("opt/app/recommendations.xml"), "<recommendations/>");
+        writeFile(auDir.resolve("recommendations_Private_Docker_IIB_11.0_ACE.html"), "<html/>");
+        writeFile(auDir.resolve("recommendations_Private_Docker_IIB_11.0_ACE_occurrences/issue1_0.json"), "[]");
+        writeFile(auDir.resolve("recommendations_Private_Docker_IIB_11.0_ACE_occurrences/issue2_0.json"), "[]");
+
+        OutputAssessmentUnit au = new OutputAssessmentUnit(auDir.toFile(), null);
+        assertEquals(Arrays.asList(auDir.resolve("opt/app/recommendations.xml"), auDir.resolve("opt/app/server.xml")),
+                au.getConfigFiles());
+        assertEquals("AU1", au.getAssessmentData().get("name").getAsString());
+    }
+
+    private static void writeFile(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
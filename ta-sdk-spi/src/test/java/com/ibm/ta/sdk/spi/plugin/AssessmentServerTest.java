@@ -0,0 +1,130 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.plugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssessmentServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AssessmentServer server;
+    private String token;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = new AssessmentServer(0, 1, tempDir);
+        server.start();
+        token = AssessmentServer.readToken(tempDir, server.getAddress().getPort());
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void tokenFileTest() throws Exception {
+        Path tokenFile = AssessmentServer.getTokenFile(tempDir, server.getAddress().getPort());
+        assertEquals(tokenFile, server.getTokenFile());
+        assertEquals(64, token.length());
+        if (tempDir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+        }
+
+        server.close();
+        assertFalse(Files.exists(tokenFile));
+        assertThrows(TAException.class, () -> AssessmentServer.readToken(tempDir, server.getAddress().getPort()));
+    }
+
+    @Test
+    public void tokenRequiredTest() throws Exception {
+        assertEquals(200, send("GET", "/status", "localhost", token, null, null));
+        assertEquals(401, send("GET", "/status", "localhost", null, null, null));
+        assertEquals(401, send("GET", "/status", "localhost", token.substring(1) + "0", null, null));
+        assertEquals(401, send("POST", "/shutdown", "localhost", null, null, null));
+        assertEquals(401, send("POST", "/run", "localhost", null, "application/json", "{}"));
+    }
+
+    @Test
+    public void loopbackHostTest() throws Exception {
+        int port = server.getAddress().getPort();
+        assertEquals(200, send("GET", "/status", "127.0.0.1:" + port, token, null, null));
+        assertEquals(200, send("GET", "/status", "[::1]:" + port, token, null, null));
+        assertEquals(403, send("GET", "/status", "attacker.example.com:" + port, token, null, null));
+        assertEquals(403, send("GET", "/status", "localhost.example.com", token, null, null));
+        assertEquals(403, send("GET", "/status", "192.168.1.10", token, null, null));
+        assertEquals(403, send("GET", "/status", null, token, null, null));
+    }
+
+    @Test
+    public void jsonContentTypeTest() throws Exception {
+        assertEquals(415, send("POST", "/run", "localhost", token, "text/plain", "{}"));
+        assertEquals(415, send("POST", "/run", "localhost", token, "application/x-www-form-urlencoded", "{}"));
+        assertEquals(415, send("POST", "/run", "localhost", token, null, "{}"));
+        // The request is checked after its Content-Type, it has no command
+        assertEquals(400, send("POST", "/run", "localhost", token, "Application/JSON; charset=utf-8", "{}"));
+        assertEquals(405, send("GET", "/run", "localhost", token, null, null));
+    }
+
+    @Test
+    public void hostNameTest() {
+        assertTrue(AssessmentServer.isLoopbackHost("localhost"));
+        assertTrue(AssessmentServer.isLoopbackHost("LOCALHOST:7878"));
+        assertTrue(AssessmentServer.isLoopbackHost("127.0.0.1:7878"));
+        assertTrue(AssessmentServer.isLoopbackHost("[0:0:0:0:0:0:0:1]"));
+        assertFalse(AssessmentServer.isLoopbackHost("[::1]x"));
+        assertFalse(AssessmentServer.isLoopbackHost("127.0.0.1.example.com"));
+        assertFalse(AssessmentServer.isLoopbackHost(""));
+    }
+
+    // Sends a request with a raw socket, so that the Host header could be set, and returns the status
+    private int send(String method, String path, String host, String requestToken, String contentType, String body)
+            throws Exception {
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder request = new StringBuilder();
+        request.append(method).append(' ').append(path).append(" HTTP/1.1\r\n");
+        if (host != null) {
+            request.append("Host: ").append(host).append("\r\n");
+        }
+        if (requestToken != null) {
+            request.append("X-TA-Token: ").append(requestToken).append("\r\n");
+        }
+        if (contentType != null) {
+            request.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        request.append("Content-Length: ").append(content.length).append("\r\n");
+        request.append("Connection: close\r\n\r\n");
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String statusLine = in.readLine();
+            return Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.plugin;
+
+import com.ibm.ta.sdk.spi.collect.DataCollection;
+import com.ibm.ta.sdk.spi.recommendation.Recommendation;
+import com.ibm.ta.sdk.spi.report.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PluginRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void descriptorTest() throws Exception {
+        try (URLClassLoader classLoader = newPluginClassLoader()) {
+            PluginRegistry registry = new PluginRegistry(classLoader);
+            assertTrue(registry.getMiddlewares().contains(TestProvider.MIDDLEWARE));
+            assertNull(registry.newProvider("missing"));
+        }
+    }
+
+    @Test
+    public void onlyPassedValidationKeptTest() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        AtomicBoolean valid = new AtomicBoolean(false);
+        try (URLClassLoader classLoader = newPluginClassLoader()) {
+            PluginRegistry registry = new PluginRegistry(classLoader) {
+                @Override
+                boolean validateJsonFiles(PluginProvider provider) {
+                    validations.incrementAndGet();
+                    return valid.get();
+                }
+            };
+
+            // Files that failed validation are validated each time the provider is loaded
+            assertTrue(registry.newProvider(TestProvider.MIDDLEWARE) instanceof TestProvider);
+            registry.newProvider(TestProvider.MIDDLEWARE);
+            assertEquals(2, validations.get());
+
+            // Files that passed validation are not validated again
+            valid.set(true);
+            registry.newProvider(TestProvider.MIDDLEWARE);
+            registry.newProvider(TestProvider.MIDDLEWARE);
+            assertEquals(3, validations.get());
+        }
+    }
+
+    @Test
+    public void classLoaderNotKeptTest() throws Exception {
+        // The registry and its logger are initialized with the class loader of the test, and not the one to unload
+        PluginRegistry.getInstance();
+        WeakReference<ClassLoader> classLoaderRef = useRegistry();
+        for (int i = 0; i < 50 && classLoaderRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(classLoaderRef.get(), "Class loader is kept loaded by the plug-in registry");
+    }
+
+    // Gets the registry of a class loader, and returns the class loader, that is no longer used
+    private WeakReference<ClassLoader> useRegistry() throws Exception {
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{tempDir.toUri().toURL()},
+                PluginRegistryTest.class.getClassLoader());
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            PluginRegistry registry = PluginRegistry.getInstance();
+            assertSame(registry, PluginRegistry.getInstance());
+            assertNull(registry.newProvider("missing"));
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+        classLoader.close();
+        return new WeakReference<>(classLoader);
+    }
+
+    // Class loader with a descriptor for the test provider, the provider class is loaded from the test classpath
+    private URLClassLoader newPluginClassLoader() throws Exception {
+        Path descriptor = tempDir.resolve(PluginRegistry.PLUGIN_DESCRIPTOR);
+        Files.createDirectories(descriptor.getParent());
+        Files.write(descriptor, (TestProvider.MIDDLEWARE + "=" + TestProvider.class.getName() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        return new URLClassLoader(new URL[]{tempDir.toUri().toURL()}, PluginRegistryTest.class.getClassLoader());
+    }
+
+    public static class TestProvider implements PluginProvider {
+        static final String MIDDLEWARE = "registrytest";
+
+        @Override
+        public String getDomain() {
+            return "Test";
+        }
+
+        @Override
+        public String getMiddleware() {
+            return MIDDLEWARE;
+        }
+
+        @Override
+        public CliInputCommand getCollectCommand() {
+            return null;
+        }
+
+        @Override
+        public List<DataCollection> getCollection(CliInputCommand collectCommand) {
+            return null;
+        }
+
+        @Override
+        public CliInputCommand getAssessCommand() {
+            return null;
+        }
+
+        @Override
+        public List<Recommendation> getRecommendation(CliInputCommand assessCommand) {
+            return null;
+        }
+
+        @Override
+        public CliInputCommand getReportCommand() {
+            return null;
+        }
+
+        @Override
+        public List<Report> getReport(String assessmentName, CliInputCommand reportCommand) {
+            return null;
+        }
+    }
+}
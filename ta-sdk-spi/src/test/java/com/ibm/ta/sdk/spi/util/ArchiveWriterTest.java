@@ -0,0 +1,329 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveWriterTest {
+
+    private static final long MODIFIED = 1577836800000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void roundTripTest() throws Exception {
+        for (ArchiveOptions.Codec codec : ArchiveOptions.Codec.values()) {
+            Path dataDir = createData(tempDir.resolve("data-" + codec.getName()));
+            Path archive = tempDir.resolve("archive-" + codec.getName() + ".tar.gz");
+            ArchiveOptions options = new ArchiveOptions();
+            options.setCodec(codec);
+            // Small blocks, so that the large file is compressed in several parallel blocks
+            options.setBlockSize(16 * 1024);
+
+            new ArchiveWriter(archive, options).write(dataDir.toFile());
+
+            assertTrue(Files.isRegularFile(ArchiveIndex.getIndexFile(archive)));
+            Map<String, byte[]> expected = readFiles(dataDir);
+            assertEntries(expected, readTarGz(archive), codec.getName());
+            try (ArchiveReader reader = new ArchiveReader(archive)) {
+                assertTrue(reader.isIndexed());
+                assertEquals(Arrays.asList("AU1/", "AU1/empty.txt", "AU1/large.log", "AU1/server.xml", "environment.json"),
+                        reader.getEntryNames());
+                for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+                    assertArrayEquals(file.getValue(), reader.readEntry(file.getKey()), codec + " " + file.getKey());
+                }
+                assertThrows(NoSuchFileException.class, () -> reader.openEntry("missing.json"));
+            }
+        }
+    }
+
+    @Test
+    public void incrementalRewriteTest() throws Exception {
+        Path dataDir = createData(tempDir.resolve("data"));
+        Path archive = tempDir.resolve("archive.tar.gz");
+        new ArchiveWriter(archive).write(dataDir.toFile());
+
+        // Change one file, remove one file, and add one file, the others are unchanged
+        writeFile(dataDir.resolve("AU1/server.xml"), "<server>changed</server>");
+        Files.delete(dataDir.resolve("environment.json"));
+        writeFile(dataDir.resolve("AU1/added.json"), "{\"added\": true}");
+
+        ArchiveWriter writer = new ArchiveWriter(archive);
+        writer.write(dataDir.toFile());
+        // Only the unchanged large.log is copied, empty files and directories are written again
+        assertEquals(1, writer.getReusedEntries());
+
+        Map<String, byte[]> expected = readFiles(dataDir);
+        assertEntries(expected, readTarGz(archive), "rewrite");
+        try (ArchiveReader reader = new ArchiveReader(archive)) {
+            assertTrue(reader.isIndexed());
+            assertFalse(reader.hasEntry("environment.json"));
+            for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+                assertArrayEquals(file.getValue(), reader.readEntry(file.getKey()), file.getKey());
+            }
+        }
+    }
+
+    @Test
+    public void addPreviousEntriesTest() throws Exception {
+        Path dataDir = createData(tempDir.resolve("data"));
+        Path archive = tempDir.resolve("archive.tar.gz");
+        new ArchiveWriter(archive).write(dataDir.toFile());
+
+        byte[] report = "<html/>".getBytes(StandardCharsets.UTF_8);
+        try (ArchiveWriter writer = new ArchiveWriter(archive)) {
+            writer.open();
+            writer.addEntry("AU1/report.html", report, MODIFIED);
+            writer.addEntry("environment.json", "{}".getBytes(StandardCharsets.UTF_8), MODIFIED);
+            writer.addPreviousEntries();
+            writer.finish();
+            assertEquals(4, writer.getReusedEntries());
+        }
+
+        Map<String, byte[]> expected = readFiles(dataDir);
+        expected.put("AU1/report.html", report);
+        expected.put("environment.json", "{}".getBytes(StandardCharsets.UTF_8));
+        assertEntries(expected, readTarGz(archive), "update");
+    }
+
+    @Test
+    public void optionsChangedTest() throws Exception {
+        Path dataDir = createData(tempDir.resolve("data"));
+        writeFile(dataDir.resolve("AU1/app.zip"), "PK compressed application");
+        Path archive = tempDir.resolve("archive.tar.gz");
+        new ArchiveWriter(archive).write(dataDir.toFile());
+
+        // Members compressed with another level or codec are compressed again
+        ArchiveOptions options = new ArchiveOptions();
+        options.setLevel(1);
+        assertReused(archive, dataDir, options, 0);
+        assertReused(archive, dataDir, options, 4);
+        options.setCodec(ArchiveOptions.Codec.STORE);
+        assertReused(archive, dataDir, options, 0);
+        options.setCodec(ArchiveOptions.Codec.PARALLEL_GZIP);
+        assertReused(archive, dataDir, options, 0);
+        assertReused(archive, dataDir, options, 4);
+
+        // Only the compressed file is stored without compression, the other files are reused
+        options.setStoreCompressedFiles(true);
+        assertReused(archive, dataDir, options, 3);
+        try (ArchiveReader reader = new ArchiveReader(archive)) {
+            for (ArchiveIndex.Entry entry : reader.getEntries()) {
+                assertEquals("pgzip", entry.getCodec(), entry.getName());
+                assertEquals(entry.getName().endsWith(".zip") ? 0 : 1, entry.getLevel(), entry.getName());
+            }
+        }
+    }
+
+    @Test
+    public void addPreviousEntriesOptionsChangedTest() throws Exception {
+        Path dataDir = createData(tempDir.resolve("data"));
+        Path archive = tempDir.resolve("archive.tar.gz");
+        new ArchiveWriter(archive).write(dataDir.toFile());
+        long lastModified = Files.getLastModifiedTime(dataDir.resolve("AU1/large.log")).toMillis();
+
+        ArchiveOptions options = new ArchiveOptions();
+        options.setCodec(ArchiveOptions.Codec.STORE);
+        try (ArchiveWriter writer = new ArchiveWriter(archive, options)) {
+            writer.open();
+            writer.addEntry("environment.json", "{}".getBytes(StandardCharsets.UTF_8), MODIFIED);
+            writer.addPreviousEntries();
+            writer.finish();
+            assertEquals(0, writer.getReusedEntries());
+        }
+
+        Map<String, byte[]> expected = readFiles(dataDir);
+        expected.put("environment.json", "{}".getBytes(StandardCharsets.UTF_8));
+        assertEntries(expected, readTarGz(archive), "store");
+        try (ArchiveReader reader = new ArchiveReader(archive)) {
+            for (ArchiveIndex.Entry entry : reader.getEntries()) {
+                assertEquals("store", entry.getCodec(), entry.getName());
+                assertEquals(0, entry.getLevel(), entry.getName());
+                if (entry.getName().equals("AU1/large.log")) {
+                    assertEquals(lastModified, entry.getLastModified());
+                }
+            }
+        }
+
+        // The entries compressed again are reused with the same options
+        try (ArchiveWriter writer = new ArchiveWriter(archive, options)) {
+            writer.open();
+            writer.addPreviousEntries();
+            writer.finish();
+            assertEquals(5, writer.getReusedEntries());
+        }
+    }
+
+    @Test
+    public void addEntryFromFileTest() throws Exception {
+        Path content = tempDir.resolve("masked.tmp");
+        writeFile(content, "password=*****");
+        Path archive = tempDir.resolve("archive.tar.gz");
+        try (ArchiveWriter writer = new ArchiveWriter(archive)) {
+            writer.open();
+            writer.addParentDirectories("AU1/server.xml", MODIFIED);
+            writer.addEntry("AU1/server.xml", content, MODIFIED);
+            writer.finish();
+        }
+
+        Map<String, byte[]> expected = new LinkedHashMap<>();
+        expected.put("AU1/server.xml", Files.readAllBytes(content));
+        assertEntries(expected, readTarGz(archive), "from file");
+        try (ArchiveReader reader = new ArchiveReader(archive)) {
+            assertEquals(MODIFIED, reader.getEntries().get(1).getLastModified());
+        }
+    }
+
+    @Test
+    public void missingIndexTest() throws Exception {
+        Path dataDir = createData(tempDir.resolve("data"));
+        Path archive = tempDir.resolve("archive.tar.gz");
+        new ArchiveWriter(archive).write(dataDir.toFile());
+        Files.delete(ArchiveIndex.getIndexFile(archive));
+
+        assertReadSequentially(archive, readFiles(dataDir));
+
+        // Without an index nothing is reused, and a new index is written
+        ArchiveWriter writer = new ArchiveWriter(archive);
+        writer.write(dataDir.toFile());
+        assertEquals(0, writer.getReusedEntries());
+        assertNotNull(ArchiveIndex.read(archive));
+    }
+
+    @Test
+    public void corruptIndexTest() throws Exception {
+        Path dataDir = createData(tempDir.resolve("data"));
+        Path archive = tempDir.resolve("archive.tar.gz");
+        new ArchiveWriter(archive).write(dataDir.toFile());
+        Path indexFile = ArchiveIndex.getIndexFile(archive);
+
+        writeFile(indexFile, "{\"version\": 2, \"entries\": [");
+        assertNull(ArchiveIndex.read(archive));
+        assertReadSequentially(archive, readFiles(dataDir));
+
+        ArchiveWriter writer = new ArchiveWriter(archive);
+        writer.write(dataDir.toFile());
+        assertEquals(0, writer.getReusedEntries());
+        assertEntries(readFiles(dataDir), readTarGz(archive), "corrupt index");
+    }
+
+    @Test
+    public void staleIndexTest() throws Exception {
+        Path dataDir = createData(tempDir.resolve("data"));
+        Path archive = tempDir.resolve("archive.tar.gz");
+        new ArchiveWriter(archive).write(dataDir.toFile());
+        assertNotNull(ArchiveIndex.read(archive));
+
+        // The archive is replaced by another archive, the index of the previous archive must not be used
+        Path otherDir = tempDir.resolve("other");
+        writeFile(otherDir.resolve("other.txt"), "other");
+        Path otherArchive = tempDir.resolve("other.tar.gz");
+        new ArchiveWriter(otherArchive).write(otherDir.toFile());
+        Files.copy(otherArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+
+        assertNull(ArchiveIndex.read(archive));
+        try (ArchiveReader reader = new ArchiveReader(archive)) {
+            assertFalse(reader.isIndexed());
+            assertEquals("other", new String(reader.readEntry("other.txt"), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void assertReused(Path archive, Path dataDir, ArchiveOptions options, int reusedEntries)
+            throws IOException {
+        ArchiveWriter writer = new ArchiveWriter(archive, options);
+        writer.write(dataDir.toFile());
+        assertEquals(reusedEntries, writer.getReusedEntries(), options.getCodec() + " " + options.getLevel());
+        assertEntries(readFiles(dataDir), readTarGz(archive), options.getCodec() + " " + options.getLevel());
+    }
+
+    private static void assertReadSequentially(Path archive, Map<String, byte[]> expected) throws IOException {
+        try (ArchiveReader reader = new ArchiveReader(archive)) {
+            assertFalse(reader.isIndexed());
+            assertTrue(reader.getEntries().isEmpty());
+            assertTrue(reader.hasEntry("AU1/large.log"));
+            for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+                assertArrayEquals(file.getValue(), reader.readEntry(file.getKey()), file.getKey());
+            }
+        }
+    }
+
+    private static void assertEntries(Map<String, byte[]> expected, Map<String, byte[]> actual, String message) {
+        assertEquals(expected.keySet(), actual.keySet(), message);
+        for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+            assertArrayEquals(file.getValue(), actual.get(file.getKey()), message + " " + file.getKey());
+        }
+    }
+
+    private static Path createData(Path dataDir) throws IOException {
+        writeFile(dataDir.resolve("environment.json"), "{\"hostName\": \"host1\"}");
+        writeFile(dataDir.resolve("AU1/server.xml"), "<server><dataSource jndiName=\"jdbc/db\"/></server>");
+        writeFile(dataDir.resolve("AU1/empty.txt"), "");
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            log.append("INFO line ").append(i).append(" com.ibm.ws.app.manager started\n");
+        }
+        writeFile(dataDir.resolve("AU1/large.log"), log.toString());
+        return dataDir;
+    }
+
+    private static void writeFile(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(MODIFIED + content.length() * 1000L));
+    }
+
+    // Regular files under dir, by entry name
+    private static Map<String, byte[]> readFiles(Path dir) throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        List<Path> paths;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            paths = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            files.put(dir.relativize(path).toString().replace('\\', '/'), Files.readAllBytes(path));
+        }
+        return files;
+    }
+
+    // Reads the regular files of an archive with a plain tar.gz reader, without the index
+    private static Map<String, byte[]> readTarGz(Path archive) throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(
+                new BufferedInputStream(Files.newInputStream(archive)), true))) {
+            TarArchiveEntry entry;
+            while ((entry = tarIn.getNextTarEntry()) != null) {
+                if (entry.isFile()) {
+                    files.put(entry.getName(), IOUtils.toByteArray(tarIn));
+                }
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void storeTest() throws Exception {
+        BlobStore store = new BlobStore(tempDir.resolve(BlobStore.BLOB_DIR));
+        Path file = writeFile(tempDir.resolve("server.xml"), "<server/>");
+
+        Path blobFile = store.store(file);
+        String hash = HashUtil.toHex(HashUtil.getDigest().digest("<server/>".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(tempDir.resolve(BlobStore.BLOB_DIR).resolve(hash.substring(0, 2)).resolve(hash), blobFile);
+        assertEquals("<server/>", readFile(blobFile));
+        assertEquals(1, store.getBlobsStored());
+        assertEquals(0, store.getBlobsReused());
+        assertEquals(9, store.getBytesStored());
+
+        // Content written to the store is stored under the same hash
+        Path writtenBlobFile = store.store(out -> out.write("<server/>".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(blobFile, writtenBlobFile);
+        assertEquals(1, store.getBlobsStored());
+        assertEquals(1, store.getBlobsReused());
+        assertEquals(1, getBlobFiles().size());
+    }
+
+    @Test
+    public void reuseTest() throws Exception {
+        BlobStore store = new BlobStore(tempDir.resolve(BlobStore.BLOB_DIR));
+        Path file1 = writeFile(tempDir.resolve("au1/server.xml"), "<server/>");
+        Path file2 = writeFile(tempDir.resolve("au2/server.xml"), "<server/>");
+        Path file3 = writeFile(tempDir.resolve("au3/server.xml"), "<server id=\"3\"/>");
+
+        Path blobFile1 = store.store(file1);
+        Path blobFile2 = store.store(file2);
+        Path blobFile3 = store.store(file3);
+        assertEquals(blobFile1, blobFile2);
+        assertNotEquals(blobFile1, blobFile3);
+        assertEquals(2, store.getBlobsStored());
+        assertEquals(1, store.getBlobsReused());
+        assertEquals(9 + 16, store.getBytesStored());
+        assertEquals(2, getBlobFiles().size());
+
+        // A store on the same directory reuses the files stored before
+        BlobStore newStore = new BlobStore(tempDir.resolve(BlobStore.BLOB_DIR));
+        assertEquals(blobFile3, newStore.store(file3));
+        assertEquals(0, newStore.getBlobsStored());
+        assertEquals(1, newStore.getBlobsReused());
+    }
+
+    @Test
+    public void linkTest() throws Exception {
+        BlobStore store = new BlobStore(tempDir.resolve(BlobStore.BLOB_DIR));
+        Path blobFile = store.store(writeFile(tempDir.resolve("source/server.xml"), "<server/>"));
+
+        Path dest1 = tempDir.resolve("au1/server.xml");
+        Path dest2 = writeFile(tempDir.resolve("au2/server.xml"), "<server id=\"old\"/>");
+        Files.createDirectories(dest1.getParent());
+        store.link(blobFile, dest1);
+        store.link(blobFile, dest2);
+
+        assertEquals("<server/>", readFile(dest1));
+        assertEquals("<server/>", readFile(dest2));
+        assertTrue(Files.isSameFile(blobFile, dest1));
+        assertTrue(Files.isSameFile(blobFile, dest2));
+        assertEquals(3, Files.getAttribute(blobFile, "unix:nlink"));
+    }
+
+    @Test
+    public void concurrentStoreTest() throws Exception {
+        BlobStore store = new BlobStore(tempDir.resolve(BlobStore.BLOB_DIR));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Path file = writeFile(tempDir.resolve("au" + i + "/server.xml"), "<server/>");
+                Callable<Path> task = () -> {
+                    start.await();
+                    return store.store(file);
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+
+            Set<Path> blobFiles = new HashSet<>();
+            for (Future<Path> result : results) {
+                blobFiles.add(result.get());
+            }
+            assertEquals(1, blobFiles.size());
+            assertEquals("<server/>", readFile(blobFiles.iterator().next()));
+        } finally {
+            executor.shutdown();
+        }
+
+        // Every file is either stored or reused, one file is in the store and no temp files are left
+        assertEquals(threads, store.getBlobsStored() + store.getBlobsReused());
+        assertTrue(store.getBlobsStored() >= 1);
+        assertEquals(1, getBlobFiles().size());
+        try (Stream<Path> tmpFiles = Files.list(tempDir.resolve(BlobStore.BLOB_DIR).resolve("tmp"))) {
+            assertEquals(0, tmpFiles.count());
+        }
+    }
+
+    @Test
+    public void pruneTest() throws Exception {
+        BlobStore store = new BlobStore(tempDir.resolve(BlobStore.BLOB_DIR));
+        assertEquals(0, store.prune());
+
+        Path dest = tempDir.resolve("au1/server.xml");
+        Files.createDirectories(dest.getParent());
+        Path oldBlobFile = store.store(writeFile(tempDir.resolve("source/server.xml"), "<server/>"));
+        store.link(oldBlobFile, dest);
+        assertEquals(0, store.prune());
+        assertTrue(Files.exists(oldBlobFile));
+
+        // The assessment unit is collected again with other content, the old file is no longer linked
+        Path newBlobFile = store.store(writeFile(tempDir.resolve("source/server.xml"), "<server id=\"new\"/>"));
+        store.link(newBlobFile, dest);
+        assertEquals(1, store.prune());
+        assertFalse(Files.exists(oldBlobFile));
+        assertTrue(Files.exists(newBlobFile));
+        assertEquals("<server id=\"new\"/>", readFile(dest));
+        assertEquals(1, getBlobFiles().size());
+    }
+
+    private List<Path> getBlobFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir.resolve(BlobStore.BLOB_DIR))) {
+            return files.filter(f -> Files.isRegularFile(f) && !f.getParent().getFileName().toString().equals("tmp"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path writeFile(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String readFile(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
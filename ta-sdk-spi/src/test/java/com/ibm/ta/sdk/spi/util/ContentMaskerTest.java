@@ -0,0 +1,50 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentMaskerTest {
+
+    @Test
+    public void allFilesPatternTest() {
+        ContentMask allFiles = new FilesMask(Collections.singletonList("*"));
+        ContentMask jsonFiles = new FilesMask(Collections.singletonList(".*\\.json"));
+        ContentMasker masker = new ContentMasker(Arrays.asList(allFiles, jsonFiles));
+
+        // '*' matches every file, the other file names are regular expressions of the whole path
+        assertEquals(Arrays.asList(allFiles, jsonFiles), masker.getMasks("/opt/app/db.json"));
+        assertEquals(Collections.singletonList(allFiles), masker.getMasks("/opt/app/server.xml"));
+        assertEquals(Collections.singletonList(allFiles), masker.getMasks("/opt/app/db.json.bak"));
+        assertTrue(new ContentMasker(null).getMasks("/opt/app/db.json").isEmpty());
+    }
+
+    private static class FilesMask implements ContentMask {
+        private final List<String> files;
+
+        FilesMask(List<String> files) {
+            this.files = files;
+        }
+
+        @Override
+        public List<String> getFiles() {
+            return files;
+        }
+
+        @Override
+        public List<String> mask(List<String> content) {
+            return content;
+        }
+    }
+}
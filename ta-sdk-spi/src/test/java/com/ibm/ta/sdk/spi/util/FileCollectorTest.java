@@ -0,0 +1,147 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileCollectorTest {
+
+    private static final ContentMasker NO_MASKS = new ContentMasker(Collections.emptyList());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void directoryCollectedRecursivelyTest() throws Exception {
+        Path sourceDir = tempDir.resolve("source");
+        writeFile(sourceDir.resolve("server.xml"), "<server/>");
+        writeFile(sourceDir.resolve("apps/app1/app.xml"), "<application/>");
+        writeFile(sourceDir.resolve("apps/app1/db.json"), "{\"password\":\"secret\"}\n");
+        Files.createDirectories(sourceDir.resolve("apps/empty"));
+
+        Path destDir = tempDir.resolve("dest");
+        ContentMasker masker = new ContentMasker(Collections.singletonList(new PasswordMask()));
+        List<Path> destFiles;
+        try (FileCollector collector = new FileCollector(FileCollector.Mode.COPY)) {
+            destFiles = collector.collectDirectory(sourceDir, destDir, masker);
+            collector.await();
+            assertEquals(2, collector.getFilesCopied());
+            assertEquals(1, collector.getFilesMasked());
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList(destDir.resolve("server.xml"), destDir.resolve("apps/app1/app.xml"),
+                destDir.resolve("apps/app1/db.json"))), new HashSet<>(destFiles));
+        assertTrue(Files.isDirectory(destDir.resolve("apps/empty")));
+        assertEquals("<application/>", readFile(destDir.resolve("apps/app1/app.xml")));
+        assertEquals("{\"password\":\"" + ContentMask.MASK + "\"}\n", readFile(destDir.resolve("apps/app1/db.json")));
+    }
+
+    @Test
+    public void linkModeTest() throws Exception {
+        Path source = writeFile(tempDir.resolve("source/server.xml"), "<server/>");
+        Path masked = writeFile(tempDir.resolve("source/db.json"), "{\"password\":\"secret\"}\n");
+        Path destDir = Files.createDirectories(tempDir.resolve("dest"));
+        ContentMasker masker = new ContentMasker(Collections.singletonList(new PasswordMask()));
+
+        try (FileCollector collector = new FileCollector(FileCollector.Mode.LINK)) {
+            collector.collectFile(source, destDir.resolve("server.xml"), masker);
+            collector.collectFile(masked, destDir.resolve("db.json"), masker);
+            collector.await();
+            assertEquals(1, collector.getFilesLinked());
+            assertEquals(1, collector.getFilesMasked());
+            assertEquals(0, collector.getFilesCopied());
+        }
+
+        // Masked files are never linked, the source file must not be changed
+        assertTrue(Files.isSameFile(source, destDir.resolve("server.xml")));
+        assertFalse(Files.isSameFile(masked, destDir.resolve("db.json")));
+        assertEquals("{\"password\":\"secret\"}\n", readFile(masked));
+        assertEquals("{\"password\":\"" + ContentMask.MASK + "\"}\n", readFile(destDir.resolve("db.json")));
+    }
+
+    @Test
+    public void failedLinkCopiedTest() throws Exception {
+        List<Path> sources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sources.add(writeFile(tempDir.resolve("source/file" + i + ".txt"), "content " + i));
+        }
+        Path destDir = Files.createDirectories(tempDir.resolve("dest"));
+
+        // Links fail as they do across filesystems, the files are copied instead
+        AtomicInteger linkAttempts = new AtomicInteger();
+        try (FileCollector collector = new FileCollector(FileCollector.Mode.LINK) {
+            @Override
+            void createLink(Path link, Path existing) throws IOException {
+                linkAttempts.incrementAndGet();
+                throw new IOException("Invalid cross-device link");
+            }
+        }) {
+            for (Path source : sources) {
+                collector.collectFile(source, destDir.resolve(source.getFileName()), NO_MASKS);
+                collector.await();
+            }
+            assertEquals(0, collector.getFilesLinked());
+            assertEquals(3, collector.getFilesCopied());
+        }
+
+        // Linking is not attempted again once it failed
+        assertEquals(1, linkAttempts.get());
+        for (Path source : sources) {
+            Path dest = destDir.resolve(source.getFileName());
+            assertFalse(Files.isSameFile(source, dest));
+            assertEquals(readFile(source), readFile(dest));
+        }
+    }
+
+    private static Path writeFile(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readFile(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    // Masks the values of password fields in json files
+    private static class PasswordMask implements ContentMask {
+        @Override
+        public List<String> getFiles() {
+            return Collections.singletonList(".*\\.json");
+        }
+
+        @Override
+        public List<String> mask(List<String> content) {
+            return content.stream().map(this::maskLine).collect(Collectors.toList());
+        }
+
+        @Override
+        public boolean isLineMask() {
+            return true;
+        }
+
+        @Override
+        public String maskLine(String line) {
+            return line.replaceAll("(\"password\":\")[^\"]*(\")", "$1" + MASK + "$2");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final List<Integer> ITEMS = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+
+    @Test
+    public void orderTest() {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        List<List<Integer>> processed = new ArrayList<>();
+        Pipeline<Integer> pipeline = new Pipeline<>("test", 1);
+        for (int i = 0; i < 3; i++) {
+            List<Integer> stageItems = Collections.synchronizedList(new ArrayList<>());
+            processed.add(stageItems);
+            int stageIndex = i;
+            pipeline.addStage("stage" + i, item -> {
+                stageItems.add(item);
+                events.add(stageIndex + ":" + item);
+            });
+        }
+
+        assertTimeoutPreemptively(TIMEOUT, () -> pipeline.run(ITEMS));
+        for (List<Integer> stageItems : processed) {
+            assertEquals(ITEMS, stageItems);
+        }
+        // Each stage processes an item after the stage before it
+        for (Integer item : ITEMS) {
+            assertTrue(events.indexOf("0:" + item) < events.indexOf("1:" + item));
+            assertTrue(events.indexOf("1:" + item) < events.indexOf("2:" + item));
+        }
+
+        // The pipeline could be run again
+        processed.forEach(List::clear);
+        assertTimeoutPreemptively(TIMEOUT, () -> pipeline.run(ITEMS.subList(0, 3)));
+        assertEquals(ITEMS.subList(0, 3), processed.get(2));
+    }
+
+    @Test
+    public void stageFailureTest() {
+        IOException failure = new IOException("stage1 failed");
+        List<Integer> lastStageItems = Collections.synchronizedList(new ArrayList<>());
+        Pipeline<Integer> pipeline = new Pipeline<Integer>("test", 1)
+                .addStage("stage0", item -> { })
+                .addStage("stage1", item -> {
+                    if (item == 5) {
+                        throw failure;
+                    }
+                })
+                .addStage("stage2", lastStageItems::add);
+
+        IOException e = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(IOException.class, () -> pipeline.run(ITEMS)));
+        assertSame(failure, e);
+        // Items before the failed item could reach the last stage, in order, the failed item and later items never do
+        assertTrue(lastStageItems.size() <= 5);
+        assertEquals(ITEMS.subList(0, lastStageItems.size()), lastStageItems);
+    }
+
+    @Test
+    public void firstStageFailureTest() {
+        List<Integer> lastStageItems = Collections.synchronizedList(new ArrayList<>());
+        Pipeline<Integer> pipeline = new Pipeline<Integer>("test", 2)
+                .addStage("stage0", item -> {
+                    if (item == 3) {
+                        throw new TAException("stage0 failed");
+                    }
+                })
+                .addStage("stage1", lastStageItems::add);
+
+        TAException e = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(TAException.class, () -> pipeline.run(ITEMS)));
+        assertEquals("stage0 failed", e.getMessage());
+        assertFalse(lastStageItems.contains(3));
+    }
+
+    @Test
+    public void stageErrorTest() {
+        // An error in a stage thread stops the stages before it, that are waiting for space in its queue
+        Error error = new StackOverflowError("stage2 failed");
+        Pipeline<Integer> pipeline = new Pipeline<Integer>("test", 1)
+                .addStage("stage0", item -> { })
+                .addStage("stage1", item -> { })
+                .addStage("stage2", item -> {
+                    throw error;
+                });
+
+        Error e = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(StackOverflowError.class, () -> pipeline.run(ITEMS)));
+        assertSame(error, e);
+    }
+
+    @Test
+    public void noItemsTest() {
+        List<Integer> processed = new ArrayList<>();
+        Pipeline<Integer> pipeline = new Pipeline<Integer>("test", 1)
+                .addStage("stage0", processed::add)
+                .addStage("stage1", processed::add);
+        assertTimeoutPreemptively(TIMEOUT, () -> pipeline.run(Collections.emptyList()));
+        assertTrue(processed.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new Pipeline<Integer>("test", 0));
+    }
+}